@@ -0,0 +1,31 @@
+#!/bin/bash
+
+# run-benchmark.sh - Compiles and runs a benchmark
+# Usage: ./scripts/run-benchmark.sh [TransportBenchmark|ExecutorBenchmark|CodecBenchmark|QueueSimulator|StressHarness] [args...]
+# Defaults to TransportBenchmark
+
+# Compile first
+./scripts/compile.sh
+
+if [ $? -ne 0 ]; then
+    echo "Compilation failed. Exiting."
+    exit 1
+fi
+
+echo ""
+echo "╔════════════════════════════════════════╗"
+echo "║         Running Benchmark              ║"
+echo "╚════════════════════════════════════════╝"
+echo ""
+
+# Pick the benchmark class (first argument, if it names one)
+BENCHMARK=TransportBenchmark
+case "$1" in
+    *Benchmark|QueueSimulator|StressHarness)
+        BENCHMARK=$1
+        shift
+        ;;
+esac
+
+# Run the benchmark
+java -cp bin com.producerconsumer.$BENCHMARK "$@"
@@ -0,0 +1,205 @@
+package com.producerconsumer;
+
+import java.util.Objects;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * AimdThrottle paces a producer with additive-increase /
+ * multiplicative-decrease (AIMD), driven by a queue's watermark signals.
+ *
+ * <p>
+ * Register it on a {@link SharedQueue} with
+ * {@link SharedQueue#addWatermarkListener(int, int, WatermarkListener)} and
+ * hand it to a {@link Producer}. While the queue is below its high watermark
+ * the send rate grows linearly; each time the queue fills to the high
+ * watermark the rate is cut by a factor, and cut again every reaction time
+ * while it stays above the low watermark. The queue then settles between the
+ * two marks instead of swinging between full and empty.
+ * </p>
+ *
+ * <p>
+ * Key features:
+ * </p>
+ * <ul>
+ * <li>Rate in items per second, kept between a floor and a ceiling</li>
+ * <li>Smooth pacing: {@link #acquire()} spaces sends evenly at the current
+ * rate, without bursts after an idle spell</li>
+ * <li>One throttle may pace several producers that share a queue; they then
+ * share the rate</li>
+ * </ul>
+ *
+ * <p>
+ * Thread Safety:
+ * </p>
+ * This class is thread-safe. All state is guarded by the throttle's monitor;
+ * callers sleep outside it.
+ */
+public class AimdThrottle implements WatermarkListener {
+
+    private final double minRate;
+    private final double maxRate;
+    private final double additiveIncrease;
+    private final double decreaseFactor;
+    private final long reactionNanos;
+
+    private double rate;
+    private boolean congested = false;
+    private long lastUpdate;
+    private long lastDecrease;
+    private long nextSend;
+    private long decreases = 0;
+
+    /**
+     * Creates a new AimdThrottle.
+     *
+     * @param initialRate      Starting rate in items per second
+     * @param minRate          Lowest rate in items per second (must be
+     *                         positive)
+     * @param maxRate          Highest rate in items per second (must be at
+     *                         least minRate)
+     * @param additiveIncrease Items per second added for every second spent
+     *                         uncongested (must be positive)
+     * @param decreaseFactor   Rate multiplier applied on congestion (must be
+     *                         between 0 and 1, exclusive)
+     * @param reactionTime     How long to wait before cutting the rate again
+     *                         while still congested (must be positive); about
+     *                         the time consumers need to drain the queue from
+     *                         the high to the low watermark works well
+     * @param unit             Unit of reactionTime (must not be null)
+     * @throws NullPointerException     if unit is null
+     * @throws IllegalArgumentException if any rate or factor is out of range
+     */
+    public AimdThrottle(double initialRate, double minRate, double maxRate, double additiveIncrease,
+            double decreaseFactor, long reactionTime, TimeUnit unit) {
+        if (!(minRate > 0) || maxRate < minRate) {
+            throw new IllegalArgumentException(
+                    "Rates must satisfy 0 < min <= max, but were: min=" + minRate + ", max=" + maxRate);
+        }
+        if (!(additiveIncrease > 0)) {
+            throw new IllegalArgumentException(
+                    "Additive increase must be positive, but was: " + additiveIncrease);
+        }
+        if (!(decreaseFactor > 0 && decreaseFactor < 1)) {
+            throw new IllegalArgumentException(
+                    "Decrease factor must be between 0 and 1, but was: " + decreaseFactor);
+        }
+        Objects.requireNonNull(unit, "Time unit cannot be null");
+        if (reactionTime <= 0) {
+            throw new IllegalArgumentException(
+                    "Reaction time must be positive, but was: " + reactionTime);
+        }
+        this.minRate = minRate;
+        this.maxRate = maxRate;
+        this.additiveIncrease = additiveIncrease;
+        this.decreaseFactor = decreaseFactor;
+        this.reactionNanos = unit.toNanos(reactionTime);
+        this.rate = Math.max(minRate, Math.min(maxRate, initialRate));
+
+        long now = System.nanoTime();
+        this.lastUpdate = now;
+        this.lastDecrease = now;
+        this.nextSend = now;
+    }
+
+    /**
+     * Waits for the caller's next send slot at the current rate, updating the
+     * rate first.
+     *
+     * @throws InterruptedException if the thread is interrupted while waiting
+     */
+    public void acquire() throws InterruptedException {
+        long wait;
+        synchronized (this) {
+            long now = System.nanoTime();
+            adjust(now);
+            // An idle spell does not earn a burst of back-to-back sends
+            long slot = Math.max(nextSend, now);
+            nextSend = slot + (long) (1e9 / rate);
+            wait = slot - now;
+        }
+        if (wait > 0) {
+            TimeUnit.NANOSECONDS.sleep(wait);
+        }
+    }
+
+    /**
+     * Cuts the rate as the queue has filled to its high watermark.
+     *
+     * @param size Queue size when the signal was delivered
+     */
+    @Override
+    public synchronized void onHighWatermark(int size) {
+        long now = System.nanoTime();
+        adjust(now);
+        congested = true;
+        decrease(now);
+    }
+
+    /**
+     * Resumes growing the rate as the queue has drained to its low watermark.
+     *
+     * @param size Queue size when the signal was delivered
+     */
+    @Override
+    public synchronized void onLowWatermark(int size) {
+        adjust(System.nanoTime());
+        congested = false;
+    }
+
+    /**
+     * Returns the current send rate.
+     *
+     * @return Items per second
+     */
+    public synchronized double getRate() {
+        return rate;
+    }
+
+    /**
+     * Checks whether the last watermark signal was a high one.
+     *
+     * @return true if the rate is being held down
+     */
+    public synchronized boolean isCongested() {
+        return congested;
+    }
+
+    /**
+     * Returns how many times the rate has been cut.
+     *
+     * @return Total multiplicative decreases
+     */
+    public synchronized long getDecreases() {
+        return decreases;
+    }
+
+    @Override
+    public synchronized String toString() {
+        return "AimdThrottle{" +
+                "rate=" + String.format("%.1f", rate) +
+                ", congested=" + congested +
+                ", decreases=" + decreases +
+                '}';
+    }
+
+    /**
+     * Applies the additive increase for the time since the last update, or a
+     * further decrease if congestion has lasted a full reaction time.
+     */
+    private void adjust(long now) {
+        if (congested) {
+            if (now - lastDecrease >= reactionNanos) {
+                decrease(now);
+            }
+        } else {
+            rate = Math.min(maxRate, rate + additiveIncrease * (now - lastUpdate) / 1e9);
+        }
+        lastUpdate = now;
+    }
+
+    private void decrease(long now) {
+        rate = Math.max(minRate, rate * decreaseFactor);
+        lastDecrease = now;
+        decreases++;
+    }
+}
@@ -0,0 +1,256 @@
+package com.producerconsumer;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Logger;
+
+/**
+ * BatchConsumer is a worker thread that takes items from a shared queue in
+ * bulk and hands them to a {@link BatchHandler} as lists, so per-call costs
+ * downstream (a storage write, a network round trip) are paid once per batch
+ * instead of once per item.
+ *
+ * <p>
+ * A batch is flushed as soon as it holds {@code maxBatch} items, or once
+ * {@code lingerMs} have passed since its first item was taken, whichever comes
+ * first. While the queue is empty the consumer just waits; the linger clock
+ * only starts with the first item of a batch. A linger of 0 flushes whatever
+ * was available at once.
+ * </p>
+ *
+ * <p>
+ * Key features:
+ * </p>
+ * <ul>
+ * <li>Items are taken with {@link SharedQueue#drainTo(java.util.Collection,
+ * int, long, TimeUnit)}, one monitor acquisition per burst instead of per
+ * item</li>
+ * <li>Items already taken from the queue are always flushed, also when the
+ * queue closes or the thread is interrupted</li>
+ * <li>Batch-size and flush-latency metrics</li>
+ * </ul>
+ *
+ * <p>
+ * Thread Safety:
+ * </p>
+ * The metric getters may be called from any thread while the consumer runs.
+ */
+public class BatchConsumer extends Thread {
+    private static final Logger logger = Logger.getLogger(BatchConsumer.class.getName());
+
+    private final String consumerName;
+    private final SharedQueue<WorkItem> queue;
+    private final BatchHandler<WorkItem> handler;
+    private final int maxBatch;
+    private final long lingerNanos;
+
+    // Metrics, guarded by this object's monitor
+    private long batchesFlushed = 0;
+    private long itemsHandled = 0;
+    private long fullBatches = 0;
+    private int largestBatch = 0;
+    private long totalFlushNanos = 0;
+    private long maxFlushNanos = 0;
+
+    /**
+     * Creates a new BatchConsumer thread.
+     *
+     * @param name     Name of this consumer (for logging, must not be null)
+     * @param queue    Shared queue to take items from (must not be null)
+     * @param handler  Handler receiving the batches (must not be null)
+     * @param maxBatch Maximum items per batch (must be at least 1)
+     * @param lingerMs Maximum time the first item of a batch waits for more
+     *                 items (must be non-negative; 0 flushes at once)
+     * @throws NullPointerException     if name, queue, or handler is null
+     * @throws IllegalArgumentException if maxBatch or lingerMs is out of range
+     */
+    public BatchConsumer(String name, SharedQueue<WorkItem> queue, BatchHandler<WorkItem> handler,
+            int maxBatch, long lingerMs) {
+        this.consumerName = Objects.requireNonNull(name, "Consumer name cannot be null");
+        this.queue = Objects.requireNonNull(queue, "Shared queue cannot be null");
+        this.handler = Objects.requireNonNull(handler, "Batch handler cannot be null");
+        if (maxBatch < 1) {
+            throw new IllegalArgumentException(
+                    "Batch size must be at least 1, but was: " + maxBatch);
+        }
+        if (lingerMs < 0) {
+            throw new IllegalArgumentException(
+                    "Linger must be non-negative, but was: " + lingerMs);
+        }
+        this.maxBatch = maxBatch;
+        this.lingerNanos = TimeUnit.MILLISECONDS.toNanos(lingerMs);
+
+        setName(consumerName);
+    }
+
+    /**
+     * Main execution method for the consumer thread. Assembles and flushes
+     * batches until the queue is closed and drained.
+     *
+     * <p>
+     * On interruption the partial batch is still flushed, then the interrupt
+     * status is restored and the thread exits. A batch whose handler was
+     * interrupted is not flushed again.
+     * </p>
+     */
+    @Override
+    public void run() {
+        logger.info("[" + consumerName + "] Started");
+        QueueEvents.workerLifecycle("BatchConsumer", consumerName, QueueEvents.PHASE_START, 0);
+
+        List<WorkItem> batch = new ArrayList<>(maxBatch);
+        try {
+            // Wait as long as it takes for the first item of each batch
+            while (queue.drainTo(batch, maxBatch, Long.MAX_VALUE, TimeUnit.NANOSECONDS) > 0) {
+                long deadline = System.nanoTime() + lingerNanos;
+                while (batch.size() < maxBatch) {
+                    long remaining = Math.max(0, deadline - System.nanoTime());
+                    if (queue.drainTo(batch, maxBatch - batch.size(), remaining, TimeUnit.NANOSECONDS) <= 0) {
+                        break;
+                    }
+                }
+                // Detach the batch first: if the handler throws, it already
+                // has these items and the interrupt path must not flush them again
+                List<WorkItem> full = batch;
+                batch = new ArrayList<>(maxBatch);
+                flush(full);
+            }
+
+            logger.info(String.format("[%s] Finished - handled %d items in %d batches",
+                    consumerName, getItemsHandled(), getBatchesFlushed()));
+            QueueEvents.workerLifecycle("BatchConsumer", consumerName, QueueEvents.PHASE_FINISH,
+                    getItemsHandled());
+
+        } catch (InterruptedException e) {
+            logger.info("[" + consumerName + "] Interrupted");
+            try {
+                if (!batch.isEmpty()) {
+                    flush(batch);
+                }
+            } catch (Exception flushError) {
+                System.err.println("[" + consumerName + "] Error: " + flushError.getMessage());
+                flushError.printStackTrace();
+            }
+            QueueEvents.workerLifecycle("BatchConsumer", consumerName, QueueEvents.PHASE_INTERRUPT,
+                    getItemsHandled());
+            Thread.currentThread().interrupt();
+        } catch (Exception e) {
+            System.err.println("[" + consumerName + "] Error: " + e.getMessage());
+            e.printStackTrace();
+        }
+    }
+
+    /**
+     * Returns the number of batches handed to the handler.
+     *
+     * @return Batches flushed
+     */
+    public synchronized long getBatchesFlushed() {
+        return batchesFlushed;
+    }
+
+    /**
+     * Returns the number of items handed to the handler.
+     *
+     * @return Items handled
+     */
+    public synchronized long getItemsHandled() {
+        return itemsHandled;
+    }
+
+    /**
+     * Returns the number of batches flushed because they reached the maximum
+     * size; the rest were flushed by the linger time or by the queue closing.
+     *
+     * @return Full batches
+     */
+    public synchronized long getFullBatches() {
+        return fullBatches;
+    }
+
+    /**
+     * Returns the mean number of items per batch.
+     *
+     * @return Average batch size, or 0 before the first flush
+     */
+    public synchronized double getAverageBatchSize() {
+        return batchesFlushed == 0 ? 0 : (double) itemsHandled / batchesFlushed;
+    }
+
+    /**
+     * Returns the size of the largest batch flushed so far.
+     *
+     * @return Largest batch size
+     */
+    public synchronized int getLargestBatch() {
+        return largestBatch;
+    }
+
+    /**
+     * Returns the mean time the handler took per batch.
+     *
+     * @return Average flush latency in milliseconds, or 0 before the first
+     *         flush
+     */
+    public synchronized double getAverageFlushMillis() {
+        return batchesFlushed == 0 ? 0 : totalFlushNanos / 1e6 / batchesFlushed;
+    }
+
+    /**
+     * Returns the longest time the handler took for one batch.
+     *
+     * @return Maximum flush latency in milliseconds
+     */
+    public synchronized double getMaxFlushMillis() {
+        return maxFlushNanos / 1e6;
+    }
+
+    /**
+     * Prints batch statistics.
+     */
+    public synchronized void printStats() {
+        logger.info("\n=== Batch Consumer Statistics (" + consumerName + ") ===");
+        logger.info("Max batch: " + maxBatch);
+        logger.info("Linger: " + TimeUnit.NANOSECONDS.toMillis(lingerNanos) + " ms");
+        logger.info("Batches flushed: " + batchesFlushed);
+        logger.info("Full batches: " + fullBatches);
+        logger.info("Items handled: " + itemsHandled);
+        logger.info(String.format("Average batch size: %.1f", getAverageBatchSize()));
+        logger.info("Largest batch: " + largestBatch);
+        logger.info(String.format("Flush latency: avg %.3f ms, max %.3f ms",
+                getAverageFlushMillis(), getMaxFlushMillis()));
+    }
+
+    @Override
+    public synchronized String toString() {
+        return "BatchConsumer{" +
+                "name=" + consumerName +
+                ", batches=" + batchesFlushed +
+                ", items=" + itemsHandled +
+                ", avgBatch=" + String.format("%.1f", getAverageBatchSize()) +
+                '}';
+    }
+
+    /**
+     * Hands a batch to the handler and records its size and latency.
+     */
+    private void flush(List<WorkItem> batch) throws Exception {
+        int size = batch.size();
+        long start = System.nanoTime();
+        handler.handle(batch);
+        long elapsed = System.nanoTime() - start;
+
+        synchronized (this) {
+            batchesFlushed++;
+            itemsHandled += size;
+            if (size == maxBatch) {
+                fullBatches++;
+            }
+            largestBatch = Math.max(largestBatch, size);
+            totalFlushNanos += elapsed;
+            maxFlushNanos = Math.max(maxFlushNanos, elapsed);
+        }
+    }
+}
@@ -0,0 +1,27 @@
+package com.producerconsumer;
+
+import java.util.List;
+
+/**
+ * BatchHandler processes the item batches assembled by a
+ * {@link BatchConsumer}, typically by writing them to storage in one call.
+ *
+ * <p>
+ * Each call gets a fresh list that the handler may keep. Batches arrive in
+ * queue order and one at a time per consumer, so a handler used by a single
+ * consumer needs no synchronization of its own.
+ * </p>
+ *
+ * @param <T> Type of items in a batch
+ */
+public interface BatchHandler<T> {
+
+    /**
+     * Processes one batch.
+     *
+     * @param batch Items to process, in queue order (never empty)
+     * @throws Exception if the batch could not be processed; the consumer then
+     *                   stops
+     */
+    void handle(List<T> batch) throws Exception;
+}
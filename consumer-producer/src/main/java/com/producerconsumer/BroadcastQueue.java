@@ -0,0 +1,305 @@
+package com.producerconsumer;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.logging.Logger;
+
+/**
+ * BroadcastQueue is a bounded, blocking fan-out ring: every item put is
+ * delivered to every consumer group, instead of to exactly one consumer.
+ *
+ * <p>
+ * Items are stored once in a shared ring of slots. Each consumer group owns a
+ * sequence cursor into that ring and reads slots at its own pace; nothing is
+ * copied per group. A slot is only reused once every group has moved past it,
+ * so producers are gated by the slowest group.
+ * </p>
+ *
+ * <p>
+ * Key features:
+ * </p>
+ * <ul>
+ * <li>One write, many reads: audit, metrics and processing groups each see the
+ * full stream</li>
+ * <li>Several consumers may share a group; within a group each item goes to
+ * exactly one of them, as with {@link SharedQueue}</li>
+ * <li>Groups join at the current head and may leave at any time; leaving
+ * releases the slots the group was holding back</li>
+ * <li>Per-group lag metrics to spot the group that gates producers</li>
+ * <li>Same producer registration and closing semantics as
+ * {@link SharedQueue}</li>
+ * </ul>
+ *
+ * <p>
+ * With no groups attached, puts never block and items are discarded, as
+ * there is nobody to deliver them to.
+ * </p>
+ *
+ * <p>
+ * Thread Safety:
+ * </p>
+ * This class is thread-safe. All state is guarded by the queue's monitor.
+ *
+ * @param <T> Type of items stored in the queue (must not be null)
+ */
+public class BroadcastQueue<T> implements WorkSink<T> {
+    private static final Logger logger = Logger.getLogger(BroadcastQueue.class.getName());
+
+    private final Object[] slots;
+    private final Map<String, GroupHandle<T>> groups = new LinkedHashMap<>();
+
+    // Sequence of the next slot to write
+    private long writeSequence = 0;
+    // Every slot below this sequence has been read by all groups and cleared
+    private long releasedSequence = 0;
+    private int activeProducers = 0;
+    private boolean closed = false;
+
+    /**
+     * Creates a new BroadcastQueue.
+     *
+     * @param capacity Number of slots in the ring (must be at least 1)
+     * @throws IllegalArgumentException if capacity is less than 1
+     */
+    public BroadcastQueue(int capacity) {
+        if (capacity < 1) {
+            throw new IllegalArgumentException(
+                    "Queue capacity must be at least 1, but was: " + capacity);
+        }
+        this.slots = new Object[capacity];
+    }
+
+    /**
+     * Publishes an item to every consumer group.
+     * If the slowest group is a full ring behind, this method blocks until it
+     * catches up.
+     *
+     * @param item Item to publish (must not be null)
+     * @throws InterruptedException  if the thread is interrupted while waiting
+     * @throws NullPointerException  if item is null
+     * @throws IllegalStateException if the queue has been closed
+     */
+    @Override
+    public synchronized void put(T item) throws InterruptedException {
+        Objects.requireNonNull(item, "Cannot put null item into queue");
+
+        while (writeSequence - releasedSequence >= slots.length && !closed) {
+            waitSafely();
+        }
+
+        if (closed) {
+            throw new IllegalStateException("Cannot put items into a closed queue");
+        }
+
+        slots[index(writeSequence)] = item;
+        writeSequence++;
+        if (groups.isEmpty()) {
+            releaseSlots();
+        }
+        notifyAll();
+    }
+
+    /**
+     * Attaches a new consumer group. The group sees every item published from
+     * now on.
+     *
+     * @param groupName Unique name of the group (must not be null)
+     * @return Source the group's consumers pull items from
+     * @throws NullPointerException     if groupName is null
+     * @throws IllegalArgumentException if the name is already registered
+     */
+    public synchronized WorkSource<T> addGroup(String groupName) {
+        Objects.requireNonNull(groupName, "Group name cannot be null");
+        if (groups.containsKey(groupName)) {
+            throw new IllegalArgumentException("Group already registered: " + groupName);
+        }
+
+        GroupHandle<T> handle = new GroupHandle<>(this, groupName, writeSequence);
+        groups.put(groupName, handle);
+        return handle;
+    }
+
+    /**
+     * Detaches a consumer group. Its consumers see end of stream, and slots it
+     * had not yet read are released to producers.
+     *
+     * @param groupName Name passed to {@link #addGroup(String)}
+     */
+    public synchronized void removeGroup(String groupName) {
+        GroupHandle<T> handle = groups.remove(groupName);
+        if (handle == null) {
+            return;
+        }
+
+        handle.removed = true;
+        releaseSlots();
+        notifyAll();
+    }
+
+    /**
+     * Returns the number of slots in the ring.
+     *
+     * @return Queue capacity (always positive)
+     */
+    public int getCapacity() {
+        return slots.length;
+    }
+
+    /**
+     * Returns the number of slots still held by at least one group.
+     *
+     * @return Items the slowest group has not read yet (0 to capacity)
+     */
+    public synchronized int size() {
+        return (int) (writeSequence - releasedSequence);
+    }
+
+    /**
+     * Returns the total number of items published.
+     *
+     * @return Total items produced
+     */
+    public synchronized long getItemsProduced() {
+        return writeSequence;
+    }
+
+    /**
+     * Returns how many published items each group has not read yet.
+     *
+     * @return Group name to lag, in registration order
+     */
+    public synchronized Map<String, Long> getGroupLags() {
+        Map<String, Long> lags = new LinkedHashMap<>();
+        for (GroupHandle<T> group : groups.values()) {
+            lags.put(group.name, writeSequence - group.cursor);
+        }
+        return lags;
+    }
+
+    /**
+     * Prints statistics about queue usage.
+     */
+    public synchronized void printStats() {
+        logger.info("\n=== Broadcast Queue Statistics ===");
+        logger.info("Capacity: " + slots.length);
+        logger.info("Items produced: " + writeSequence);
+        logger.info("Current size: " + size());
+        logger.info("Group lags: " + getGroupLags());
+        logger.info("Closed: " + closed);
+    }
+
+    @Override
+    public synchronized String toString() {
+        return "BroadcastQueue{" +
+                "size=" + size() +
+                ", capacity=" + slots.length +
+                ", produced=" + writeSequence +
+                ", groups=" + groups.size() +
+                ", closed=" + closed +
+                '}';
+    }
+
+    @Override
+    public synchronized void registerProducer() {
+        if (closed) {
+            throw new IllegalStateException("Queue already closed");
+        }
+        activeProducers++;
+    }
+
+    @Override
+    public synchronized void producerDone() {
+        if (activeProducers == 0) {
+            return;
+        }
+
+        activeProducers--;
+        if (activeProducers == 0) {
+            closed = true;
+            notifyAll();
+        }
+    }
+
+    /**
+     * Reads the next item for a group, blocking until one is published.
+     */
+    private synchronized T take(GroupHandle<T> group) throws InterruptedException {
+        while (!group.removed && group.cursor == writeSequence && !closed) {
+            waitSafely();
+        }
+
+        if (group.removed || group.cursor == writeSequence) {
+            return null;
+        }
+
+        @SuppressWarnings("unchecked")
+        T item = (T) slots[index(group.cursor)];
+        group.cursor++;
+        if (releaseSlots()) {
+            notifyAll();
+        }
+        return item;
+    }
+
+    /**
+     * Clears slots every group has read so they can be collected and reused.
+     *
+     * @return true if any slot was released
+     */
+    private boolean releaseSlots() {
+        long minimum = writeSequence;
+        for (GroupHandle<T> group : groups.values()) {
+            minimum = Math.min(minimum, group.cursor);
+        }
+        if (minimum == releasedSequence) {
+            return false;
+        }
+
+        for (long sequence = releasedSequence; sequence < minimum; sequence++) {
+            slots[index(sequence)] = null;
+        }
+        releasedSequence = minimum;
+        return true;
+    }
+
+    private int index(long sequence) {
+        return (int) (sequence % slots.length);
+    }
+
+    private void waitSafely() throws InterruptedException {
+        try {
+            wait();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw e;
+        }
+    }
+
+    /**
+     * Per-group cursor handed out as the group's {@link WorkSource}. Guarded by
+     * the owning queue's monitor.
+     */
+    private static final class GroupHandle<T> implements WorkSource<T> {
+        private final BroadcastQueue<T> queue;
+        private final String name;
+        private long cursor;
+        private boolean removed = false;
+
+        private GroupHandle(BroadcastQueue<T> queue, String name, long cursor) {
+            this.queue = queue;
+            this.name = name;
+            this.cursor = cursor;
+        }
+
+        @Override
+        public T get() throws InterruptedException {
+            return queue.take(this);
+        }
+
+        @Override
+        public String toString() {
+            return "BroadcastQueue.GroupHandle{name=" + name + '}';
+        }
+    }
+}
@@ -0,0 +1,149 @@
+package com.producerconsumer;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * CodecBenchmark measures {@link WorkItemCodec} encode and decode cost per
+ * item, for batches into heap and direct buffers and for single items, next to
+ * the fixed-width layout the codec used before (int id, long timestamp, int
+ * length, {@code getBytes} data).
+ *
+ * <p>
+ * Every case encodes the whole data set back to back into one buffer and
+ * decodes it again, so encode and decode are timed separately. Each case runs
+ * a few warm-up iterations so the JIT has compiled the hot loops, then reports
+ * the best of several measured iterations. A checksum of the decoded ids is
+ * printed so the work cannot be optimised away.
+ * </p>
+ *
+ * <p>
+ * Usage: {@code java -cp bin com.producerconsumer.CodecBenchmark [items]
+ * [batchSize]} (or {@code ./scripts/run-benchmark.sh CodecBenchmark}).
+ * </p>
+ */
+public class CodecBenchmark {
+
+    private static final int WARMUP_ITERATIONS = 5;
+    private static final int MEASURED_ITERATIONS = 10;
+
+    private static long checksum = 0;
+
+    public static void main(String[] args) {
+        int items = args.length > 0 ? Integer.parseInt(args[0]) : 1_000_000;
+        int batchSize = args.length > 1 ? Integer.parseInt(args[1]) : 256;
+
+        List<List<WorkItem>> batches = new ArrayList<>();
+        long timestamp = System.currentTimeMillis();
+        for (int start = 0; start < items; start += batchSize) {
+            List<WorkItem> batch = new ArrayList<>(batchSize);
+            for (int id = start; id < Math.min(items, start + batchSize); id++) {
+                batch.add(new WorkItem(id, "Data-" + id, timestamp + id));
+            }
+            batches.add(batch);
+        }
+
+        int codecBytes = 0;
+        int legacyBytes = 0;
+        for (List<WorkItem> batch : batches) {
+            codecBytes += WorkItemCodec.encodedBatchSize(batch);
+            for (WorkItem item : batch) {
+                legacyBytes += legacySize(item);
+            }
+        }
+        System.out.println("Codec benchmark: " + items + " items, batches of " + batchSize + ", best of "
+                + MEASURED_ITERATIONS);
+        System.out.printf("Encoded size: %.1f bytes/item (legacy layout %.1f)%n",
+                (double) codecBytes / items, (double) legacyBytes / items);
+        System.out.println();
+        System.out.printf("%-28s %14s %14s%n", "Case", "encode ns/item", "decode ns/item");
+
+        // Single items carry a version byte each, so they need the most room
+        int bufferBytes = Math.max(legacyBytes, codecBytes + items);
+        ByteBuffer heap = ByteBuffer.allocate(bufferBytes);
+        ByteBuffer direct = ByteBuffer.allocateDirect(bufferBytes);
+        List<WorkItem> out = new ArrayList<>(batchSize);
+
+        runCase("batch, heap buffer", items, heap,
+                buffer -> batches.forEach(batch -> WorkItemCodec.encodeBatch(batch, buffer)),
+                buffer -> {
+                    while (buffer.hasRemaining()) {
+                        out.clear();
+                        WorkItemCodec.decodeBatch(buffer, out);
+                        checksum += out.get(out.size() - 1).getId();
+                    }
+                });
+        runCase("batch, direct buffer", items, direct,
+                buffer -> batches.forEach(batch -> WorkItemCodec.encodeBatch(batch, buffer)),
+                buffer -> {
+                    while (buffer.hasRemaining()) {
+                        out.clear();
+                        WorkItemCodec.decodeBatch(buffer, out);
+                        checksum += out.get(out.size() - 1).getId();
+                    }
+                });
+        runCase("single items, heap buffer", items, heap,
+                buffer -> batches.forEach(batch -> batch.forEach(item -> WorkItemCodec.encode(item, buffer))),
+                buffer -> {
+                    while (buffer.hasRemaining()) {
+                        checksum += WorkItemCodec.decode(buffer).getId();
+                    }
+                });
+        runCase("legacy layout, heap buffer", items, heap,
+                buffer -> batches.forEach(batch -> batch.forEach(item -> legacyEncode(item, buffer))),
+                buffer -> {
+                    while (buffer.hasRemaining()) {
+                        checksum += legacyDecode(buffer).getId();
+                    }
+                });
+
+        System.out.println();
+        System.out.println("(checksum " + checksum + ")");
+    }
+
+    private interface BufferTask {
+        void run(ByteBuffer buffer);
+    }
+
+    private static void runCase(String name, int items, ByteBuffer buffer, BufferTask encode, BufferTask decode) {
+        long bestEncode = Long.MAX_VALUE;
+        long bestDecode = Long.MAX_VALUE;
+        for (int i = 0; i < WARMUP_ITERATIONS + MEASURED_ITERATIONS; i++) {
+            buffer.clear();
+            long start = System.nanoTime();
+            encode.run(buffer);
+            long encoded = System.nanoTime();
+            buffer.flip();
+            decode.run(buffer);
+            long decoded = System.nanoTime();
+
+            if (i >= WARMUP_ITERATIONS) {
+                bestEncode = Math.min(bestEncode, encoded - start);
+                bestDecode = Math.min(bestDecode, decoded - encoded);
+            }
+        }
+        System.out.printf("%-28s %14.1f %14.1f%n", name, (double) bestEncode / items, (double) bestDecode / items);
+    }
+
+    private static int legacySize(WorkItem item) {
+        return Integer.BYTES + Long.BYTES + Integer.BYTES + item.getData().getBytes(StandardCharsets.UTF_8).length;
+    }
+
+    private static void legacyEncode(WorkItem item, ByteBuffer buffer) {
+        buffer.putInt(item.getId());
+        buffer.putLong(item.getTimestamp());
+        byte[] bytes = item.getData().getBytes(StandardCharsets.UTF_8);
+        buffer.putInt(bytes.length);
+        buffer.put(bytes);
+    }
+
+    private static WorkItem legacyDecode(ByteBuffer buffer) {
+        int id = buffer.getInt();
+        long timestamp = buffer.getLong();
+        byte[] bytes = new byte[buffer.getInt()];
+        buffer.get(bytes);
+        return new WorkItem(id, new String(bytes, StandardCharsets.UTF_8), timestamp);
+    }
+}
@@ -0,0 +1,241 @@
+package com.producerconsumer;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.function.Function;
+import java.util.logging.Logger;
+
+/**
+ * ConflatingQueue is a bounded, blocking queue that keeps at most one pending
+ * item per key. A newer item for a key that is already queued replaces the
+ * older one in place, keeping the original queue position.
+ *
+ * <p>
+ * Consumers therefore only ever see the latest value for each key, and the
+ * queue depth is bounded by the number of distinct pending keys instead of by
+ * how fast producers publish updates.
+ * </p>
+ *
+ * <p>
+ * Key features:
+ * </p>
+ * <ul>
+ * <li>Key index: a {@link LinkedHashMap} maps each key to its slot, so
+ * replacing a pending item is O(1) and does not move it to the back</li>
+ * <li>Capacity counts distinct keys; an update for a pending key never
+ * blocks</li>
+ * <li>Conflation counter reporting how many stale items were skipped</li>
+ * <li>Same blocking and closing semantics as {@link SharedQueue}</li>
+ * </ul>
+ *
+ * <p>
+ * Thread Safety:
+ * </p>
+ * This class is thread-safe. All public methods are synchronized.
+ *
+ * @param <T> Type of items stored in the queue (must not be null)
+ */
+public class ConflatingQueue<T> implements WorkSink<T>, WorkSource<T> {
+    private static final Logger logger = Logger.getLogger(ConflatingQueue.class.getName());
+
+    private final Function<? super T, ?> keyExtractor;
+    // Insertion-ordered: re-putting an existing key keeps its position
+    private final LinkedHashMap<Object, T> pending = new LinkedHashMap<>();
+    private final int capacity;
+
+    private long itemsProduced = 0;
+    private long itemsConsumed = 0;
+    private long itemsConflated = 0;
+    private int activeProducers = 0;
+    private boolean closed = false;
+
+    /**
+     * Creates a new ConflatingQueue.
+     *
+     * @param capacity     Maximum number of distinct keys pending at once (must
+     *                     be at least 1)
+     * @param keyExtractor Function returning the conflation key of an item (must
+     *                     not be null)
+     * @throws NullPointerException     if keyExtractor is null
+     * @throws IllegalArgumentException if capacity is less than 1
+     */
+    public ConflatingQueue(int capacity, Function<? super T, ?> keyExtractor) {
+        if (capacity < 1) {
+            throw new IllegalArgumentException(
+                    "Queue capacity must be at least 1, but was: " + capacity);
+        }
+        this.capacity = capacity;
+        this.keyExtractor = Objects.requireNonNull(keyExtractor, "Key extractor cannot be null");
+    }
+
+    /**
+     * Adds an item, replacing any pending item with the same key.
+     * If the key is new and the queue is full, this method blocks until space
+     * becomes available.
+     *
+     * @param item Item to add to the queue (must not be null)
+     * @throws InterruptedException  if the thread is interrupted while waiting
+     * @throws NullPointerException  if item is null
+     * @throws IllegalStateException if the queue has been closed
+     */
+    @Override
+    public synchronized void put(T item) throws InterruptedException {
+        Objects.requireNonNull(item, "Cannot put null item into queue");
+        Object key = keyExtractor.apply(item);
+
+        while (!pending.containsKey(key) && pending.size() >= capacity && !closed) {
+            waitSafely();
+        }
+
+        if (closed) {
+            throw new IllegalStateException("Cannot put items into a closed queue");
+        }
+
+        itemsProduced++;
+        if (pending.put(key, item) != null) {
+            // Replaced in place - no new item for consumers to wake up for
+            itemsConflated++;
+            return;
+        }
+        notifyAll();
+    }
+
+    /**
+     * Retrieves and removes the oldest pending key's latest item.
+     * If the queue is empty, this method blocks until an item becomes available.
+     *
+     * @return Latest item for the oldest pending key, or null if the queue is
+     *         closed and drained
+     * @throws InterruptedException if the thread is interrupted while waiting
+     */
+    @Override
+    public synchronized T get() throws InterruptedException {
+        while (pending.isEmpty() && !closed) {
+            waitSafely();
+        }
+
+        if (pending.isEmpty()) {
+            return null;
+        }
+
+        Iterator<Map.Entry<Object, T>> it = pending.entrySet().iterator();
+        T item = it.next().getValue();
+        it.remove();
+        itemsConsumed++;
+        notifyAll();
+        return item;
+    }
+
+    /**
+     * Returns the number of distinct keys currently pending.
+     *
+     * @return Current queue size (0 to capacity)
+     */
+    public synchronized int size() {
+        return pending.size();
+    }
+
+    /**
+     * Checks if the queue is empty.
+     *
+     * @return true if no items are pending
+     */
+    public synchronized boolean isEmpty() {
+        return pending.isEmpty();
+    }
+
+    /**
+     * Returns the maximum number of distinct pending keys.
+     *
+     * @return Queue capacity (always positive)
+     */
+    public int getCapacity() {
+        return capacity;
+    }
+
+    /**
+     * Returns the total number of items that have been put, including ones
+     * later replaced.
+     *
+     * @return Total items produced
+     */
+    public synchronized long getItemsProduced() {
+        return itemsProduced;
+    }
+
+    /**
+     * Returns the total number of items handed to consumers.
+     *
+     * @return Total items consumed
+     */
+    public synchronized long getItemsConsumed() {
+        return itemsConsumed;
+    }
+
+    /**
+     * Returns the number of items that were replaced by a newer item for the
+     * same key before any consumer saw them.
+     *
+     * @return Total items conflated
+     */
+    public synchronized long getItemsConflated() {
+        return itemsConflated;
+    }
+
+    /**
+     * Prints statistics about queue usage.
+     */
+    public synchronized void printStats() {
+        logger.info("\n=== Conflating Queue Statistics ===");
+        logger.info("Capacity (keys): " + capacity);
+        logger.info("Items produced: " + itemsProduced);
+        logger.info("Items conflated: " + itemsConflated);
+        logger.info("Items consumed: " + itemsConsumed);
+        logger.info("Current size: " + pending.size());
+        logger.info("Closed: " + closed);
+    }
+
+    @Override
+    public synchronized String toString() {
+        return "ConflatingQueue{" +
+                "size=" + pending.size() +
+                ", capacity=" + capacity +
+                ", produced=" + itemsProduced +
+                ", conflated=" + itemsConflated +
+                ", consumed=" + itemsConsumed +
+                ", closed=" + closed +
+                '}';
+    }
+
+    @Override
+    public synchronized void registerProducer() {
+        if (closed) {
+            throw new IllegalStateException("Queue already closed");
+        }
+        activeProducers++;
+    }
+
+    @Override
+    public synchronized void producerDone() {
+        if (activeProducers == 0) {
+            return;
+        }
+
+        activeProducers--;
+        if (activeProducers == 0) {
+            closed = true;
+            notifyAll();
+        }
+    }
+
+    private void waitSafely() throws InterruptedException {
+        try {
+            wait();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw e;
+        }
+    }
+}
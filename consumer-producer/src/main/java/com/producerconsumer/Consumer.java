@@ -6,6 +6,12 @@ import java.util.logging.Logger;
 /**
  * Consumer is a worker thread that retrieves items from a shared queue
  * and stores them in a destination container.
+ *
+ * <p>
+ * The destination may also be another queue (any {@link WorkSink}, such as a
+ * {@link ReorderBuffer}); the consumer then registers as one of its producers
+ * and signals done when it stops, so consumers can be chained into stages.
+ * </p>
  * 
  * <p>
  * The consumer will block if the queue is empty, demonstrating the
@@ -20,8 +26,8 @@ public class Consumer extends Thread {
     private static final Logger logger = Logger.getLogger(Consumer.class.getName());
 
     private final String consumerName;
-    private final SharedQueue<WorkItem> queue;
-    private final Container<WorkItem> destination;
+    private final WorkSource<WorkItem> queue;
+    private final WorkSink<WorkItem> destination;
     private final int itemsToConsume;
     private final long delayMs;
 
@@ -30,7 +36,8 @@ public class Consumer extends Thread {
      * 
      * @param name           Name of this consumer (for logging, must not be null)
      * @param queue          Shared queue to get items from (must not be null)
-     * @param destination    Container to store consumed items (must not be null)
+     * @param destination    Container or queue to store consumed items (must not
+     *                       be null)
      * @param itemsToConsume Number of items this consumer should consume (must be
      *                       non-negative)
      * @param delayMs        Delay in milliseconds between consuming items (must be
@@ -38,8 +45,8 @@ public class Consumer extends Thread {
      * @throws NullPointerException     if name, queue, or destination is null
      * @throws IllegalArgumentException if itemsToConsume or delayMs is negative
      */
-    public Consumer(String name, SharedQueue<WorkItem> queue,
-            Container<WorkItem> destination, int itemsToConsume, long delayMs) {
+    public Consumer(String name, WorkSource<WorkItem> queue,
+            WorkSink<WorkItem> destination, int itemsToConsume, long delayMs) {
         // Validate all our inputs upfront
         this.consumerName = Objects.requireNonNull(name, "Consumer name cannot be null");
         this.queue = Objects.requireNonNull(queue, "Shared queue cannot be null");
@@ -58,6 +65,7 @@ public class Consumer extends Thread {
                     "Delay must be non-negative, but was: " + delayMs);
         }
         this.delayMs = delayMs;
+        this.destination.registerProducer();
 
         // Set thread name for easier debugging
         setName(consumerName);
@@ -75,12 +83,13 @@ public class Consumer extends Thread {
     @Override
     public void run() {
         logger.info("[" + consumerName + "] Started");
+        QueueEvents.workerLifecycle("Consumer", consumerName, QueueEvents.PHASE_START, 0);
 
+        int consumed = 0;
         try {
-            int consumed = 0;
-
             if (itemsToConsume == 0) {
                 logger.info("[" + consumerName + "] No items to consume");
+                QueueEvents.workerLifecycle("Consumer", consumerName, QueueEvents.PHASE_FINISH, 0);
                 return;
             }
 
@@ -92,7 +101,7 @@ public class Consumer extends Thread {
                     break;
                 }
 
-                destination.add(item);
+                destination.put(item);
                 consumed++;
 
                 if (delayMs > 0) {
@@ -102,16 +111,20 @@ public class Consumer extends Thread {
 
             logger.info(String.format("[%s] Finished - consumed %d items",
                     consumerName, consumed));
+            QueueEvents.workerLifecycle("Consumer", consumerName, QueueEvents.PHASE_FINISH, consumed);
 
         } catch (InterruptedException e) {
             // We were interrupted - probably shutting down
             // Important: restore the interrupt flag for any code above us
             logger.info("[" + consumerName + "] Interrupted");
+            QueueEvents.workerLifecycle("Consumer", consumerName, QueueEvents.PHASE_INTERRUPT, consumed);
             Thread.currentThread().interrupt();
         } catch (Exception e) {
             // Something went wrong that we didn't expect
             System.err.println("[" + consumerName + "] Error: " + e.getMessage());
             e.printStackTrace();
+        } finally {
+            destination.producerDone();
         }
     }
 }
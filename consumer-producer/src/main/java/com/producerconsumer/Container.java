@@ -2,14 +2,20 @@ package com.producerconsumer;
 
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Objects;
 
 /**
  * Container is a thread-safe storage for items.
  * Used as both source (for producers) and destination (for consumers).
+ *
+ * <p>
+ * As a {@link WorkSink} it never blocks and never closes, so producer
+ * registration is a no-op.
+ * </p>
  * 
  * @param <T> Type of items stored in the container
  */
-public class Container<T> {
+public class Container<T> implements WorkSink<T> {
     private final List<T> items;
 
     /**
@@ -29,6 +35,27 @@ public class Container<T> {
         items.add(item);
     }
 
+    /**
+     * Adds an item to the container; same as {@link #add(Object)}.
+     *
+     * @param item Item to add (must not be null)
+     * @throws NullPointerException if item is null
+     */
+    @Override
+    public void put(T item) {
+        add(Objects.requireNonNull(item, "Cannot put null item into container"));
+    }
+
+    @Override
+    public void registerProducer() {
+        // A container has no end of stream to signal
+    }
+
+    @Override
+    public void producerDone() {
+        // A container has no end of stream to signal
+    }
+
     /**
      * Gets an item at the specified index.
      * This method is synchronized to ensure thread safety.
@@ -0,0 +1,102 @@
+package com.producerconsumer;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * ExecutorBenchmark submits the same batch of small tasks to
+ * {@link ThreadPoolExecutor} and to {@link QueueExecutor} over several of the
+ * project's queues, from several submitting threads, and reports tasks per
+ * second for each.
+ *
+ * <p>
+ * Usage: {@code java -cp bin com.producerconsumer.ExecutorBenchmark [tasks]
+ * [workers]} (or {@code ./scripts/run-benchmark.sh ExecutorBenchmark}).
+ * </p>
+ */
+public class ExecutorBenchmark {
+
+    private static final int SUBMITTERS = 4;
+    private static final int ROUNDS = 5;
+
+    public static void main(String[] args) throws Exception {
+        // Per-item INFO logging would dominate every measurement
+        Logger.getLogger("").setLevel(Level.WARNING);
+
+        int tasks = args.length > 0 ? Integer.parseInt(args[0]) : 1_000_000;
+        int workers = args.length > 1 ? Integer.parseInt(args[1]) : Runtime.getRuntime().availableProcessors();
+        System.out.println("Executor benchmark: " + tasks + " tasks, " + workers + " workers, "
+                + SUBMITTERS + " submitters, best of " + ROUNDS);
+        System.out.println();
+        System.out.printf("%-34s %14s%n", "Executor", "tasks/sec");
+
+        run("ThreadPoolExecutor (LinkedBQ)", tasks, () -> new ThreadPoolExecutor(workers, workers, 0,
+                TimeUnit.MILLISECONDS, new LinkedBlockingQueue<>(1024), ExecutorBenchmark::blockUntilQueued));
+        run("QueueExecutor (SharedQueue)", tasks,
+                () -> new QueueExecutor(new SharedQueue<Runnable>(1024), workers));
+        run("QueueExecutor (ShardedQueue)", tasks,
+                () -> new QueueExecutor(new ShardedQueue<Runnable>(workers, 1024 / workers + 1), workers));
+        run("QueueExecutor (HandoffQueue)", tasks,
+                () -> new QueueExecutor(new HandoffQueue<Runnable>(), workers));
+    }
+
+    private static void run(String name, int tasks, Supplier<ExecutorService> factory) throws Exception {
+        double best = 0;
+        for (int round = 0; round < ROUNDS; round++) {
+            ExecutorService executor = factory.get();
+            best = Math.max(best, measure(executor, tasks));
+            executor.shutdown();
+            executor.awaitTermination(1, TimeUnit.MINUTES);
+        }
+        System.out.printf("%-34s %,14.0f%n", name, best);
+    }
+
+    /**
+     * Submits {@code tasks} tiny tasks from several threads and waits until all
+     * have run.
+     *
+     * @return Tasks per second
+     */
+    private static double measure(ExecutorService executor, int tasks) throws InterruptedException {
+        CountDownLatch done = new CountDownLatch(tasks);
+        Runnable task = done::countDown;
+        int perSubmitter = tasks / SUBMITTERS;
+
+        Thread[] submitters = new Thread[SUBMITTERS];
+        long start = System.nanoTime();
+        for (int s = 0; s < SUBMITTERS; s++) {
+            int count = s == SUBMITTERS - 1 ? tasks - perSubmitter * (SUBMITTERS - 1) : perSubmitter;
+            submitters[s] = new Thread(() -> {
+                for (int i = 0; i < count; i++) {
+                    executor.execute(task);
+                }
+            });
+            submitters[s].start();
+        }
+        for (Thread submitter : submitters) {
+            submitter.join();
+        }
+        done.await();
+        return tasks / ((System.nanoTime() - start) / 1e9);
+    }
+
+    /**
+     * Makes ThreadPoolExecutor block submitters on a full queue, as
+     * {@link QueueExecutor} does by default, so both run the same workload.
+     */
+    private static void blockUntilQueued(Runnable task, ThreadPoolExecutor executor) {
+        try {
+            executor.getQueue().put(task);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RejectedExecutionException("Interrupted while queueing task", e);
+        }
+    }
+}
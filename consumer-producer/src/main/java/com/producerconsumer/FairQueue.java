@@ -0,0 +1,404 @@
+package com.producerconsumer;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.function.ToIntFunction;
+import java.util.logging.Logger;
+
+/**
+ * FairQueue is a bounded, blocking queue that shares its capacity and its
+ * consumers fairly between producers, so one flooding producer cannot make
+ * everyone else's items wait behind its backlog.
+ *
+ * <p>
+ * Each producer registers under an identity with
+ * {@link #registerProducer(String, int)} and gets its own FIFO lane. Consumers
+ * drain the lanes with deficit round-robin (DRR): on its turn a lane earns
+ * {@code quantum x weight} credit and is served while the cost of its head
+ * item fits in the credit. With unit cost this is weighted round-robin; with a
+ * cost function (bytes, estimated work) it is fair in that unit instead.
+ * </p>
+ *
+ * <p>
+ * Key features:
+ * </p>
+ * <ul>
+ * <li>Per-producer lanes keyed by the registered identity</li>
+ * <li>Weighted service: a lane with weight 3 gets three times the throughput
+ * of a weight-1 lane while both are backlogged</li>
+ * <li>Capacity shares: a lane may hold at most its weighted share of the
+ * total capacity, so a hot producer blocks on its own share while others can
+ * still enqueue</li>
+ * <li>Same blocking and closing semantics as {@link SharedQueue}: the queue
+ * closes once every registered producer is done</li>
+ * </ul>
+ *
+ * <p>
+ * Thread Safety:
+ * </p>
+ * This class is thread-safe. All state is guarded by the queue's monitor.
+ *
+ * @param <T> Type of items stored in the queue (must not be null)
+ */
+public class FairQueue<T> implements WorkSource<T> {
+    private static final Logger logger = Logger.getLogger(FairQueue.class.getName());
+
+    private final int capacity;
+    private final int quantum;
+    private final ToIntFunction<? super T> costFunction;
+
+    private final Map<String, Lane<T>> lanes = new LinkedHashMap<>();
+    // Lanes holding items, in round-robin order
+    private final List<Lane<T>> activeLanes = new ArrayList<>();
+    private int cursor = 0;
+    private int size = 0;
+    private int totalWeight = 0;
+    private int activeProducers = 0;
+    private boolean closed = false;
+
+    /**
+     * Creates a FairQueue where every item costs 1 and each unit of weight
+     * earns one item per round.
+     *
+     * @param capacity Maximum number of items across all lanes (must be at least
+     *                 1)
+     * @throws IllegalArgumentException if capacity is less than 1
+     */
+    public FairQueue(int capacity) {
+        this(capacity, 1, item -> 1);
+    }
+
+    /**
+     * Creates a new FairQueue.
+     *
+     * @param capacity     Maximum number of items across all lanes (must be at
+     *                     least 1)
+     * @param quantum      Credit earned per unit of weight per round (must be at
+     *                     least 1)
+     * @param costFunction Cost charged for an item (must not be null; results
+     *                     below 1 are treated as 1)
+     * @throws NullPointerException     if costFunction is null
+     * @throws IllegalArgumentException if capacity or quantum is less than 1
+     */
+    public FairQueue(int capacity, int quantum, ToIntFunction<? super T> costFunction) {
+        if (capacity < 1) {
+            throw new IllegalArgumentException(
+                    "Queue capacity must be at least 1, but was: " + capacity);
+        }
+        if (quantum < 1) {
+            throw new IllegalArgumentException(
+                    "Quantum must be at least 1, but was: " + quantum);
+        }
+        this.capacity = capacity;
+        this.quantum = quantum;
+        this.costFunction = Objects.requireNonNull(costFunction, "Cost function cannot be null");
+    }
+
+    /**
+     * Creates (or returns) the lane for a producer identity. Hand the returned
+     * sink to the {@link Producer}; its {@code registerProducer()} and
+     * {@code producerDone()} calls count towards closing this queue.
+     *
+     * @param producerId Identity of the producer (must not be null)
+     * @param weight     Share of service and capacity relative to other lanes
+     *                   (must be at least 1)
+     * @return Sink for this producer's items
+     * @throws NullPointerException     if producerId is null
+     * @throws IllegalArgumentException if weight is less than 1, or the lane
+     *                                  exists with a different weight
+     * @throws IllegalStateException    if the queue has been closed
+     */
+    public synchronized WorkSink<T> registerProducer(String producerId, int weight) {
+        Objects.requireNonNull(producerId, "Producer id cannot be null");
+        if (weight < 1) {
+            throw new IllegalArgumentException(
+                    "Weight must be at least 1, but was: " + weight);
+        }
+        if (closed) {
+            throw new IllegalStateException("Queue already closed");
+        }
+
+        Lane<T> lane = lanes.get(producerId);
+        if (lane != null) {
+            if (lane.weight != weight) {
+                throw new IllegalArgumentException("Producer " + producerId
+                        + " already registered with weight " + lane.weight);
+            }
+            return lane;
+        }
+
+        lane = new Lane<>(this, producerId, weight);
+        lanes.put(producerId, lane);
+        totalWeight += weight;
+        return lane;
+    }
+
+    /**
+     * Retrieves the next item in deficit round-robin order.
+     * If every lane is empty, this method blocks until an item becomes
+     * available.
+     *
+     * @return Next item, or null if the queue is closed and drained
+     * @throws InterruptedException if the thread is interrupted while waiting
+     */
+    @Override
+    public synchronized T get() throws InterruptedException {
+        while (size == 0 && !closed) {
+            waitSafely();
+        }
+
+        if (size == 0) {
+            return null;
+        }
+
+        while (true) {
+            if (cursor >= activeLanes.size()) {
+                cursor = 0;
+            }
+            Lane<T> lane = activeLanes.get(cursor);
+            if (!lane.inTurn) {
+                lane.deficit += (long) quantum * lane.weight;
+                lane.inTurn = true;
+            }
+
+            int cost = Math.max(1, costFunction.applyAsInt(lane.items.peek()));
+            if (cost > lane.deficit) {
+                // Credit used up for this round; carry the remainder over
+                lane.inTurn = false;
+                cursor++;
+                continue;
+            }
+
+            T item = lane.items.poll();
+            lane.deficit -= cost;
+            lane.served++;
+            size--;
+            if (lane.items.isEmpty()) {
+                // An idle lane may not bank credit
+                lane.deficit = 0;
+                lane.inTurn = false;
+                activeLanes.remove(cursor);
+                retireIfFinished(lane);
+            }
+            notifyAll();
+            return item;
+        }
+    }
+
+    /**
+     * Returns the number of items across all lanes.
+     *
+     * @return Current queue size (0 to capacity)
+     */
+    public synchronized int size() {
+        return size;
+    }
+
+    /**
+     * Checks if every lane is empty.
+     *
+     * @return true if the queue is empty
+     */
+    public synchronized boolean isEmpty() {
+        return size == 0;
+    }
+
+    /**
+     * Returns the maximum number of items across all lanes.
+     *
+     * @return Queue capacity (always positive)
+     */
+    public int getCapacity() {
+        return capacity;
+    }
+
+    /**
+     * Returns the most items a producer's lane may hold right now: its weighted
+     * share of the capacity, at least 1.
+     *
+     * @param producerId Identity passed to {@link #registerProducer(String, int)}
+     * @return Lane capacity share, or 0 if the producer has no lane
+     */
+    public synchronized int getShare(String producerId) {
+        Lane<T> lane = lanes.get(producerId);
+        return lane == null ? 0 : shareOf(lane);
+    }
+
+    /**
+     * Returns the number of queued items per producer lane.
+     *
+     * @return Producer id to lane size, in registration order
+     */
+    public synchronized Map<String, Integer> getLaneSizes() {
+        Map<String, Integer> sizes = new LinkedHashMap<>();
+        for (Lane<T> lane : lanes.values()) {
+            sizes.put(lane.id, lane.items.size());
+        }
+        return sizes;
+    }
+
+    /**
+     * Returns the number of items handed to consumers per producer lane.
+     *
+     * @return Producer id to items served, in registration order
+     */
+    public synchronized Map<String, Long> getServedCounts() {
+        Map<String, Long> served = new LinkedHashMap<>();
+        for (Lane<T> lane : lanes.values()) {
+            served.put(lane.id, lane.served);
+        }
+        return served;
+    }
+
+    /**
+     * Checks whether every registered producer has finished.
+     *
+     * @return true if the queue is closed
+     */
+    public synchronized boolean isClosed() {
+        return closed;
+    }
+
+    /**
+     * Prints statistics about queue usage.
+     */
+    public synchronized void printStats() {
+        logger.info("\n=== Fair Queue Statistics ===");
+        logger.info("Capacity: " + capacity);
+        logger.info("Current size: " + size);
+        logger.info("Lane sizes: " + getLaneSizes());
+        logger.info("Served: " + getServedCounts());
+        logger.info("Closed: " + closed);
+    }
+
+    @Override
+    public synchronized String toString() {
+        return "FairQueue{" +
+                "size=" + size +
+                ", capacity=" + capacity +
+                ", lanes=" + lanes.size() +
+                ", closed=" + closed +
+                '}';
+    }
+
+    private synchronized void put(Lane<T> lane, T item) throws InterruptedException {
+        Objects.requireNonNull(item, "Cannot put null item into queue");
+
+        while ((lane.items.size() >= shareOf(lane) || size >= capacity) && !closed) {
+            waitSafely();
+        }
+
+        if (closed || lane.retired) {
+            throw new IllegalStateException("Cannot put items into a closed queue");
+        }
+
+        if (lane.items.isEmpty()) {
+            if (activeLanes.isEmpty()) {
+                activeLanes.add(lane);
+                cursor = 0;
+            } else {
+                // Join the round just behind the lane being served
+                activeLanes.add(Math.min(cursor, activeLanes.size()), lane);
+                cursor++;
+            }
+        }
+        lane.items.add(item);
+        size++;
+        notifyAll();
+    }
+
+    private synchronized void registerLaneProducer(Lane<T> lane) {
+        if (closed || lane.retired) {
+            throw new IllegalStateException("Queue already closed");
+        }
+        lane.activeProducers++;
+        lane.registeredOnce = true;
+        activeProducers++;
+    }
+
+    private synchronized void laneProducerDone(Lane<T> lane) {
+        if (lane.activeProducers == 0) {
+            return;
+        }
+
+        lane.activeProducers--;
+        activeProducers--;
+        retireIfFinished(lane);
+        if (activeProducers == 0) {
+            closed = true;
+        }
+        notifyAll();
+    }
+
+    /**
+     * Drops a lane whose producers are done and whose items are drained, so its
+     * capacity share goes back to the others.
+     */
+    private void retireIfFinished(Lane<T> lane) {
+        if (lane.activeProducers == 0 && lane.registeredOnce && lane.items.isEmpty() && !lane.retired) {
+            lane.retired = true;
+            lanes.remove(lane.id);
+            totalWeight -= lane.weight;
+        }
+    }
+
+    private int shareOf(Lane<T> lane) {
+        return (int) Math.max(1, (long) capacity * lane.weight / Math.max(1, totalWeight));
+    }
+
+    private void waitSafely() throws InterruptedException {
+        try {
+            wait();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw e;
+        }
+    }
+
+    /**
+     * One producer identity's FIFO lane and DRR state. Guarded by the owning
+     * queue's monitor.
+     */
+    private static final class Lane<T> implements WorkSink<T> {
+        private final FairQueue<T> queue;
+        private final String id;
+        private final int weight;
+        private final ArrayDeque<T> items = new ArrayDeque<>();
+        private long deficit = 0;
+        private boolean inTurn = false;
+        private long served = 0;
+        private int activeProducers = 0;
+        private boolean registeredOnce = false;
+        private boolean retired = false;
+
+        private Lane(FairQueue<T> queue, String id, int weight) {
+            this.queue = queue;
+            this.id = id;
+            this.weight = weight;
+        }
+
+        @Override
+        public void put(T item) throws InterruptedException {
+            queue.put(this, item);
+        }
+
+        @Override
+        public void registerProducer() {
+            queue.registerLaneProducer(this);
+        }
+
+        @Override
+        public void producerDone() {
+            queue.laneProducerDone(this);
+        }
+
+        @Override
+        public String toString() {
+            return "FairQueue.Lane{id=" + id + ", weight=" + weight + '}';
+        }
+    }
+}
@@ -0,0 +1,400 @@
+package com.producerconsumer;
+
+import java.util.ArrayDeque;
+import java.util.Objects;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.locks.LockSupport;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.logging.Logger;
+
+/**
+ * HandoffQueue is a zero-capacity queue: every {@link #put(Object)} waits until
+ * a consumer has taken that exact item, like
+ * {@link java.util.concurrent.TransferQueue#transfer(Object)}. Nothing is ever
+ * buffered, so a producer that returns from {@code put} knows its item was
+ * consumed.
+ *
+ * <p>
+ * Waiting threads are kept in a dual queue: at any time it holds either only
+ * producers (each with its item) or only consumers (each waiting for one). An
+ * arriving thread of the opposite kind matches the head in FIFO order;
+ * otherwise it joins the tail and parks until matched.
+ * </p>
+ *
+ * <p>
+ * Key features:
+ * </p>
+ * <ul>
+ * <li>Direct handoff: items go from producer to consumer with no
+ * buffering</li>
+ * <li>Elimination backoff: when the dual queue's lock is contended, a thread
+ * first tries to meet a partner in a small array of exchange slots, so
+ * opposite operations cancel out without touching the lock</li>
+ * <li>Per-node parking: a match wakes exactly the partner thread</li>
+ * <li>Same producer registration and closing semantics as
+ * {@link SharedQueue}; waiting consumers receive null once the queue
+ * closes</li>
+ * </ul>
+ *
+ * <p>
+ * Thread Safety:
+ * </p>
+ * This class is thread-safe. The dual queue is guarded by a lock; exchange
+ * slots are claimed with CAS so each waiting node is matched exactly once.
+ *
+ * @param <T> Type of items transferred (must not be null)
+ */
+public class HandoffQueue<T> implements WorkSink<T>, WorkSource<T> {
+    private static final Logger logger = Logger.getLogger(HandoffQueue.class.getName());
+
+    private static final int ELIMINATION_SPINS = 256;
+
+    private final ReentrantLock lock = new ReentrantLock();
+    // Guarded by lock; all nodes share one mode (data or request)
+    private final ArrayDeque<Node<T>> waiters = new ArrayDeque<>();
+    private final AtomicReferenceArray<Node<T>> arena;
+
+    private final AtomicLong itemsTransferred = new AtomicLong(0);
+    private final AtomicLong eliminations = new AtomicLong(0);
+    private int activeProducers = 0;
+    private volatile boolean closed = false;
+
+    /**
+     * Creates a new HandoffQueue with an elimination arena sized for the
+     * available processors.
+     */
+    public HandoffQueue() {
+        int slots = Math.max(1, Math.min(8, Runtime.getRuntime().availableProcessors() / 2));
+        this.arena = new AtomicReferenceArray<>(slots);
+    }
+
+    /**
+     * Hands an item to a consumer, blocking until one has taken it.
+     *
+     * @param item Item to transfer (must not be null)
+     * @throws InterruptedException  if the thread is interrupted before a
+     *                               consumer took the item
+     * @throws NullPointerException  if item is null
+     * @throws IllegalStateException if the queue has been closed
+     */
+    @Override
+    public void put(T item) throws InterruptedException {
+        Objects.requireNonNull(item, "Cannot put null item into queue");
+        if (closed) {
+            throw new IllegalStateException("Cannot put items into a closed queue");
+        }
+        transfer(new Node<>(true, item), true);
+    }
+
+    /**
+     * Takes an item directly from a producer, blocking until one arrives.
+     *
+     * @return Transferred item, or null if the queue is closed and no producer
+     *         is waiting
+     * @throws InterruptedException if the thread is interrupted while waiting
+     */
+    @Override
+    public T get() throws InterruptedException {
+        return transfer(new Node<>(false, null), true);
+    }
+
+    /**
+     * Hands an item to a consumer only if one is already waiting.
+     *
+     * @param item Item to transfer (must not be null)
+     * @return true if a consumer took the item
+     * @throws NullPointerException  if item is null
+     * @throws IllegalStateException if the queue has been closed
+     */
+    public boolean offer(T item) {
+        Objects.requireNonNull(item, "Cannot put null item into queue");
+        if (closed) {
+            throw new IllegalStateException("Cannot put items into a closed queue");
+        }
+        try {
+            return transfer(new Node<>(true, item), false) != null;
+        } catch (InterruptedException e) {
+            throw new AssertionError("Non-waiting transfer cannot be interrupted", e);
+        }
+    }
+
+    /**
+     * Takes an item only if a producer is already waiting.
+     *
+     * @return Transferred item, or null if no producer is waiting
+     */
+    public T poll() {
+        try {
+            return transfer(new Node<>(false, null), false);
+        } catch (InterruptedException e) {
+            throw new AssertionError("Non-waiting transfer cannot be interrupted", e);
+        }
+    }
+
+    /**
+     * Returns the number of producers blocked in {@link #put(Object)}.
+     *
+     * @return Waiting producers
+     */
+    public int getWaitingProducers() {
+        return countWaiters(true);
+    }
+
+    /**
+     * Returns the number of consumers blocked in {@link #get()}.
+     *
+     * @return Waiting consumers
+     */
+    public int getWaitingConsumers() {
+        return countWaiters(false);
+    }
+
+    /**
+     * Returns the total number of items handed from a producer to a consumer.
+     *
+     * @return Total items transferred
+     */
+    public long getItemsTransferred() {
+        return itemsTransferred.get();
+    }
+
+    /**
+     * Returns how many transfers were completed in the elimination arena
+     * without taking the lock.
+     *
+     * @return Total eliminated transfers
+     */
+    public long getEliminations() {
+        return eliminations.get();
+    }
+
+    /**
+     * Checks whether the last registered producer has finished.
+     *
+     * @return true if the queue is closed
+     */
+    public boolean isClosed() {
+        return closed;
+    }
+
+    /**
+     * Prints statistics about queue usage.
+     */
+    public void printStats() {
+        logger.info("\n=== Handoff Queue Statistics ===");
+        logger.info("Items transferred: " + itemsTransferred.get());
+        logger.info("Eliminated transfers: " + eliminations.get());
+        logger.info("Waiting producers: " + getWaitingProducers());
+        logger.info("Waiting consumers: " + getWaitingConsumers());
+        logger.info("Closed: " + closed);
+    }
+
+    @Override
+    public String toString() {
+        return "HandoffQueue{" +
+                "transferred=" + itemsTransferred.get() +
+                ", eliminated=" + eliminations.get() +
+                ", waitingProducers=" + getWaitingProducers() +
+                ", waitingConsumers=" + getWaitingConsumers() +
+                ", closed=" + closed +
+                '}';
+    }
+
+    @Override
+    public void registerProducer() {
+        lock.lock();
+        try {
+            if (closed) {
+                throw new IllegalStateException("Queue already closed");
+            }
+            activeProducers++;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Marks a producer as completed. When the last producer finishes, the queue
+     * is closed and every waiting consumer receives null.
+     */
+    @Override
+    public void producerDone() {
+        ArrayDeque<Node<T>> released = new ArrayDeque<>();
+        lock.lock();
+        try {
+            if (activeProducers == 0) {
+                return;
+            }
+
+            activeProducers--;
+            if (activeProducers > 0) {
+                return;
+            }
+
+            closed = true;
+            // Waiting consumers will never be matched now
+            while (!waiters.isEmpty() && !waiters.peek().isData) {
+                released.add(waiters.poll());
+            }
+        } finally {
+            lock.unlock();
+        }
+
+        for (Node<T> node : released) {
+            node.complete(null);
+        }
+    }
+
+    /**
+     * Matches {@code node} with an opposite-mode partner, or (if {@code wait} is
+     * set) enqueues it and parks until one arrives.
+     *
+     * @return For consumers the item received; for producers the item handed
+     *         over; null if no match was made
+     */
+    private T transfer(Node<T> node, boolean wait) throws InterruptedException {
+        if (!lock.tryLock()) {
+            // Contended: try to meet a partner off-lock before queueing up
+            T eliminated = eliminate(node);
+            if (eliminated != null) {
+                return eliminated;
+            }
+            lock.lock();
+        }
+
+        Node<T> partner;
+        try {
+            partner = waiters.peek();
+            if (partner != null && partner.isData != node.isData) {
+                waiters.poll();
+            } else {
+                partner = null;
+                if (!node.isData && closed) {
+                    return null;
+                }
+                if (!wait) {
+                    return null;
+                }
+                waiters.add(node);
+            }
+        } finally {
+            lock.unlock();
+        }
+
+        if (partner != null) {
+            return fulfill(partner, node);
+        }
+        return awaitMatch(node);
+    }
+
+    /**
+     * Completes a waiting partner with the other side of the transfer.
+     */
+    private T fulfill(Node<T> partner, Node<T> self) {
+        T item = partner.isData ? partner.item : self.item;
+        partner.complete(item);
+        itemsTransferred.incrementAndGet();
+        return item;
+    }
+
+    /**
+     * Parks until the node is matched. On interruption the node is withdrawn,
+     * unless a partner has already taken it off the dual queue, in which case
+     * the transfer stands and only the interrupt status is kept.
+     */
+    private T awaitMatch(Node<T> node) throws InterruptedException {
+        while (!node.matched) {
+            LockSupport.park(this);
+            if (Thread.interrupted()) {
+                boolean withdrawn;
+                lock.lock();
+                try {
+                    withdrawn = waiters.remove(node);
+                } finally {
+                    lock.unlock();
+                }
+                if (withdrawn) {
+                    Thread.currentThread().interrupt();
+                    throw new InterruptedException("Interrupted while waiting for handoff");
+                }
+                // A partner polled the node and is about to complete it; throwing
+                // now would lose or repeat the item
+                while (!node.matched) {
+                    Thread.onSpinWait();
+                }
+                Thread.currentThread().interrupt();
+            }
+        }
+        return node.item;
+    }
+
+    /**
+     * Elimination backoff: visit one random exchange slot. An opposite-mode
+     * node there is matched immediately; an empty slot is occupied for a short
+     * spin in case a partner comes along.
+     *
+     * @return Transferred item, or null if no partner was met
+     */
+    private T eliminate(Node<T> node) {
+        int index = ThreadLocalRandom.current().nextInt(arena.length());
+        Node<T> other = arena.get(index);
+
+        if (other != null) {
+            if (other.isData != node.isData && arena.compareAndSet(index, other, null)) {
+                eliminations.incrementAndGet();
+                return fulfill(other, node);
+            }
+            return null;
+        }
+
+        if (!arena.compareAndSet(index, null, node)) {
+            return null;
+        }
+        for (int spin = 0; spin < ELIMINATION_SPINS && !node.matched; spin++) {
+            Thread.onSpinWait();
+        }
+        if (!node.matched && arena.compareAndSet(index, node, null)) {
+            return null;
+        }
+        // A partner claimed the slot; it completes the node right after the CAS
+        while (!node.matched) {
+            Thread.onSpinWait();
+        }
+        return node.item;
+    }
+
+    private int countWaiters(boolean isData) {
+        lock.lock();
+        try {
+            Node<T> head = waiters.peek();
+            return head != null && head.isData == isData ? waiters.size() : 0;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * A waiting producer (data node, carrying its item) or consumer (request
+     * node, receiving one). Completed exactly once by whoever removed it from
+     * the dual queue or the arena.
+     */
+    private static final class Node<T> {
+        private final boolean isData;
+        private final Thread waiter = Thread.currentThread();
+        private volatile T item;
+        private volatile boolean matched = false;
+
+        private Node(boolean isData, T item) {
+            this.isData = isData;
+            this.item = item;
+        }
+
+        private void complete(T value) {
+            item = value;
+            matched = true;
+            LockSupport.unpark(waiter);
+        }
+    }
+}
@@ -0,0 +1,360 @@
+package com.producerconsumer;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Objects;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * MappedRingQueue is a bounded queue of {@link WorkItem}s laid out in a
+ * memory-mapped file, so producers and a consumer in different JVMs on the same
+ * host can exchange items without any system call on the data path.
+ *
+ * <p>
+ * File layout (all fields native byte order):
+ * </p>
+ * <ul>
+ * <li>Header, one cache line per hot field: magic, version, slot count and slot
+ * size; the producer claim cursor; the consumer cursor; the active producer
+ * count and the closed flag</li>
+ * <li>{@code slots} fixed-size slots, each holding a {@code long} publish
+ * sequence, an {@code int} length and the item in {@link WorkItemCodec}
+ * form</li>
+ * </ul>
+ *
+ * <p>
+ * Producers claim a sequence with a CAS on the claim cursor (so several
+ * producers, in one or many processes, may share the ring), write the item, and
+ * publish it by storing {@code sequence + 1} into the slot with release
+ * semantics. The single consumer waits for that value with acquire semantics,
+ * decodes the item and releases the slot by advancing the consumer cursor. The
+ * cursors are accessed through {@link VarHandle} views of the mapped buffer,
+ * which gives the same ordering guarantees across processes as across threads.
+ * </p>
+ *
+ * <p>
+ * Waiting spins briefly, then yields, then parks for short intervals, so an
+ * idle side costs little CPU while a busy ring never leaves user space.
+ * </p>
+ *
+ * <p>
+ * Thread Safety:
+ * </p>
+ * Any number of producer threads or processes; exactly one consumer thread
+ * across all processes (SPSC/MPSC).
+ */
+public class MappedRingQueue implements WorkSink<WorkItem>, WorkSource<WorkItem>, Closeable {
+
+    private static final int MAGIC = 0x57524E47; // "WRNG"
+    private static final int VERSION = 2;
+
+    private static final int MAGIC_OFFSET = 0;
+    private static final int VERSION_OFFSET = 4;
+    private static final int SLOTS_OFFSET = 8;
+    private static final int SLOT_SIZE_OFFSET = 12;
+    private static final int CLAIM_OFFSET = 64;
+    private static final int CONSUMER_OFFSET = 128;
+    private static final int PRODUCERS_OFFSET = 192;
+    private static final int CLOSED_OFFSET = 196;
+    private static final int HEADER_BYTES = 256;
+
+    private static final int SLOT_HEADER_BYTES = Long.BYTES + Integer.BYTES;
+
+    private static final int SPIN_TRIES = 100;
+    private static final int YIELD_TRIES = 100;
+    private static final long PARK_NANOS = 50_000;
+
+    private static final VarHandle LONGS = MethodHandles.byteBufferViewVarHandle(long[].class,
+            ByteOrder.nativeOrder());
+    private static final VarHandle INTS = MethodHandles.byteBufferViewVarHandle(int[].class,
+            ByteOrder.nativeOrder());
+
+    private final FileChannel channel;
+    private final MappedByteBuffer buffer;
+    private final int slots;
+    private final int slotSize;
+    private final long mask;
+
+    /**
+     * Creates (or truncates) a ring file and maps it.
+     *
+     * @param file     Path of the ring file (must not be null)
+     * @param slots    Number of slots (must be a power of two, at least 2)
+     * @param slotSize Bytes per slot including its 12-byte header (must be a
+     *                 multiple of 8, at least 32)
+     * @return Mapped queue
+     * @throws IOException              if the file cannot be created or mapped
+     * @throws IllegalArgumentException if slots or slotSize is out of range, or
+     *                                  the ring would exceed 2 GB
+     */
+    public static MappedRingQueue create(Path file, int slots, int slotSize) throws IOException {
+        Objects.requireNonNull(file, "Ring file cannot be null");
+        if (slots < 2 || Integer.bitCount(slots) != 1) {
+            throw new IllegalArgumentException(
+                    "Slot count must be a power of two >= 2, but was: " + slots);
+        }
+        if (slotSize < 32 || slotSize % 8 != 0) {
+            throw new IllegalArgumentException(
+                    "Slot size must be a multiple of 8 and at least 32, but was: " + slotSize);
+        }
+
+        if (HEADER_BYTES + (long) slots * slotSize > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException(
+                    "Ring too large: " + slots + " slots of " + slotSize + " bytes");
+        }
+
+        FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.READ,
+                StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING);
+        try {
+            long size = HEADER_BYTES + (long) slots * slotSize;
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, size);
+            buffer.order(ByteOrder.nativeOrder());
+            buffer.putInt(SLOTS_OFFSET, slots);
+            buffer.putInt(SLOT_SIZE_OFFSET, slotSize);
+            buffer.putInt(VERSION_OFFSET, VERSION);
+            // Magic goes last so an attaching process never sees a half-written header
+            INTS.setRelease(buffer, MAGIC_OFFSET, MAGIC);
+            return new MappedRingQueue(channel, buffer);
+        } catch (IOException | RuntimeException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    /**
+     * Maps an existing ring file created by {@link #create(Path, int, int)},
+     * typically from another process.
+     *
+     * @param file Path of the ring file (must not be null)
+     * @return Mapped queue
+     * @throws IOException if the file cannot be mapped or is not a ring file
+     */
+    public static MappedRingQueue open(Path file) throws IOException {
+        Objects.requireNonNull(file, "Ring file cannot be null");
+        FileChannel channel = FileChannel.open(file, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        try {
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, channel.size());
+            buffer.order(ByteOrder.nativeOrder());
+            if (buffer.capacity() < HEADER_BYTES || (int) INTS.getAcquire(buffer, MAGIC_OFFSET) != MAGIC) {
+                throw new IOException("Not a ring file: " + file);
+            }
+            if (buffer.getInt(VERSION_OFFSET) != VERSION) {
+                throw new IOException("Unsupported ring version: " + buffer.getInt(VERSION_OFFSET));
+            }
+            return new MappedRingQueue(channel, buffer);
+        } catch (IOException | RuntimeException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    private MappedRingQueue(FileChannel channel, MappedByteBuffer buffer) {
+        this.channel = channel;
+        this.buffer = buffer;
+        this.slots = buffer.getInt(SLOTS_OFFSET);
+        this.slotSize = buffer.getInt(SLOT_SIZE_OFFSET);
+        this.mask = slots - 1;
+    }
+
+    /**
+     * Writes an item into the next free slot, waiting while the ring is full.
+     *
+     * @param item Item to add (must not be null)
+     * @throws InterruptedException     if the thread is interrupted while waiting
+     * @throws NullPointerException     if item is null
+     * @throws IllegalArgumentException if the encoded item does not fit in a slot
+     * @throws IllegalStateException    if the queue has been closed
+     */
+    @Override
+    public void put(WorkItem item) throws InterruptedException {
+        Objects.requireNonNull(item, "Cannot put null item into queue");
+        int length = WorkItemCodec.encodedSize(item);
+        if (length > slotSize - SLOT_HEADER_BYTES) {
+            throw new IllegalArgumentException("Encoded item of " + length
+                    + " bytes does not fit in a " + slotSize + "-byte slot");
+        }
+
+        long sequence;
+        int idle = 0;
+        while (true) {
+            if (isClosed()) {
+                throw new IllegalStateException("Cannot put items into a closed queue");
+            }
+            sequence = (long) LONGS.getVolatile(buffer, CLAIM_OFFSET);
+            long consumed = (long) LONGS.getAcquire(buffer, CONSUMER_OFFSET);
+            if (sequence - consumed >= slots) {
+                idle = backOff(idle);
+                continue;
+            }
+            if (LONGS.compareAndSet(buffer, CLAIM_OFFSET, sequence, sequence + 1)) {
+                break;
+            }
+        }
+
+        int offset = slotOffset(sequence);
+        buffer.putInt(offset + Long.BYTES, length);
+        WorkItemCodec.encode(item, buffer.slice(offset + SLOT_HEADER_BYTES, length).order(ByteOrder.BIG_ENDIAN));
+        LONGS.setRelease(buffer, offset, sequence + 1);
+    }
+
+    /**
+     * Takes the next item, waiting until one is published.
+     *
+     * @return Next item, or null once the queue is closed and drained
+     * @throws InterruptedException if the thread is interrupted while waiting
+     */
+    @Override
+    public WorkItem get() throws InterruptedException {
+        int idle = 0;
+        while (true) {
+            WorkItem item = poll();
+            if (item != null) {
+                return item;
+            }
+            if (isClosed() && isEmpty()) {
+                return null;
+            }
+            idle = backOff(idle);
+        }
+    }
+
+    /**
+     * Takes the next item if one has been published, without waiting.
+     *
+     * @return Next item, or null if none is ready
+     */
+    public WorkItem poll() {
+        long sequence = (long) LONGS.getVolatile(buffer, CONSUMER_OFFSET);
+        int offset = slotOffset(sequence);
+        if ((long) LONGS.getAcquire(buffer, offset) != sequence + 1) {
+            return null;
+        }
+
+        int length = buffer.getInt(offset + Long.BYTES);
+        WorkItem item = WorkItemCodec.decode(
+                buffer.slice(offset + SLOT_HEADER_BYTES, length).order(ByteOrder.BIG_ENDIAN));
+        LONGS.setRelease(buffer, CONSUMER_OFFSET, sequence + 1);
+        return item;
+    }
+
+    /**
+     * Returns the number of claimed but not yet consumed slots.
+     *
+     * @return Approximate queue size (0 to slot count)
+     */
+    public int size() {
+        long claimed = (long) LONGS.getVolatile(buffer, CLAIM_OFFSET);
+        long consumed = (long) LONGS.getVolatile(buffer, CONSUMER_OFFSET);
+        return (int) Math.max(0, claimed - consumed);
+    }
+
+    /**
+     * Checks if no slot is claimed or pending.
+     *
+     * @return true if the ring is empty
+     */
+    public boolean isEmpty() {
+        return size() == 0;
+    }
+
+    /**
+     * Returns the number of slots in the ring.
+     *
+     * @return Slot count
+     */
+    public int getCapacity() {
+        return slots;
+    }
+
+    /**
+     * Returns the largest encoded item a slot can hold.
+     *
+     * @return Maximum payload bytes
+     */
+    public int getMaxItemBytes() {
+        return slotSize - SLOT_HEADER_BYTES;
+    }
+
+    /**
+     * Checks whether the last registered producer, in any process, has finished.
+     *
+     * @return true if the queue is closed
+     */
+    public boolean isClosed() {
+        return (int) INTS.getAcquire(buffer, CLOSED_OFFSET) != 0;
+    }
+
+    @Override
+    public void registerProducer() {
+        if (isClosed()) {
+            throw new IllegalStateException("Queue already closed");
+        }
+        INTS.getAndAdd(buffer, PRODUCERS_OFFSET, 1);
+    }
+
+    @Override
+    public void producerDone() {
+        while (true) {
+            int active = (int) INTS.getVolatile(buffer, PRODUCERS_OFFSET);
+            if (active == 0) {
+                return;
+            }
+            if (INTS.compareAndSet(buffer, PRODUCERS_OFFSET, active, active - 1)) {
+                if (active == 1) {
+                    INTS.setRelease(buffer, CLOSED_OFFSET, 1);
+                }
+                return;
+            }
+        }
+    }
+
+    /**
+     * Unmaps nothing explicitly (the JVM releases the mapping when the buffer is
+     * collected) but closes the file channel. The ring file itself is left in
+     * place for other processes.
+     */
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+
+    @Override
+    public String toString() {
+        return "MappedRingQueue{" +
+                "size=" + size() +
+                ", capacity=" + slots +
+                ", slotSize=" + slotSize +
+                ", closed=" + isClosed() +
+                '}';
+    }
+
+    private int slotOffset(long sequence) {
+        return HEADER_BYTES + (int) (sequence & mask) * slotSize;
+    }
+
+    /**
+     * Spin, then yield, then park briefly. Returns the updated idle count.
+     */
+    private static int backOff(int idle) throws InterruptedException {
+        if (Thread.interrupted()) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedException("Interrupted while waiting on mapped ring");
+        }
+        if (idle < SPIN_TRIES) {
+            Thread.onSpinWait();
+        } else if (idle < SPIN_TRIES + YIELD_TRIES) {
+            Thread.yield();
+        } else {
+            LockSupport.parkNanos(PARK_NANOS);
+        }
+        return idle + 1;
+    }
+}
@@ -0,0 +1,37 @@
+package com.producerconsumer;
+
+/**
+ * OverflowPolicy decides what {@link SharedQueue#put(Object)} does when the
+ * queue is full.
+ *
+ * <p>
+ * Every policy other than {@link #BLOCK} returns immediately, so producers (and
+ * the thread pools feeding them) never back up behind a slow consumer. Each
+ * shedding policy has its own counter on the queue.
+ * </p>
+ */
+public enum OverflowPolicy {
+
+    /**
+     * Wait until a consumer frees a slot (the default).
+     */
+    BLOCK,
+
+    /**
+     * Throw {@link IllegalStateException} back to the producer. Counted by
+     * {@link SharedQueue#getItemsRejected()}.
+     */
+    REJECT,
+
+    /**
+     * Silently discard the item being put. Counted by
+     * {@link SharedQueue#getItemsDropped()}.
+     */
+    DROP_NEWEST,
+
+    /**
+     * Discard the item at the head of the queue to make room. Counted by
+     * {@link SharedQueue#getItemsEvicted()}.
+     */
+    DROP_OLDEST
+}
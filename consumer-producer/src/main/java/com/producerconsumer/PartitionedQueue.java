@@ -0,0 +1,468 @@
+package com.producerconsumer;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.function.Function;
+import java.util.logging.Logger;
+
+/**
+ * PartitionedQueue is a bounded, blocking queue that hashes items by key into
+ * a fixed number of partitions, each drained by exactly one consumer at a
+ * time.
+ *
+ * <p>
+ * Items with the same key always land in the same partition and partitions
+ * are FIFO, so per-key ordering is preserved while different keys are
+ * processed in parallel by different consumers. A plain {@link SharedQueue}
+ * only gives that ordering with a single consumer.
+ * </p>
+ *
+ * <p>
+ * Key features:
+ * </p>
+ * <ul>
+ * <li>Per-partition capacity (producers block only when their partition is
+ * full)</li>
+ * <li>Round-robin partition assignment, rebalanced when consumers are added
+ * or removed</li>
+ * <li>Ordered handoff: a partition moves to its new owner only once the old
+ * owner comes back for its next item, so an in-flight item is never overtaken
+ * by a later item with the same key</li>
+ * <li>Skew metrics: per-partition item counts and a max/mean skew ratio</li>
+ * <li>Same closing semantics as {@link SharedQueue} via
+ * {@link #registerProducer()} / {@link #producerDone()}</li>
+ * </ul>
+ *
+ * <p>
+ * Consumers attach with {@link #addConsumer(String)} and pull through the
+ * returned {@link WorkSource}, so a regular {@link Consumer} thread can be
+ * used unchanged.
+ * </p>
+ *
+ * <p>
+ * Thread Safety:
+ * </p>
+ * This class is thread-safe. All state is guarded by the queue's monitor.
+ *
+ * @param <T> Type of items stored in the queue (must not be null)
+ */
+public class PartitionedQueue<T> implements WorkSink<T> {
+    private static final Logger logger = Logger.getLogger(PartitionedQueue.class.getName());
+
+    private final Function<? super T, ?> keyExtractor;
+    private final Partition<T>[] partitions;
+    private final int partitionCapacity;
+
+    // Registration order drives the round-robin assignment
+    private final Map<String, ConsumerHandle<T>> consumers = new LinkedHashMap<>();
+    private int activeProducers = 0;
+    private boolean closed = false;
+
+    /**
+     * Creates a new PartitionedQueue.
+     *
+     * @param partitionCount    Number of partitions (must be at least 1)
+     * @param partitionCapacity Maximum number of items per partition (must be at
+     *                          least 1)
+     * @param keyExtractor      Function returning the ordering key of an item
+     *                          (must not be null)
+     * @throws NullPointerException     if keyExtractor is null
+     * @throws IllegalArgumentException if partitionCount or partitionCapacity is
+     *                                  less than 1
+     */
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    public PartitionedQueue(int partitionCount, int partitionCapacity,
+            Function<? super T, ?> keyExtractor) {
+        if (partitionCount < 1) {
+            throw new IllegalArgumentException(
+                    "Partition count must be at least 1, but was: " + partitionCount);
+        }
+        if (partitionCapacity < 1) {
+            throw new IllegalArgumentException(
+                    "Partition capacity must be at least 1, but was: " + partitionCapacity);
+        }
+        this.keyExtractor = Objects.requireNonNull(keyExtractor, "Key extractor cannot be null");
+        this.partitionCapacity = partitionCapacity;
+        this.partitions = new Partition[partitionCount];
+        for (int i = 0; i < partitionCount; i++) {
+            partitions[i] = new Partition<>();
+        }
+    }
+
+    /**
+     * Adds an item to the partition selected by its key.
+     * If that partition is full, this method blocks until space becomes
+     * available.
+     *
+     * @param item Item to add to the queue (must not be null)
+     * @throws InterruptedException  if the thread is interrupted while waiting
+     * @throws NullPointerException  if item is null
+     * @throws IllegalStateException if the queue has been closed
+     */
+    @Override
+    public void put(T item) throws InterruptedException {
+        Objects.requireNonNull(item, "Cannot put null item into queue");
+        Partition<T> partition = partitions[partitionFor(item)];
+
+        synchronized (this) {
+            while (partition.items.size() >= partitionCapacity && !closed) {
+                waitSafely();
+            }
+
+            if (closed) {
+                throw new IllegalStateException("Cannot put items into a closed queue");
+            }
+
+            partition.items.add(item);
+            partition.itemsProduced++;
+            notifyAll();
+        }
+    }
+
+    /**
+     * Returns the partition index an item hashes to.
+     *
+     * @param item Item to locate (must not be null)
+     * @return Partition index (0 to partition count - 1)
+     */
+    public int partitionFor(T item) {
+        Object key = keyExtractor.apply(item);
+        int h = Objects.hashCode(key);
+        // Spread high bits so keys that differ only above the partition mask still
+        // separate
+        h ^= (h >>> 16);
+        return Math.floorMod(h, partitions.length);
+    }
+
+    /**
+     * Attaches a new consumer and rebalances partitions across all consumers.
+     *
+     * @param consumerId Unique identifier of the consumer (must not be null)
+     * @return Source the consumer pulls its items from
+     * @throws NullPointerException     if consumerId is null
+     * @throws IllegalArgumentException if the id is already registered
+     */
+    public synchronized WorkSource<T> addConsumer(String consumerId) {
+        Objects.requireNonNull(consumerId, "Consumer id cannot be null");
+        if (consumers.containsKey(consumerId)) {
+            throw new IllegalArgumentException("Consumer already registered: " + consumerId);
+        }
+
+        ConsumerHandle<T> handle = new ConsumerHandle<>(this, consumerId);
+        consumers.put(consumerId, handle);
+        rebalance();
+        return handle;
+    }
+
+    /**
+     * Detaches a consumer. Its partitions are handed to the remaining consumers
+     * immediately, since a departed consumer has nothing in flight.
+     *
+     * @param consumerId Identifier passed to {@link #addConsumer(String)}
+     */
+    public synchronized void removeConsumer(String consumerId) {
+        ConsumerHandle<T> handle = consumers.remove(consumerId);
+        if (handle == null) {
+            return;
+        }
+
+        for (Partition<T> partition : partitions) {
+            if (partition.owner == handle) {
+                partition.owner = null;
+            }
+            if (partition.pendingOwner == handle) {
+                partition.pendingOwner = null;
+            }
+        }
+        rebalance();
+    }
+
+    /**
+     * Returns the number of partitions.
+     *
+     * @return Partition count (always positive)
+     */
+    public int getPartitionCount() {
+        return partitions.length;
+    }
+
+    /**
+     * Returns the maximum number of items a single partition can hold.
+     *
+     * @return Partition capacity (always positive)
+     */
+    public int getPartitionCapacity() {
+        return partitionCapacity;
+    }
+
+    /**
+     * Returns the current number of items across all partitions.
+     *
+     * @return Total queue size
+     */
+    public synchronized int size() {
+        int total = 0;
+        for (Partition<T> partition : partitions) {
+            total += partition.items.size();
+        }
+        return total;
+    }
+
+    /**
+     * Returns the current depth of every partition.
+     *
+     * @return Array of partition sizes, indexed by partition
+     */
+    public synchronized int[] getPartitionSizes() {
+        int[] sizes = new int[partitions.length];
+        for (int i = 0; i < partitions.length; i++) {
+            sizes[i] = partitions[i].items.size();
+        }
+        return sizes;
+    }
+
+    /**
+     * Returns the total number of items ever routed to each partition.
+     *
+     * @return Array of produced counts, indexed by partition
+     */
+    public synchronized long[] getPartitionItemCounts() {
+        long[] counts = new long[partitions.length];
+        for (int i = 0; i < partitions.length; i++) {
+            counts[i] = partitions[i].itemsProduced;
+        }
+        return counts;
+    }
+
+    /**
+     * Returns the ratio between the busiest partition's item count and the mean
+     * item count. 1.0 means perfectly even; N means a single partition took
+     * everything.
+     *
+     * @return Skew ratio, or 0.0 if no items have been produced yet
+     */
+    public synchronized double getSkewRatio() {
+        long max = 0;
+        long total = 0;
+        for (Partition<T> partition : partitions) {
+            max = Math.max(max, partition.itemsProduced);
+            total += partition.itemsProduced;
+        }
+        if (total == 0) {
+            return 0.0;
+        }
+        double mean = (double) total / partitions.length;
+        return max / mean;
+    }
+
+    /**
+     * Returns the current partition assignment of every consumer.
+     * Partitions still waiting for a handoff are listed under their current
+     * owner.
+     *
+     * @return Map from consumer id to owned partition indexes, in registration
+     *         order
+     */
+    public synchronized Map<String, List<Integer>> getAssignment() {
+        Map<String, List<Integer>> assignment = new LinkedHashMap<>();
+        for (String id : consumers.keySet()) {
+            assignment.put(id, new ArrayList<>());
+        }
+        for (int i = 0; i < partitions.length; i++) {
+            ConsumerHandle<T> owner = partitions[i].owner;
+            if (owner != null) {
+                assignment.get(owner.id).add(i);
+            }
+        }
+        return assignment;
+    }
+
+    /**
+     * Prints per-partition statistics, including skew.
+     */
+    public synchronized void printStats() {
+        logger.info("\n=== Partitioned Queue Statistics ===");
+        logger.info("Partitions: " + partitions.length + " x capacity " + partitionCapacity);
+        for (int i = 0; i < partitions.length; i++) {
+            Partition<T> partition = partitions[i];
+            logger.info(String.format("Partition %d: produced=%d, consumed=%d, size=%d, owner=%s",
+                    i, partition.itemsProduced, partition.itemsConsumed, partition.items.size(),
+                    partition.owner == null ? "-" : partition.owner.id));
+        }
+        logger.info(String.format("Skew ratio (max/mean): %.2f", getSkewRatio()));
+        logger.info("Closed: " + closed);
+    }
+
+    @Override
+    public synchronized String toString() {
+        return "PartitionedQueue{" +
+                "partitions=" + partitions.length +
+                ", partitionCapacity=" + partitionCapacity +
+                ", size=" + size() +
+                ", consumers=" + consumers.size() +
+                ", closed=" + closed +
+                '}';
+    }
+
+    @Override
+    public synchronized void registerProducer() {
+        if (closed) {
+            throw new IllegalStateException("Queue already closed");
+        }
+        activeProducers++;
+    }
+
+    @Override
+    public synchronized void producerDone() {
+        if (activeProducers == 0) {
+            return;
+        }
+
+        activeProducers--;
+        if (activeProducers == 0) {
+            closed = true;
+            notifyAll();
+        }
+    }
+
+    /**
+     * Takes the next item for a consumer from the partitions it owns.
+     */
+    private synchronized T take(ConsumerHandle<T> handle) throws InterruptedException {
+        while (true) {
+            if (!consumers.containsKey(handle.id)) {
+                throw new IllegalStateException("Consumer has been removed: " + handle.id);
+            }
+
+            // Calling back in means the previous item is done, so pending
+            // partitions can safely move on
+            releasePendingPartitions(handle);
+
+            T item = pollOwned(handle);
+            if (item != null) {
+                notifyAll();
+                return item;
+            }
+
+            if (closed && !hasIncomingItems(handle)) {
+                return null;
+            }
+            waitSafely();
+        }
+    }
+
+    /**
+     * Polls owned partitions starting after the last one served, so one busy key
+     * cannot starve the other partitions of the same consumer.
+     */
+    private T pollOwned(ConsumerHandle<T> handle) {
+        for (int i = 0; i < partitions.length; i++) {
+            int index = (handle.cursor + i) % partitions.length;
+            Partition<T> partition = partitions[index];
+            if (partition.owner == handle && !partition.items.isEmpty()) {
+                handle.cursor = (index + 1) % partitions.length;
+                partition.itemsConsumed++;
+                return partition.items.poll();
+            }
+        }
+        return null;
+    }
+
+    private boolean hasIncomingItems(ConsumerHandle<T> handle) {
+        for (Partition<T> partition : partitions) {
+            if ((partition.owner == handle || partition.pendingOwner == handle)
+                    && !partition.items.isEmpty()) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private void releasePendingPartitions(ConsumerHandle<T> handle) {
+        boolean released = false;
+        for (Partition<T> partition : partitions) {
+            if (partition.owner == handle && partition.pendingOwner != null) {
+                partition.owner = partition.pendingOwner;
+                partition.pendingOwner = null;
+                released = true;
+            }
+        }
+        if (released) {
+            notifyAll();
+        }
+    }
+
+    /**
+     * Spreads partitions round-robin across consumers in registration order.
+     * Unowned partitions move right away; owned ones are parked as pending until
+     * their current owner returns for its next item.
+     */
+    private void rebalance() {
+        List<ConsumerHandle<T>> ordered = new ArrayList<>(consumers.values());
+        for (int i = 0; i < partitions.length; i++) {
+            Partition<T> partition = partitions[i];
+            ConsumerHandle<T> target = ordered.isEmpty() ? null : ordered.get(i % ordered.size());
+
+            if (partition.owner == null) {
+                partition.owner = target;
+                partition.pendingOwner = null;
+            } else if (partition.owner == target) {
+                partition.pendingOwner = null;
+            } else {
+                partition.pendingOwner = target;
+            }
+        }
+
+        logger.info("Rebalanced " + partitions.length + " partitions across "
+                + ordered.size() + " consumers");
+        notifyAll();
+    }
+
+    private void waitSafely() throws InterruptedException {
+        try {
+            wait();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw e;
+        }
+    }
+
+    /**
+     * A single FIFO partition and its ownership state.
+     */
+    private static final class Partition<T> {
+        private final ArrayDeque<T> items = new ArrayDeque<>();
+        private ConsumerHandle<T> owner;
+        private ConsumerHandle<T> pendingOwner;
+        private long itemsProduced;
+        private long itemsConsumed;
+    }
+
+    /**
+     * The view a single consumer pulls from.
+     */
+    private static final class ConsumerHandle<T> implements WorkSource<T> {
+        private final PartitionedQueue<T> queue;
+        private final String id;
+        private int cursor;
+
+        private ConsumerHandle(PartitionedQueue<T> queue, String id) {
+            this.queue = queue;
+            this.id = id;
+        }
+
+        @Override
+        public T get() throws InterruptedException {
+            return queue.take(this);
+        }
+
+        @Override
+        public String toString() {
+            return "PartitionedQueue.ConsumerHandle{id=" + id + '}';
+        }
+    }
+}
@@ -11,6 +11,12 @@ import java.util.logging.Logger;
  * The producer will block if the queue is full, demonstrating the
  * blocking behavior of the producer-consumer pattern.
  * </p>
+ *
+ * <p>
+ * Instead of a fixed delay, a producer can be paced by an
+ * {@link AimdThrottle} that reacts to the queue's watermarks, so it speeds up
+ * while consumers keep up and backs off as the queue fills.
+ * </p>
  * 
  * <p>
  * This class properly handles thread interruption and validates all inputs.
@@ -21,8 +27,9 @@ public class Producer extends Thread {
 
     private final String producerName;
     private final Container<WorkItem> source;
-    private final SharedQueue<WorkItem> queue;
+    private final WorkSink<WorkItem> queue;
     private final long delayMs;
+    private final AimdThrottle throttle;
 
     /**
      * Creates a new Producer thread.
@@ -36,7 +43,7 @@ public class Producer extends Thread {
      * @throws IllegalArgumentException if delayMs is negative
      */
     public Producer(String name, Container<WorkItem> source,
-            SharedQueue<WorkItem> queue, long delayMs) {
+            WorkSink<WorkItem> queue, long delayMs) {
         // Make sure all our dependencies are valid
         // Using Objects.requireNonNull gives us clear error messages if something's
         // wrong
@@ -51,11 +58,36 @@ public class Producer extends Thread {
                     "Delay must be non-negative, but was: " + delayMs);
         }
         this.delayMs = delayMs;
+        this.throttle = null;
 
         // Set the thread name - makes debugging much easier
         setName(producerName);
     }
 
+    /**
+     * Creates a new Producer thread paced by an adaptive throttle instead of a
+     * fixed delay. Register the throttle on the queue's watermarks (see
+     * {@link SharedQueue#addWatermarkListener(int, int, WatermarkListener)})
+     * so it hears about congestion.
+     *
+     * @param name     Name of this producer (for logging, must not be null)
+     * @param source   Container to read items from (must not be null)
+     * @param queue    Shared queue to put items into (must not be null)
+     * @param throttle Throttle that paces each put (must not be null)
+     * @throws NullPointerException if name, source, queue, or throttle is null
+     */
+    public Producer(String name, Container<WorkItem> source,
+            WorkSink<WorkItem> queue, AimdThrottle throttle) {
+        this.producerName = Objects.requireNonNull(name, "Producer name cannot be null");
+        this.source = Objects.requireNonNull(source, "Source container cannot be null");
+        this.throttle = Objects.requireNonNull(throttle, "Throttle cannot be null");
+        this.queue = Objects.requireNonNull(queue, "Shared queue cannot be null");
+        this.queue.registerProducer();
+        this.delayMs = 0;
+
+        setName(producerName);
+    }
+
     /**
      * Main execution method for the producer thread.
      * Reads all items from source and puts them into the queue.
@@ -68,16 +100,19 @@ public class Producer extends Thread {
     @Override
     public void run() {
         logger.info("[" + producerName + "] Started");
+        QueueEvents.workerLifecycle("Producer", producerName, QueueEvents.PHASE_START, 0);
 
+        int producedCount = 0;
         try {
-            int producedCount = 0;
-
             while (true) {
                 WorkItem item = source.removeFirst();
                 if (item == null) {
                     break;
                 }
 
+                if (throttle != null) {
+                    throttle.acquire();
+                }
                 queue.put(item);
                 producedCount++;
 
@@ -88,11 +123,13 @@ public class Producer extends Thread {
 
             logger.info(String.format("[%s] Finished - produced %d items",
                     producerName, producedCount));
+            QueueEvents.workerLifecycle("Producer", producerName, QueueEvents.PHASE_FINISH, producedCount);
 
         } catch (InterruptedException e) {
             // Someone interrupted us (probably during shutdown)
             // Restore the interrupt flag so calling code knows we were interrupted
             logger.info("[" + producerName + "] Interrupted");
+            QueueEvents.workerLifecycle("Producer", producerName, QueueEvents.PHASE_INTERRUPT, producedCount);
             Thread.currentThread().interrupt();
         } catch (Exception e) {
             // Something unexpected went wrong
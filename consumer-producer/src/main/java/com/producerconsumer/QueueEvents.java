@@ -0,0 +1,206 @@
+package com.producerconsumer;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Threshold;
+
+/**
+ * QueueEvents defines the Java Flight Recorder events emitted by the queue and
+ * its worker threads, plus small helpers that keep the call sites cheap.
+ *
+ * <p>
+ * Events:
+ * </p>
+ * <ul>
+ * <li>{@code com.producerconsumer.QueueBlocked} – a put or get that had to
+ * wait, with queue depth at wake-up (default threshold 10 ms)</li>
+ * <li>{@code com.producerconsumer.QueueLogStall} – a queue log call that took
+ * longer than expected (default threshold 10 ms)</li>
+ * <li>{@code com.producerconsumer.WorkerLifecycle} – producer/consumer start,
+ * finish and interrupt</li>
+ * <li>{@code com.producerconsumer.QueueClosed} – the last producer finished
+ * and the queue closed</li>
+ * </ul>
+ *
+ * <p>
+ * Blocking events are only created on the slow path, after a thread has
+ * already found the queue full or empty, and every helper bails out on
+ * {@code isEnabled()}/{@code shouldCommit()}. With no recording running the
+ * cost is a single disabled-event check.
+ * </p>
+ *
+ * <p>
+ * Record with, for example:
+ * {@code java -XX:StartFlightRecording=filename=queue.jfr -cp bin com.producerconsumer.ProducerConsumerDemo}
+ * </p>
+ */
+final class QueueEvents {
+
+    static final String PHASE_START = "START";
+    static final String PHASE_FINISH = "FINISH";
+    static final String PHASE_INTERRUPT = "INTERRUPT";
+
+    private QueueEvents() {
+    }
+
+    /**
+     * Starts timing a blocking put or get.
+     *
+     * @param operation "put" or "get"
+     * @return Started event, or null if the event type is not being recorded
+     */
+    static QueueBlocked beginBlocked(String operation) {
+        QueueBlocked event = new QueueBlocked();
+        if (!event.isEnabled()) {
+            return null;
+        }
+        event.operation = operation;
+        event.begin();
+        return event;
+    }
+
+    /**
+     * Finishes timing a blocking operation and commits it if it exceeded the
+     * configured threshold.
+     *
+     * @param event    Event returned by {@link #beginBlocked(String)}, may be null
+     * @param depth    Queue size when the thread woke up
+     * @param capacity Queue capacity
+     */
+    static void endBlocked(QueueBlocked event, int depth, int capacity) {
+        if (event == null) {
+            return;
+        }
+        event.end();
+        if (event.shouldCommit()) {
+            event.queueDepth = depth;
+            event.capacity = capacity;
+            event.commit();
+        }
+    }
+
+    /**
+     * Starts timing a log call.
+     *
+     * @return Started event, or null if the event type is not being recorded
+     */
+    static QueueLogStall beginLog() {
+        QueueLogStall event = new QueueLogStall();
+        if (!event.isEnabled()) {
+            return null;
+        }
+        event.begin();
+        return event;
+    }
+
+    /**
+     * Finishes timing a log call and commits it if it exceeded the threshold.
+     *
+     * @param event Event returned by {@link #beginLog()}, may be null
+     */
+    static void endLog(QueueLogStall event) {
+        if (event != null) {
+            event.commit();
+        }
+    }
+
+    /**
+     * Records a producer or consumer lifecycle transition.
+     *
+     * @param role   "Producer" or "Consumer"
+     * @param worker Worker name
+     * @param phase  One of the {@code PHASE_*} constants
+     * @param items  Items handled so far
+     */
+    static void workerLifecycle(String role, String worker, String phase, long items) {
+        WorkerLifecycle event = new WorkerLifecycle();
+        if (event.shouldCommit()) {
+            event.role = role;
+            event.worker = worker;
+            event.phase = phase;
+            event.items = items;
+            event.commit();
+        }
+    }
+
+    /**
+     * Records that a queue closed because its last producer finished.
+     *
+     * @param produced Total items produced
+     * @param consumed Total items consumed
+     * @param depth    Items still queued at close time
+     */
+    static void queueClosed(long produced, long consumed, int depth) {
+        QueueClosed event = new QueueClosed();
+        if (event.shouldCommit()) {
+            event.itemsProduced = produced;
+            event.itemsConsumed = consumed;
+            event.queueDepth = depth;
+            event.commit();
+        }
+    }
+
+    @Name("com.producerconsumer.QueueBlocked")
+    @Label("Queue Blocked")
+    @Category("Producer-Consumer")
+    @Description("A put or get waited for space or items")
+    @Threshold("10 ms")
+    static final class QueueBlocked extends Event {
+        @Label("Operation")
+        String operation;
+
+        @Label("Queue Depth")
+        @Description("Items in the queue when the waiting thread resumed")
+        int queueDepth;
+
+        @Label("Capacity")
+        int capacity;
+    }
+
+    @Name("com.producerconsumer.QueueLogStall")
+    @Label("Queue Log Stall")
+    @Category("Producer-Consumer")
+    @Description("A queue log call took longer than the threshold")
+    @Threshold("10 ms")
+    static final class QueueLogStall extends Event {
+    }
+
+    @Name("com.producerconsumer.WorkerLifecycle")
+    @Label("Worker Lifecycle")
+    @Category("Producer-Consumer")
+    @Description("A producer or consumer thread started, finished or was interrupted")
+    @StackTrace(false)
+    static final class WorkerLifecycle extends Event {
+        @Label("Role")
+        String role;
+
+        @Label("Worker")
+        String worker;
+
+        @Label("Phase")
+        String phase;
+
+        @Label("Items")
+        long items;
+    }
+
+    @Name("com.producerconsumer.QueueClosed")
+    @Label("Queue Closed")
+    @Category("Producer-Consumer")
+    @Description("The last producer finished and the queue closed")
+    @StackTrace(false)
+    static final class QueueClosed extends Event {
+        @Label("Items Produced")
+        long itemsProduced;
+
+        @Label("Items Consumed")
+        long itemsConsumed;
+
+        @Label("Queue Depth")
+        int queueDepth;
+    }
+}
@@ -0,0 +1,493 @@
+package com.producerconsumer;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.AbstractExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * QueueExecutor is an {@link java.util.concurrent.ExecutorService} whose task
+ * queue is any of the project's queues ({@link SharedQueue},
+ * {@link ShardedQueue}, {@link HandoffQueue}, ...), so application work can run
+ * on the same queues the producer/consumer pipeline uses and be compared
+ * directly with {@link java.util.concurrent.ThreadPoolExecutor}.
+ *
+ * <p>
+ * Workers are {@link Consumer}-like loops: they {@code get()} tasks until the
+ * queue is closed and drained. The executor registers itself as the queue's
+ * only producer, so {@link #shutdown()} is simply {@code producerDone()}.
+ * </p>
+ *
+ * <p>
+ * Key features:
+ * </p>
+ * <ul>
+ * <li>Core and maximum worker counts with the same growth rule as
+ * ThreadPoolExecutor: start core workers first, queue next, and add workers up
+ * to the maximum only when the task backlog is full</li>
+ * <li>Keep-alive: workers above the core count retire after the queue has been
+ * idle for the keep-alive time</li>
+ * <li>Task backlog bound and {@link RejectionPolicy} for submissions beyond
+ * it</li>
+ * </ul>
+ *
+ * <p>
+ * The backlog bound is counted by the executor, since the queue interfaces have
+ * no non-blocking put. Keep it at or below the queue's own capacity, or
+ * submitters may block in the queue before the policy applies.
+ * </p>
+ *
+ * <p>
+ * Thread Safety:
+ * </p>
+ * This class is thread-safe. Worker bookkeeping is guarded by the executor's
+ * monitor; task counters are atomic.
+ */
+public class QueueExecutor extends AbstractExecutorService {
+    private static final Logger logger = Logger.getLogger(QueueExecutor.class.getName());
+
+    /**
+     * What {@link #execute(Runnable)} does when the backlog is full and no
+     * more workers may be started.
+     */
+    public enum RejectionPolicy {
+        /** Throw {@link RejectedExecutionException}. */
+        ABORT,
+        /** Run the task on the submitting thread. */
+        CALLER_RUNS,
+        /** Silently drop the task. */
+        DISCARD,
+        /** Put the task anyway and wait for the queue to accept it. */
+        BLOCK
+    }
+
+    // Marker task asking one idle worker above the core count to exit
+    private static final Runnable RETIRE = () -> { };
+
+    private static final int RUNNING = 0;
+    private static final int SHUTDOWN = 1;
+    private static final int STOP = 2;
+
+    private final WorkSink<Runnable> sink;
+    private final WorkSource<Runnable> source;
+    private final int corePoolSize;
+    private final int maximumPoolSize;
+    private final long keepAliveNanos;
+    private final int backlogCapacity;
+    private final RejectionPolicy rejectionPolicy;
+
+    private final Set<Thread> workers = new HashSet<>();
+    private final AtomicInteger backlog = new AtomicInteger(0);
+    private final AtomicInteger idleWorkers = new AtomicInteger(0);
+    private final AtomicLong lastTaskNanos = new AtomicLong(System.nanoTime());
+    private final AtomicLong tasksCompleted = new AtomicLong(0);
+    private final AtomicLong tasksRejected = new AtomicLong(0);
+    private final Thread reaper;
+
+    private volatile int runState = RUNNING;
+    // Mirrors workers.size() so submissions can skip the monitor when no
+    // worker needs starting
+    private volatile int poolSize = 0;
+    private boolean retirePending = false;
+    private int workerSequence = 0;
+    private int largestPoolSize = 0;
+
+    /**
+     * Creates a fixed-size executor with an unbounded backlog that blocks in
+     * the queue when it is full.
+     *
+     * @param queue   Task queue (must not be null); owned by the executor
+     * @param threads Number of workers (must be at least 1)
+     * @param <Q>     Queue type, both a sink and a source of tasks
+     */
+    public <Q extends WorkSink<Runnable> & WorkSource<Runnable>> QueueExecutor(Q queue, int threads) {
+        this(queue, threads, threads, 0, TimeUnit.MILLISECONDS, Integer.MAX_VALUE, RejectionPolicy.BLOCK);
+    }
+
+    /**
+     * Creates a new QueueExecutor.
+     *
+     * @param queue           Task queue (must not be null); owned by the
+     *                        executor, which registers as its producer
+     * @param corePoolSize    Workers kept even when idle (must be non-negative)
+     * @param maximumPoolSize Upper bound on workers (must be at least 1 and at
+     *                        least corePoolSize)
+     * @param keepAlive       Idle time after which workers above the core count
+     *                        retire (must be non-negative)
+     * @param unit            Unit of keepAlive (must not be null)
+     * @param backlogCapacity Maximum queued tasks not yet started (must be at
+     *                        least 1)
+     * @param rejectionPolicy Policy for submissions beyond the backlog once the
+     *                        maximum worker count is reached (must not be null)
+     * @param <Q>             Queue type, both a sink and a source of tasks
+     * @throws NullPointerException     if queue, unit or rejectionPolicy is null
+     * @throws IllegalArgumentException if a size or time is out of range
+     */
+    public <Q extends WorkSink<Runnable> & WorkSource<Runnable>> QueueExecutor(Q queue, int corePoolSize,
+            int maximumPoolSize, long keepAlive, TimeUnit unit, int backlogCapacity,
+            RejectionPolicy rejectionPolicy) {
+        Objects.requireNonNull(queue, "Task queue cannot be null");
+        if (corePoolSize < 0) {
+            throw new IllegalArgumentException(
+                    "Core pool size must be non-negative, but was: " + corePoolSize);
+        }
+        if (maximumPoolSize < 1 || maximumPoolSize < corePoolSize) {
+            throw new IllegalArgumentException(
+                    "Maximum pool size must be at least 1 and at least the core size, but was: "
+                            + maximumPoolSize);
+        }
+        if (keepAlive < 0) {
+            throw new IllegalArgumentException(
+                    "Keep-alive must be non-negative, but was: " + keepAlive);
+        }
+        if (backlogCapacity < 1) {
+            throw new IllegalArgumentException(
+                    "Backlog capacity must be at least 1, but was: " + backlogCapacity);
+        }
+
+        this.sink = queue;
+        this.source = queue;
+        this.corePoolSize = corePoolSize;
+        this.maximumPoolSize = maximumPoolSize;
+        this.keepAliveNanos = Objects.requireNonNull(unit, "Time unit cannot be null").toNanos(keepAlive);
+        this.backlogCapacity = backlogCapacity;
+        this.rejectionPolicy = Objects.requireNonNull(rejectionPolicy, "Rejection policy cannot be null");
+
+        sink.registerProducer();
+        if (maximumPoolSize > corePoolSize) {
+            this.reaper = new Thread(this::runReaper, "queue-executor-reaper");
+            this.reaper.setDaemon(true);
+            this.reaper.start();
+        } else {
+            this.reaper = null;
+        }
+    }
+
+    /**
+     * Queues a task for a worker, starting workers as needed.
+     *
+     * @param task Task to run (must not be null)
+     * @throws NullPointerException       if task is null
+     * @throws RejectedExecutionException if the executor is shut down, or the
+     *                                    backlog is full under
+     *                                    {@link RejectionPolicy#ABORT}
+     */
+    @Override
+    public void execute(Runnable task) {
+        Objects.requireNonNull(task, "Task cannot be null");
+        if (runState != RUNNING) {
+            reject(task, "Executor has been shut down");
+            return;
+        }
+
+        // A new worker takes the task directly instead of through the queue
+        if (startWorkerIfBelow(corePoolSize, task)) {
+            return;
+        }
+        if (backlog.get() >= backlogCapacity) {
+            if (startWorkerIfBelow(maximumPoolSize, task)) {
+                return;
+            }
+            switch (rejectionPolicy) {
+                case ABORT:
+                    reject(task, "Task backlog full (" + backlogCapacity + ")");
+                    return;
+                case CALLER_RUNS:
+                    tasksRejected.incrementAndGet();
+                    task.run();
+                    return;
+                case DISCARD:
+                    tasksRejected.incrementAndGet();
+                    return;
+                default:
+                    break;
+            }
+        }
+
+        // A pool with no core workers still needs someone to run queued work
+        if (startWorkerIfBelow(1, task)) {
+            return;
+        }
+        backlog.incrementAndGet();
+        try {
+            sink.put(task);
+        } catch (InterruptedException e) {
+            backlog.decrementAndGet();
+            Thread.currentThread().interrupt();
+            throw new RejectedExecutionException("Interrupted while queueing task", e);
+        } catch (IllegalStateException e) {
+            // Queue closed by a concurrent shutdown, or refused by its own policy
+            backlog.decrementAndGet();
+            reject(task, e.getMessage());
+        }
+    }
+
+    /**
+     * Stops accepting tasks. Queued tasks still run; workers exit once the
+     * queue is drained.
+     */
+    @Override
+    public void shutdown() {
+        synchronized (this) {
+            if (runState != RUNNING) {
+                return;
+            }
+            runState = SHUTDOWN;
+            notifyAll();
+        }
+        sink.producerDone();
+        if (reaper != null) {
+            reaper.interrupt();
+        }
+    }
+
+    /**
+     * Stops accepting tasks, interrupts running workers and returns the tasks
+     * that never started.
+     *
+     * @return Tasks removed from the queue
+     */
+    @Override
+    public List<Runnable> shutdownNow() {
+        shutdown();
+        synchronized (this) {
+            runState = STOP;
+            for (Thread worker : workers) {
+                worker.interrupt();
+            }
+        }
+
+        // The queue is closed, so get() no longer blocks: it drains, then returns null
+        List<Runnable> unstarted = new ArrayList<>();
+        try {
+            Runnable task;
+            while ((task = source.get()) != null) {
+                if (task != RETIRE) {
+                    backlog.decrementAndGet();
+                    unstarted.add(task);
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        return unstarted;
+    }
+
+    @Override
+    public boolean isShutdown() {
+        return runState != RUNNING;
+    }
+
+    @Override
+    public synchronized boolean isTerminated() {
+        return runState != RUNNING && workers.isEmpty();
+    }
+
+    @Override
+    public synchronized boolean awaitTermination(long timeout, TimeUnit unit) throws InterruptedException {
+        long deadline = System.nanoTime() + unit.toNanos(timeout);
+        while (!isTerminated()) {
+            long remaining = deadline - System.nanoTime();
+            if (remaining <= 0) {
+                return false;
+            }
+            TimeUnit.NANOSECONDS.timedWait(this, remaining);
+        }
+        return true;
+    }
+
+    /**
+     * Returns the current number of worker threads.
+     *
+     * @return Worker count
+     */
+    public int getPoolSize() {
+        return poolSize;
+    }
+
+    /**
+     * Returns the largest number of workers that have run at once.
+     *
+     * @return Peak worker count
+     */
+    public synchronized int getLargestPoolSize() {
+        return largestPoolSize;
+    }
+
+    /**
+     * Returns the number of queued tasks not yet taken by a worker.
+     *
+     * @return Task backlog
+     */
+    public int getBacklog() {
+        return backlog.get();
+    }
+
+    /**
+     * Returns the number of tasks that ran to completion (or threw).
+     *
+     * @return Completed task count
+     */
+    public long getCompletedTaskCount() {
+        return tasksCompleted.get();
+    }
+
+    /**
+     * Returns the number of submissions refused, run by the caller or
+     * discarded because the backlog was full.
+     *
+     * @return Rejected task count
+     */
+    public long getRejectedTaskCount() {
+        return tasksRejected.get();
+    }
+
+    @Override
+    public synchronized String toString() {
+        return "QueueExecutor{" +
+                "poolSize=" + workers.size() +
+                ", core=" + corePoolSize +
+                ", max=" + maximumPoolSize +
+                ", backlog=" + backlog.get() +
+                ", completed=" + tasksCompleted.get() +
+                ", rejected=" + tasksRejected.get() +
+                ", shutdown=" + isShutdown() +
+                '}';
+    }
+
+    private void reject(Runnable task, String reason) {
+        tasksRejected.incrementAndGet();
+        throw new RejectedExecutionException("Task " + task + " rejected: " + reason);
+    }
+
+    /**
+     * Starts a worker if fewer than {@code limit} are running.
+     *
+     * @param firstTask Task the new worker runs before taking from the queue
+     * @return true if a worker was started
+     */
+    private boolean startWorkerIfBelow(int limit, Runnable firstTask) {
+        if (poolSize >= limit) {
+            return false;
+        }
+        synchronized (this) {
+            if (workers.size() >= limit || runState != RUNNING) {
+                return false;
+            }
+
+            Thread worker = new Thread(() -> runWorker(firstTask), "queue-executor-" + (++workerSequence));
+            workers.add(worker);
+            poolSize = workers.size();
+            largestPoolSize = Math.max(largestPoolSize, workers.size());
+            worker.start();
+            return true;
+        }
+    }
+
+    /**
+     * Consumer-style loop: take tasks until the queue is closed and drained.
+     */
+    private void runWorker(Runnable firstTask) {
+        try {
+            runTask(firstTask);
+            while (runState != STOP) {
+                // A task may leave the interrupt flag set; only shutdownNow should stop us
+                Thread.interrupted();
+
+                idleWorkers.incrementAndGet();
+                Runnable task;
+                try {
+                    task = source.get();
+                } finally {
+                    idleWorkers.decrementAndGet();
+                }
+
+                if (task == null) {
+                    break;
+                }
+                if (task == RETIRE) {
+                    if (retire()) {
+                        return;
+                    }
+                    continue;
+                }
+
+                backlog.decrementAndGet();
+                runTask(task);
+            }
+        } catch (InterruptedException e) {
+            // shutdownNow
+        } finally {
+            workerExited();
+        }
+    }
+
+    private void runTask(Runnable task) {
+        lastTaskNanos.set(System.nanoTime());
+        try {
+            task.run();
+        } catch (RuntimeException e) {
+            logger.log(Level.WARNING, "Task threw an exception", e);
+        } finally {
+            tasksCompleted.incrementAndGet();
+        }
+    }
+
+    /**
+     * Handles a retire marker. Exits the calling worker if the pool is above its
+     * core size.
+     */
+    private synchronized boolean retire() {
+        retirePending = false;
+        if (workers.size() <= corePoolSize) {
+            return false;
+        }
+        workers.remove(Thread.currentThread());
+        poolSize = workers.size();
+        notifyAll();
+        return true;
+    }
+
+    private synchronized void workerExited() {
+        workers.remove(Thread.currentThread());
+        poolSize = workers.size();
+        notifyAll();
+    }
+
+    /**
+     * Asks one idle worker above the core count to exit once no task has been
+     * taken for the keep-alive time.
+     */
+    private void runReaper() {
+        long pollMs = Math.max(1, TimeUnit.NANOSECONDS.toMillis(keepAliveNanos) / 2);
+        try {
+            while (runState == RUNNING) {
+                Thread.sleep(pollMs);
+
+                synchronized (this) {
+                    boolean idleTooLong = System.nanoTime() - lastTaskNanos.get() >= keepAliveNanos;
+                    if (retirePending || !idleTooLong || workers.size() <= corePoolSize
+                            || idleWorkers.get() == 0) {
+                        continue;
+                    }
+                    retirePending = true;
+                }
+                try {
+                    sink.put(RETIRE);
+                } catch (IllegalStateException e) {
+                    return; // closed by shutdown
+                }
+            }
+        } catch (InterruptedException e) {
+            // shutdown
+        }
+    }
+}
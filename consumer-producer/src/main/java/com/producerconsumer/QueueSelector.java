@@ -0,0 +1,239 @@
+package com.producerconsumer;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * QueueSelector lets a single consumer wait on several {@link SharedQueue}s at
+ * once and wake up as soon as any of them has data.
+ *
+ * <p>
+ * Queues are drained with weighted round-robin: the selector takes up to
+ * {@code weight} consecutive items from a queue before moving on to the next
+ * one, and skips empty queues immediately. With all weights at 1 this is plain
+ * round-robin, so no queue can starve the others.
+ * </p>
+ *
+ * <p>
+ * Key features:
+ * </p>
+ * <ul>
+ * <li>One consumer thread for many queues - thread count scales with work, not
+ * with the number of queues</li>
+ * <li>Optional per-queue weights</li>
+ * <li>No lost wake-ups: queues signal the selector through a listener and the
+ * selector re-scans whenever its signal counter moved</li>
+ * <li>Closing: {@link #get()} returns null once every registered queue is
+ * closed and drained</li>
+ * </ul>
+ *
+ * <p>
+ * Thread Safety:
+ * </p>
+ * This class is thread-safe and may be shared by several consumers. The
+ * selector never holds its own monitor while calling into a queue, so there is
+ * no lock-ordering risk with producers.
+ *
+ * @param <T> Type of items stored in the queues
+ */
+public class QueueSelector<T> implements WorkSource<T> {
+
+    private final List<Registration<T>> registrations = new ArrayList<>();
+    private final Runnable signal = this::signal;
+
+    private long signals = 0;
+    private int current = 0;
+    private int credit = 0;
+
+    /**
+     * Registers a queue with weight 1.
+     *
+     * @param queue Queue to select from (must not be null)
+     * @return This selector, for chaining
+     * @throws NullPointerException     if queue is null
+     * @throws IllegalArgumentException if the queue is already registered
+     */
+    public QueueSelector<T> register(SharedQueue<T> queue) {
+        return register(queue, 1);
+    }
+
+    /**
+     * Registers a queue with the given weight.
+     *
+     * @param queue  Queue to select from (must not be null)
+     * @param weight Maximum consecutive items taken from this queue per round
+     *               (must be at least 1)
+     * @return This selector, for chaining
+     * @throws NullPointerException     if queue is null
+     * @throws IllegalArgumentException if weight is less than 1 or the queue is
+     *                                  already registered
+     */
+    public QueueSelector<T> register(SharedQueue<T> queue, int weight) {
+        Objects.requireNonNull(queue, "Shared queue cannot be null");
+        if (weight < 1) {
+            throw new IllegalArgumentException(
+                    "Weight must be at least 1, but was: " + weight);
+        }
+
+        synchronized (this) {
+            for (Registration<T> r : registrations) {
+                if (r.queue == queue) {
+                    throw new IllegalArgumentException("Queue already registered");
+                }
+            }
+            registrations.add(new Registration<>(queue, weight));
+            signals++;
+            notifyAll();
+        }
+        queue.addListener(signal);
+        return this;
+    }
+
+    /**
+     * Stops selecting from a queue.
+     *
+     * @param queue Queue to remove
+     */
+    public void unregister(SharedQueue<T> queue) {
+        queue.removeListener(signal);
+        synchronized (this) {
+            registrations.removeIf(r -> r.queue == queue);
+            current = 0;
+            credit = 0;
+            signals++;
+            notifyAll();
+        }
+    }
+
+    /**
+     * Retrieves the next item from any registered queue, blocking until one of
+     * them has data.
+     *
+     * @return Next item, or null once every registered queue is closed and
+     *         drained
+     * @throws InterruptedException if the thread is interrupted while waiting
+     */
+    @Override
+    public T get() throws InterruptedException {
+        while (true) {
+            long observed;
+            synchronized (this) {
+                observed = signals;
+            }
+
+            T item = poll();
+            if (item != null) {
+                return item;
+            }
+            if (allClosedAndEmpty()) {
+                return null;
+            }
+
+            synchronized (this) {
+                // Anything that arrived after we read the counter bumped it, so we only
+                // sleep if the scan above really saw the latest state
+                while (signals == observed) {
+                    try {
+                        wait();
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                        throw e;
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Retrieves the next item from any registered queue without waiting.
+     *
+     * @return Next item, or null if every queue is currently empty
+     */
+    public T poll() {
+        List<Registration<T>> snapshot;
+        int start;
+        synchronized (this) {
+            if (registrations.isEmpty()) {
+                return null;
+            }
+            snapshot = new ArrayList<>(registrations);
+            start = current % snapshot.size();
+            if (credit <= 0) {
+                credit = snapshot.get(start).weight;
+            }
+        }
+
+        for (int i = 0; i < snapshot.size(); i++) {
+            int index = (start + i) % snapshot.size();
+            Registration<T> r = snapshot.get(index);
+            T item = r.queue.poll();
+            if (item != null) {
+                consumeCredit(index, r, i == 0);
+                return item;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Returns the number of registered queues.
+     *
+     * @return Registered queue count
+     */
+    public synchronized int getQueueCount() {
+        return registrations.size();
+    }
+
+    @Override
+    public synchronized String toString() {
+        return "QueueSelector{queues=" + registrations.size() + '}';
+    }
+
+    /**
+     * Charges one item against the queue that supplied it and advances to the
+     * next queue once its weight is used up.
+     */
+    private synchronized void consumeCredit(int index, Registration<T> r, boolean sameQueue) {
+        if (!sameQueue) {
+            // We skipped empty queues; the supplier starts a fresh turn
+            credit = r.weight;
+        }
+        credit--;
+        current = credit > 0 ? index : index + 1;
+        if (credit <= 0) {
+            credit = 0;
+        }
+    }
+
+    private boolean allClosedAndEmpty() {
+        List<Registration<T>> snapshot;
+        synchronized (this) {
+            snapshot = new ArrayList<>(registrations);
+        }
+        if (snapshot.isEmpty()) {
+            return false;
+        }
+        for (Registration<T> r : snapshot) {
+            if (!r.queue.isClosed() || !r.queue.isEmpty()) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private synchronized void signal() {
+        signals++;
+        notifyAll();
+    }
+
+    private static final class Registration<T> {
+        private final SharedQueue<T> queue;
+        private final int weight;
+
+        private Registration(SharedQueue<T> queue, int weight) {
+            this.queue = queue;
+            this.weight = weight;
+        }
+    }
+}
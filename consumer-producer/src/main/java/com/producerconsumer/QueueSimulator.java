@@ -0,0 +1,714 @@
+package com.producerconsumer;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Objects;
+import java.util.PriorityQueue;
+import java.util.Random;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * QueueSimulator is a deterministic discrete-event model of producers and
+ * consumers sharing one bounded {@link SharedQueue}, for capacity planning
+ * before a rollout.
+ *
+ * <p>
+ * It follows the same loop as {@link Producer} and {@link Consumer}: a
+ * producer puts an item (blocking while the queue is full) and then sleeps for
+ * its delay; a consumer gets an item (blocking while the queue is empty) and
+ * then sleeps for its delay, which stands in for service time. The queue
+ * closes once every producer is done, and consumers stop when it is closed and
+ * drained. Time is virtual, so hours of load run in seconds, and a fixed seed
+ * gives the same result every run.
+ * </p>
+ *
+ * <p>
+ * Key features:
+ * </p>
+ * <ul>
+ * <li>Fixed, uniform or exponential delays per side ({@link Distribution})</li>
+ * <li>Finite runs like the demo ({@link #run(int)}) or open-ended load for a
+ * simulated duration ({@link #runFor(long, TimeUnit)})</li>
+ * <li>Reports throughput, time-weighted occupancy, time spent full and
+ * put-to-get latency percentiles ({@link Result})</li>
+ * <li>{@link #measureThreads} runs the real threads with the same
+ * configuration and reports the same figures, to validate the model</li>
+ * </ul>
+ *
+ * <p>
+ * Blocked producers and consumers are woken in FIFO order; the real queue
+ * wakes them in whatever order the JVM picks, which changes who gets an item
+ * but not how many items move or when.
+ * </p>
+ *
+ * <p>
+ * Usage: {@code java -cp bin com.producerconsumer.QueueSimulator} validates
+ * the model against the demo configuration;
+ * {@code QueueSimulator producers consumers capacity producerMeanMs
+ * consumerMeanMs hours [fixed|uniform|exponential]} simulates a planned
+ * topology.
+ * </p>
+ *
+ * <p>
+ * Thread Safety:
+ * </p>
+ * This class is immutable and thread-safe; each run keeps its own state.
+ */
+public class QueueSimulator {
+
+    private final int producers;
+    private final int consumers;
+    private final int capacity;
+    private final Distribution producerDelay;
+    private final Distribution consumerDelay;
+    private final long seed;
+
+    /**
+     * Creates a new QueueSimulator.
+     *
+     * @param producers     Number of producer threads (must be at least 1)
+     * @param consumers     Number of consumer threads (must be at least 1)
+     * @param capacity      Queue capacity (must be at least 1)
+     * @param producerDelay Delay after each put (must not be null)
+     * @param consumerDelay Delay after each get, i.e. service time (must not be
+     *                      null)
+     * @param seed          Seed for the random delays
+     * @throws NullPointerException     if either distribution is null
+     * @throws IllegalArgumentException if producers, consumers or capacity is
+     *                                  less than 1
+     */
+    public QueueSimulator(int producers, int consumers, int capacity,
+            Distribution producerDelay, Distribution consumerDelay, long seed) {
+        if (producers < 1) {
+            throw new IllegalArgumentException(
+                    "Producer count must be at least 1, but was: " + producers);
+        }
+        if (consumers < 1) {
+            throw new IllegalArgumentException(
+                    "Consumer count must be at least 1, but was: " + consumers);
+        }
+        if (capacity < 1) {
+            throw new IllegalArgumentException(
+                    "Queue capacity must be at least 1, but was: " + capacity);
+        }
+        this.producers = producers;
+        this.consumers = consumers;
+        this.capacity = capacity;
+        this.producerDelay = Objects.requireNonNull(producerDelay, "Producer delay cannot be null");
+        this.consumerDelay = Objects.requireNonNull(consumerDelay, "Consumer delay cannot be null");
+        this.seed = seed;
+    }
+
+    /**
+     * Simulates each producer putting a fixed number of items, as the demo
+     * does, until the queue is closed and drained.
+     *
+     * @param itemsPerProducer Items each producer puts (must be non-negative)
+     * @return Simulated figures
+     * @throws IllegalArgumentException if itemsPerProducer is negative
+     */
+    public Result run(int itemsPerProducer) {
+        if (itemsPerProducer < 0) {
+            throw new IllegalArgumentException(
+                    "Items per producer must be non-negative, but was: " + itemsPerProducer);
+        }
+        return new Run(itemsPerProducer, Long.MAX_VALUE).simulate();
+    }
+
+    /**
+     * Simulates producers putting items for a span of virtual time, after which
+     * they finish and the consumers drain the queue.
+     *
+     * @param duration How long producers keep producing (must be positive)
+     * @param unit     Unit of duration (must not be null)
+     * @return Simulated figures
+     * @throws NullPointerException     if unit is null
+     * @throws IllegalArgumentException if duration is not positive
+     */
+    public Result runFor(long duration, TimeUnit unit) {
+        Objects.requireNonNull(unit, "Time unit cannot be null");
+        if (duration <= 0) {
+            throw new IllegalArgumentException(
+                    "Duration must be positive, but was: " + duration);
+        }
+        return new Run(Long.MAX_VALUE, unit.toNanos(duration)).simulate();
+    }
+
+    @Override
+    public String toString() {
+        return "QueueSimulator{" +
+                "producers=" + producers +
+                ", consumers=" + consumers +
+                ", capacity=" + capacity +
+                ", producerDelay=" + producerDelay +
+                ", consumerDelay=" + consumerDelay +
+                '}';
+    }
+
+    /**
+     * Runs real {@link Producer} and {@link Consumer} threads over a
+     * {@link SharedQueue} with fixed delays and measures the figures
+     * {@link #run(int)} predicts, so the model can be checked against reality.
+     * Occupancy is sampled about once a millisecond. Run it once beforehand in
+     * a fresh JVM, as the first blocking call pays for class initialisation.
+     *
+     * @param producers        Number of producer threads (must be at least 1)
+     * @param consumers        Number of consumer threads (must be at least 1)
+     * @param capacity         Queue capacity (must be at least 1)
+     * @param producerDelayMs  Producer delay in milliseconds
+     * @param consumerDelayMs  Consumer delay in milliseconds
+     * @param itemsPerProducer Items each producer puts
+     * @return Measured figures
+     * @throws InterruptedException if the thread is interrupted while waiting
+     *                              for the workers
+     */
+    public static Result measureThreads(int producers, int consumers, int capacity,
+            long producerDelayMs, long consumerDelayMs, int itemsPerProducer) throws InterruptedException {
+        // Without per-item logging, which would dominate the delays being measured
+        TimedQueue queue = new TimedQueue(
+                new SharedQueue<>(capacity, OverflowPolicy.BLOCK, 0, TimeUnit.MILLISECONDS, false));
+        List<Thread> workers = new ArrayList<>();
+        for (int p = 0; p < producers; p++) {
+            Container<WorkItem> source = new Container<>();
+            for (int i = 0; i < itemsPerProducer; i++) {
+                int id = p * itemsPerProducer + i + 1;
+                source.add(new WorkItem(id, "Data-" + id));
+            }
+            workers.add(new Producer("Producer-" + (p + 1), source, queue, producerDelayMs));
+        }
+        Container<WorkItem> destination = new Container<>();
+        for (int c = 0; c < consumers; c++) {
+            workers.add(new Consumer("Consumer-" + (c + 1), queue, destination, Integer.MAX_VALUE,
+                    consumerDelayMs));
+        }
+
+        long start = System.nanoTime();
+        workers.forEach(Thread::start);
+        long samples = 0;
+        long occupancySum = 0;
+        long fullSamples = 0;
+        int maxOccupancy = 0;
+        while (workers.stream().anyMatch(Thread::isAlive)) {
+            int size = queue.delegate.size();
+            samples++;
+            occupancySum += size;
+            fullSamples += size >= capacity ? 1 : 0;
+            maxOccupancy = Math.max(maxOccupancy, size);
+            Thread.sleep(1);
+        }
+        for (Thread worker : workers) {
+            worker.join();
+        }
+        long elapsed = System.nanoTime() - start;
+
+        return new Result(destination.size(), elapsed,
+                samples == 0 ? 0 : (double) occupancySum / samples, maxOccupancy,
+                samples == 0 ? 0 : (double) fullSamples / samples, queue.latencies());
+    }
+
+    public static void main(String[] args) throws InterruptedException {
+        // Keep the workers' start and finish messages out of the tables
+        Logger.getLogger("").setLevel(Level.WARNING);
+
+        if (args.length >= 6) {
+            simulatePlan(args);
+            return;
+        }
+
+        // The first blocking put or get initialises the JFR event classes, which
+        // takes a few hundred milliseconds; keep that out of the measured runs
+        measureThreads(1, 1, 1, 0, 2, 20);
+
+        // Same configuration as ProducerConsumerDemo
+        int items = 20;
+        int capacity = 5;
+        long producerDelayMs = 50;
+        long consumerDelayMs = 100;
+        System.out.println("Validating against ProducerConsumerDemo: " + items + " items, capacity " + capacity
+                + ", producer " + producerDelayMs + "ms, consumer " + consumerDelayMs + "ms");
+        System.out.println();
+        printHeader();
+        QueueSimulator demo = new QueueSimulator(1, 1, capacity, Distribution.fixed(producerDelayMs),
+                Distribution.fixed(consumerDelayMs), 1);
+        printRow("simulated", demo.run(items));
+        printRow("measured", measureThreads(1, 1, capacity, producerDelayMs, consumerDelayMs, items));
+
+        System.out.println();
+        System.out.println("Two producers, three consumers, capacity 4, producer 5ms, consumer 20ms, 100 items each:");
+        System.out.println();
+        printHeader();
+        QueueSimulator wider = new QueueSimulator(2, 3, 4, Distribution.fixed(5), Distribution.fixed(20), 1);
+        printRow("simulated", wider.run(100));
+        printRow("measured", measureThreads(2, 3, 4, 5, 20, 100));
+    }
+
+    private static void simulatePlan(String[] args) {
+        int producers = Integer.parseInt(args[0]);
+        int consumers = Integer.parseInt(args[1]);
+        int capacity = Integer.parseInt(args[2]);
+        double producerMeanMs = Double.parseDouble(args[3]);
+        double consumerMeanMs = Double.parseDouble(args[4]);
+        double hours = Double.parseDouble(args[5]);
+        String shape = args.length > 6 ? args[6] : "exponential";
+
+        QueueSimulator simulator = new QueueSimulator(producers, consumers, capacity,
+                Distribution.named(shape, producerMeanMs), Distribution.named(shape, consumerMeanMs), 1);
+        System.out.println(simulator + " for " + hours + "h of simulated load");
+        System.out.println();
+        printHeader();
+        long started = System.nanoTime();
+        Result result = simulator.runFor((long) (hours * 3_600_000), TimeUnit.MILLISECONDS);
+        printRow("simulated", result);
+        System.out.println();
+        System.out.printf("Simulated in %.1fs of wall time%n", (System.nanoTime() - started) / 1e9);
+    }
+
+    private static void printHeader() {
+        System.out.printf("%-10s %9s %12s %10s %9s %6s %10s %10s %10s%n", "", "items", "elapsed (s)", "items/sec",
+                "mean occ", "full", "p50 (ms)", "p95 (ms)", "p99 (ms)");
+    }
+
+    private static void printRow(String label, Result result) {
+        System.out.printf("%-10s %,9d %12.3f %,10.1f %9.2f %5.0f%% %10.1f %10.1f %10.1f%n", label,
+                result.getItemsConsumed(), result.getElapsedNanos() / 1e9, result.getThroughput(),
+                result.getMeanOccupancy(), result.getFullFraction() * 100,
+                result.getLatencyPercentile(50) / 1e6, result.getLatencyPercentile(95) / 1e6,
+                result.getLatencyPercentile(99) / 1e6);
+    }
+
+    /**
+     * Distribution of a delay, sampled in nanoseconds.
+     */
+    public interface Distribution {
+
+        /**
+         * Draws one delay.
+         *
+         * @param random Source of randomness owned by the simulation run
+         * @return Delay in nanoseconds (never negative)
+         */
+        long sampleNanos(Random random);
+
+        /**
+         * Returns a delay that is always the same, like {@code delayMs} on the
+         * real threads.
+         *
+         * @param millis Delay in milliseconds (must be non-negative)
+         * @return Fixed distribution
+         * @throws IllegalArgumentException if millis is negative
+         */
+        static Distribution fixed(long millis) {
+            if (millis < 0) {
+                throw new IllegalArgumentException(
+                        "Delay must be non-negative, but was: " + millis);
+            }
+            long nanos = TimeUnit.MILLISECONDS.toNanos(millis);
+            return new Distribution() {
+                @Override
+                public long sampleNanos(Random random) {
+                    return nanos;
+                }
+
+                @Override
+                public String toString() {
+                    return "fixed(" + millis + "ms)";
+                }
+            };
+        }
+
+        /**
+         * Returns a delay drawn uniformly between two bounds.
+         *
+         * @param minMillis Smallest delay in milliseconds (must be non-negative)
+         * @param maxMillis Largest delay in milliseconds (must be at least
+         *                  minMillis)
+         * @return Uniform distribution
+         * @throws IllegalArgumentException if the bounds are invalid
+         */
+        static Distribution uniform(double minMillis, double maxMillis) {
+            if (minMillis < 0 || maxMillis < minMillis) {
+                throw new IllegalArgumentException(
+                        "Invalid uniform bounds: " + minMillis + ".." + maxMillis);
+            }
+            return new Distribution() {
+                @Override
+                public long sampleNanos(Random random) {
+                    return (long) ((minMillis + (maxMillis - minMillis) * random.nextDouble()) * 1e6);
+                }
+
+                @Override
+                public String toString() {
+                    return "uniform(" + minMillis + ".." + maxMillis + "ms)";
+                }
+            };
+        }
+
+        /**
+         * Returns an exponentially distributed delay, which models Poisson
+         * arrivals on the producer side and memoryless service times on the
+         * consumer side.
+         *
+         * @param meanMillis Mean delay in milliseconds (must be positive)
+         * @return Exponential distribution
+         * @throws IllegalArgumentException if meanMillis is not positive
+         */
+        static Distribution exponential(double meanMillis) {
+            if (!(meanMillis > 0)) {
+                throw new IllegalArgumentException(
+                        "Mean delay must be positive, but was: " + meanMillis);
+            }
+            return new Distribution() {
+                @Override
+                public long sampleNanos(Random random) {
+                    return (long) (-Math.log(1 - random.nextDouble()) * meanMillis * 1e6);
+                }
+
+                @Override
+                public String toString() {
+                    return "exponential(" + meanMillis + "ms)";
+                }
+            };
+        }
+
+        private static Distribution named(String shape, double meanMillis) {
+            switch (shape) {
+                case "fixed":
+                    return fixed(Math.round(meanMillis));
+                case "uniform":
+                    return uniform(0, 2 * meanMillis);
+                case "exponential":
+                    return exponential(meanMillis);
+                default:
+                    throw new IllegalArgumentException("Unknown distribution: " + shape);
+            }
+        }
+    }
+
+    /**
+     * Figures from one simulated or measured run.
+     */
+    public static final class Result {
+        private final long itemsConsumed;
+        private final long elapsedNanos;
+        private final double meanOccupancy;
+        private final int maxOccupancy;
+        private final double fullFraction;
+        // Put-call to get-return latency per item, sorted
+        private final long[] latencies;
+
+        private Result(long itemsConsumed, long elapsedNanos, double meanOccupancy, int maxOccupancy,
+                double fullFraction, long[] latencies) {
+            this.itemsConsumed = itemsConsumed;
+            this.elapsedNanos = elapsedNanos;
+            this.meanOccupancy = meanOccupancy;
+            this.maxOccupancy = maxOccupancy;
+            this.fullFraction = fullFraction;
+            this.latencies = latencies;
+            Arrays.sort(this.latencies);
+        }
+
+        /**
+         * Returns the number of items consumers took from the queue.
+         *
+         * @return Items consumed
+         */
+        public long getItemsConsumed() {
+            return itemsConsumed;
+        }
+
+        /**
+         * Returns the time from start until every worker had finished.
+         *
+         * @return Elapsed time in nanoseconds
+         */
+        public long getElapsedNanos() {
+            return elapsedNanos;
+        }
+
+        /**
+         * Returns items consumed per second of elapsed time.
+         *
+         * @return Throughput in items per second
+         */
+        public double getThroughput() {
+            return elapsedNanos == 0 ? 0 : itemsConsumed / (elapsedNanos / 1e9);
+        }
+
+        /**
+         * Returns the average number of items waiting in the queue over time.
+         *
+         * @return Mean queue size
+         */
+        public double getMeanOccupancy() {
+            return meanOccupancy;
+        }
+
+        /**
+         * Returns the largest queue size seen.
+         *
+         * @return Maximum queue size
+         */
+        public int getMaxOccupancy() {
+            return maxOccupancy;
+        }
+
+        /**
+         * Returns the share of time the queue was full, when producers block.
+         *
+         * @return Fraction between 0 and 1
+         */
+        public double getFullFraction() {
+            return fullFraction;
+        }
+
+        /**
+         * Returns a percentile of the time from a producer calling put to a
+         * consumer getting that item, including time the producer was blocked.
+         *
+         * @param percentile Percentile between 0 and 100
+         * @return Latency in nanoseconds, or 0 if no item was consumed
+         * @throws IllegalArgumentException if percentile is out of range
+         */
+        public long getLatencyPercentile(double percentile) {
+            if (percentile < 0 || percentile > 100) {
+                throw new IllegalArgumentException(
+                        "Percentile must be between 0 and 100, but was: " + percentile);
+            }
+            if (latencies.length == 0) {
+                return 0;
+            }
+            int rank = (int) Math.ceil(percentile / 100 * latencies.length);
+            return latencies[Math.max(0, rank - 1)];
+        }
+
+        @Override
+        public String toString() {
+            return "QueueSimulator.Result{" +
+                    "items=" + itemsConsumed +
+                    ", elapsedMs=" + TimeUnit.NANOSECONDS.toMillis(elapsedNanos) +
+                    ", meanOccupancy=" + String.format("%.2f", meanOccupancy) +
+                    ", maxOccupancy=" + maxOccupancy +
+                    ", p99Ms=" + TimeUnit.NANOSECONDS.toMillis(getLatencyPercentile(99)) +
+                    '}';
+        }
+    }
+
+    /**
+     * State of one simulation: the virtual clock, the event list, the queue
+     * contents and who is blocked. Producers are actors {@code 0..P-1},
+     * consumers {@code P..P+C-1}.
+     */
+    private final class Run {
+        private final long itemsPerProducer;
+        private final long horizon;
+        private final Random random = new Random(seed);
+        private final PriorityQueue<Event> events = new PriorityQueue<>();
+        private long eventSequence = 0;
+        private long now = 0;
+
+        // Put-call times of queued items, as a ring of capacity slots
+        private final long[] queued = new long[capacity];
+        private int head = 0;
+        private int size = 0;
+
+        private final long[] produced = new long[producers];
+        private final long[] pendingCallTime = new long[producers];
+        private final ArrayDeque<Integer> blockedProducers = new ArrayDeque<>();
+        private final ArrayDeque<Integer> blockedConsumers = new ArrayDeque<>();
+        private int activeProducers = producers;
+        private boolean closed = false;
+
+        private long[] latencies = new long[1024];
+        private int consumed = 0;
+        private long lastChange = 0;
+        private double occupancyArea = 0;
+        private long fullNanos = 0;
+        private int maxOccupancy = 0;
+
+        private Run(long itemsPerProducer, long horizon) {
+            this.itemsPerProducer = itemsPerProducer;
+            this.horizon = horizon;
+        }
+
+        private Result simulate() {
+            for (int actor = 0; actor < producers + consumers; actor++) {
+                schedule(actor, 0);
+            }
+            while (!events.isEmpty()) {
+                Event event = events.poll();
+                now = event.time;
+                if (event.actor < producers) {
+                    producerStep(event.actor);
+                } else {
+                    consumerStep(event.actor);
+                }
+            }
+            trackOccupancy();
+            return new Result(consumed, now, now == 0 ? 0 : occupancyArea / now, maxOccupancy,
+                    now == 0 ? 0 : (double) fullNanos / now, Arrays.copyOf(latencies, consumed));
+        }
+
+        /**
+         * A producer finished sleeping: it puts its next item or, with none
+         * left, signals done.
+         */
+        private void producerStep(int producer) {
+            if (produced[producer] >= itemsPerProducer || now >= horizon) {
+                activeProducers--;
+                if (activeProducers == 0) {
+                    closed = true;
+                    // Consumers blocked on an empty queue see end of stream
+                    blockedConsumers.clear();
+                }
+                return;
+            }
+
+            produced[producer]++;
+            if (size < capacity) {
+                enqueue(now);
+                putDone(producer);
+            } else {
+                pendingCallTime[producer] = now;
+                blockedProducers.add(producer);
+            }
+        }
+
+        /**
+         * A consumer finished sleeping: it takes the next item, blocks on an
+         * empty queue, or stops once the queue is closed and drained.
+         */
+        private void consumerStep(int consumer) {
+            if (size > 0) {
+                take(consumer);
+            } else if (!closed) {
+                blockedConsumers.add(consumer);
+            }
+        }
+
+        private void putDone(int producer) {
+            schedule(producer, now + producerDelay.sampleNanos(random));
+            Integer waiting = blockedConsumers.poll();
+            if (waiting != null) {
+                take(waiting);
+            }
+        }
+
+        private void take(int consumer) {
+            long callTime = dequeue();
+            if (consumed == latencies.length) {
+                latencies = Arrays.copyOf(latencies, consumed * 2);
+            }
+            latencies[consumed++] = now - callTime;
+            schedule(consumer, now + consumerDelay.sampleNanos(random));
+
+            Integer waiting = blockedProducers.poll();
+            if (waiting != null) {
+                enqueue(pendingCallTime[waiting]);
+                putDone(waiting);
+            }
+        }
+
+        private void enqueue(long callTime) {
+            trackOccupancy();
+            queued[(head + size) % capacity] = callTime;
+            size++;
+            maxOccupancy = Math.max(maxOccupancy, size);
+        }
+
+        private long dequeue() {
+            trackOccupancy();
+            long callTime = queued[head];
+            head = (head + 1) % capacity;
+            size--;
+            return callTime;
+        }
+
+        private void trackOccupancy() {
+            long span = now - lastChange;
+            occupancyArea += (double) size * span;
+            if (size == capacity) {
+                fullNanos += span;
+            }
+            lastChange = now;
+        }
+
+        private void schedule(int actor, long time) {
+            events.add(new Event(time, eventSequence++, actor));
+        }
+    }
+
+    /**
+     * An actor waking up at a point in virtual time. Ties run in the order
+     * they were scheduled.
+     */
+    private static final class Event implements Comparable<Event> {
+        private final long time;
+        private final long sequence;
+        private final int actor;
+
+        private Event(long time, long sequence, int actor) {
+            this.time = time;
+            this.sequence = sequence;
+            this.actor = actor;
+        }
+
+        @Override
+        public int compareTo(Event other) {
+            int byTime = Long.compare(time, other.time);
+            return byTime != 0 ? byTime : Long.compare(sequence, other.sequence);
+        }
+    }
+
+    /**
+     * SharedQueue wrapper for {@link #measureThreads} that records when each
+     * item's put was called and when its get returned.
+     */
+    private static final class TimedQueue implements WorkSink<WorkItem>, WorkSource<WorkItem> {
+        private final SharedQueue<WorkItem> delegate;
+        private final ConcurrentHashMap<Integer, Long> putTimes = new ConcurrentHashMap<>();
+        private final List<Long> latencies = new ArrayList<>();
+
+        private TimedQueue(SharedQueue<WorkItem> delegate) {
+            this.delegate = delegate;
+        }
+
+        @Override
+        public void put(WorkItem item) throws InterruptedException {
+            putTimes.put(item.getId(), System.nanoTime());
+            delegate.put(item);
+        }
+
+        @Override
+        public WorkItem get() throws InterruptedException {
+            WorkItem item = delegate.get();
+            if (item != null) {
+                long latency = System.nanoTime() - putTimes.remove(item.getId());
+                synchronized (latencies) {
+                    latencies.add(latency);
+                }
+            }
+            return item;
+        }
+
+        @Override
+        public void registerProducer() {
+            delegate.registerProducer();
+        }
+
+        @Override
+        public void producerDone() {
+            delegate.producerDone();
+        }
+
+        private long[] latencies() {
+            synchronized (latencies) {
+                return latencies.stream().mapToLong(Long::longValue).toArray();
+            }
+        }
+    }
+}
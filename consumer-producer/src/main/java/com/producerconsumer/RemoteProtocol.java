@@ -0,0 +1,166 @@
+package com.producerconsumer;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.net.ProtocolException;
+import java.nio.ByteBuffer;
+import java.nio.channels.SocketChannel;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * RemoteProtocol defines the wire format shared by {@link RemoteQueueServer},
+ * {@link RemoteSink} and {@link RemoteSource}.
+ *
+ * <p>
+ * Every frame is length-prefixed: {@code int length} (type byte + payload),
+ * {@code byte type}, then the payload. Frame types:
+ * </p>
+ * <ul>
+ * <li>{@code HELLO_PRODUCER} / {@code HELLO_CONSUMER} – first frame from a
+ * client, selects the connection's role</li>
+ * <li>{@code REGISTER_PRODUCER} / {@code PRODUCER_DONE} – mirror
+ * {@link WorkSink#registerProducer()} / {@link WorkSink#producerDone()}</li>
+ * <li>{@code ITEMS} – one {@link WorkItemCodec} batch; sent in both
+ * directions</li>
+ * <li>{@code CREDIT} – {@code int n}; the receiver may send n more items.
+ * The server grants producers credit as their items enter the queue, and
+ * consumers grant the server credit for the items they are ready to take</li>
+ * <li>{@code CLOSED} – the queue is closed and drained (server to
+ * consumer)</li>
+ * </ul>
+ */
+final class RemoteProtocol {
+
+    static final byte HELLO_PRODUCER = 1;
+    static final byte HELLO_CONSUMER = 2;
+    static final byte REGISTER_PRODUCER = 3;
+    static final byte PRODUCER_DONE = 4;
+    static final byte ITEMS = 5;
+    static final byte CREDIT = 6;
+    static final byte CLOSED = 7;
+
+    /** Upper bound on a single frame, to reject garbage lengths early. */
+    static final int MAX_FRAME_BYTES = 16 * 1024 * 1024;
+
+    private RemoteProtocol() {
+    }
+
+    /**
+     * Builds a frame with no payload.
+     *
+     * @param type Frame type
+     * @return Frame ready to write
+     */
+    static ByteBuffer controlFrame(byte type) {
+        ByteBuffer frame = ByteBuffer.allocate(Integer.BYTES + 1);
+        frame.putInt(1).put(type).flip();
+        return frame;
+    }
+
+    /**
+     * Builds a CREDIT frame.
+     *
+     * @param credits Number of items the peer may send
+     * @return Frame ready to write
+     */
+    static ByteBuffer creditFrame(int credits) {
+        ByteBuffer frame = ByteBuffer.allocate(Integer.BYTES + 1 + Integer.BYTES);
+        frame.putInt(1 + Integer.BYTES).put(CREDIT).putInt(credits).flip();
+        return frame;
+    }
+
+    /**
+     * Builds a single ITEMS frame carrying a whole batch.
+     *
+     * @param items Items to send (must not be empty)
+     * @return Frame ready to write
+     */
+    static ByteBuffer itemsFrame(List<WorkItem> items) {
+        int payload = WorkItemCodec.encodedBatchSize(items);
+        ByteBuffer frame = ByteBuffer.allocate(Integer.BYTES + 1 + payload);
+        frame.putInt(1 + payload).put(ITEMS);
+        WorkItemCodec.encodeBatch(items, frame);
+        frame.flip();
+        return frame;
+    }
+
+    /**
+     * Decodes the payload of an ITEMS frame.
+     *
+     * @param payload Frame payload
+     * @return Decoded items in wire order
+     */
+    static List<WorkItem> decodeItems(ByteBuffer payload) {
+        List<WorkItem> items = new ArrayList<>();
+        WorkItemCodec.decodeBatch(payload, items);
+        return items;
+    }
+
+    /**
+     * Validates a frame length read from the wire.
+     *
+     * @param length Length field value
+     * @throws ProtocolException if the length is out of range
+     */
+    static void checkLength(int length) throws ProtocolException {
+        if (length < 1 || length > MAX_FRAME_BYTES) {
+            throw new ProtocolException("Invalid frame length: " + length);
+        }
+    }
+
+    /**
+     * Reads one frame from a blocking channel.
+     *
+     * @param channel Blocking channel to read from
+     * @return Frame whose payload buffer is positioned after the type byte
+     * @throws EOFException if the peer closed the connection
+     * @throws IOException  on I/O or protocol errors
+     */
+    static Frame readFrame(SocketChannel channel) throws IOException {
+        ByteBuffer header = ByteBuffer.allocate(Integer.BYTES);
+        readFully(channel, header);
+        int length = header.flip().getInt();
+        checkLength(length);
+
+        ByteBuffer body = ByteBuffer.allocate(length);
+        readFully(channel, body);
+        body.flip();
+        byte type = body.get();
+        return new Frame(type, body);
+    }
+
+    /**
+     * Writes a buffer completely to a blocking channel.
+     *
+     * @param channel Blocking channel
+     * @param buffer  Data to write
+     * @throws IOException on I/O errors
+     */
+    static void writeFully(SocketChannel channel, ByteBuffer buffer) throws IOException {
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+    }
+
+    private static void readFully(SocketChannel channel, ByteBuffer buffer) throws IOException {
+        while (buffer.hasRemaining()) {
+            if (channel.read(buffer) < 0) {
+                throw new EOFException("Connection closed by peer");
+            }
+        }
+    }
+
+    /**
+     * A decoded frame.
+     */
+    static final class Frame {
+        final byte type;
+        final ByteBuffer payload;
+
+        Frame(byte type, ByteBuffer payload) {
+            this.type = type;
+            this.payload = payload;
+        }
+    }
+}
@@ -0,0 +1,402 @@
+package com.producerconsumer;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.ProtocolException;
+import java.net.StandardSocketOptions;
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Objects;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * RemoteQueueServer exposes a {@link SharedQueue} of {@link WorkItem}s to
+ * producers and consumers in other processes over a non-blocking NIO channel.
+ *
+ * <p>
+ * A single selector thread serves every connection. It never blocks on the
+ * queue: incoming items go in through {@link SharedQueue#putAsync(Object)} and
+ * consumer requests are served with {@link SharedQueue#getAsync()}, whose
+ * completions are batched into one ITEMS frame per connection per loop
+ * iteration. See {@link RemoteProtocol} for the wire format.
+ * </p>
+ *
+ * <p>
+ * Flow control is credit based in both directions. A producer connection
+ * starts with {@code producerWindow} credits and earns one back each time one
+ * of its items is admitted to the queue, so a remote producer is throttled by
+ * the queue exactly like a local one. Consumers grant the server credit for the
+ * items they want prefetched.
+ * </p>
+ *
+ * <p>
+ * Lifecycle: REGISTER_PRODUCER / PRODUCER_DONE frames map onto
+ * {@link SharedQueue#registerProducer()} / {@link SharedQueue#producerDone()};
+ * a producer connection that drops is treated as done for every producer it
+ * registered. Consumers receive a CLOSED frame once the queue is closed and
+ * drained. Items already handed to a consumer connection that drops before they
+ * are written are lost (at-most-once on connection loss).
+ * </p>
+ */
+public class RemoteQueueServer implements Closeable {
+    private static final Logger logger = Logger.getLogger(RemoteQueueServer.class.getName());
+
+    private static final int READ_BUFFER_BYTES = 64 * 1024;
+    private static final int MAX_ITEMS_PER_FRAME = 1024;
+
+    private final SharedQueue<WorkItem> queue;
+    private final int producerWindow;
+    private final Selector selector;
+    private final ServerSocketChannel serverChannel;
+    private final Thread ioThread;
+    private final Queue<Connection> dirty = new ConcurrentLinkedQueue<>();
+    private volatile boolean running = true;
+
+    /**
+     * Binds the server and starts its selector thread.
+     *
+     * @param queue          Queue to expose (must not be null)
+     * @param bindAddress    Address to listen on; port 0 picks a free port (must
+     *                       not be null)
+     * @param producerWindow Items a producer connection may have in flight
+     *                       (must be at least 1)
+     * @throws IOException              if the server socket cannot be opened
+     * @throws NullPointerException     if queue or bindAddress is null
+     * @throws IllegalArgumentException if producerWindow is less than 1
+     */
+    public RemoteQueueServer(SharedQueue<WorkItem> queue, InetSocketAddress bindAddress,
+            int producerWindow) throws IOException {
+        this.queue = Objects.requireNonNull(queue, "Shared queue cannot be null");
+        Objects.requireNonNull(bindAddress, "Bind address cannot be null");
+        if (producerWindow < 1) {
+            throw new IllegalArgumentException(
+                    "Producer window must be at least 1, but was: " + producerWindow);
+        }
+        this.producerWindow = producerWindow;
+
+        this.selector = Selector.open();
+        this.serverChannel = ServerSocketChannel.open();
+        try {
+            serverChannel.bind(bindAddress);
+            serverChannel.configureBlocking(false);
+            serverChannel.register(selector, SelectionKey.OP_ACCEPT);
+        } catch (IOException e) {
+            serverChannel.close();
+            selector.close();
+            throw e;
+        }
+
+        this.ioThread = new Thread(this::runLoop, "remote-queue-server");
+        this.ioThread.setDaemon(true);
+        this.ioThread.start();
+    }
+
+    /**
+     * Returns the address the server is listening on.
+     *
+     * @return Bound address (with the actual port if 0 was requested)
+     * @throws IOException if the address cannot be read
+     */
+    public InetSocketAddress getLocalAddress() throws IOException {
+        return (InetSocketAddress) serverChannel.getLocalAddress();
+    }
+
+    /**
+     * Stops accepting connections and closes every open connection.
+     * Producers registered by still-open connections are marked done.
+     */
+    @Override
+    public void close() {
+        running = false;
+        selector.wakeup();
+        try {
+            ioThread.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void runLoop() {
+        try {
+            while (running) {
+                selector.select();
+
+                Connection connection;
+                while ((connection = dirty.poll()) != null) {
+                    connection.flushPending();
+                }
+
+                Iterator<SelectionKey> keys = selector.selectedKeys().iterator();
+                while (keys.hasNext()) {
+                    SelectionKey key = keys.next();
+                    keys.remove();
+                    if (!key.isValid()) {
+                        continue;
+                    }
+                    if (key.isAcceptable()) {
+                        accept();
+                        continue;
+                    }
+
+                    Connection c = (Connection) key.attachment();
+                    if (key.isReadable()) {
+                        c.onReadable();
+                    }
+                    if (key.isValid() && key.isWritable()) {
+                        c.writePending();
+                    }
+                }
+            }
+        } catch (IOException e) {
+            logger.log(Level.WARNING, "Remote queue server stopped on I/O error", e);
+        } finally {
+            for (SelectionKey key : selector.keys()) {
+                if (key.attachment() instanceof Connection) {
+                    ((Connection) key.attachment()).close();
+                }
+            }
+            closeQuietly(serverChannel);
+            closeQuietly(selector);
+        }
+    }
+
+    private void accept() throws IOException {
+        SocketChannel channel = serverChannel.accept();
+        if (channel == null) {
+            return;
+        }
+        channel.configureBlocking(false);
+        channel.setOption(StandardSocketOptions.TCP_NODELAY, true);
+        Connection connection = new Connection(channel);
+        connection.key = channel.register(selector, SelectionKey.OP_READ, connection);
+        logger.info("Remote queue connection from " + channel.getRemoteAddress());
+    }
+
+    private static void closeQuietly(Closeable closeable) {
+        try {
+            closeable.close();
+        } catch (IOException e) {
+            // Nothing useful to do while shutting down
+        }
+    }
+
+    /**
+     * Per-connection state. Fields without concurrent types are only touched on
+     * the selector thread; queue callbacks communicate through the concurrent
+     * fields and {@link #markDirty()}.
+     */
+    private final class Connection {
+        private final SocketChannel channel;
+        private SelectionKey key;
+        private ByteBuffer readBuffer = ByteBuffer.allocate(READ_BUFFER_BYTES);
+        private final Deque<ByteBuffer> writes = new ArrayDeque<>();
+        private int registeredProducers = 0;
+        private boolean closedSent = false;
+        private boolean open = true;
+
+        private final AtomicBoolean scheduled = new AtomicBoolean();
+        private final AtomicInteger creditsToGrant = new AtomicInteger();
+        private final Queue<WorkItem> delivered = new ConcurrentLinkedQueue<>();
+        private final Set<CompletableFuture<WorkItem>> outstanding = ConcurrentHashMap.newKeySet();
+        private volatile boolean endOfStream = false;
+
+        private Connection(SocketChannel channel) {
+            this.channel = channel;
+        }
+
+        private void onReadable() {
+            try {
+                if (channel.read(readBuffer) < 0) {
+                    close();
+                    return;
+                }
+
+                readBuffer.flip();
+                while (readBuffer.remaining() >= Integer.BYTES) {
+                    int length = readBuffer.getInt(readBuffer.position());
+                    RemoteProtocol.checkLength(length);
+                    if (readBuffer.remaining() < Integer.BYTES + length) {
+                        break;
+                    }
+
+                    readBuffer.getInt();
+                    int end = readBuffer.position() + length;
+                    ByteBuffer frame = readBuffer.slice(readBuffer.position(), length);
+                    readBuffer.position(end);
+                    handleFrame(frame.get(), frame);
+                }
+                readBuffer.compact();
+
+                // Grow when a single frame is larger than the buffer
+                if (!readBuffer.hasRemaining()) {
+                    ByteBuffer bigger = ByteBuffer.allocate(readBuffer.capacity() * 2);
+                    readBuffer.flip();
+                    bigger.put(readBuffer);
+                    readBuffer = bigger;
+                }
+                writePending();
+            } catch (ProtocolException | RuntimeException e) {
+                logger.log(Level.WARNING, "Dropping remote queue connection", e);
+                close();
+            } catch (IOException e) {
+                logger.info("Remote queue connection lost: " + e.getMessage());
+                close();
+            }
+        }
+
+        private void handleFrame(byte type, ByteBuffer payload) {
+            switch (type) {
+                case RemoteProtocol.HELLO_PRODUCER:
+                    writes.add(RemoteProtocol.creditFrame(producerWindow));
+                    break;
+                case RemoteProtocol.HELLO_CONSUMER:
+                    break;
+                case RemoteProtocol.REGISTER_PRODUCER:
+                    queue.registerProducer();
+                    registeredProducers++;
+                    break;
+                case RemoteProtocol.PRODUCER_DONE:
+                    if (registeredProducers > 0) {
+                        registeredProducers--;
+                        queue.producerDone();
+                    }
+                    break;
+                case RemoteProtocol.ITEMS:
+                    for (WorkItem item : RemoteProtocol.decodeItems(payload)) {
+                        queue.putAsync(item).whenComplete((ignored, error) -> {
+                            if (error != null) {
+                                logger.warning("Remote item rejected: " + error.getMessage());
+                            }
+                            creditsToGrant.incrementAndGet();
+                            markDirty();
+                        });
+                    }
+                    break;
+                case RemoteProtocol.CREDIT:
+                    int credits = payload.getInt();
+                    for (int i = 0; i < credits; i++) {
+                        requestItem();
+                    }
+                    break;
+                default:
+                    throw new IllegalStateException("Unknown frame type: " + type);
+            }
+        }
+
+        private void requestItem() {
+            CompletableFuture<WorkItem> future = queue.getAsync();
+            outstanding.add(future);
+            future.whenComplete((item, error) -> {
+                outstanding.remove(future);
+                if (error != null) {
+                    return;
+                }
+                if (item == null) {
+                    endOfStream = true;
+                } else {
+                    delivered.add(item);
+                }
+                markDirty();
+            });
+        }
+
+        private void markDirty() {
+            if (scheduled.compareAndSet(false, true)) {
+                dirty.add(this);
+                selector.wakeup();
+            }
+        }
+
+        /**
+         * Turns completed queue operations into frames. Runs on the selector
+         * thread.
+         */
+        private void flushPending() {
+            scheduled.set(false);
+            if (!open) {
+                return;
+            }
+
+            int credits = creditsToGrant.getAndSet(0);
+            if (credits > 0) {
+                writes.add(RemoteProtocol.creditFrame(credits));
+            }
+
+            List<WorkItem> batch = new ArrayList<>();
+            WorkItem item;
+            while ((item = delivered.poll()) != null) {
+                batch.add(item);
+                if (batch.size() == MAX_ITEMS_PER_FRAME) {
+                    writes.add(RemoteProtocol.itemsFrame(batch));
+                    batch.clear();
+                }
+            }
+            if (!batch.isEmpty()) {
+                writes.add(RemoteProtocol.itemsFrame(batch));
+            }
+
+            if (endOfStream && !closedSent && delivered.isEmpty()) {
+                writes.add(RemoteProtocol.controlFrame(RemoteProtocol.CLOSED));
+                closedSent = true;
+            }
+            writePending();
+        }
+
+        private void writePending() {
+            try {
+                while (!writes.isEmpty()) {
+                    ByteBuffer head = writes.peek();
+                    channel.write(head);
+                    if (head.hasRemaining()) {
+                        key.interestOps(SelectionKey.OP_READ | SelectionKey.OP_WRITE);
+                        return;
+                    }
+                    writes.poll();
+                }
+                if (key.isValid()) {
+                    key.interestOps(SelectionKey.OP_READ);
+                }
+            } catch (IOException e) {
+                logger.info("Remote queue connection lost: " + e.getMessage());
+                close();
+            }
+        }
+
+        private void close() {
+            if (!open) {
+                return;
+            }
+            open = false;
+            if (key != null) {
+                key.cancel();
+            }
+            closeQuietly(channel);
+
+            for (CompletableFuture<WorkItem> future : outstanding) {
+                future.cancel(false);
+            }
+            // A vanished producer will never send PRODUCER_DONE; don't strand consumers
+            for (; registeredProducers > 0; registeredProducers--) {
+                queue.producerDone();
+            }
+            logger.info("Remote queue connection closed");
+        }
+    }
+}
@@ -0,0 +1,234 @@
+package com.producerconsumer;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.InetSocketAddress;
+import java.net.StandardSocketOptions;
+import java.nio.channels.ClosedByInterruptException;
+import java.nio.channels.SocketChannel;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * RemoteSink is the client-side producer proxy for a {@link RemoteQueueServer}.
+ * A regular {@link Producer} can write through it exactly as it would into a
+ * local {@link SharedQueue}.
+ *
+ * <p>
+ * Items are batched: they are buffered locally and sent as one ITEMS frame when
+ * the batch is full, when the sink runs out of credit, when the linger time
+ * since the first buffered item has passed, or on
+ * {@link #producerDone()}. {@link #put(WorkItem)} blocks only when the server
+ * has not granted any credit, which happens when the remote queue is full.
+ * </p>
+ *
+ * <p>
+ * Thread Safety:
+ * </p>
+ * This class is thread-safe; several producers may share one sink.
+ */
+public class RemoteSink implements WorkSink<WorkItem>, Closeable {
+
+    private final SocketChannel channel;
+    private final int maxBatch;
+    private final long lingerMs;
+    private final List<WorkItem> batch = new ArrayList<>();
+    private final Thread flusher;
+
+    private int credits = 0;
+    private boolean closed = false;
+
+    /**
+     * Connects to a remote queue server as a producer.
+     *
+     * @param address  Server address (must not be null)
+     * @param maxBatch Maximum items per ITEMS frame (must be at least 1)
+     * @param lingerMs Maximum time an item may wait in a partial batch (must be
+     *                 non-negative; 0 sends every item immediately)
+     * @return Connected sink
+     * @throws IOException              if the connection fails
+     * @throws IllegalArgumentException if maxBatch or lingerMs is out of range
+     */
+    public static RemoteSink connect(InetSocketAddress address, int maxBatch, long lingerMs)
+            throws IOException {
+        Objects.requireNonNull(address, "Server address cannot be null");
+        if (maxBatch < 1) {
+            throw new IllegalArgumentException(
+                    "Batch size must be at least 1, but was: " + maxBatch);
+        }
+        if (lingerMs < 0) {
+            throw new IllegalArgumentException(
+                    "Linger must be non-negative, but was: " + lingerMs);
+        }
+
+        SocketChannel channel = SocketChannel.open(address);
+        try {
+            channel.setOption(StandardSocketOptions.TCP_NODELAY, true);
+            RemoteProtocol.writeFully(channel, RemoteProtocol.controlFrame(RemoteProtocol.HELLO_PRODUCER));
+        } catch (IOException e) {
+            channel.close();
+            throw e;
+        }
+        return new RemoteSink(channel, maxBatch, lingerMs);
+    }
+
+    private RemoteSink(SocketChannel channel, int maxBatch, long lingerMs) {
+        this.channel = channel;
+        this.maxBatch = maxBatch;
+        this.lingerMs = lingerMs;
+        if (lingerMs > 0) {
+            this.flusher = new Thread(this::runFlusher, "remote-sink-flusher");
+            this.flusher.setDaemon(true);
+            this.flusher.start();
+        } else {
+            this.flusher = null;
+        }
+    }
+
+    /**
+     * Buffers an item for sending, blocking while the server has granted no
+     * credit.
+     *
+     * @param item Item to send (must not be null)
+     * @throws InterruptedException  if the thread is interrupted while waiting for
+     *                               credit
+     * @throws NullPointerException  if item is null
+     * @throws IllegalStateException if the sink is closed
+     * @throws UncheckedIOException  if the connection fails
+     */
+    @Override
+    public synchronized void put(WorkItem item) throws InterruptedException {
+        Objects.requireNonNull(item, "Cannot put null item into queue");
+        ensureOpen();
+
+        try {
+            while (credits == 0) {
+                flushLocked();
+                awaitCredit();
+            }
+
+            batch.add(item);
+            credits--;
+            if (lingerMs == 0 || batch.size() >= maxBatch || credits == 0) {
+                flushLocked();
+            } else if (batch.size() == 1) {
+                notifyAll();
+            }
+        } catch (ClosedByInterruptException e) {
+            closed = true;
+            Thread.currentThread().interrupt();
+            throw new InterruptedException("Interrupted during remote put");
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Sends any partially filled batch right away.
+     *
+     * @throws UncheckedIOException if the connection fails
+     */
+    public synchronized void flush() {
+        try {
+            flushLocked();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    @Override
+    public synchronized void registerProducer() {
+        ensureOpen();
+        try {
+            RemoteProtocol.writeFully(channel, RemoteProtocol.controlFrame(RemoteProtocol.REGISTER_PRODUCER));
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Flushes buffered items and tells the server this producer is done. The
+     * remote queue closes once every producer, local or remote, is done.
+     */
+    @Override
+    public synchronized void producerDone() {
+        if (closed) {
+            return;
+        }
+        try {
+            flushLocked();
+            RemoteProtocol.writeFully(channel, RemoteProtocol.controlFrame(RemoteProtocol.PRODUCER_DONE));
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Flushes buffered items and closes the connection. Producers that did not
+     * call {@link #producerDone()} are treated as done by the server.
+     */
+    @Override
+    public void close() throws IOException {
+        synchronized (this) {
+            if (closed) {
+                return;
+            }
+            try {
+                flushLocked();
+            } finally {
+                closed = true;
+                notifyAll();
+                channel.close();
+            }
+        }
+        if (flusher != null) {
+            flusher.interrupt();
+        }
+    }
+
+    private void ensureOpen() {
+        if (closed) {
+            throw new IllegalStateException("Remote sink is closed");
+        }
+    }
+
+    private void flushLocked() throws IOException {
+        if (batch.isEmpty()) {
+            return;
+        }
+        RemoteProtocol.writeFully(channel, RemoteProtocol.itemsFrame(batch));
+        batch.clear();
+    }
+
+    /**
+     * Reads one frame from the server. Only CREDIT frames are sent to producer
+     * connections.
+     */
+    private void awaitCredit() throws IOException {
+        RemoteProtocol.Frame frame = RemoteProtocol.readFrame(channel);
+        if (frame.type == RemoteProtocol.CREDIT) {
+            credits += frame.payload.getInt();
+        }
+    }
+
+    private void runFlusher() {
+        synchronized (this) {
+            try {
+                while (!closed) {
+                    if (batch.isEmpty()) {
+                        wait();
+                        continue;
+                    }
+                    wait(lingerMs);
+                    flushLocked();
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } catch (IOException e) {
+                // The owning producer will see the failure on its next put
+            }
+        }
+    }
+}
@@ -0,0 +1,151 @@
+package com.producerconsumer;
+
+import java.io.Closeable;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.InetSocketAddress;
+import java.net.StandardSocketOptions;
+import java.nio.channels.ClosedByInterruptException;
+import java.nio.channels.SocketChannel;
+import java.util.ArrayDeque;
+import java.util.Objects;
+
+/**
+ * RemoteSource is the client-side consumer proxy for a
+ * {@link RemoteQueueServer}. A regular {@link Consumer} can read through it
+ * exactly as it would from a local {@link SharedQueue}.
+ *
+ * <p>
+ * The source grants the server credit for up to {@code prefetch} items and tops
+ * the credit up once half of it has been used, so items arrive in batches and
+ * {@link #get()} is usually served from the local buffer. Prefetched items that
+ * are never taken are lost when the source is closed, so keep {@code prefetch}
+ * small when consumers may stop early.
+ * </p>
+ *
+ * <p>
+ * Thread Safety:
+ * </p>
+ * This class is thread-safe; several consumers may share one source.
+ */
+public class RemoteSource implements WorkSource<WorkItem>, Closeable {
+
+    private final SocketChannel channel;
+    private final int prefetch;
+    private final ArrayDeque<WorkItem> buffer = new ArrayDeque<>();
+
+    private int outstanding = 0;
+    private boolean endOfStream = false;
+    private boolean closed = false;
+
+    /**
+     * Connects to a remote queue server as a consumer.
+     *
+     * @param address  Server address (must not be null)
+     * @param prefetch Maximum items requested ahead of {@link #get()} (must be at
+     *                 least 1)
+     * @return Connected source
+     * @throws IOException              if the connection fails
+     * @throws IllegalArgumentException if prefetch is less than 1
+     */
+    public static RemoteSource connect(InetSocketAddress address, int prefetch) throws IOException {
+        Objects.requireNonNull(address, "Server address cannot be null");
+        if (prefetch < 1) {
+            throw new IllegalArgumentException(
+                    "Prefetch must be at least 1, but was: " + prefetch);
+        }
+
+        SocketChannel channel = SocketChannel.open(address);
+        try {
+            channel.setOption(StandardSocketOptions.TCP_NODELAY, true);
+            RemoteProtocol.writeFully(channel, RemoteProtocol.controlFrame(RemoteProtocol.HELLO_CONSUMER));
+        } catch (IOException e) {
+            channel.close();
+            throw e;
+        }
+        return new RemoteSource(channel, prefetch);
+    }
+
+    private RemoteSource(SocketChannel channel, int prefetch) {
+        this.channel = channel;
+        this.prefetch = prefetch;
+    }
+
+    /**
+     * Retrieves the next item, blocking until the server delivers one.
+     *
+     * @return Next item, or null once the remote queue is closed and drained (or
+     *         the connection was closed)
+     * @throws InterruptedException if the thread is interrupted while waiting
+     * @throws UncheckedIOException if the connection fails
+     */
+    @Override
+    public synchronized WorkItem get() throws InterruptedException {
+        try {
+            while (buffer.isEmpty()) {
+                if (endOfStream || closed) {
+                    return null;
+                }
+                topUpCredit();
+                readFrame();
+            }
+
+            WorkItem item = buffer.poll();
+            if (!endOfStream && !closed) {
+                topUpCredit();
+            }
+            return item;
+        } catch (ClosedByInterruptException e) {
+            closed = true;
+            Thread.currentThread().interrupt();
+            throw new InterruptedException("Interrupted during remote get");
+        } catch (EOFException e) {
+            // Server went away - behave like a closed queue
+            endOfStream = true;
+            return buffer.poll();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Closes the connection. Any items the server had already sent but that
+     * were not taken are discarded.
+     */
+    @Override
+    public synchronized void close() throws IOException {
+        closed = true;
+        channel.close();
+    }
+
+    /**
+     * Requests more items once fewer than half of the prefetch window is in
+     * flight or buffered.
+     */
+    private void topUpCredit() throws IOException {
+        int inFlight = outstanding + buffer.size();
+        if (inFlight * 2 <= prefetch) {
+            int grant = prefetch - inFlight;
+            RemoteProtocol.writeFully(channel, RemoteProtocol.creditFrame(grant));
+            outstanding += grant;
+        }
+    }
+
+    private void readFrame() throws IOException {
+        RemoteProtocol.Frame frame = RemoteProtocol.readFrame(channel);
+        switch (frame.type) {
+            case RemoteProtocol.ITEMS:
+                for (WorkItem item : RemoteProtocol.decodeItems(frame.payload)) {
+                    buffer.add(item);
+                    outstanding--;
+                }
+                break;
+            case RemoteProtocol.CLOSED:
+                endOfStream = true;
+                break;
+            default:
+                throw new IOException("Unexpected frame type for consumer: " + frame.type);
+        }
+    }
+}
@@ -0,0 +1,307 @@
+package com.producerconsumer;
+
+import java.util.Objects;
+import java.util.function.ToLongFunction;
+import java.util.logging.Logger;
+
+/**
+ * ReorderBuffer restores sequence order after parallel consumption: several
+ * consumers put items in whatever order they finish, and {@link #get()} hands
+ * them out strictly by sequence number as soon as each gap fills.
+ *
+ * <p>
+ * Items are parked in a ring indexed by {@code sequence % window}. The ring
+ * covers the sequences from the next one to release up to {@code window - 1}
+ * ahead of it; a put for a sequence further ahead blocks until the reader has
+ * caught up. The item that fills the current gap always fits, so the stage
+ * cannot deadlock while that item is still on its way.
+ * </p>
+ *
+ * <p>
+ * Key features:
+ * </p>
+ * <ul>
+ * <li>Ordered output while the stream runs, instead of sorting the whole
+ * destination at the end</li>
+ * <li>O(1) put and get with no per-item allocation</li>
+ * <li>Bounded memory and backpressure: at most {@code window} items are held,
+ * and producers running too far ahead of a gap block</li>
+ * <li>Same producer registration and closing semantics as
+ * {@link SharedQueue}; sequences still missing at close are skipped so the
+ * remaining items drain in order</li>
+ * </ul>
+ *
+ * <p>
+ * A typical pipeline is producers into a {@link SharedQueue}, several
+ * {@link Consumer}s from there into this buffer, and one consumer from this
+ * buffer into the final destination.
+ * </p>
+ *
+ * <p>
+ * Thread Safety:
+ * </p>
+ * This class is thread-safe. All state is guarded by the buffer's monitor.
+ *
+ * @param <T> Type of items stored in the buffer (must not be null)
+ */
+public class ReorderBuffer<T> implements WorkSink<T>, WorkSource<T> {
+    private static final Logger logger = Logger.getLogger(ReorderBuffer.class.getName());
+
+    private final Object[] slots;
+    private final ToLongFunction<? super T> sequenceOf;
+
+    // Sequence of the next item get() hands out
+    private long nextSequence;
+    private int size = 0;
+    private long itemsReleased = 0;
+    private long gapsSkipped = 0;
+    private long backpressureWaits = 0;
+    private int activeProducers = 0;
+    private boolean closed = false;
+
+    /**
+     * Creates a new ReorderBuffer.
+     *
+     * @param window        Number of sequences the buffer can hold ahead of the
+     *                      next one to release (must be at least 1)
+     * @param sequenceOf    Extracts an item's sequence number (must not be null)
+     * @param firstSequence Sequence number of the first item to release
+     * @throws NullPointerException     if sequenceOf is null
+     * @throws IllegalArgumentException if window is less than 1
+     */
+    public ReorderBuffer(int window, ToLongFunction<? super T> sequenceOf, long firstSequence) {
+        if (window < 1) {
+            throw new IllegalArgumentException(
+                    "Window must be at least 1, but was: " + window);
+        }
+        this.slots = new Object[window];
+        this.sequenceOf = Objects.requireNonNull(sequenceOf, "Sequence function cannot be null");
+        this.nextSequence = firstSequence;
+    }
+
+    /**
+     * Parks an item in its sequence slot.
+     * If the item is a full window ahead of the next sequence to release, this
+     * method blocks until the reader catches up.
+     *
+     * @param item Item to add (must not be null)
+     * @throws InterruptedException     if the thread is interrupted while waiting
+     * @throws NullPointerException     if item is null
+     * @throws IllegalArgumentException if the sequence was already released or
+     *                                  is already held by another item
+     * @throws IllegalStateException    if the buffer has been closed
+     */
+    @Override
+    public synchronized void put(T item) throws InterruptedException {
+        Objects.requireNonNull(item, "Cannot put null item into queue");
+        long sequence = sequenceOf.applyAsLong(item);
+
+        if (sequence >= nextSequence + slots.length && !closed) {
+            backpressureWaits++;
+            do {
+                waitSafely();
+            } while (sequence >= nextSequence + slots.length && !closed);
+        }
+
+        if (closed) {
+            throw new IllegalStateException("Cannot put items into a closed queue");
+        }
+        if (sequence < nextSequence) {
+            throw new IllegalArgumentException("Sequence " + sequence
+                    + " already released (next is " + nextSequence + ")");
+        }
+
+        int index = index(sequence);
+        if (slots[index] != null) {
+            throw new IllegalArgumentException("Duplicate sequence: " + sequence);
+        }
+        slots[index] = item;
+        size++;
+        if (sequence == nextSequence) {
+            // Only the item filling the gap lets the reader move on
+            notifyAll();
+        }
+    }
+
+    /**
+     * Retrieves the item with the next sequence number.
+     * If that item has not arrived yet, this method blocks until it does.
+     *
+     * <p>
+     * Once the buffer is closed, missing sequences are skipped (and counted in
+     * {@link #getGapsSkipped()}) so the items still held drain in order.
+     * </p>
+     *
+     * @return Next item in sequence order, or null if the buffer is closed and
+     *         drained
+     * @throws InterruptedException if the thread is interrupted while waiting
+     */
+    @Override
+    public synchronized T get() throws InterruptedException {
+        while (slots[index(nextSequence)] == null) {
+            if (closed) {
+                if (size == 0) {
+                    return null;
+                }
+                nextSequence++;
+                gapsSkipped++;
+            } else {
+                waitSafely();
+            }
+        }
+        return release();
+    }
+
+    /**
+     * Retrieves the item with the next sequence number without blocking.
+     *
+     * @return Next item in sequence order, or null if it has not arrived yet
+     */
+    public synchronized T poll() {
+        if (slots[index(nextSequence)] == null) {
+            return null;
+        }
+        return release();
+    }
+
+    /**
+     * Returns the number of items held, waiting for an earlier gap to fill or
+     * for the reader.
+     *
+     * @return Current buffer size (0 to window)
+     */
+    public synchronized int size() {
+        return size;
+    }
+
+    /**
+     * Returns the number of sequences the buffer can hold ahead of the next
+     * one to release.
+     *
+     * @return Window size (always positive)
+     */
+    public int getWindow() {
+        return slots.length;
+    }
+
+    /**
+     * Returns the sequence number the next {@link #get()} will hand out.
+     *
+     * @return Next sequence to release
+     */
+    public synchronized long getNextSequence() {
+        return nextSequence;
+    }
+
+    /**
+     * Returns the total number of items handed out in order.
+     *
+     * @return Total items released
+     */
+    public synchronized long getItemsReleased() {
+        return itemsReleased;
+    }
+
+    /**
+     * Returns the number of sequences skipped because they never arrived
+     * before the buffer closed.
+     *
+     * @return Total gaps skipped
+     */
+    public synchronized long getGapsSkipped() {
+        return gapsSkipped;
+    }
+
+    /**
+     * Returns how many puts had to wait because they were a full window ahead
+     * of the next sequence to release.
+     *
+     * @return Total backpressure waits
+     */
+    public synchronized long getBackpressureWaits() {
+        return backpressureWaits;
+    }
+
+    /**
+     * Checks whether every registered producer has finished.
+     *
+     * @return true if the buffer is closed
+     */
+    public synchronized boolean isClosed() {
+        return closed;
+    }
+
+    /**
+     * Prints statistics about buffer usage.
+     */
+    public synchronized void printStats() {
+        logger.info("\n=== Reorder Buffer Statistics ===");
+        logger.info("Window: " + slots.length);
+        logger.info("Next sequence: " + nextSequence);
+        logger.info("Current size: " + size);
+        logger.info("Items released: " + itemsReleased);
+        logger.info("Gaps skipped: " + gapsSkipped);
+        logger.info("Backpressure waits: " + backpressureWaits);
+        logger.info("Closed: " + closed);
+    }
+
+    @Override
+    public synchronized String toString() {
+        return "ReorderBuffer{" +
+                "size=" + size +
+                ", window=" + slots.length +
+                ", nextSequence=" + nextSequence +
+                ", closed=" + closed +
+                '}';
+    }
+
+    @Override
+    public synchronized void registerProducer() {
+        if (closed) {
+            throw new IllegalStateException("Queue already closed");
+        }
+        activeProducers++;
+    }
+
+    @Override
+    public synchronized void producerDone() {
+        if (activeProducers == 0) {
+            return;
+        }
+
+        activeProducers--;
+        if (activeProducers == 0) {
+            closed = true;
+            notifyAll();
+        }
+    }
+
+    /**
+     * Hands out the item at the next sequence and wakes producers waiting for
+     * the window to move.
+     */
+    private T release() {
+        int index = index(nextSequence);
+        @SuppressWarnings("unchecked")
+        T item = (T) slots[index];
+        slots[index] = null;
+        size--;
+        nextSequence++;
+        itemsReleased++;
+        notifyAll();
+        return item;
+    }
+
+    private int index(long sequence) {
+        return (int) Math.floorMod(sequence, (long) slots.length);
+    }
+
+    private void waitSafely() throws InterruptedException {
+        try {
+            wait();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw e;
+        }
+    }
+}
@@ -0,0 +1,368 @@
+package com.producerconsumer;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.logging.Logger;
+
+/**
+ * ShardedQueue spreads items over K independent {@link SharedQueue} shards so
+ * that producers and consumers mostly lock different monitors, instead of all
+ * serializing on one.
+ *
+ * <p>
+ * Producers place each item with "power of two choices": they sample two
+ * random shards and put into the less loaded one, which keeps shard depths
+ * within a small constant of each other without any global coordination.
+ * Consumers sweep the shards starting from a per-thread home shard, so each
+ * consumer usually drains its own shard and only touches the others when it
+ * runs dry.
+ * </p>
+ *
+ * <p>
+ * Key features:
+ * </p>
+ * <ul>
+ * <li>Throughput scales with the shard count rather than being capped by a
+ * single lock holder</li>
+ * <li>FIFO within each shard only; there is no global ordering across
+ * shards</li>
+ * <li>Approximate aggregate size (sum of shard sizes) and capacity (shard count
+ * x shard capacity)</li>
+ * <li>Same producer registration and closing semantics as
+ * {@link SharedQueue}</li>
+ * </ul>
+ *
+ * <p>
+ * Thread Safety:
+ * </p>
+ * This class is thread-safe. Each shard is guarded by its own monitor; idle
+ * consumers park on a separate signal monitor that producers only touch while
+ * a consumer is actually waiting.
+ *
+ * @param <T> Type of items stored in the queue (must not be null)
+ */
+public class ShardedQueue<T> implements WorkSink<T>, WorkSource<T> {
+    private static final Logger logger = Logger.getLogger(ShardedQueue.class.getName());
+
+    private final List<SharedQueue<T>> shards;
+    private final int shardCapacity;
+    private final ThreadLocal<Integer> homeShard;
+
+    // Idle-consumer parking: producers skip the signal monitor unless
+    // someone is waiting on it
+    private final Object signalLock = new Object();
+    private final AtomicInteger waitingConsumers = new AtomicInteger();
+    private long signals = 0;
+
+    private int activeProducers = 0;
+    private volatile boolean closed = false;
+
+    /**
+     * Creates a new ShardedQueue.
+     *
+     * @param shardCount    Number of shards (must be at least 1)
+     * @param shardCapacity Capacity of each shard (must be at least 1)
+     * @throws IllegalArgumentException if shardCount or shardCapacity is less
+     *                                  than 1
+     */
+    public ShardedQueue(int shardCount, int shardCapacity) {
+        if (shardCount < 1) {
+            throw new IllegalArgumentException(
+                    "Shard count must be at least 1, but was: " + shardCount);
+        }
+        if (shardCapacity < 1) {
+            throw new IllegalArgumentException(
+                    "Shard capacity must be at least 1, but was: " + shardCapacity);
+        }
+
+        this.shardCapacity = shardCapacity;
+        this.shards = new ArrayList<>(shardCount);
+        Runnable signal = this::signalConsumers;
+        for (int i = 0; i < shardCount; i++) {
+            // Per-item logging would serialize all shards on the log handler
+            SharedQueue<T> shard = new SharedQueue<>(shardCapacity, OverflowPolicy.BLOCK, 0,
+                    TimeUnit.MILLISECONDS, false);
+            // Each shard stays open until this queue's last producer is done
+            shard.registerProducer();
+            shard.addListener(signal);
+            shards.add(shard);
+        }
+        this.homeShard = ThreadLocal.withInitial(() -> ThreadLocalRandom.current().nextInt(shardCount));
+    }
+
+    /**
+     * Adds an item to the less loaded of two randomly chosen shards, blocking
+     * if that shard is full.
+     *
+     * @param item Item to add to the queue (must not be null)
+     * @throws InterruptedException  if the thread is interrupted while waiting
+     * @throws NullPointerException  if item is null
+     * @throws IllegalStateException if the queue has been closed
+     */
+    @Override
+    public void put(T item) throws InterruptedException {
+        chooseShard().put(item);
+    }
+
+    /**
+     * Retrieves and removes an item, sweeping the shards from this thread's home
+     * shard. If every shard is empty, this method blocks until an item arrives.
+     *
+     * @return Item removed from the queue, or null if the queue is closed and
+     *         drained
+     * @throws InterruptedException if the thread is interrupted while waiting
+     */
+    @Override
+    public T get() throws InterruptedException {
+        while (true) {
+            T item = poll();
+            if (item != null) {
+                return item;
+            }
+            if (isDrained()) {
+                return null;
+            }
+
+            waitingConsumers.incrementAndGet();
+            try {
+                synchronized (signalLock) {
+                    long observed = signals;
+                    // Re-sweep now that producers can see us waiting; anything put
+                    // after this sweep bumps the signal counter
+                    item = poll();
+                    if (item != null) {
+                        return item;
+                    }
+                    if (isDrained()) {
+                        return null;
+                    }
+                    while (signals == observed) {
+                        try {
+                            signalLock.wait();
+                        } catch (InterruptedException e) {
+                            Thread.currentThread().interrupt();
+                            throw e;
+                        }
+                    }
+                }
+            } finally {
+                waitingConsumers.decrementAndGet();
+            }
+        }
+    }
+
+    /**
+     * Retrieves and removes an item from the first non-empty shard, starting at
+     * this thread's home shard, without waiting.
+     *
+     * @return Item removed from the queue, or null if every shard is empty
+     */
+    public T poll() {
+        int start = homeShard.get();
+        int count = shards.size();
+        for (int i = 0; i < count; i++) {
+            T item = shards.get((start + i) % count).poll();
+            if (item != null) {
+                return item;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Returns the total number of items across all shards. Shards are read one
+     * at a time, so this is approximate under concurrency.
+     *
+     * @return Approximate queue size (0 to capacity)
+     */
+    public int size() {
+        int size = 0;
+        for (SharedQueue<T> shard : shards) {
+            size += shard.size();
+        }
+        return size;
+    }
+
+    /**
+     * Checks if every shard is empty.
+     *
+     * @return true if no shard holds an item
+     */
+    public boolean isEmpty() {
+        for (SharedQueue<T> shard : shards) {
+            if (!shard.isEmpty()) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Returns the combined capacity of all shards.
+     *
+     * @return Queue capacity (always positive)
+     */
+    public int getCapacity() {
+        return shards.size() * shardCapacity;
+    }
+
+    /**
+     * Returns the number of shards.
+     *
+     * @return Shard count (always positive)
+     */
+    public int getShardCount() {
+        return shards.size();
+    }
+
+    /**
+     * Returns the current size of each shard.
+     *
+     * @return Shard sizes, indexed by shard
+     */
+    public int[] getShardSizes() {
+        int[] sizes = new int[shards.size()];
+        for (int i = 0; i < sizes.length; i++) {
+            sizes[i] = shards.get(i).size();
+        }
+        return sizes;
+    }
+
+    /**
+     * Returns the total number of items that have been produced.
+     *
+     * @return Total items produced across shards
+     */
+    public long getItemsProduced() {
+        long total = 0;
+        for (SharedQueue<T> shard : shards) {
+            total += shard.getItemsProduced();
+        }
+        return total;
+    }
+
+    /**
+     * Returns the total number of items that have been consumed.
+     *
+     * @return Total items consumed across shards
+     */
+    public long getItemsConsumed() {
+        long total = 0;
+        for (SharedQueue<T> shard : shards) {
+            total += shard.getItemsConsumed();
+        }
+        return total;
+    }
+
+    /**
+     * Checks whether the last registered producer has finished.
+     * A closed queue may still hold items that have not been consumed yet.
+     *
+     * @return true if the queue is closed
+     */
+    public boolean isClosed() {
+        return closed;
+    }
+
+    /**
+     * Prints statistics about queue usage.
+     */
+    public void printStats() {
+        logger.info("\n=== Sharded Queue Statistics ===");
+        logger.info("Shards: " + shards.size() + " x " + shardCapacity);
+        logger.info("Items produced: " + getItemsProduced());
+        logger.info("Items consumed: " + getItemsConsumed());
+        logger.info("Shard sizes: " + Arrays.toString(getShardSizes()));
+        logger.info("Closed: " + closed);
+    }
+
+    @Override
+    public String toString() {
+        return "ShardedQueue{" +
+                "size=" + size() +
+                ", capacity=" + getCapacity() +
+                ", shards=" + shards.size() +
+                ", closed=" + closed +
+                '}';
+    }
+
+    @Override
+    public synchronized void registerProducer() {
+        if (closed) {
+            throw new IllegalStateException("Queue already closed");
+        }
+        activeProducers++;
+    }
+
+    /**
+     * Marks a producer as completed. When the last producer finishes, every
+     * shard is closed and waiting consumers are released.
+     */
+    @Override
+    public void producerDone() {
+        synchronized (this) {
+            if (activeProducers == 0) {
+                return;
+            }
+
+            activeProducers--;
+            if (activeProducers > 0) {
+                return;
+            }
+            closed = true;
+        }
+
+        // Each shard fires its listener on close, which wakes idle consumers
+        for (SharedQueue<T> shard : shards) {
+            shard.producerDone();
+        }
+    }
+
+    /**
+     * Power of two choices: sample two distinct shards and keep the shorter.
+     */
+    private SharedQueue<T> chooseShard() {
+        int count = shards.size();
+        if (count == 1) {
+            return shards.get(0);
+        }
+
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        int first = random.nextInt(count);
+        int second = random.nextInt(count - 1);
+        if (second >= first) {
+            second++;
+        }
+
+        SharedQueue<T> a = shards.get(first);
+        SharedQueue<T> b = shards.get(second);
+        return a.size() <= b.size() ? a : b;
+    }
+
+    private boolean isDrained() {
+        return closed && isEmpty() && allShardsClosed();
+    }
+
+    private boolean allShardsClosed() {
+        for (SharedQueue<T> shard : shards) {
+            if (!shard.isClosed()) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private void signalConsumers() {
+        if (waitingConsumers.get() == 0) {
+            return;
+        }
+        synchronized (signalLock) {
+            signals++;
+            signalLock.notifyAll();
+        }
+    }
+}
@@ -1,8 +1,15 @@
 package com.producerconsumer;
 
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Deque;
 import java.util.LinkedList;
+import java.util.List;
 import java.util.Objects;
-import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicLong;
 import java.util.logging.Logger;
 
@@ -22,6 +29,16 @@ import java.util.logging.Logger;
  * <li>FIFO ordering (first in, first out)</li>
  * <li>Null-safe (rejects null items)</li>
  * <li>Interrupt-aware (properly handles thread interruption)</li>
+ * <li>Non-blocking variants ({@link #putAsync(Object)} /
+ * {@link #getAsync()}) that park a future instead of a thread</li>
+ * <li>Optional load shedding: an {@link OverflowPolicy} for full puts and a
+ * time-to-live that discards stale items at dequeue time, each with its own
+ * drop counter</li>
+ * <li>High/low watermark callbacks ({@link WatermarkListener}) for flow
+ * control such as {@link AimdThrottle}</li>
+ * <li>Bulk dequeue ({@link #drainTo(Collection, int, long, TimeUnit)}) that
+ * takes many items under one lock acquisition, for consumers that process
+ * batches such as {@link BatchConsumer}</li>
  * </ul>
  * 
  * <p>
@@ -32,15 +49,36 @@ import java.util.logging.Logger;
  * 
  * @param <T> Type of items stored in the queue (must not be null)
  */
-public class SharedQueue<T> {
+public class SharedQueue<T> implements WorkSink<T>, WorkSource<T> {
     private static final Logger logger = Logger.getLogger(SharedQueue.class.getName());
 
-    private final Queue<T> queue;
+    private final Deque<T> queue;
     private final int capacity;
+    private final OverflowPolicy overflowPolicy;
+    private final boolean logItems;
+
+    // Expiry: enqueue time of each queued item, kept in step with the queue
+    // only when a time-to-live is set
+    private final long timeToLiveNanos;
+    private final Deque<Long> enqueueTimes;
+
+    // Async waiters, completed by the opposite operation. Takers only queue up
+    // while the queue is empty and putters only while it is full.
+    private final Deque<CompletableFuture<T>> asyncTakers = new ArrayDeque<>();
+    private final Deque<PendingPut<T>> asyncPutters = new ArrayDeque<>();
+
+    // Notified outside the monitor whenever an item becomes available or the
+    // queue closes (used by QueueSelector)
+    private final List<Runnable> listeners = new CopyOnWriteArrayList<>();
+    private final List<Watermark> watermarks = new CopyOnWriteArrayList<>();
 
     // Use AtomicLong to prevent overflow with large numbers of items
     private final AtomicLong itemsProduced = new AtomicLong(0);
     private final AtomicLong itemsConsumed = new AtomicLong(0);
+    private final AtomicLong itemsRejected = new AtomicLong(0);
+    private final AtomicLong itemsDropped = new AtomicLong(0);
+    private final AtomicLong itemsEvicted = new AtomicLong(0);
+    private final AtomicLong itemsExpired = new AtomicLong(0);
     private int activeProducers = 0;
     private boolean closed = false;
 
@@ -52,6 +90,60 @@ public class SharedQueue<T> {
      *                                  Integer.MAX_VALUE
      */
     public SharedQueue(int capacity) {
+        this(capacity, OverflowPolicy.BLOCK);
+    }
+
+    /**
+     * Creates a new SharedQueue with the specified capacity and full-queue
+     * policy.
+     *
+     * @param capacity       Maximum number of items the queue can hold
+     * @param overflowPolicy What {@link #put(Object)} does when the queue is full
+     *                       (must not be null)
+     * @throws NullPointerException     if overflowPolicy is null
+     * @throws IllegalArgumentException if capacity is out of range
+     */
+    public SharedQueue(int capacity, OverflowPolicy overflowPolicy) {
+        this(capacity, overflowPolicy, 0, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Creates a new SharedQueue that also discards items older than a
+     * time-to-live when they reach the head of the queue.
+     *
+     * @param capacity       Maximum number of items the queue can hold
+     * @param overflowPolicy What {@link #put(Object)} does when the queue is full
+     *                       (must not be null)
+     * @param timeToLive     Maximum time an item may wait in the queue (0
+     *                       disables expiry)
+     * @param unit           Unit of timeToLive (must not be null)
+     * @throws NullPointerException     if overflowPolicy or unit is null
+     * @throws IllegalArgumentException if capacity is out of range or timeToLive
+     *                                  is negative
+     */
+    public SharedQueue(int capacity, OverflowPolicy overflowPolicy, long timeToLive, TimeUnit unit) {
+        this(capacity, overflowPolicy, timeToLive, unit, true);
+    }
+
+    /**
+     * Creates a new SharedQueue, optionally without the per-item log lines.
+     * Queues used as building blocks of another queue should not log every
+     * item: formatting and the shared log handler then cost more than the
+     * transfer itself, and serialize otherwise independent queues.
+     *
+     * @param capacity       Maximum number of items the queue can hold
+     * @param overflowPolicy What {@link #put(Object)} does when the queue is full
+     *                       (must not be null)
+     * @param timeToLive     Maximum time an item may wait in the queue (0
+     *                       disables expiry)
+     * @param unit           Unit of timeToLive (must not be null)
+     * @param logItems       Whether put, get and drainTo log every call
+     * @throws NullPointerException     if overflowPolicy or unit is null
+     * @throws IllegalArgumentException if capacity is out of range or timeToLive
+     *                                  is negative
+     */
+    public SharedQueue(int capacity, OverflowPolicy overflowPolicy, long timeToLive, TimeUnit unit,
+            boolean logItems) {
         // Basic validation: capacity must be at least 1
         // (A queue with capacity 0 doesn't make sense!)
         if (capacity < 1) {
@@ -66,13 +158,24 @@ public class SharedQueue<T> {
                     "Queue capacity too large: " + capacity);
         }
 
+        if (timeToLive < 0) {
+            throw new IllegalArgumentException(
+                    "Time-to-live must be non-negative, but was: " + timeToLive);
+        }
+
         this.queue = new LinkedList<>();
         this.capacity = capacity;
+        this.overflowPolicy = Objects.requireNonNull(overflowPolicy, "Overflow policy cannot be null");
+        this.timeToLiveNanos = Objects.requireNonNull(unit, "Time unit cannot be null").toNanos(timeToLive);
+        this.enqueueTimes = timeToLiveNanos > 0 ? new ArrayDeque<>() : null;
+        this.logItems = logItems;
     }
 
     /**
      * Adds an item to the queue.
-     * If the queue is full, this method blocks until space becomes available.
+     * If the queue is full, this method blocks until space becomes available,
+     * unless the queue was created with a shedding {@link OverflowPolicy}, in
+     * which case it rejects or drops an item and returns immediately.
      * 
      * <p>
      * This method uses a while loop (not if) to handle spurious wakeups correctly.
@@ -85,30 +188,58 @@ public class SharedQueue<T> {
      * </p>
      * 
      * @param item Item to add to the queue (must not be null)
-     * @throws InterruptedException if the thread is interrupted while waiting
-     * @throws NullPointerException if item is null
+     * @throws InterruptedException  if the thread is interrupted while waiting
+     * @throws NullPointerException  if item is null
+     * @throws IllegalStateException if the queue has been closed, or is full
+     *                               under {@link OverflowPolicy#REJECT}
      */
+    @Override
     public void put(T item) throws InterruptedException {
         Objects.requireNonNull(item, "Cannot put null item into queue");
 
         String logMessage = null;
+        CompletableFuture<T> taker;
+        List<Watermark> crossed;
         synchronized (this) {
-            while (queue.size() >= capacity) {
+            QueueEvents.QueueBlocked blocked = null;
+            while (queue.size() >= capacity && overflowPolicy == OverflowPolicy.BLOCK) {
+                if (blocked == null) {
+                    blocked = QueueEvents.beginBlocked("put");
+                }
                 waitSafely();
             }
+            QueueEvents.endBlocked(blocked, queue.size(), capacity);
 
             if (closed) {
                 throw new IllegalStateException("Cannot put items into a closed queue");
             }
+            if (queue.size() >= capacity && !makeRoom()) {
+                return;
+            }
 
-            queue.add(item);
+            taker = pollAsyncTaker();
+            if (taker == null) {
+                enqueue(item);
+            } else {
+                itemsConsumed.incrementAndGet();
+            }
             itemsProduced.incrementAndGet();
-            logMessage = buildLogMessage("Produced item");
+            logMessage = logItems ? buildLogMessage("Produced item") : null;
+            crossed = crossedWatermarks();
             notifyAll();
         }
 
+        if (taker != null) {
+            handOff(taker, item);
+        } else {
+            fireListeners();
+        }
+        deliverWatermarks(crossed);
+
         if (logMessage != null) {
+            QueueEvents.QueueLogStall logStall = QueueEvents.beginLog();
             logger.info(logMessage);
+            QueueEvents.endLog(logStall);
         }
     }
 
@@ -126,32 +257,341 @@ public class SharedQueue<T> {
      * and an InterruptedException is thrown.
      * </p>
      * 
-     * @return Item removed from the queue (never null)
+     * @return Item removed from the queue, or null if the queue is closed and
+     *         drained
      * @throws InterruptedException if the thread is interrupted while waiting
      */
+    @Override
     public T get() throws InterruptedException {
         T item;
         String logMessage = null;
+        List<PendingPut<T>> admitted = new ArrayList<>(0);
+        List<Watermark> crossed = null;
+
+        try {
+            synchronized (this) {
+                QueueEvents.QueueBlocked blocked = null;
+                while ((item = takeLocked(admitted)) == null && !closed) {
+                    if (blocked == null) {
+                        blocked = QueueEvents.beginBlocked("get");
+                    }
+                    waitSafely();
+                }
+                QueueEvents.endBlocked(blocked, queue.size(), capacity);
+
+                if (item == null) {
+                    return null;
+                }
+                logMessage = logItems ? buildLogMessage("Consumed item") : null;
+                crossed = crossedWatermarks();
+            }
+        } finally {
+            completeAdmitted(admitted);
+        }
+        deliverWatermarks(crossed);
 
+        if (logMessage != null) {
+            QueueEvents.QueueLogStall logStall = QueueEvents.beginLog();
+            logger.info(logMessage);
+            QueueEvents.endLog(logStall);
+        }
+        return item;
+    }
+
+    /**
+     * Adds an item without blocking the calling thread.
+     *
+     * <p>
+     * If a {@link #getAsync()} caller is waiting, the item is handed to it
+     * directly. Otherwise the item is queued if there is room, or parked until a
+     * consumer frees a slot; parked puts are admitted in FIFO order ahead of
+     * blocked synchronous {@link #put(Object)} calls.
+     * </p>
+     *
+     * <p>
+     * With a shedding {@link OverflowPolicy} a put into a full queue is never
+     * parked; the policy is applied right away instead.
+     * </p>
+     *
+     * @param item Item to add to the queue (must not be null)
+     * @return Future completed once the item is in the queue, handed to a
+     *         consumer or dropped by the overflow policy; completed exceptionally
+     *         with IllegalStateException if the queue is closed or rejects the
+     *         item
+     * @throws NullPointerException if item is null
+     */
+    public CompletableFuture<Void> putAsync(T item) {
+        Objects.requireNonNull(item, "Cannot put null item into queue");
+
+        CompletableFuture<T> taker;
+        List<Watermark> crossed;
         synchronized (this) {
-            while (queue.isEmpty() && !closed) {
-                waitSafely();
+            if (closed) {
+                return CompletableFuture.failedFuture(
+                        new IllegalStateException("Cannot put items into a closed queue"));
+            }
+            if (queue.size() >= capacity && overflowPolicy != OverflowPolicy.BLOCK) {
+                try {
+                    if (!makeRoom()) {
+                        return CompletableFuture.completedFuture(null);
+                    }
+                } catch (IllegalStateException e) {
+                    return CompletableFuture.failedFuture(e);
+                }
             }
 
-            if (queue.isEmpty() && closed) {
-                return null;
+            taker = pollAsyncTaker();
+            if (taker == null) {
+                if (queue.size() >= capacity || !asyncPutters.isEmpty()) {
+                    CompletableFuture<Void> future = new CompletableFuture<>();
+                    asyncPutters.add(new PendingPut<>(item, future));
+                    return future;
+                }
+                enqueue(item);
+                notifyAll();
+            } else {
+                itemsConsumed.incrementAndGet();
             }
+            itemsProduced.incrementAndGet();
+            crossed = crossedWatermarks();
+        }
 
-            item = queue.remove();
-            itemsConsumed.incrementAndGet();
-            logMessage = buildLogMessage("Consumed item");
-            notifyAll();
+        if (taker != null) {
+            handOff(taker, item);
+        } else {
+            fireListeners();
         }
+        deliverWatermarks(crossed);
+        return CompletableFuture.completedFuture(null);
+    }
+
+    /**
+     * Retrieves and removes an item without blocking the calling thread.
+     *
+     * <p>
+     * If the queue is empty the returned future stays pending until a producer
+     * puts an item, which is then handed over directly. Cancelling a pending
+     * future withdraws it; an item that races with the cancellation is put back
+     * at the head of the queue.
+     * </p>
+     *
+     * @return Future completed with the next item, or with null (end of stream)
+     *         once the queue is closed and drained
+     */
+    public CompletableFuture<T> getAsync() {
+        T item;
+        List<PendingPut<T>> admitted = new ArrayList<>(0);
+        List<Watermark> crossed;
+        try {
+            synchronized (this) {
+                item = takeLocked(admitted);
+                if (item == null) {
+                    if (closed) {
+                        return CompletableFuture.completedFuture(null);
+                    }
+                    CompletableFuture<T> future = new CompletableFuture<>();
+                    asyncTakers.add(future);
+                    return future;
+                }
+                crossed = crossedWatermarks();
+            }
+        } finally {
+            completeAdmitted(admitted);
+        }
+        deliverWatermarks(crossed);
+        return CompletableFuture.completedFuture(item);
+    }
+
+    /**
+     * Retrieves and removes an item if one is available, without waiting.
+     *
+     * @return Item removed from the queue, or null if the queue is empty
+     */
+    public T poll() {
+        T item;
+        List<PendingPut<T>> admitted = new ArrayList<>(0);
+        List<Watermark> crossed;
+        try {
+            synchronized (this) {
+                item = takeLocked(admitted);
+                crossed = crossedWatermarks();
+            }
+        } finally {
+            completeAdmitted(admitted);
+        }
+        deliverWatermarks(crossed);
+        return item;
+    }
+
+    /**
+     * Removes up to {@code maxItems} available items without waiting and adds
+     * them, in FIFO order, to a collection.
+     *
+     * @param out      Collection receiving the items (must not be null)
+     * @param maxItems Maximum number of items to remove (must be at least 1)
+     * @return Number of items removed, or -1 if the queue is closed and drained
+     * @throws NullPointerException     if out is null
+     * @throws IllegalArgumentException if maxItems is less than 1
+     */
+    public int drainTo(Collection<? super T> out, int maxItems) {
+        try {
+            return drainTo(out, maxItems, 0, TimeUnit.NANOSECONDS);
+        } catch (InterruptedException e) {
+            throw new AssertionError("A zero timeout never waits", e);
+        }
+    }
+
+    /**
+     * Waits up to a timeout for an item, then removes it together with up to
+     * {@code maxItems - 1} further available items and adds them, in FIFO
+     * order, to a collection. Unlike repeated {@link #get()} calls, the whole
+     * batch is taken under one acquisition of the monitor.
+     *
+     * @param out      Collection receiving the items (must not be null)
+     * @param maxItems Maximum number of items to remove (must be at least 1)
+     * @param timeout  Maximum time to wait for the first item
+     * @param unit     Unit of timeout (must not be null)
+     * @return Number of items removed, 0 if the timeout elapsed first, or -1 if
+     *         the queue is closed and drained
+     * @throws InterruptedException     if the thread is interrupted while
+     *                                  waiting
+     * @throws NullPointerException     if out or unit is null
+     * @throws IllegalArgumentException if maxItems is less than 1
+     */
+    public int drainTo(Collection<? super T> out, int maxItems, long timeout, TimeUnit unit)
+            throws InterruptedException {
+        Objects.requireNonNull(out, "Target collection cannot be null");
+        if (maxItems < 1) {
+            throw new IllegalArgumentException(
+                    "Max items must be at least 1, but was: " + maxItems);
+        }
+        Objects.requireNonNull(unit, "Time unit cannot be null");
+        long deadline = System.nanoTime() + unit.toNanos(timeout);
+
+        int drained = 0;
+        String logMessage = null;
+        List<PendingPut<T>> admitted = new ArrayList<>(0);
+        List<Watermark> crossed = null;
+        try {
+            synchronized (this) {
+                T item;
+                QueueEvents.QueueBlocked blocked = null;
+                while ((item = takeLocked(admitted)) == null && !closed) {
+                    long remaining = deadline - System.nanoTime();
+                    if (remaining <= 0) {
+                        break;
+                    }
+                    if (blocked == null) {
+                        blocked = QueueEvents.beginBlocked("drain");
+                    }
+                    waitSafely(remaining);
+                }
+                QueueEvents.endBlocked(blocked, queue.size(), capacity);
+
+                if (item == null) {
+                    return closed ? -1 : 0;
+                }
+                do {
+                    out.add(item);
+                    drained++;
+                } while (drained < maxItems && (item = takeLocked(admitted)) != null);
+                logMessage = logItems ? buildLogMessage("Consumed " + drained + " items") : null;
+                crossed = crossedWatermarks();
+            }
+        } finally {
+            completeAdmitted(admitted);
+        }
+        deliverWatermarks(crossed);
 
         if (logMessage != null) {
+            QueueEvents.QueueLogStall logStall = QueueEvents.beginLog();
             logger.info(logMessage);
+            QueueEvents.endLog(logStall);
         }
-        return item;
+        return drained;
+    }
+
+    /**
+     * Checks whether the last registered producer has finished.
+     * A closed queue may still hold items that have not been consumed yet.
+     *
+     * @return true if the queue is closed
+     */
+    public synchronized boolean isClosed() {
+        return closed;
+    }
+
+    /**
+     * Registers a callback run whenever an item becomes available or the queue
+     * closes. Callbacks run on the producing thread after the queue's monitor has
+     * been released, so they must be short and must not block.
+     *
+     * @param listener Callback to run (must not be null)
+     */
+    public void addListener(Runnable listener) {
+        listeners.add(Objects.requireNonNull(listener, "Listener cannot be null"));
+    }
+
+    /**
+     * Removes a callback registered with {@link #addListener(Runnable)}.
+     *
+     * @param listener Callback to remove
+     */
+    public void removeListener(Runnable listener) {
+        listeners.remove(listener);
+    }
+
+    /**
+     * Registers a listener told when the queue fills to {@code highWatermark}
+     * items and when it drains back to {@code lowWatermark}. See
+     * {@link WatermarkListener} for when and where the callbacks run.
+     *
+     * @param lowWatermark  Size at or below which a filled queue counts as
+     *                      drained (must be non-negative and below
+     *                      highWatermark)
+     * @param highWatermark Size at or above which the queue counts as filled
+     *                      (must be at most the capacity)
+     * @param listener      Listener to notify (must not be null)
+     * @throws NullPointerException     if listener is null
+     * @throws IllegalArgumentException if the watermarks are out of range
+     */
+    public void addWatermarkListener(int lowWatermark, int highWatermark, WatermarkListener listener) {
+        Objects.requireNonNull(listener, "Listener cannot be null");
+        if (lowWatermark < 0 || lowWatermark >= highWatermark || highWatermark > capacity) {
+            throw new IllegalArgumentException("Watermarks must satisfy 0 <= low < high <= " + capacity
+                    + ", but were: low=" + lowWatermark + ", high=" + highWatermark);
+        }
+        watermarks.add(new Watermark(lowWatermark, highWatermark, listener));
+    }
+
+    /**
+     * Removes every registration of a listener added with
+     * {@link #addWatermarkListener(int, int, WatermarkListener)}.
+     *
+     * @param listener Listener to remove
+     */
+    public void removeWatermarkListener(WatermarkListener listener) {
+        watermarks.removeIf(watermark -> watermark.listener == listener);
+    }
+
+    /**
+     * Returns the number of {@link #getAsync()} futures waiting for an item.
+     *
+     * @return Pending async gets
+     */
+    public synchronized int getPendingAsyncGets() {
+        asyncTakers.removeIf(CompletableFuture::isDone);
+        return asyncTakers.size();
+    }
+
+    /**
+     * Returns the number of {@link #putAsync(Object)} futures waiting for space.
+     *
+     * @return Pending async puts
+     */
+    public synchronized int getPendingAsyncPuts() {
+        asyncPutters.removeIf(p -> p.future.isDone());
+        return asyncPutters.size();
     }
 
     /**
@@ -214,13 +654,61 @@ public class SharedQueue<T> {
     }
 
     /**
-     * Returns the number of items currently in transit (produced but not yet
-     * consumed).
+     * Returns the number of puts refused under {@link OverflowPolicy#REJECT}.
+     *
+     * @return Total items rejected
+     */
+    public long getItemsRejected() {
+        return itemsRejected.get();
+    }
+
+    /**
+     * Returns the number of incoming items discarded under
+     * {@link OverflowPolicy#DROP_NEWEST}.
+     *
+     * @return Total items dropped
+     */
+    public long getItemsDropped() {
+        return itemsDropped.get();
+    }
+
+    /**
+     * Returns the number of queued items discarded to make room under
+     * {@link OverflowPolicy#DROP_OLDEST}.
+     *
+     * @return Total items evicted
+     */
+    public long getItemsEvicted() {
+        return itemsEvicted.get();
+    }
+
+    /**
+     * Returns the number of items discarded at dequeue time because they had
+     * outlived the queue's time-to-live.
+     *
+     * @return Total items expired
+     */
+    public long getItemsExpired() {
+        return itemsExpired.get();
+    }
+
+    /**
+     * Returns the policy applied when a put finds the queue full.
+     *
+     * @return Overflow policy (never null)
+     */
+    public OverflowPolicy getOverflowPolicy() {
+        return overflowPolicy;
+    }
+
+    /**
+     * Returns the number of items currently in transit (produced but neither
+     * consumed nor shed).
      * 
      * @return Items in transit (should equal current queue size in steady state)
      */
     public synchronized long getItemsInTransit() {
-        return itemsProduced.get() - itemsConsumed.get();
+        return itemsProduced.get() - itemsConsumed.get() - itemsEvicted.get() - itemsExpired.get();
     }
 
     /**
@@ -232,6 +720,13 @@ public class SharedQueue<T> {
         logger.info("Capacity: " + capacity);
         logger.info("Items produced: " + itemsProduced.get());
         logger.info("Items consumed: " + itemsConsumed.get());
+        if (overflowPolicy != OverflowPolicy.BLOCK || timeToLiveNanos > 0) {
+            logger.info("Overflow policy: " + overflowPolicy);
+            logger.info("Items rejected: " + itemsRejected.get());
+            logger.info("Items dropped: " + itemsDropped.get());
+            logger.info("Items evicted: " + itemsEvicted.get());
+            logger.info("Items expired: " + itemsExpired.get());
+        }
         logger.info("Current size: " + queue.size());
         logger.info("Items in transit: " + getItemsInTransit());
         logger.info("Closed: " + closed);
@@ -250,6 +745,7 @@ public class SharedQueue<T> {
                 ", capacity=" + capacity +
                 ", produced=" + itemsProduced.get() +
                 ", consumed=" + itemsConsumed.get() +
+                (overflowPolicy == OverflowPolicy.BLOCK ? "" : ", policy=" + overflowPolicy) +
                 ", closed=" + closed +
                 '}';
     }
@@ -257,6 +753,7 @@ public class SharedQueue<T> {
     /**
      * Registers a producer so the queue knows when all producers have finished.
      */
+    @Override
     public synchronized void registerProducer() {
         if (closed) {
             throw new IllegalStateException("Queue already closed");
@@ -266,18 +763,250 @@ public class SharedQueue<T> {
 
     /**
      * Marks a producer as completed. When the last producer finishes, the queue is
-     * closed and blocked consumers are released.
+     * closed, blocked consumers are released and pending {@link #getAsync()}
+     * futures complete with null.
      */
-    public synchronized void producerDone() {
-        if (activeProducers == 0) {
-            return;
-        }
+    @Override
+    public void producerDone() {
+        List<CompletableFuture<T>> endOfStream;
+        synchronized (this) {
+            if (activeProducers == 0) {
+                return;
+            }
+
+            activeProducers--;
+            if (activeProducers > 0) {
+                return;
+            }
 
-        activeProducers--;
-        if (activeProducers == 0) {
             closed = true;
+            QueueEvents.queueClosed(itemsProduced.get(), itemsConsumed.get(), queue.size());
+            notifyAll();
+
+            // Async takers only wait on an empty queue, so they will never get an item
+            endOfStream = new ArrayList<>(asyncTakers);
+            asyncTakers.clear();
+        }
+
+        for (CompletableFuture<T> future : endOfStream) {
+            future.complete(null);
+        }
+        fireListeners();
+    }
+
+    /**
+     * Removes the first async taker that has not been cancelled.
+     * Caller must hold the monitor.
+     */
+    private CompletableFuture<T> pollAsyncTaker() {
+        CompletableFuture<T> taker;
+        while ((taker = asyncTakers.poll()) != null) {
+            if (!taker.isDone()) {
+                return taker;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Removes the next live item, discarding expired ones, and moves parked
+     * async puts into the slots freed. Admitted puts are added to
+     * {@code admitted} and must be completed once the monitor is released.
+     * Caller must hold the monitor.
+     *
+     * @return Next item, or null if the queue holds no live item
+     */
+    private T takeLocked(List<PendingPut<T>> admitted) {
+        long expiredBefore = itemsExpired.get();
+        T item;
+        while (true) {
+            item = dequeue();
+            admitAsyncPutters(admitted);
+            // An expired head may have let parked puts in behind it
+            if (item != null || queue.isEmpty()) {
+                break;
+            }
+        }
+
+        if (item != null) {
+            itemsConsumed.incrementAndGet();
+        }
+        if (item != null || itemsExpired.get() != expiredBefore) {
             notifyAll();
         }
+        return item;
+    }
+
+    /**
+     * Moves live parked puts into free slots, in FIFO order.
+     * Caller must hold the monitor.
+     */
+    private void admitAsyncPutters(List<PendingPut<T>> admitted) {
+        PendingPut<T> putter;
+        while (queue.size() < capacity && (putter = asyncPutters.poll()) != null) {
+            if (!putter.future.isDone()) {
+                enqueue(putter.item);
+                itemsProduced.incrementAndGet();
+                admitted.add(putter);
+            }
+        }
+    }
+
+    private void completeAdmitted(List<PendingPut<T>> admitted) {
+        for (PendingPut<T> putter : admitted) {
+            putter.future.complete(null);
+        }
+    }
+
+    /**
+     * Applies the overflow policy to a put that found the queue full.
+     * Caller must hold the monitor.
+     *
+     * @return true if a slot was freed for the new item, false if the new item
+     *         was dropped
+     * @throws IllegalStateException under {@link OverflowPolicy#REJECT}
+     */
+    private boolean makeRoom() {
+        switch (overflowPolicy) {
+            case REJECT:
+                itemsRejected.incrementAndGet();
+                throw new IllegalStateException("Queue full (capacity " + capacity + ")");
+            case DROP_NEWEST:
+                itemsDropped.incrementAndGet();
+                return false;
+            case DROP_OLDEST:
+                queue.remove();
+                if (enqueueTimes != null) {
+                    enqueueTimes.remove();
+                }
+                itemsEvicted.incrementAndGet();
+                return true;
+            default:
+                throw new IllegalStateException("Blocking puts never overflow");
+        }
+    }
+
+    /**
+     * Appends an item, recording its enqueue time when expiry is enabled.
+     * Caller must hold the monitor.
+     */
+    private void enqueue(T item) {
+        queue.add(item);
+        if (enqueueTimes != null) {
+            enqueueTimes.add(System.nanoTime());
+        }
+    }
+
+    /**
+     * Removes the head item, discarding any that have outlived the
+     * time-to-live. Caller must hold the monitor.
+     *
+     * @return Head item, or null if the queue is empty or held only expired items
+     */
+    private T dequeue() {
+        if (enqueueTimes == null) {
+            return queue.poll();
+        }
+
+        long now = System.nanoTime();
+        while (!queue.isEmpty()) {
+            T item = queue.remove();
+            if (now - enqueueTimes.remove() <= timeToLiveNanos) {
+                return item;
+            }
+            itemsExpired.incrementAndGet();
+        }
+        return null;
+    }
+
+    /**
+     * Completes an async taker outside the monitor so its callbacks never run
+     * while holding the lock. If the taker was cancelled in the meantime, the
+     * item goes to the next taker or back to the head of the queue (which may
+     * briefly exceed capacity by that one item).
+     */
+    private void handOff(CompletableFuture<T> taker, T item) {
+        while (!taker.complete(item)) {
+            synchronized (this) {
+                taker = pollAsyncTaker();
+                if (taker == null) {
+                    itemsConsumed.decrementAndGet();
+                    queue.addFirst(item);
+                    if (enqueueTimes != null) {
+                        enqueueTimes.addFirst(System.nanoTime());
+                    }
+                    notifyAll();
+                    break;
+                }
+            }
+        }
+        if (taker == null) {
+            fireListeners();
+        }
+    }
+
+    /**
+     * Flips the state of every watermark the current size has crossed.
+     * Caller must hold the monitor.
+     *
+     * @return Watermarks to deliver once the monitor is released, or null if
+     *         none changed
+     */
+    private List<Watermark> crossedWatermarks() {
+        if (watermarks.isEmpty()) {
+            return null;
+        }
+
+        int size = queue.size();
+        List<Watermark> crossed = null;
+        for (Watermark watermark : watermarks) {
+            boolean filled = watermark.filled ? size > watermark.low : size >= watermark.high;
+            if (filled != watermark.filled) {
+                watermark.filled = filled;
+                if (crossed == null) {
+                    crossed = new ArrayList<>(1);
+                }
+                crossed.add(watermark);
+            }
+        }
+        return crossed;
+    }
+
+    /**
+     * Tells listeners about crossed watermarks, outside the monitor. Delivery
+     * is serialised per watermark and reports its latest state, so a thread
+     * delivering late cannot reorder the high/low signals.
+     */
+    private void deliverWatermarks(List<Watermark> crossed) {
+        if (crossed == null) {
+            return;
+        }
+
+        for (Watermark watermark : crossed) {
+            synchronized (watermark) {
+                boolean filled;
+                int size;
+                synchronized (this) {
+                    filled = watermark.filled;
+                    size = queue.size();
+                }
+                if (filled == watermark.delivered) {
+                    continue;
+                }
+                watermark.delivered = filled;
+                if (filled) {
+                    watermark.listener.onHighWatermark(size);
+                } else {
+                    watermark.listener.onLowWatermark(size);
+                }
+            }
+        }
+    }
+
+    private void fireListeners() {
+        for (Runnable listener : listeners) {
+            listener.run();
+        }
     }
 
     private void waitSafely() throws InterruptedException {
@@ -289,8 +1018,48 @@ public class SharedQueue<T> {
         }
     }
 
+    private void waitSafely(long nanos) throws InterruptedException {
+        try {
+            TimeUnit.NANOSECONDS.timedWait(this, nanos);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw e;
+        }
+    }
+
     private String buildLogMessage(String prefix) {
         return String.format("[%s] %s. Queue size: %d/%d",
                 Thread.currentThread().getName(), prefix, queue.size(), capacity);
     }
+
+    /**
+     * A registered watermark pair. {@code filled} is guarded by the queue's
+     * monitor, {@code delivered} by the watermark's own.
+     */
+    private static final class Watermark {
+        private final int low;
+        private final int high;
+        private final WatermarkListener listener;
+        private boolean filled = false;
+        private boolean delivered = false;
+
+        private Watermark(int low, int high, WatermarkListener listener) {
+            this.low = low;
+            this.high = high;
+            this.listener = listener;
+        }
+    }
+
+    /**
+     * A {@link #putAsync(Object)} call waiting for a free slot.
+     */
+    private static final class PendingPut<T> {
+        private final T item;
+        private final CompletableFuture<Void> future;
+
+        private PendingPut(T item, CompletableFuture<Void> future) {
+            this.item = item;
+            this.future = future;
+        }
+    }
 }
@@ -0,0 +1,702 @@
+package com.producerconsumer;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Random;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.locks.LockSupport;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * StressHarness pushes millions of items through randomly shaped
+ * producer/consumer topologies while a chaos thread interrupts the workers, and
+ * checks that every item was delivered exactly once.
+ *
+ * <p>
+ * Each run picks a queue ({@link Kind}), producer and consumer counts, a
+ * capacity (down to 1, to force constant blocking), an interrupt rate and a few
+ * idle producers that register and finish at once, so closing races with
+ * blocked consumers. Workers treat an {@link InterruptedException} as a
+ * spurious failure and retry the same operation: a put that threw must not
+ * have enqueued its item and a get that threw must not have removed one, or
+ * the retry shows up as a duplicate or a loss. Deliveries are recorded by id in
+ * a {@link Ledger}, one bit per item.
+ * </p>
+ *
+ * <p>
+ * Key features:
+ * </p>
+ * <ul>
+ * <li>Detects lost, duplicated and unexpected items, worker exceptions and
+ * stalls (a run that does not finish within its timeout)</li>
+ * <li>Records throughput per configuration, so a performance regression shows
+ * up next to the correctness result</li>
+ * <li>Reproducible topologies: the same seed picks the same configurations</li>
+ * </ul>
+ *
+ * <p>
+ * Usage: {@code java -cp bin com.producerconsumer.StressHarness [itemsPerRun]
+ * [runs] [seed]} (or {@code ./scripts/run-benchmark.sh StressHarness}). Exits
+ * with status 1 if any run failed.
+ * </p>
+ *
+ * <p>
+ * Thread Safety:
+ * </p>
+ * {@link #run(Topology, long, TimeUnit)} may be called from several threads;
+ * each run keeps its own state.
+ */
+public class StressHarness {
+
+    private static final int DRAIN_BATCH = 32;
+    private static final long RUN_TIMEOUT_SECONDS = 120;
+
+    /**
+     * Queue under test, and how consumers take from it.
+     */
+    public enum Kind {
+        /** {@link SharedQueue} with consumers calling {@code get()}. */
+        SHARED,
+        /** {@link SharedQueue} with consumers calling {@code drainTo()}. */
+        SHARED_DRAIN,
+        /** {@link ShardedQueue} with up to four shards. */
+        SHARDED,
+        /** {@link HandoffQueue}; capacity is ignored. */
+        HANDOFF,
+        /** {@link FairQueue} with one weighted lane per producer. */
+        FAIR
+    }
+
+    private StressHarness() {
+    }
+
+    /**
+     * Pushes a topology's items through a fresh queue and checks the
+     * deliveries.
+     *
+     * @param topology Configuration to run (must not be null)
+     * @param timeout  How long to wait for the workers before declaring a
+     *                 stall (must be positive)
+     * @param unit     Unit of timeout (must not be null)
+     * @return Outcome of the run
+     * @throws NullPointerException     if topology or unit is null
+     * @throws IllegalArgumentException if timeout is not positive
+     * @throws InterruptedException     if the calling thread is interrupted
+     */
+    public static Result run(Topology topology, long timeout, TimeUnit unit) throws InterruptedException {
+        Objects.requireNonNull(topology, "Topology cannot be null");
+        Objects.requireNonNull(unit, "Time unit cannot be null");
+        if (timeout <= 0) {
+            throw new IllegalArgumentException(
+                    "Timeout must be positive, but was: " + timeout);
+        }
+        return new Run(topology).execute(unit.toNanos(timeout));
+    }
+
+    public static void main(String[] args) throws InterruptedException {
+        // Per-item INFO logging would swamp the output and the measurement
+        Logger.getLogger("").setLevel(Level.WARNING);
+
+        int itemsPerRun = args.length > 0 ? Integer.parseInt(args[0]) : 2_000_000;
+        int runs = args.length > 1 ? Integer.parseInt(args[1]) : 10;
+        long seed = args.length > 2 ? Long.parseLong(args[2]) : System.nanoTime();
+
+        System.out.println("Stress harness: " + runs + " runs of " + itemsPerRun + " items, seed " + seed);
+        System.out.println();
+        System.out.printf("%4s  %-46s %10s %8s %12s  %s%n", "run", "topology", "interrupts", "ms", "items/s",
+                "result");
+
+        Random random = new Random(seed);
+        Map<Kind, List<Double>> throughputs = new EnumMap<>(Kind.class);
+        int failures = 0;
+        for (int i = 1; i <= runs; i++) {
+            Topology topology = Topology.random(random, itemsPerRun);
+            Result result = run(topology, RUN_TIMEOUT_SECONDS, TimeUnit.SECONDS);
+            System.out.printf("%4d  %-46s %10d %8d %12.0f  %s%n", i, topology, result.getInterrupts(),
+                    TimeUnit.NANOSECONDS.toMillis(result.getElapsedNanos()), result.getThroughput(),
+                    result.isClean() ? "ok" : "FAILED " + result.describeFailure());
+            if (result.isClean()) {
+                throughputs.computeIfAbsent(topology.getKind(), k -> new ArrayList<>()).add(result.getThroughput());
+            } else {
+                failures++;
+            }
+        }
+
+        System.out.println();
+        System.out.printf("%-14s %5s %14s %14s%n", "kind", "runs", "mean items/s", "min items/s");
+        for (Map.Entry<Kind, List<Double>> entry : throughputs.entrySet()) {
+            List<Double> values = entry.getValue();
+            System.out.printf("%-14s %5d %14.0f %14.0f%n", entry.getKey(), values.size(),
+                    values.stream().mapToDouble(Double::doubleValue).average().orElse(0),
+                    values.stream().mapToDouble(Double::doubleValue).min().orElse(0));
+        }
+        System.out.println();
+        System.out.println(failures == 0 ? "All runs delivered every item exactly once"
+                : failures + " of " + runs + " runs FAILED (reproduce with seed " + seed + ")");
+        if (failures > 0) {
+            System.exit(1);
+        }
+    }
+
+    /**
+     * One stress configuration.
+     */
+    public static final class Topology {
+        private static final int[] CAPACITIES = { 1, 2, 16, 256, 4096 };
+        private static final long[] INTERRUPT_MICROS = { 0, 1000, 100 };
+
+        private final Kind kind;
+        private final int producers;
+        private final int idleProducers;
+        private final int consumers;
+        private final int capacity;
+        private final int itemsPerProducer;
+        private final long interruptMicros;
+
+        /**
+         * Creates a topology.
+         *
+         * @param kind             Queue under test (must not be null)
+         * @param producers        Producers putting items (must be at least 1)
+         * @param idleProducers    Extra producers that register and finish
+         *                         without putting anything (must be
+         *                         non-negative)
+         * @param consumers        Consumer threads (must be at least 1)
+         * @param capacity         Queue capacity, split across shards for
+         *                         {@link Kind#SHARDED} (must be at least 1)
+         * @param itemsPerProducer Items each producer puts (must be
+         *                         non-negative)
+         * @param interruptMicros  Mean time between interrupts of a random
+         *                         worker in microseconds (must be
+         *                         non-negative; 0 disables interrupts)
+         * @throws NullPointerException     if kind is null
+         * @throws IllegalArgumentException if a count is out of range or the
+         *                                  total exceeds Integer.MAX_VALUE
+         *                                  items
+         */
+        public Topology(Kind kind, int producers, int idleProducers, int consumers, int capacity,
+                int itemsPerProducer, long interruptMicros) {
+            this.kind = Objects.requireNonNull(kind, "Kind cannot be null");
+            if (producers < 1 || consumers < 1 || capacity < 1) {
+                throw new IllegalArgumentException("Producers, consumers and capacity must be at least 1, but were: "
+                        + producers + ", " + consumers + ", " + capacity);
+            }
+            if (idleProducers < 0 || itemsPerProducer < 0 || interruptMicros < 0) {
+                throw new IllegalArgumentException("Idle producers, items and interrupt interval must be "
+                        + "non-negative, but were: " + idleProducers + ", " + itemsPerProducer + ", "
+                        + interruptMicros);
+            }
+            if ((long) producers * itemsPerProducer > Integer.MAX_VALUE) {
+                throw new IllegalArgumentException(
+                        "Too many items: " + producers + " x " + itemsPerProducer);
+            }
+            this.producers = producers;
+            this.idleProducers = idleProducers;
+            this.consumers = consumers;
+            this.capacity = capacity;
+            this.itemsPerProducer = itemsPerProducer;
+            this.interruptMicros = interruptMicros;
+        }
+
+        /**
+         * Picks a random topology moving about {@code items} items.
+         *
+         * @param random Source of the choices (must not be null)
+         * @param items  Approximate total items (must be non-negative)
+         * @return Random topology
+         */
+        public static Topology random(Random random, int items) {
+            int producers = 1 + random.nextInt(8);
+            return new Topology(Kind.values()[random.nextInt(Kind.values().length)], producers,
+                    random.nextInt(3), 1 + random.nextInt(8), CAPACITIES[random.nextInt(CAPACITIES.length)],
+                    items / producers, INTERRUPT_MICROS[random.nextInt(INTERRUPT_MICROS.length)]);
+        }
+
+        /**
+         * Returns the queue under test.
+         *
+         * @return Queue kind
+         */
+        public Kind getKind() {
+            return kind;
+        }
+
+        /**
+         * Returns the number of items the producers put in total.
+         *
+         * @return Total items
+         */
+        public int getTotalItems() {
+            return producers * itemsPerProducer;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("%s %dP+%d/%dC cap=%d interrupt=%s", kind, producers, idleProducers, consumers,
+                    capacity, interruptMicros == 0 ? "off" : interruptMicros + "us");
+        }
+    }
+
+    /**
+     * Records which item ids have been delivered, one bit per id, and spots
+     * repeats. Marking is lock-free and safe from any number of threads.
+     */
+    public static final class Ledger {
+        private static final VarHandle WORDS = MethodHandles.arrayElementVarHandle(long[].class);
+
+        private final int size;
+        private final long[] words;
+
+        /**
+         * Creates a ledger for ids 0 to size - 1.
+         *
+         * @param size Number of ids (must be non-negative)
+         * @throws IllegalArgumentException if size is negative
+         */
+        public Ledger(int size) {
+            if (size < 0) {
+                throw new IllegalArgumentException(
+                        "Ledger size must be non-negative, but was: " + size);
+            }
+            this.size = size;
+            this.words = new long[(size + 63) >>> 6];
+        }
+
+        /**
+         * Records a delivery.
+         *
+         * @param id Delivered id
+         * @return true on the first delivery of the id, false on a repeat
+         * @throws IndexOutOfBoundsException if id is outside the ledger
+         */
+        public boolean mark(int id) {
+            Objects.checkIndex(id, size);
+            long bit = 1L << id;
+            return ((long) WORDS.getAndBitwiseOr(words, id >>> 6, bit) & bit) == 0;
+        }
+
+        /**
+         * Checks whether an id has been delivered.
+         *
+         * @param id Id to check
+         * @return true if the id has been marked
+         * @throws IndexOutOfBoundsException if id is outside the ledger
+         */
+        public boolean isMarked(int id) {
+            Objects.checkIndex(id, size);
+            return ((long) WORDS.getVolatile(words, id >>> 6) & (1L << id)) != 0;
+        }
+
+        /**
+         * Returns the number of distinct ids delivered.
+         *
+         * @return Marked ids
+         */
+        public int count() {
+            int count = 0;
+            for (int i = 0; i < words.length; i++) {
+                count += Long.bitCount((long) WORDS.getVolatile(words, i));
+            }
+            return count;
+        }
+
+        /**
+         * Returns the smallest id not delivered yet.
+         *
+         * @return First unmarked id, or -1 if every id is marked
+         */
+        public int firstMissing() {
+            for (int i = 0; i < words.length; i++) {
+                long missing = ~(long) WORDS.getVolatile(words, i);
+                if (missing != 0) {
+                    int id = (i << 6) + Long.numberOfTrailingZeros(missing);
+                    return id < size ? id : -1;
+                }
+            }
+            return -1;
+        }
+    }
+
+    /**
+     * Outcome of one run.
+     */
+    public static final class Result {
+        private final Topology topology;
+        private final long elapsedNanos;
+        private final int delivered;
+        private final int missing;
+        private final int firstMissing;
+        private final long duplicates;
+        private final long unexpected;
+        private final long interrupts;
+        private final Throwable error;
+        private final boolean stalled;
+
+        private Result(Topology topology, long elapsedNanos, int delivered, int firstMissing, long duplicates,
+                long unexpected, long interrupts, Throwable error, boolean stalled) {
+            this.topology = topology;
+            this.elapsedNanos = elapsedNanos;
+            this.delivered = delivered;
+            this.missing = topology.getTotalItems() - delivered;
+            this.firstMissing = firstMissing;
+            this.duplicates = duplicates;
+            this.unexpected = unexpected;
+            this.interrupts = interrupts;
+            this.error = error;
+            this.stalled = stalled;
+        }
+
+        /**
+         * Checks whether every item arrived exactly once, nothing else arrived,
+         * no worker failed and the run finished in time.
+         *
+         * @return true if the run passed
+         */
+        public boolean isClean() {
+            return missing == 0 && duplicates == 0 && unexpected == 0 && error == null && !stalled;
+        }
+
+        /**
+         * Returns the configuration that was run.
+         *
+         * @return Topology
+         */
+        public Topology getTopology() {
+            return topology;
+        }
+
+        /**
+         * Returns the time from starting the workers until all had finished
+         * (or the timeout, for a stalled run).
+         *
+         * @return Elapsed time in nanoseconds
+         */
+        public long getElapsedNanos() {
+            return elapsedNanos;
+        }
+
+        /**
+         * Returns distinct items delivered per second of elapsed time.
+         *
+         * @return Throughput in items per second
+         */
+        public double getThroughput() {
+            return elapsedNanos == 0 ? 0 : delivered / (elapsedNanos / 1e9);
+        }
+
+        /**
+         * Returns the number of distinct items delivered.
+         *
+         * @return Delivered items
+         */
+        public int getDelivered() {
+            return delivered;
+        }
+
+        /**
+         * Returns the number of items put but never delivered.
+         *
+         * @return Lost items
+         */
+        public int getMissing() {
+            return missing;
+        }
+
+        /**
+         * Returns the number of deliveries of an item already delivered.
+         *
+         * @return Duplicate deliveries
+         */
+        public long getDuplicates() {
+            return duplicates;
+        }
+
+        /**
+         * Returns the number of delivered items no producer put (null or with
+         * an id out of range).
+         *
+         * @return Unexpected deliveries
+         */
+        public long getUnexpected() {
+            return unexpected;
+        }
+
+        /**
+         * Returns the number of InterruptedExceptions the workers saw and
+         * retried.
+         *
+         * @return Interrupts absorbed
+         */
+        public long getInterrupts() {
+            return interrupts;
+        }
+
+        /**
+         * Returns the first unexpected exception thrown by a worker.
+         *
+         * @return Worker failure, or null if none failed
+         */
+        public Throwable getError() {
+            return error;
+        }
+
+        /**
+         * Checks whether the workers were still running at the timeout.
+         *
+         * @return true if the run stalled
+         */
+        public boolean isStalled() {
+            return stalled;
+        }
+
+        /**
+         * Summarises what went wrong.
+         *
+         * @return Failure description, or "ok" for a clean run
+         */
+        public String describeFailure() {
+            if (isClean()) {
+                return "ok";
+            }
+            List<String> problems = new ArrayList<>();
+            if (stalled) {
+                problems.add("stalled");
+            }
+            if (missing != 0) {
+                problems.add(missing + " missing (first id " + firstMissing + ")");
+            }
+            if (duplicates != 0) {
+                problems.add(duplicates + " duplicates");
+            }
+            if (unexpected != 0) {
+                problems.add(unexpected + " unexpected");
+            }
+            if (error != null) {
+                problems.add("worker error: " + error);
+            }
+            return String.join(", ", problems);
+        }
+
+        @Override
+        public String toString() {
+            return "Result{" +
+                    "topology=" + topology +
+                    ", delivered=" + delivered +
+                    ", throughput=" + String.format("%.0f", getThroughput()) +
+                    ", interrupts=" + interrupts +
+                    ", result=" + describeFailure() +
+                    '}';
+        }
+    }
+
+    /**
+     * State of one run: the queue, the workers and the tallies they share.
+     */
+    private static final class Run {
+        private final Topology topology;
+        private final Ledger ledger;
+        private final List<WorkSink<WorkItem>> sinks = new ArrayList<>();
+        private final WorkSource<WorkItem> source;
+        private final SharedQueue<WorkItem> drainable;
+
+        private final AtomicLong duplicates = new AtomicLong();
+        private final AtomicLong unexpected = new AtomicLong();
+        private final AtomicLong interrupts = new AtomicLong();
+        private final AtomicReference<Throwable> error = new AtomicReference<>();
+
+        private Run(Topology topology) {
+            this.topology = topology;
+            this.ledger = new Ledger(topology.getTotalItems());
+
+            int producers = topology.producers + topology.idleProducers;
+            switch (topology.kind) {
+                case SHARED:
+                case SHARED_DRAIN: {
+                    SharedQueue<WorkItem> queue = new SharedQueue<>(topology.capacity);
+                    addSinks(queue, producers);
+                    this.source = queue;
+                    this.drainable = topology.kind == Kind.SHARED_DRAIN ? queue : null;
+                    break;
+                }
+                case SHARDED: {
+                    int shards = Math.min(4, topology.consumers);
+                    ShardedQueue<WorkItem> queue = new ShardedQueue<>(shards,
+                            Math.max(1, topology.capacity / shards));
+                    addSinks(queue, producers);
+                    this.source = queue;
+                    this.drainable = null;
+                    break;
+                }
+                case HANDOFF: {
+                    HandoffQueue<WorkItem> queue = new HandoffQueue<>();
+                    addSinks(queue, producers);
+                    this.source = queue;
+                    this.drainable = null;
+                    break;
+                }
+                case FAIR: {
+                    FairQueue<WorkItem> queue = new FairQueue<>(topology.capacity);
+                    for (int p = 0; p < producers; p++) {
+                        sinks.add(queue.registerProducer("P" + p, 1 + p % 3));
+                    }
+                    this.source = queue;
+                    this.drainable = null;
+                    break;
+                }
+                default:
+                    throw new IllegalStateException("Unknown kind: " + topology.kind);
+            }
+            // Register everyone up front so an early finisher cannot close the
+            // queue on the others
+            for (WorkSink<WorkItem> sink : sinks) {
+                sink.registerProducer();
+            }
+        }
+
+        private void addSinks(WorkSink<WorkItem> queue, int producers) {
+            for (int p = 0; p < producers; p++) {
+                sinks.add(queue);
+            }
+        }
+
+        private Result execute(long timeoutNanos) throws InterruptedException {
+            List<Thread> workers = new ArrayList<>();
+            for (int p = 0; p < sinks.size(); p++) {
+                int first = p * topology.itemsPerProducer;
+                int count = p < topology.producers ? topology.itemsPerProducer : 0;
+                WorkSink<WorkItem> sink = sinks.get(p);
+                workers.add(worker("stress-P" + p, () -> produce(sink, first, count)));
+            }
+            for (int c = 0; c < topology.consumers; c++) {
+                workers.add(worker("stress-C" + c, drainable != null ? this::drain : this::consume));
+            }
+
+            long start = System.nanoTime();
+            workers.forEach(Thread::start);
+            Thread chaos = null;
+            if (topology.interruptMicros > 0) {
+                chaos = worker("stress-chaos", () -> interruptRandomly(workers));
+                chaos.start();
+            }
+
+            boolean stalled = false;
+            for (Thread worker : workers) {
+                long remaining = timeoutNanos - (System.nanoTime() - start);
+                if (remaining > 0) {
+                    TimeUnit.NANOSECONDS.timedJoin(worker, remaining);
+                }
+                stalled |= worker.isAlive();
+            }
+            long elapsed = System.nanoTime() - start;
+            if (chaos != null) {
+                chaos.interrupt();
+                chaos.join();
+            }
+
+            return new Result(topology, elapsed, ledger.count(), ledger.firstMissing(), duplicates.get(),
+                    unexpected.get(), interrupts.get(), error.get(), stalled);
+        }
+
+        private Thread worker(String name, Runnable body) {
+            Thread thread = new Thread(() -> {
+                try {
+                    body.run();
+                } catch (Throwable t) {
+                    error.compareAndSet(null, t);
+                }
+            }, name);
+            // A stalled run must not keep the JVM alive
+            thread.setDaemon(true);
+            return thread;
+        }
+
+        private void produce(WorkSink<WorkItem> sink, int firstId, int count) {
+            try {
+                for (int id = firstId; id < firstId + count; id++) {
+                    WorkItem item = new WorkItem(id, null, 0);
+                    while (true) {
+                        try {
+                            sink.put(item);
+                            break;
+                        } catch (InterruptedException e) {
+                            absorbInterrupt();
+                        }
+                    }
+                }
+            } finally {
+                sink.producerDone();
+            }
+        }
+
+        private void consume() {
+            while (true) {
+                WorkItem item;
+                try {
+                    item = source.get();
+                } catch (InterruptedException e) {
+                    absorbInterrupt();
+                    continue;
+                }
+                if (item == null) {
+                    return;
+                }
+                record(item);
+            }
+        }
+
+        private void drain() {
+            List<WorkItem> batch = new ArrayList<>(DRAIN_BATCH);
+            while (true) {
+                int drained;
+                try {
+                    drained = drainable.drainTo(batch, DRAIN_BATCH, Long.MAX_VALUE, TimeUnit.NANOSECONDS);
+                } catch (InterruptedException e) {
+                    absorbInterrupt();
+                    continue;
+                }
+                if (drained < 0) {
+                    return;
+                }
+                for (WorkItem item : batch) {
+                    record(item);
+                }
+                batch.clear();
+            }
+        }
+
+        /**
+         * Counts an interrupt and clears the flag the queue restored, so the
+         * retry blocks normally.
+         */
+        private void absorbInterrupt() {
+            Thread.interrupted();
+            interrupts.incrementAndGet();
+        }
+
+        private void record(WorkItem item) {
+            if (item == null || item.getId() < 0 || item.getId() >= topology.getTotalItems()) {
+                unexpected.incrementAndGet();
+            } else if (!ledger.mark(item.getId())) {
+                duplicates.incrementAndGet();
+            }
+        }
+
+        private void interruptRandomly(List<Thread> workers) {
+            ThreadLocalRandom random = ThreadLocalRandom.current();
+            long meanNanos = TimeUnit.MICROSECONDS.toNanos(topology.interruptMicros);
+            while (!Thread.currentThread().isInterrupted()) {
+                LockSupport.parkNanos(random.nextLong(2 * meanNanos));
+                workers.get(random.nextInt(workers.size())).interrupt();
+            }
+        }
+    }
+}
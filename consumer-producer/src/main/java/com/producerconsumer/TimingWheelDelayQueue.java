@@ -0,0 +1,510 @@
+package com.producerconsumer;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Logger;
+
+/**
+ * TimingWheelDelayQueue holds items until their delay expires and then moves
+ * them into a regular target queue, where consumers pick them up through the
+ * usual {@link SharedQueue#get()} path.
+ *
+ * <p>
+ * Pending items live in a hierarchical timing wheel rather than a heap.
+ * Level 0 has {@code wheelSize} slots of one tick each; every higher level has
+ * the same number of slots, each covering a full revolution of the level below.
+ * When a lower wheel wraps around, the current slot of the next level is
+ * cascaded down. Each slot is a doubly linked list, so scheduling and
+ * cancelling are O(1) regardless of how many items are pending.
+ * </p>
+ *
+ * <p>
+ * Key features:
+ * </p>
+ * <ul>
+ * <li>O(1) {@link #put(Object, long, TimeUnit)} and {@link Timeout#cancel()}</li>
+ * <li>Tick granularity: items fire on the first tick at or after their
+ * deadline, never early</li>
+ * <li>Due items are handed to the target with its blocking {@code put}, so a
+ * full target applies backpressure to the wheel instead of dropping items</li>
+ * <li>Lifecycle: the wheel registers itself as one producer of the target and
+ * calls {@code producerDone} once its own producers are done and nothing is
+ * pending any more</li>
+ * </ul>
+ *
+ * <p>
+ * Thread Safety:
+ * </p>
+ * This class is thread-safe. The wheel is guarded by its monitor and advanced
+ * by a single daemon ticker thread.
+ *
+ * @param <T> Type of items scheduled (must not be null)
+ */
+public class TimingWheelDelayQueue<T> implements WorkSink<T> {
+    private static final Logger logger = Logger.getLogger(TimingWheelDelayQueue.class.getName());
+
+    private static final int DEFAULT_WHEEL_SIZE = 64;
+    private static final int DEFAULT_LEVELS = 4;
+
+    private final WorkSink<T> target;
+    private final long tickNanos;
+    private final int wheelBits;
+    private final int wheelMask;
+    private final Timeout<T>[][] wheels;
+    private final long startNanos;
+    private final Thread ticker;
+
+    private long currentTick = 0;
+    private int pending = 0;
+    private long itemsScheduled = 0;
+    private long itemsCancelled = 0;
+    private long itemsExpired = 0;
+    private int activeProducers = 0;
+    private boolean producersDone = false;
+    private boolean closed = false;
+
+    /**
+     * Creates a delay queue with a 64-slot, 4-level wheel.
+     *
+     * @param target Queue that receives items once they are due (must not be
+     *               null)
+     * @param tickMs Duration of one tick in milliseconds (must be at least 1)
+     * @throws NullPointerException     if target is null
+     * @throws IllegalArgumentException if tickMs is less than 1
+     */
+    public TimingWheelDelayQueue(WorkSink<T> target, long tickMs) {
+        this(target, tickMs, DEFAULT_WHEEL_SIZE, DEFAULT_LEVELS);
+    }
+
+    /**
+     * Creates a delay queue with a custom wheel shape. Delays beyond
+     * {@code tickMs * wheelSize^levels} are still supported; such items are
+     * simply re-cascaded from the top level until they come into range.
+     *
+     * @param target    Queue that receives items once they are due (must not be
+     *                  null)
+     * @param tickMs    Duration of one tick in milliseconds (must be at least 1)
+     * @param wheelSize Slots per level (must be a power of two, at least 2)
+     * @param levels    Number of wheel levels (must be at least 1)
+     * @throws NullPointerException     if target is null
+     * @throws IllegalArgumentException if any size argument is out of range
+     */
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    public TimingWheelDelayQueue(WorkSink<T> target, long tickMs, int wheelSize, int levels) {
+        this.target = Objects.requireNonNull(target, "Target queue cannot be null");
+        if (tickMs < 1) {
+            throw new IllegalArgumentException(
+                    "Tick duration must be at least 1ms, but was: " + tickMs);
+        }
+        if (wheelSize < 2 || Integer.bitCount(wheelSize) != 1) {
+            throw new IllegalArgumentException(
+                    "Wheel size must be a power of two >= 2, but was: " + wheelSize);
+        }
+        if (levels < 1 || (long) levels * Integer.numberOfTrailingZeros(wheelSize) > 62) {
+            throw new IllegalArgumentException(
+                    "Wheel levels out of range: " + levels);
+        }
+
+        this.tickNanos = TimeUnit.MILLISECONDS.toNanos(tickMs);
+        this.wheelBits = Integer.numberOfTrailingZeros(wheelSize);
+        this.wheelMask = wheelSize - 1;
+        this.wheels = new Timeout[levels][wheelSize];
+        this.target.registerProducer();
+        this.startNanos = System.nanoTime();
+
+        this.ticker = new Thread(this::runTicker, "timing-wheel");
+        this.ticker.setDaemon(true);
+        this.ticker.start();
+    }
+
+    /**
+     * Schedules an item for delivery after the given delay. A delay of zero or
+     * less hands the item to the target immediately.
+     *
+     * @param item  Item to deliver (must not be null)
+     * @param delay Delay before delivery
+     * @param unit  Unit of the delay (must not be null)
+     * @return Handle that can cancel the delivery while it is still pending
+     * @throws InterruptedException  if an immediate delivery is interrupted while
+     *                               the target is full
+     * @throws NullPointerException  if item or unit is null
+     * @throws IllegalStateException if the queue has been closed
+     */
+    public Timeout<T> put(T item, long delay, TimeUnit unit) throws InterruptedException {
+        Objects.requireNonNull(item, "Cannot put null item into queue");
+        Objects.requireNonNull(unit, "Time unit cannot be null");
+        Timeout<T> timeout = new Timeout<>(this, item);
+
+        synchronized (this) {
+            if (closed || producersDone) {
+                throw new IllegalStateException("Cannot put items into a closed queue");
+            }
+            itemsScheduled++;
+
+            if (delay > 0) {
+                long elapsed = System.nanoTime() - startNanos + unit.toNanos(delay);
+                // Round up so an item never fires before its deadline
+                timeout.deadlineTick = (elapsed + tickNanos - 1) / tickNanos;
+                if (timeout.deadlineTick > currentTick) {
+                    insert(timeout);
+                    pending++;
+                    notifyAll();
+                    return timeout;
+                }
+            }
+            timeout.state = Timeout.EXPIRED;
+            itemsExpired++;
+        }
+
+        target.put(item);
+        return timeout;
+    }
+
+    /**
+     * Hands an item to the target without delay.
+     *
+     * @param item Item to deliver (must not be null)
+     * @throws InterruptedException if the thread is interrupted while the target
+     *                              is full
+     */
+    @Override
+    public void put(T item) throws InterruptedException {
+        put(item, 0, TimeUnit.MILLISECONDS);
+    }
+
+    @Override
+    public synchronized void registerProducer() {
+        if (closed || producersDone) {
+            throw new IllegalStateException("Queue already closed");
+        }
+        activeProducers++;
+    }
+
+    /**
+     * Marks a producer as completed. Once the last producer is done, the target
+     * is told the wheel has finished as soon as every pending item has been
+     * delivered or cancelled.
+     */
+    @Override
+    public synchronized void producerDone() {
+        if (activeProducers == 0) {
+            return;
+        }
+
+        activeProducers--;
+        if (activeProducers == 0) {
+            producersDone = true;
+            notifyAll();
+        }
+    }
+
+    /**
+     * Stops the wheel immediately. Pending items are discarded and the target is
+     * released from this producer.
+     *
+     * @return Number of pending items that were discarded
+     */
+    public int close() {
+        int discarded;
+        synchronized (this) {
+            if (closed) {
+                return 0;
+            }
+            closed = true;
+            discarded = pending;
+            for (Timeout<T>[] wheel : wheels) {
+                for (int slot = 0; slot < wheel.length; slot++) {
+                    for (Timeout<T> t = wheel[slot]; t != null; t = t.next) {
+                        t.state = Timeout.CANCELLED;
+                    }
+                    wheel[slot] = null;
+                }
+            }
+            itemsCancelled += discarded;
+            pending = 0;
+            notifyAll();
+        }
+
+        ticker.interrupt();
+        target.producerDone();
+        if (discarded > 0) {
+            logger.info("Timing wheel closed, discarded " + discarded + " pending items");
+        }
+        return discarded;
+    }
+
+    /**
+     * Returns the number of items waiting for their delay to expire.
+     *
+     * @return Pending item count
+     */
+    public synchronized int getPendingCount() {
+        return pending;
+    }
+
+    /**
+     * Returns the total number of items ever scheduled.
+     *
+     * @return Scheduled item count
+     */
+    public synchronized long getItemsScheduled() {
+        return itemsScheduled;
+    }
+
+    /**
+     * Returns the number of items cancelled before they became due.
+     *
+     * @return Cancelled item count
+     */
+    public synchronized long getItemsCancelled() {
+        return itemsCancelled;
+    }
+
+    /**
+     * Returns the number of items that became due and were released to the
+     * target.
+     *
+     * @return Expired item count
+     */
+    public synchronized long getItemsExpired() {
+        return itemsExpired;
+    }
+
+    /**
+     * Returns the tick duration in milliseconds.
+     *
+     * @return Tick duration
+     */
+    public long getTickMs() {
+        return TimeUnit.NANOSECONDS.toMillis(tickNanos);
+    }
+
+    @Override
+    public synchronized String toString() {
+        return "TimingWheelDelayQueue{" +
+                "pending=" + pending +
+                ", scheduled=" + itemsScheduled +
+                ", expired=" + itemsExpired +
+                ", cancelled=" + itemsCancelled +
+                ", closed=" + closed +
+                '}';
+    }
+
+    private synchronized boolean cancel(Timeout<T> timeout) {
+        if (timeout.state != Timeout.PENDING) {
+            return false;
+        }
+        unlink(timeout);
+        timeout.state = Timeout.CANCELLED;
+        pending--;
+        itemsCancelled++;
+        notifyAll();
+        return true;
+    }
+
+    /**
+     * Places an entry on the lowest level whose range covers its remaining
+     * delay. Caller must hold the monitor.
+     */
+    private void insert(Timeout<T> timeout) {
+        long delta = timeout.deadlineTick - currentTick;
+        int level = 0;
+        while (level < wheels.length - 1 && delta >= (1L << (wheelBits * (level + 1)))) {
+            level++;
+        }
+
+        int slot = (int) ((timeout.deadlineTick >>> (wheelBits * level)) & wheelMask);
+        Timeout<T> head = wheels[level][slot];
+        timeout.level = level;
+        timeout.slot = slot;
+        timeout.prev = null;
+        timeout.next = head;
+        if (head != null) {
+            head.prev = timeout;
+        }
+        wheels[level][slot] = timeout;
+    }
+
+    private void unlink(Timeout<T> timeout) {
+        if (timeout.prev != null) {
+            timeout.prev.next = timeout.next;
+        } else {
+            wheels[timeout.level][timeout.slot] = timeout.next;
+        }
+        if (timeout.next != null) {
+            timeout.next.prev = timeout.prev;
+        }
+        timeout.prev = null;
+        timeout.next = null;
+    }
+
+    /**
+     * Moves the wheel forward by one tick, collecting items that became due.
+     * Caller must hold the monitor.
+     */
+    private void advance(List<T> due) {
+        currentTick++;
+
+        // Cascade every level whose lower neighbour just wrapped around
+        for (int level = 1; level < wheels.length; level++) {
+            if ((currentTick & ((1L << (wheelBits * level)) - 1)) != 0) {
+                break;
+            }
+            int slot = (int) ((currentTick >>> (wheelBits * level)) & wheelMask);
+            Timeout<T> t = wheels[level][slot];
+            wheels[level][slot] = null;
+            while (t != null) {
+                Timeout<T> next = t.next;
+                insert(t);
+                t = next;
+            }
+        }
+
+        int slot = (int) (currentTick & wheelMask);
+        Timeout<T> t = wheels[0][slot];
+        wheels[0][slot] = null;
+        while (t != null) {
+            Timeout<T> next = t.next;
+            if (t.deadlineTick <= currentTick) {
+                t.prev = null;
+                t.next = null;
+                t.state = Timeout.EXPIRED;
+                pending--;
+                itemsExpired++;
+                due.add(t.item);
+            } else {
+                insert(t);
+            }
+            t = next;
+        }
+    }
+
+    private void runTicker() {
+        List<T> due = new ArrayList<>();
+        try {
+            while (true) {
+                boolean finished;
+                synchronized (this) {
+                    long elapsedTick = (System.nanoTime() - startNanos) / tickNanos;
+                    if (pending == 0) {
+                        // Nothing to cascade, so skip idle ticks instead of walking them
+                        currentTick = Math.max(currentTick, elapsedTick);
+                    }
+                    while (currentTick < elapsedTick && pending > 0) {
+                        advance(due);
+                    }
+                    currentTick = Math.max(currentTick, elapsedTick);
+                    finished = closed || (producersDone && pending == 0 && due.isEmpty());
+                }
+
+                // Deliver outside the monitor so a full target never blocks put/cancel
+                for (T item : due) {
+                    target.put(item);
+                }
+                due.clear();
+
+                if (finished) {
+                    break;
+                }
+
+                synchronized (this) {
+                    if (closed) {
+                        return;
+                    }
+                    if (producersDone && pending == 0) {
+                        continue;
+                    }
+                    if (pending == 0) {
+                        wait();
+                    } else {
+                        long nextTickNanos = startNanos + (currentTick + 1) * tickNanos;
+                        long waitNanos = nextTickNanos - System.nanoTime();
+                        if (waitNanos > 0) {
+                            TimeUnit.NANOSECONDS.timedWait(this, waitNanos);
+                        }
+                    }
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return;
+        }
+
+        synchronized (this) {
+            if (closed) {
+                return;
+            }
+            closed = true;
+        }
+        target.producerDone();
+    }
+
+    /**
+     * Handle for a scheduled item.
+     *
+     * @param <T> Type of the scheduled item
+     */
+    public static final class Timeout<T> {
+        private static final int PENDING = 0;
+        private static final int EXPIRED = 1;
+        private static final int CANCELLED = 2;
+
+        private final TimingWheelDelayQueue<T> queue;
+        private final T item;
+        private long deadlineTick;
+        private int level;
+        private int slot;
+        private Timeout<T> prev;
+        private Timeout<T> next;
+        // Guarded by the owning queue's monitor
+        private int state = PENDING;
+
+        private Timeout(TimingWheelDelayQueue<T> queue, T item) {
+            this.queue = queue;
+            this.item = item;
+        }
+
+        /**
+         * Returns the scheduled item.
+         *
+         * @return Item (never null)
+         */
+        public T getItem() {
+            return item;
+        }
+
+        /**
+         * Cancels delivery if the item is still pending. O(1).
+         *
+         * @return true if the item was cancelled, false if it was already
+         *         delivered or cancelled
+         */
+        public boolean cancel() {
+            return queue.cancel(this);
+        }
+
+        /**
+         * Checks whether this item was cancelled before becoming due.
+         *
+         * @return true if cancelled
+         */
+        public boolean isCancelled() {
+            synchronized (queue) {
+                return state == CANCELLED;
+            }
+        }
+
+        /**
+         * Checks whether this item became due and was released to the target.
+         *
+         * @return true if expired
+         */
+        public boolean isExpired() {
+            synchronized (queue) {
+                return state == EXPIRED;
+            }
+        }
+    }
+}
@@ -0,0 +1,207 @@
+package com.producerconsumer;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.List;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * TransportBenchmark compares moving {@link WorkItem}s to a consumer in a
+ * second JVM through the memory-mapped ring ({@link MappedRingQueue}) and
+ * through the loopback socket bridge ({@link RemoteQueueServer} +
+ * {@link RemoteSource}).
+ *
+ * <p>
+ * The parent process produces items whose payload is the send time from
+ * {@link System#nanoTime()}; a child JVM consumes them and reports per-item
+ * latency percentiles. Both processes run on the same host, where
+ * {@code nanoTime} reads the same monotonic clock, so the numbers are
+ * comparable across the process boundary. The producer runs flat out, so
+ * latency includes time spent waiting behind a full queue, not just the
+ * transport hop.
+ * </p>
+ *
+ * <p>
+ * Usage: {@code java -cp bin com.producerconsumer.TransportBenchmark [items]}
+ * (or {@code ./scripts/run-benchmark.sh}).
+ * </p>
+ */
+public class TransportBenchmark {
+
+    private static final String SHM_CONSUMER = "--shm-consumer";
+    private static final String SOCKET_CONSUMER = "--socket-consumer";
+
+    public static void main(String[] args) throws Exception {
+        // Per-item INFO logging would dominate every measurement
+        Logger.getLogger("").setLevel(Level.WARNING);
+
+        if (args.length > 0 && args[0].equals(SHM_CONSUMER)) {
+            runShmConsumer(Path.of(args[1]), Integer.parseInt(args[2]));
+            return;
+        }
+        if (args.length > 0 && args[0].equals(SOCKET_CONSUMER)) {
+            runSocketConsumer(args[1], Integer.parseInt(args[2]), Integer.parseInt(args[3]));
+            return;
+        }
+
+        int items = args.length > 0 ? Integer.parseInt(args[0]) : 1_000_000;
+        System.out.println("Transport benchmark: " + items + " items, producer and consumer in separate JVMs");
+        System.out.println();
+        System.out.printf("%-22s %14s %10s %10s %10s%n", "Transport", "items/sec", "p50 (us)", "p99 (us)",
+                "max (us)");
+
+        // Warm up each path once before measuring
+        benchmarkShm(Math.min(items, 100_000));
+        report("mmap ring", benchmarkShm(items), items);
+        benchmarkSocket(Math.min(items, 100_000));
+        report("loopback socket", benchmarkSocket(items), items);
+    }
+
+    private static Result benchmarkShm(int items) throws Exception {
+        Path file = Files.createTempFile("transport-bench", ".ring");
+        try (MappedRingQueue ring = MappedRingQueue.create(file, 4096, 64)) {
+            ring.registerProducer();
+            Process child = startChild(SHM_CONSUMER, file.toString(), Integer.toString(items));
+            BufferedReader out = awaitReady(child);
+
+            long start = System.nanoTime();
+            for (int i = 0; i < items; i++) {
+                ring.put(new WorkItem(i, Long.toString(System.nanoTime())));
+            }
+            ring.producerDone();
+            return awaitResult(child, out, start);
+        } finally {
+            Files.deleteIfExists(file);
+        }
+    }
+
+    private static Result benchmarkSocket(int items) throws Exception {
+        SharedQueue<WorkItem> queue = new SharedQueue<>(4096);
+        queue.registerProducer();
+        try (RemoteQueueServer server = new RemoteQueueServer(queue,
+                new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 1024)) {
+            InetSocketAddress address = server.getLocalAddress();
+            Process child = startChild(SOCKET_CONSUMER, address.getHostString(),
+                    Integer.toString(address.getPort()), Integer.toString(items));
+            BufferedReader out = awaitReady(child);
+
+            long start = System.nanoTime();
+            for (int i = 0; i < items; i++) {
+                queue.put(new WorkItem(i, Long.toString(System.nanoTime())));
+            }
+            queue.producerDone();
+            return awaitResult(child, out, start);
+        }
+    }
+
+    private static void runShmConsumer(Path file, int items) throws Exception {
+        try (MappedRingQueue ring = MappedRingQueue.open(file)) {
+            consume(ring, items);
+        }
+    }
+
+    private static void runSocketConsumer(String host, int port, int items) throws Exception {
+        try (RemoteSource source = RemoteSource.connect(new InetSocketAddress(host, port), 512)) {
+            consume(source, items);
+        }
+    }
+
+    /**
+     * Child side: drains the source, recording latency per item, and prints a
+     * single RESULT line for the parent.
+     */
+    private static void consume(WorkSource<WorkItem> source, int items) throws InterruptedException {
+        System.out.println("READY");
+        System.out.flush();
+
+        long[] latencies = new long[items];
+        int received = 0;
+        long last = 0;
+        WorkItem item;
+        while (received < items && (item = source.get()) != null) {
+            last = System.nanoTime();
+            latencies[received++] = last - Long.parseLong(item.getData());
+        }
+
+        long[] seen = Arrays.copyOf(latencies, received);
+        Arrays.sort(seen);
+        System.out.println("RESULT " + received + " " + last + " " + percentile(seen, 0.50) + " "
+                + percentile(seen, 0.99) + " " + (seen.length == 0 ? 0 : seen[seen.length - 1]));
+        System.out.flush();
+    }
+
+    private static Process startChild(String... args) throws IOException {
+        String java = Path.of(System.getProperty("java.home"), "bin", "java").toString();
+        List<String> command = new java.util.ArrayList<>(List.of(java, "-cp",
+                System.getProperty("java.class.path"), TransportBenchmark.class.getName()));
+        command.addAll(List.of(args));
+        return new ProcessBuilder(command).redirectError(ProcessBuilder.Redirect.INHERIT).start();
+    }
+
+    private static BufferedReader awaitReady(Process child) throws IOException {
+        BufferedReader out = new BufferedReader(
+                new InputStreamReader(child.getInputStream(), StandardCharsets.UTF_8));
+        String line;
+        while ((line = out.readLine()) != null) {
+            if (line.equals("READY")) {
+                return out;
+            }
+        }
+        throw new IOException("Benchmark consumer exited before becoming ready");
+    }
+
+    private static Result awaitResult(Process child, BufferedReader out, long start)
+            throws IOException, InterruptedException {
+        String line;
+        while ((line = out.readLine()) != null) {
+            if (line.startsWith("RESULT ")) {
+                String[] parts = line.split(" ");
+                child.waitFor();
+                return new Result(Integer.parseInt(parts[1]), Long.parseLong(parts[2]) - start,
+                        Long.parseLong(parts[3]), Long.parseLong(parts[4]), Long.parseLong(parts[5]));
+            }
+        }
+        throw new IOException("Benchmark consumer exited with code " + child.waitFor());
+    }
+
+    private static long percentile(long[] sorted, double p) {
+        if (sorted.length == 0) {
+            return 0;
+        }
+        int index = (int) Math.ceil(p * sorted.length) - 1;
+        return sorted[Math.max(0, Math.min(index, sorted.length - 1))];
+    }
+
+    private static void report(String transport, Result result, int expected) {
+        if (result.received != expected) {
+            System.out.println(transport + ": expected " + expected + " items, consumer saw " + result.received);
+        }
+        double throughput = result.received / (result.elapsedNanos / 1e9);
+        System.out.printf("%-22s %,14.0f %10.1f %10.1f %10.1f%n", transport, throughput,
+                result.p50Nanos / 1e3, result.p99Nanos / 1e3, result.maxNanos / 1e3);
+    }
+
+    private static final class Result {
+        private final int received;
+        private final long elapsedNanos;
+        private final long p50Nanos;
+        private final long p99Nanos;
+        private final long maxNanos;
+
+        private Result(int received, long elapsedNanos, long p50Nanos, long p99Nanos, long maxNanos) {
+            this.received = received;
+            this.elapsedNanos = elapsedNanos;
+            this.p50Nanos = p50Nanos;
+            this.p99Nanos = p99Nanos;
+            this.maxNanos = maxNanos;
+        }
+    }
+}
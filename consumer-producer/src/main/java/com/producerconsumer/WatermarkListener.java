@@ -0,0 +1,33 @@
+package com.producerconsumer;
+
+/**
+ * WatermarkListener is told when a {@link SharedQueue} fills past its high
+ * watermark and when it drains back down to its low watermark.
+ *
+ * <p>
+ * Signals alternate: after a high signal the next one is always low, and the
+ * other way round, so the gap between the two marks acts as hysteresis and a
+ * queue hovering around one mark does not flood the listener. Callbacks run on
+ * the thread whose put or get crossed the mark, after the queue's monitor has
+ * been released, so they must be short and must not block.
+ * </p>
+ *
+ * @see SharedQueue#addWatermarkListener(int, int, WatermarkListener)
+ */
+public interface WatermarkListener {
+
+    /**
+     * Called when the queue size rises to the high watermark or above.
+     *
+     * @param size Queue size when the signal was delivered
+     */
+    void onHighWatermark(int size);
+
+    /**
+     * Called when the queue size falls to the low watermark or below, after a
+     * high signal.
+     *
+     * @param size Queue size when the signal was delivered
+     */
+    void onLowWatermark(int size);
+}
@@ -17,9 +17,22 @@ public class WorkItem {
      * @param data Data payload
      */
     public WorkItem(int id, String data) {
+        this(id, data, System.currentTimeMillis());
+    }
+    
+    /**
+     * Creates a WorkItem with an explicit timestamp.
+     * Used when rebuilding an item that was created elsewhere (for example after
+     * decoding it from the wire), so its original creation time is kept.
+     * 
+     * @param id Unique identifier for this work item
+     * @param data Data payload
+     * @param timestamp Creation time in epoch milliseconds
+     */
+    public WorkItem(int id, String data, long timestamp) {
         this.id = id;
         this.data = data;
-        this.timestamp = System.currentTimeMillis();
+        this.timestamp = timestamp;
     }
     
     public int getId() {
@@ -0,0 +1,439 @@
+package com.producerconsumer;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.nio.BufferOverflowException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * WorkItemCodec converts {@link WorkItem}s to and from a compact, versioned
+ * binary form for use outside the JVM heap (sockets, files, shared memory).
+ *
+ * <p>
+ * Layout of one item body: the id as a zigzag varint (1 byte for ids below
+ * 64), the timestamp as a raw big-endian {@code long}, the data length in bytes
+ * plus one as a varint (0 for null data), then the UTF-8 data bytes. A single
+ * item ({@link #encode(WorkItem, ByteBuffer)}) is the {@link #VERSION} byte
+ * followed by one body; a batch ({@link #encodeBatch(List, ByteBuffer)}) is
+ * the version byte, the item count as a varint, then the bodies.
+ * </p>
+ *
+ * <p>
+ * Key features:
+ * </p>
+ * <ul>
+ * <li>Strings are encoded straight into the buffer; no byte array per item on
+ * either side for heap buffers</li>
+ * <li>Batch encode and decode amortise the header over many items</li>
+ * <li>Readers reject versions they do not know instead of misreading them</li>
+ * </ul>
+ *
+ * <p>
+ * Thread Safety:
+ * </p>
+ * This class is stateless and thread-safe.
+ */
+public final class WorkItemCodec {
+
+    /** Format version written ahead of every item or batch. */
+    public static final byte VERSION = 1;
+
+    private static final int TIMESTAMP_BYTES = Long.BYTES;
+
+    private static final VarHandle BIG_ENDIAN_LONGS = MethodHandles.byteArrayViewVarHandle(long[].class,
+            ByteOrder.BIG_ENDIAN);
+
+    // Copy target for decoding strings out of direct (off-heap) buffers
+    private static final ThreadLocal<byte[]> SCRATCH = ThreadLocal.withInitial(() -> new byte[256]);
+
+    private WorkItemCodec() {
+    }
+
+    /**
+     * Returns the number of bytes {@link #encode(WorkItem, ByteBuffer)} will
+     * write for an item.
+     *
+     * @param item Item to measure (must not be null)
+     * @return Encoded size in bytes
+     */
+    public static int encodedSize(WorkItem item) {
+        return 1 + bodySize(item);
+    }
+
+    /**
+     * Returns the number of bytes {@link #encodeBatch(List, ByteBuffer)} will
+     * write for a batch.
+     *
+     * @param items Items to measure (must not be null or contain null)
+     * @return Encoded size in bytes
+     */
+    public static int encodedBatchSize(List<? extends WorkItem> items) {
+        int size = 1 + varintSize(items.size());
+        for (int i = 0; i < items.size(); i++) {
+            size += bodySize(items.get(i));
+        }
+        return size;
+    }
+
+    /**
+     * Writes an item at the buffer's position.
+     *
+     * @param item   Item to encode (must not be null)
+     * @param buffer Destination buffer with enough remaining space
+     * @throws BufferOverflowException if the buffer is too small; its position
+     *                                 is then unchanged
+     */
+    public static void encode(WorkItem item, ByteBuffer buffer) {
+        int start = buffer.position();
+        try {
+            buffer.put(VERSION);
+            encodeBody(item, buffer);
+        } catch (BufferOverflowException e) {
+            buffer.position(start);
+            throw e;
+        }
+    }
+
+    /**
+     * Writes a batch of items at the buffer's position.
+     *
+     * @param items  Items to encode (must not be null or contain null)
+     * @param buffer Destination buffer with enough remaining space
+     * @throws BufferOverflowException if the buffer is too small; its position
+     *                                 is then unchanged
+     */
+    public static void encodeBatch(List<? extends WorkItem> items, ByteBuffer buffer) {
+        int start = buffer.position();
+        try {
+            buffer.put(VERSION);
+            putVarint(items.size(), buffer);
+            for (int i = 0; i < items.size(); i++) {
+                encodeBody(items.get(i), buffer);
+            }
+        } catch (BufferOverflowException e) {
+            buffer.position(start);
+            throw e;
+        }
+    }
+
+    /**
+     * Reads an item from the buffer's position.
+     *
+     * @param buffer Source buffer positioned at an encoded item
+     * @return Decoded item
+     * @throws BufferUnderflowException if the buffer holds a truncated item
+     * @throws IllegalArgumentException if the item has an unknown version or
+     *                                  is malformed
+     */
+    public static WorkItem decode(ByteBuffer buffer) {
+        checkVersion(buffer.get());
+        return decodeBody(buffer);
+    }
+
+    /**
+     * Reads a batch from the buffer's position and adds its items, in order,
+     * to a collection.
+     *
+     * @param buffer Source buffer positioned at an encoded batch
+     * @param out    Collection receiving the items
+     * @return Number of items decoded
+     * @throws BufferUnderflowException if the buffer holds a truncated batch
+     * @throws IllegalArgumentException if the batch has an unknown version or
+     *                                  is malformed
+     */
+    public static int decodeBatch(ByteBuffer buffer, Collection<? super WorkItem> out) {
+        checkVersion(buffer.get());
+        int count = getVarint(buffer);
+        if (count < 0) {
+            throw new IllegalArgumentException("Invalid batch size: " + count);
+        }
+        for (int i = 0; i < count; i++) {
+            out.add(decodeBody(buffer));
+        }
+        return count;
+    }
+
+    private static int bodySize(WorkItem item) {
+        String data = item.getData();
+        int dataBytes = data == null ? 0 : utf8Length(data);
+        return varintSize(zigzag(item.getId())) + TIMESTAMP_BYTES + varintSize(dataBytes + 1) + dataBytes;
+    }
+
+    private static void encodeBody(WorkItem item, ByteBuffer buffer) {
+        String data = item.getData();
+        int id = zigzag(item.getId());
+        int length = data == null ? 0 : utf8Length(data);
+        if (buffer.remaining() < varintSize(id) + TIMESTAMP_BYTES + varintSize(length + 1) + length) {
+            throw new BufferOverflowException();
+        }
+
+        if (buffer.hasArray()) {
+            // Heap buffer: write straight into the backing array
+            byte[] array = buffer.array();
+            int index = buffer.arrayOffset() + buffer.position();
+            index = writeVarint(id, array, index);
+            BIG_ENDIAN_LONGS.set(array, index, item.getTimestamp());
+            index += TIMESTAMP_BYTES;
+            if (data == null) {
+                array[index++] = 0;
+            } else {
+                index = writeVarint(length + 1, array, index);
+                index = writeUtf8(data, array, index);
+            }
+            buffer.position(index - buffer.arrayOffset());
+            return;
+        }
+
+        putVarint(id, buffer);
+        putTimestamp(item.getTimestamp(), buffer);
+        if (data == null) {
+            buffer.put((byte) 0);
+        } else {
+            putVarint(length + 1, buffer);
+            putUtf8(data, buffer);
+        }
+    }
+
+    private static WorkItem decodeBody(ByteBuffer buffer) {
+        if (buffer.hasArray()) {
+            return decodeBody(buffer.array(), buffer.arrayOffset(), buffer);
+        }
+
+        int zigzagId = getVarint(buffer);
+        int id = (zigzagId >>> 1) ^ -(zigzagId & 1);
+        long timestamp = buffer.getLong();
+        if (buffer.order() != ByteOrder.BIG_ENDIAN) {
+            timestamp = Long.reverseBytes(timestamp);
+        }
+
+        int length = getVarint(buffer) - 1;
+        if (length < -1) {
+            throw new IllegalArgumentException("Invalid data length: " + length);
+        }
+        String data = null;
+        if (length >= 0) {
+            if (buffer.remaining() < length) {
+                throw new BufferUnderflowException();
+            }
+            data = getUtf8(buffer, length);
+        }
+        return new WorkItem(id, data, timestamp);
+    }
+
+    /**
+     * Heap-buffer variant of {@link #decodeBody(ByteBuffer)}, reading the
+     * backing array directly.
+     */
+    private static WorkItem decodeBody(byte[] array, int offset, ByteBuffer buffer) {
+        int index = offset + buffer.position();
+        int limit = offset + buffer.limit();
+
+        long idAndIndex = readVarint(array, index, limit);
+        int zigzagId = (int) idAndIndex;
+        index = (int) (idAndIndex >>> 32);
+        int id = (zigzagId >>> 1) ^ -(zigzagId & 1);
+        if (limit - index < TIMESTAMP_BYTES) {
+            throw new BufferUnderflowException();
+        }
+        long timestamp = (long) BIG_ENDIAN_LONGS.get(array, index);
+        index += TIMESTAMP_BYTES;
+
+        long lengthAndIndex = readVarint(array, index, limit);
+        int length = (int) lengthAndIndex - 1;
+        index = (int) (lengthAndIndex >>> 32);
+        if (length < -1) {
+            throw new IllegalArgumentException("Invalid data length: " + length);
+        }
+        String data = null;
+        if (length >= 0) {
+            if (limit - index < length) {
+                throw new BufferUnderflowException();
+            }
+            data = new String(array, index, length, StandardCharsets.UTF_8);
+            index += length;
+        }
+        buffer.position(index - offset);
+        return new WorkItem(id, data, timestamp);
+    }
+
+    /**
+     * Reads a varint from an array.
+     *
+     * @return The value in the low 32 bits and the index after it in the high
+     *         32 bits
+     */
+    private static long readVarint(byte[] array, int index, int limit) {
+        int value = 0;
+        for (int shift = 0; shift < 35; shift += 7) {
+            if (index >= limit) {
+                throw new BufferUnderflowException();
+            }
+            byte b = array[index++];
+            value |= (b & 0x7F) << shift;
+            if (b >= 0) {
+                return ((long) index << 32) | (value & 0xFFFFFFFFL);
+            }
+        }
+        throw new IllegalArgumentException("Malformed varint");
+    }
+
+    private static void checkVersion(byte version) {
+        if (version != VERSION) {
+            throw new IllegalArgumentException("Unsupported WorkItem codec version: " + version);
+        }
+    }
+
+    private static void putTimestamp(long timestamp, ByteBuffer buffer) {
+        buffer.putLong(buffer.order() == ByteOrder.BIG_ENDIAN ? timestamp : Long.reverseBytes(timestamp));
+    }
+
+    private static int zigzag(int value) {
+        return (value << 1) ^ (value >> 31);
+    }
+
+    private static int varintSize(int value) {
+        int size = 1;
+        while ((value & ~0x7F) != 0) {
+            value >>>= 7;
+            size++;
+        }
+        return size;
+    }
+
+    private static int writeVarint(int value, byte[] array, int index) {
+        while ((value & ~0x7F) != 0) {
+            array[index++] = (byte) ((value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        array[index++] = (byte) value;
+        return index;
+    }
+
+    private static void putVarint(int value, ByteBuffer buffer) {
+        while ((value & ~0x7F) != 0) {
+            buffer.put((byte) ((value & 0x7F) | 0x80));
+            value >>>= 7;
+        }
+        buffer.put((byte) value);
+    }
+
+    private static int getVarint(ByteBuffer buffer) {
+        int value = 0;
+        for (int shift = 0; shift < 35; shift += 7) {
+            byte b = buffer.get();
+            value |= (b & 0x7F) << shift;
+            if (b >= 0) {
+                return value;
+            }
+        }
+        throw new IllegalArgumentException("Malformed varint");
+    }
+
+    /**
+     * Counts the UTF-8 bytes of a string without encoding it. Unpaired
+     * surrogates count as one byte, as {@link String#getBytes} replaces them
+     * with '?'.
+     */
+    private static int utf8Length(String data) {
+        int length = data.length();
+        int bytes = length;
+        for (int i = 0; i < length; i++) {
+            char c = data.charAt(i);
+            if (c >= 0x80) {
+                if (c < 0x800) {
+                    bytes += 1;
+                } else if (Character.isHighSurrogate(c) && i + 1 < length
+                        && Character.isLowSurrogate(data.charAt(i + 1))) {
+                    // Two chars become four bytes
+                    bytes += 2;
+                    i++;
+                } else if (!Character.isSurrogate(c)) {
+                    bytes += 2;
+                }
+            }
+        }
+        return bytes;
+    }
+
+    /**
+     * Encodes a string as UTF-8 straight into a direct buffer, which must have
+     * room for it.
+     */
+    private static void putUtf8(String data, ByteBuffer buffer) {
+        int position = buffer.position();
+        int n = data.length();
+        for (int i = 0; i < n; i++) {
+            char c = data.charAt(i);
+            if (c < 0x80) {
+                buffer.put(position++, (byte) c);
+            } else if (c < 0x800) {
+                buffer.put(position++, (byte) (0xC0 | (c >> 6)));
+                buffer.put(position++, (byte) (0x80 | (c & 0x3F)));
+            } else if (Character.isHighSurrogate(c) && i + 1 < n && Character.isLowSurrogate(data.charAt(i + 1))) {
+                int codePoint = Character.toCodePoint(c, data.charAt(++i));
+                buffer.put(position++, (byte) (0xF0 | (codePoint >> 18)));
+                buffer.put(position++, (byte) (0x80 | ((codePoint >> 12) & 0x3F)));
+                buffer.put(position++, (byte) (0x80 | ((codePoint >> 6) & 0x3F)));
+                buffer.put(position++, (byte) (0x80 | (codePoint & 0x3F)));
+            } else if (Character.isSurrogate(c)) {
+                buffer.put(position++, (byte) '?');
+            } else {
+                buffer.put(position++, (byte) (0xE0 | (c >> 12)));
+                buffer.put(position++, (byte) (0x80 | ((c >> 6) & 0x3F)));
+                buffer.put(position++, (byte) (0x80 | (c & 0x3F)));
+            }
+        }
+        buffer.position(position);
+    }
+
+    /**
+     * Heap-buffer variant of {@link #putUtf8}, writing into the backing
+     * array.
+     *
+     * @return Array index just past the last byte written
+     */
+    private static int writeUtf8(String data, byte[] array, int index) {
+        int n = data.length();
+        for (int i = 0; i < n; i++) {
+            char c = data.charAt(i);
+            if (c < 0x80) {
+                array[index++] = (byte) c;
+            } else if (c < 0x800) {
+                array[index++] = (byte) (0xC0 | (c >> 6));
+                array[index++] = (byte) (0x80 | (c & 0x3F));
+            } else if (Character.isHighSurrogate(c) && i + 1 < n && Character.isLowSurrogate(data.charAt(i + 1))) {
+                int codePoint = Character.toCodePoint(c, data.charAt(++i));
+                array[index++] = (byte) (0xF0 | (codePoint >> 18));
+                array[index++] = (byte) (0x80 | ((codePoint >> 12) & 0x3F));
+                array[index++] = (byte) (0x80 | ((codePoint >> 6) & 0x3F));
+                array[index++] = (byte) (0x80 | (codePoint & 0x3F));
+            } else if (Character.isSurrogate(c)) {
+                array[index++] = (byte) '?';
+            } else {
+                array[index++] = (byte) (0xE0 | (c >> 12));
+                array[index++] = (byte) (0x80 | ((c >> 6) & 0x3F));
+                array[index++] = (byte) (0x80 | (c & 0x3F));
+            }
+        }
+        return index;
+    }
+
+    /**
+     * Decodes {@code length} UTF-8 bytes at a direct buffer's position through
+     * a per-thread scratch array.
+     */
+    private static String getUtf8(ByteBuffer buffer, int length) {
+        byte[] scratch = SCRATCH.get();
+        if (scratch.length < length) {
+            scratch = new byte[Math.max(length, scratch.length * 2)];
+            SCRATCH.set(scratch);
+        }
+        buffer.get(scratch, 0, length);
+        return new String(scratch, 0, length, StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,36 @@
+package com.producerconsumer;
+
+/**
+ * WorkSink is the producer-facing side of a queue: the operations a
+ * {@link Producer} needs to hand items off and to signal when it is done.
+ *
+ * <p>
+ * Implementations follow the {@link SharedQueue} contract: {@code put} blocks
+ * while there is no room, rejects null items, and the sink closes once every
+ * registered producer has called {@link #producerDone()}.
+ * </p>
+ *
+ * @param <T> Type of items accepted by the sink (must not be null)
+ */
+public interface WorkSink<T> {
+
+    /**
+     * Adds an item, blocking until there is room for it.
+     *
+     * @param item Item to add (must not be null)
+     * @throws InterruptedException if the thread is interrupted while waiting
+     * @throws NullPointerException if item is null
+     */
+    void put(T item) throws InterruptedException;
+
+    /**
+     * Registers a producer so the sink knows when all producers have finished.
+     */
+    void registerProducer();
+
+    /**
+     * Marks a producer as completed. When the last producer finishes, the sink
+     * is closed and blocked consumers are released.
+     */
+    void producerDone();
+}
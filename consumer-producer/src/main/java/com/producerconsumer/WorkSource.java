@@ -0,0 +1,24 @@
+package com.producerconsumer;
+
+/**
+ * WorkSource is the consumer-facing side of a queue: the single operation a
+ * {@link Consumer} needs to pull items.
+ *
+ * <p>
+ * Implementations follow the {@link SharedQueue} contract: {@code get} blocks
+ * while nothing is available and returns null once the source is closed and
+ * drained, so consumers can exit without poison pills.
+ * </p>
+ *
+ * @param <T> Type of items produced by the source
+ */
+public interface WorkSource<T> {
+
+    /**
+     * Retrieves and removes the next item, blocking until one is available.
+     *
+     * @return Next item, or null if the source is closed and drained
+     * @throws InterruptedException if the thread is interrupted while waiting
+     */
+    T get() throws InterruptedException;
+}
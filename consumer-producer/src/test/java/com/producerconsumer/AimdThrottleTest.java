@@ -0,0 +1,158 @@
+package com.producerconsumer;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.Timeout;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * AimdThrottleTest checks SharedQueue watermark signals and the AIMD producer
+ * pacing built on them.
+ */
+public class AimdThrottleTest {
+
+    @Test
+    public void testWatermarkSignalsAlternateWithHysteresis() throws InterruptedException {
+        SharedQueue<Integer> queue = new SharedQueue<>(10);
+        List<String> signals = new ArrayList<>();
+        queue.addWatermarkListener(2, 8, new WatermarkListener() {
+            @Override
+            public void onHighWatermark(int size) {
+                signals.add("high:" + size);
+            }
+
+            @Override
+            public void onLowWatermark(int size) {
+                signals.add("low:" + size);
+            }
+        });
+
+        for (int i = 0; i < 7; i++) {
+            queue.put(i);
+        }
+        assertTrue(signals.isEmpty(), "Below the high watermark nothing should fire");
+        queue.put(7);
+        queue.put(8);
+        queue.get();
+        queue.put(9);
+        assertEquals(List.of("high:8"), signals, "Hovering around the high mark should fire once");
+
+        while (queue.size() > 3) {
+            queue.get();
+        }
+        assertEquals(1, signals.size(), "Between the marks the state should hold");
+        queue.poll();
+        queue.getAsync();
+        queue.putAsync(10);
+        assertEquals(List.of("high:8", "low:2"), signals);
+
+        while (queue.size() < 8) {
+            queue.putAsync(11);
+        }
+        assertEquals(List.of("high:8", "low:2", "high:8"), signals, "Async puts should count too");
+    }
+
+    @Test
+    public void testRemovedListenerIsNotCalled() throws InterruptedException {
+        SharedQueue<Integer> queue = new SharedQueue<>(4);
+        AimdThrottle throttle = new AimdThrottle(100, 10, 1000, 1000, 0.5, 1, TimeUnit.HOURS);
+        queue.addWatermarkListener(1, 2, throttle);
+        queue.removeWatermarkListener(throttle);
+
+        queue.put(1);
+        queue.put(2);
+        assertFalse(throttle.isCongested());
+        assertEquals(0, throttle.getDecreases());
+    }
+
+    @Test
+    public void testRateGrowsWhenUncongestedAndIsCutOnHigh() throws InterruptedException {
+        AimdThrottle throttle = new AimdThrottle(100, 10, 1000, 1000, 0.5, 1, TimeUnit.HOURS);
+        Thread.sleep(50);
+        throttle.acquire();
+        assertTrue(throttle.getRate() > 120, "Rate should grow by about 1000/s per second, was "
+                + throttle.getRate());
+
+        double before = throttle.getRate();
+        throttle.onHighWatermark(8);
+        assertEquals(before / 2, throttle.getRate(), 1, "High watermark should halve the rate");
+        assertTrue(throttle.isCongested());
+
+        Thread.sleep(20);
+        throttle.acquire();
+        assertEquals(before / 2, throttle.getRate(), 1, "Rate should hold while congested");
+
+        throttle.onLowWatermark(2);
+        assertFalse(throttle.isCongested());
+        for (int i = 0; i < 10; i++) {
+            throttle.onHighWatermark(8);
+            throttle.onLowWatermark(2);
+        }
+        assertEquals(10, throttle.getRate(), 0.5, "Rate should not fall below the floor");
+        assertEquals(11, throttle.getDecreases());
+    }
+
+    @Test
+    @Timeout(value = 20, unit = TimeUnit.SECONDS)
+    public void testAdaptiveProducerKeepsQueueBetweenFullAndEmpty() throws InterruptedException {
+        SharedQueue<WorkItem> queue = new SharedQueue<>(100);
+        AimdThrottle throttle = new AimdThrottle(100, 10, 100_000, 1000, 0.8, 200, TimeUnit.MILLISECONDS);
+        queue.addWatermarkListener(30, 60, throttle);
+
+        Container<WorkItem> source = new Container<>();
+        for (int id = 1; id <= 3000; id++) {
+            source.add(new WorkItem(id, "Data-" + id));
+        }
+        Container<WorkItem> destination = new Container<>();
+        Producer producer = new Producer("P1", source, queue, throttle);
+        Consumer consumer = new Consumer("C1", queue, destination, Integer.MAX_VALUE, 1);
+
+        consumer.start();
+        producer.start();
+        // Give the rate time to ramp up from 100/s before judging occupancy
+        Thread.sleep(500);
+        int samples = 0;
+        int full = 0;
+        int empty = 0;
+        while (producer.isAlive()) {
+            int size = queue.size();
+            full += size == queue.getCapacity() ? 1 : 0;
+            empty += size == 0 ? 1 : 0;
+            samples++;
+            Thread.sleep(1);
+        }
+        producer.join();
+        consumer.join();
+
+        assertEquals(3000, destination.size());
+        assertTrue(throttle.getDecreases() > 0, "Rate should have been cut at least once");
+        assertTrue(samples > 0);
+        assertTrue(full < samples / 10, "Queue should rarely be full, but was full in " + full + " of "
+                + samples + " samples");
+        assertTrue(empty < samples / 4, "Queue should rarely run dry, but was empty in " + empty + " of "
+                + samples + " samples");
+    }
+
+    @Test
+    public void testInvalidArguments() {
+        assertThrows(IllegalArgumentException.class, () -> new AimdThrottle(1, 0, 1, 1, 0.5, 1, TimeUnit.SECONDS));
+        assertThrows(IllegalArgumentException.class, () -> new AimdThrottle(1, 2, 1, 1, 0.5, 1, TimeUnit.SECONDS));
+        assertThrows(IllegalArgumentException.class, () -> new AimdThrottle(1, 1, 1, 0, 0.5, 1, TimeUnit.SECONDS));
+        assertThrows(IllegalArgumentException.class, () -> new AimdThrottle(1, 1, 1, 1, 1, 1, TimeUnit.SECONDS));
+        assertThrows(IllegalArgumentException.class, () -> new AimdThrottle(1, 1, 1, 1, 0.5, 0, TimeUnit.SECONDS));
+        assertThrows(NullPointerException.class, () -> new AimdThrottle(1, 1, 1, 1, 0.5, 1, null));
+
+        SharedQueue<Integer> queue = new SharedQueue<>(10);
+        AimdThrottle throttle = new AimdThrottle(1, 1, 1, 1, 0.5, 1, TimeUnit.SECONDS);
+        assertThrows(IllegalArgumentException.class, () -> queue.addWatermarkListener(5, 5, throttle));
+        assertThrows(IllegalArgumentException.class, () -> queue.addWatermarkListener(-1, 5, throttle));
+        assertThrows(IllegalArgumentException.class, () -> queue.addWatermarkListener(1, 11, throttle));
+        assertThrows(NullPointerException.class, () -> queue.addWatermarkListener(1, 5, null));
+        assertThrows(NullPointerException.class,
+                () -> new Producer("P", new Container<>(), new SharedQueue<>(1), (AimdThrottle) null));
+    }
+}
@@ -0,0 +1,299 @@
+package com.producerconsumer;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.Timeout;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BooleanSupplier;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * BatchConsumerTest checks SharedQueue bulk dequeue and the batch flushing
+ * rules of BatchConsumer: by size, by linger time, on close and on interrupt.
+ */
+public class BatchConsumerTest {
+
+    @Test
+    @Timeout(value = 5, unit = TimeUnit.SECONDS)
+    public void testDrainTo() throws InterruptedException {
+        SharedQueue<Integer> queue = new SharedQueue<>(10);
+        queue.registerProducer();
+        List<Integer> out = new ArrayList<>();
+        assertEquals(0, queue.drainTo(out, 5), "Empty open queue should drain nothing");
+
+        for (int i = 0; i < 7; i++) {
+            queue.put(i);
+        }
+        assertEquals(5, queue.drainTo(out, 5));
+        assertEquals(2, queue.drainTo(out, 5, 1, TimeUnit.SECONDS));
+        assertEquals(List.of(0, 1, 2, 3, 4, 5, 6), out);
+        assertEquals(7, queue.getItemsConsumed());
+
+        long start = System.nanoTime();
+        assertEquals(0, queue.drainTo(out, 5, 50, TimeUnit.MILLISECONDS));
+        assertTrue(System.nanoTime() - start >= TimeUnit.MILLISECONDS.toNanos(45), "Should wait for the timeout");
+
+        Thread putter = new Thread(() -> {
+            try {
+                Thread.sleep(50);
+                queue.put(7);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        });
+        putter.start();
+        assertEquals(1, queue.drainTo(out, 5, 10, TimeUnit.SECONDS), "A put should wake a waiting drain");
+        putter.join();
+
+        queue.put(8);
+        queue.producerDone();
+        assertEquals(1, queue.drainTo(out, 5, 10, TimeUnit.SECONDS), "Closed queue should still drain");
+        assertEquals(-1, queue.drainTo(out, 5, 10, TimeUnit.SECONDS), "Closed and drained should return -1");
+        assertEquals(-1, queue.drainTo(out, 5));
+    }
+
+    @Test
+    @Timeout(value = 5, unit = TimeUnit.SECONDS)
+    public void testDrainAdmitsParkedAsyncPuts() throws InterruptedException {
+        SharedQueue<Integer> queue = new SharedQueue<>(2);
+        queue.put(1);
+        queue.put(2);
+        var parked = queue.putAsync(3);
+        assertFalse(parked.isDone());
+
+        List<Integer> out = new ArrayList<>();
+        assertEquals(3, queue.drainTo(out, 10));
+        assertEquals(List.of(1, 2, 3), out);
+        assertTrue(parked.isDone());
+    }
+
+    @Test
+    @Timeout(value = 10, unit = TimeUnit.SECONDS)
+    public void testFullBatchesAreFlushedWithoutLingering() throws InterruptedException {
+        SharedQueue<WorkItem> queue = createQueue(100, 1, 100);
+        RecordingHandler handler = new RecordingHandler();
+        BatchConsumer consumer = new BatchConsumer("B1", queue, handler, 10, TimeUnit.HOURS.toMillis(1));
+
+        consumer.start();
+        // Every batch fills up at once, so an hour-long linger never comes into play
+        waitFor(() -> handler.items() == 100);
+        queue.producerDone();
+        consumer.join();
+
+        assertEquals(10, consumer.getBatchesFlushed());
+        assertEquals(10, consumer.getFullBatches());
+        assertEquals(10.0, consumer.getAverageBatchSize(), 0.001);
+        assertEquals(10, consumer.getLargestBatch());
+        assertEquals(100, consumer.getItemsHandled());
+        assertEquals(ids(1, 100), handler.allIds(), "Batches should preserve queue order");
+    }
+
+    @Test
+    @Timeout(value = 10, unit = TimeUnit.SECONDS)
+    public void testPartialBatchIsFlushedAfterLinger() throws InterruptedException {
+        SharedQueue<WorkItem> queue = createQueue(100, 1, 3);
+        RecordingHandler handler = new RecordingHandler();
+        BatchConsumer consumer = new BatchConsumer("B1", queue, handler, 10, 100);
+
+        long start = System.nanoTime();
+        consumer.start();
+        waitFor(() -> handler.items() == 3);
+        long waited = System.nanoTime() - start;
+        assertTrue(waited >= TimeUnit.MILLISECONDS.toNanos(90), "Batch should linger, flushed after "
+                + waited / 1_000_000 + " ms");
+        assertFalse(queue.isClosed(), "Linger, not close, should have flushed the batch");
+
+        queue.producerDone();
+        consumer.join();
+        assertEquals(1, consumer.getBatchesFlushed());
+        assertEquals(0, consumer.getFullBatches());
+    }
+
+    @Test
+    @Timeout(value = 5, unit = TimeUnit.SECONDS)
+    public void testZeroLingerFlushesWhatIsAvailable() throws InterruptedException {
+        SharedQueue<WorkItem> queue = createQueue(100, 1, 25);
+        RecordingHandler handler = new RecordingHandler();
+        BatchConsumer consumer = new BatchConsumer("B1", queue, handler, 10, 0);
+        queue.producerDone();
+
+        consumer.start();
+        consumer.join();
+        assertEquals(List.of(10, 10, 5), handler.sizes());
+    }
+
+    @Test
+    @Timeout(value = 5, unit = TimeUnit.SECONDS)
+    public void testCloseFlushesPartialBatch() throws InterruptedException {
+        SharedQueue<WorkItem> queue = createQueue(100, 1, 5);
+        RecordingHandler handler = new RecordingHandler();
+        BatchConsumer consumer = new BatchConsumer("B1", queue, handler, 10, TimeUnit.HOURS.toMillis(1));
+
+        consumer.start();
+        Thread.sleep(50);
+        queue.producerDone();
+        consumer.join();
+        assertEquals(List.of(5), handler.sizes());
+    }
+
+    @Test
+    @Timeout(value = 5, unit = TimeUnit.SECONDS)
+    public void testInterruptFlushesPartialBatch() throws InterruptedException {
+        SharedQueue<WorkItem> queue = createQueue(100, 1, 5);
+        RecordingHandler handler = new RecordingHandler();
+        BatchConsumer consumer = new BatchConsumer("B1", queue, handler, 10, TimeUnit.HOURS.toMillis(1));
+
+        consumer.start();
+        waitFor(() -> queue.isEmpty());
+        consumer.interrupt();
+        consumer.join();
+        assertEquals(List.of(5), handler.sizes(), "Items taken from the queue should not be lost");
+        assertEquals(5, consumer.getItemsHandled());
+    }
+
+    @Test
+    @Timeout(value = 5, unit = TimeUnit.SECONDS)
+    public void testInterruptedHandlerIsNotGivenTheBatchAgain() throws InterruptedException {
+        SharedQueue<WorkItem> queue = createQueue(100, 1, 5);
+        List<List<WorkItem>> batches = Collections.synchronizedList(new ArrayList<>());
+        BatchConsumer consumer = new BatchConsumer("B1", queue, batch -> {
+            batches.add(batch);
+            // A blocking storage write that was interrupted
+            throw new InterruptedException("write interrupted");
+        }, 10, 0);
+
+        consumer.start();
+        consumer.join();
+        assertEquals(1, batches.size(), "The batch should be handed over once");
+        assertEquals(ids(1, 5), batches.get(0).stream().map(WorkItem::getId).toList());
+        assertEquals(0, consumer.getBatchesFlushed());
+    }
+
+    @Test
+    @Timeout(value = 5, unit = TimeUnit.SECONDS)
+    public void testFailingHandlerStopsConsumer() throws InterruptedException {
+        SharedQueue<WorkItem> queue = createQueue(100, 1, 30);
+        List<Integer> sizes = Collections.synchronizedList(new ArrayList<>());
+        BatchConsumer consumer = new BatchConsumer("B1", queue, batch -> {
+            sizes.add(batch.size());
+            throw new IOException("Disk full");
+        }, 10, 0);
+
+        consumer.start();
+        consumer.join();
+        assertEquals(List.of(10), sizes);
+        assertEquals(0, consumer.getBatchesFlushed());
+        assertEquals(20, queue.size(), "Remaining items should stay queued");
+    }
+
+    @Test
+    @Timeout(value = 20, unit = TimeUnit.SECONDS)
+    public void testProducersAndBatchConsumersDeliverEveryItemOnce() throws InterruptedException {
+        SharedQueue<WorkItem> queue = new SharedQueue<>(50);
+        RecordingHandler handler = new RecordingHandler();
+        List<Producer> producers = new ArrayList<>();
+        for (int p = 0; p < 3; p++) {
+            producers.add(new Producer("P" + p, createSource(p * 1000 + 1, 1000), queue, 0));
+        }
+        List<BatchConsumer> consumers = new ArrayList<>();
+        for (int c = 0; c < 3; c++) {
+            consumers.add(new BatchConsumer("B" + c, queue, handler, 32, 5));
+        }
+
+        consumers.forEach(Thread::start);
+        producers.forEach(Thread::start);
+        for (Producer producer : producers) {
+            producer.join();
+        }
+        for (BatchConsumer consumer : consumers) {
+            consumer.join();
+        }
+
+        assertEquals(3000, handler.items());
+        assertEquals(new HashSet<>(ids(1, 3000)), new HashSet<>(handler.allIds()), "No item lost or duplicated");
+        long batches = consumers.stream().mapToLong(BatchConsumer::getBatchesFlushed).sum();
+        assertTrue(batches < 3000, "Items should have been batched, but got " + batches + " batches");
+        assertTrue(handler.sizes().stream().allMatch(size -> size >= 1 && size <= 32));
+    }
+
+    @Test
+    public void testInvalidArguments() {
+        SharedQueue<WorkItem> queue = new SharedQueue<>(10);
+        BatchHandler<WorkItem> handler = batch -> {
+        };
+        assertThrows(NullPointerException.class, () -> new BatchConsumer(null, queue, handler, 1, 0));
+        assertThrows(NullPointerException.class, () -> new BatchConsumer("B", null, handler, 1, 0));
+        assertThrows(NullPointerException.class, () -> new BatchConsumer("B", queue, null, 1, 0));
+        assertThrows(IllegalArgumentException.class, () -> new BatchConsumer("B", queue, handler, 0, 0));
+        assertThrows(IllegalArgumentException.class, () -> new BatchConsumer("B", queue, handler, 1, -1));
+
+        assertThrows(NullPointerException.class, () -> queue.drainTo(null, 1));
+        assertThrows(IllegalArgumentException.class, () -> queue.drainTo(new ArrayList<>(), 0));
+        assertThrows(NullPointerException.class, () -> queue.drainTo(new ArrayList<>(), 1, 1, null));
+    }
+
+    /**
+     * Creates a queue with one registered (still open) producer holding items
+     * firstId..firstId+count-1.
+     */
+    private SharedQueue<WorkItem> createQueue(int capacity, int firstId, int count) throws InterruptedException {
+        SharedQueue<WorkItem> queue = new SharedQueue<>(capacity);
+        queue.registerProducer();
+        for (int id = firstId; id < firstId + count; id++) {
+            queue.put(new WorkItem(id, "Data-" + id));
+        }
+        return queue;
+    }
+
+    private Container<WorkItem> createSource(int firstId, int count) {
+        Container<WorkItem> source = new Container<>();
+        for (int id = firstId; id < firstId + count; id++) {
+            source.add(new WorkItem(id, "Data-" + id));
+        }
+        return source;
+    }
+
+    private static List<Integer> ids(int first, int last) {
+        List<Integer> ids = new ArrayList<>();
+        for (int id = first; id <= last; id++) {
+            ids.add(id);
+        }
+        return ids;
+    }
+
+    private static void waitFor(BooleanSupplier condition) throws InterruptedException {
+        while (!condition.getAsBoolean()) {
+            Thread.sleep(1);
+        }
+    }
+
+    /**
+     * Records every batch it is given.
+     */
+    private static final class RecordingHandler implements BatchHandler<WorkItem> {
+        private final List<List<WorkItem>> batches = new ArrayList<>();
+
+        @Override
+        public synchronized void handle(List<WorkItem> batch) {
+            batches.add(batch);
+        }
+
+        synchronized int items() {
+            return batches.stream().mapToInt(List::size).sum();
+        }
+
+        synchronized List<Integer> sizes() {
+            return batches.stream().map(List::size).toList();
+        }
+
+        synchronized List<Integer> allIds() {
+            return batches.stream().flatMap(List::stream).map(WorkItem::getId).toList();
+        }
+    }
+}
@@ -0,0 +1,165 @@
+package com.producerconsumer;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.Timeout;
+
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * BroadcastQueueTest checks that every consumer group sees the full stream, that
+ * producers are gated by the slowest group, and group join/leave behaviour.
+ */
+public class BroadcastQueueTest {
+
+    @Test
+    @Timeout(value = 10, unit = TimeUnit.SECONDS)
+    public void testEveryGroupSeesEveryItem() throws InterruptedException {
+        BroadcastQueue<WorkItem> queue = new BroadcastQueue<>(8);
+        WorkSource<WorkItem> audit = queue.addGroup("audit");
+        WorkSource<WorkItem> processing = queue.addGroup("processing");
+
+        int itemCount = 300;
+        Producer producer = new Producer("P1", createSource(itemCount), queue, 0);
+        Container<WorkItem> auditOut = new Container<>();
+        Container<WorkItem> processingOut = new Container<>();
+        // Two consumers share the processing group, one reads audit
+        Consumer auditor = new Consumer("A1", audit, auditOut, Integer.MAX_VALUE, 0);
+        Consumer worker1 = new Consumer("W1", processing, processingOut, Integer.MAX_VALUE, 0);
+        Consumer worker2 = new Consumer("W2", processing, processingOut, Integer.MAX_VALUE, 0);
+
+        auditor.start();
+        worker1.start();
+        worker2.start();
+        producer.start();
+        producer.join();
+        auditor.join();
+        worker1.join();
+        worker2.join();
+
+        assertEquals(itemCount, auditOut.size(), "Audit group should see every item");
+        assertEquals(itemCount, processingOut.size(), "Processing group should see every item once");
+
+        for (int i = 0; i < itemCount; i++) {
+            assertEquals(i + 1, auditOut.get(i).getId(), "A single-consumer group reads in order");
+        }
+        Set<Integer> ids = new HashSet<>();
+        for (WorkItem item : processingOut.getAll()) {
+            assertTrue(ids.add(item.getId()), "Duplicate item within a group: " + item.getId());
+        }
+        assertSame(auditOut.get(0), findById(processingOut.getAll(), 1),
+                "Groups should share the same item instance, not copies");
+    }
+
+    @Test
+    @Timeout(value = 5, unit = TimeUnit.SECONDS)
+    public void testSlowestGroupGatesProducers() throws InterruptedException {
+        BroadcastQueue<Integer> queue = new BroadcastQueue<>(2);
+        WorkSource<Integer> fast = queue.addGroup("fast");
+        WorkSource<Integer> slow = queue.addGroup("slow");
+
+        queue.put(1);
+        queue.put(2);
+        assertEquals(1, fast.get());
+        assertEquals(2, fast.get());
+        assertEquals(2, queue.size(), "Slots stay held until the slow group reads them");
+
+        Thread producer = new Thread(() -> {
+            try {
+                queue.put(3);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        });
+        producer.start();
+        Thread.sleep(100);
+        assertTrue(producer.isAlive(), "Producer should block on the slowest group");
+        assertEquals(Map.of("fast", 0L, "slow", 2L), queue.getGroupLags());
+
+        assertEquals(1, slow.get());
+        producer.join();
+        assertEquals(3, fast.get());
+        assertEquals(2, slow.get());
+        assertEquals(3, slow.get());
+        assertEquals(0, queue.size());
+    }
+
+    @Test
+    @Timeout(value = 5, unit = TimeUnit.SECONDS)
+    public void testRemovingGroupReleasesProducersAndEndsItsStream() throws InterruptedException {
+        BroadcastQueue<Integer> queue = new BroadcastQueue<>(1);
+        WorkSource<Integer> kept = queue.addGroup("kept");
+        WorkSource<Integer> stalled = queue.addGroup("stalled");
+
+        queue.put(1);
+        assertEquals(1, kept.get());
+        queue.removeGroup("stalled");
+
+        queue.put(2);
+        assertEquals(2, kept.get());
+        assertNull(stalled.get(), "A removed group should see end of stream");
+    }
+
+    @Test
+    public void testLateGroupStartsAtHead() throws InterruptedException {
+        BroadcastQueue<Integer> queue = new BroadcastQueue<>(4);
+        queue.put(1); // no groups: discarded
+        WorkSource<Integer> early = queue.addGroup("early");
+        queue.put(2);
+        WorkSource<Integer> late = queue.addGroup("late");
+        queue.put(3);
+
+        assertEquals(2, early.get());
+        assertEquals(3, early.get());
+        assertEquals(3, late.get(), "A group joining late should only see newer items");
+        assertEquals(3, queue.getItemsProduced());
+    }
+
+    @Test
+    public void testCloseDrainsEachGroup() throws InterruptedException {
+        BroadcastQueue<Integer> queue = new BroadcastQueue<>(4);
+        WorkSource<Integer> a = queue.addGroup("a");
+        WorkSource<Integer> b = queue.addGroup("b");
+        queue.registerProducer();
+        queue.put(1);
+        queue.producerDone();
+
+        assertThrows(IllegalStateException.class, () -> queue.put(2));
+        assertEquals(1, a.get());
+        assertNull(a.get());
+        assertEquals(1, b.get());
+        assertNull(b.get());
+    }
+
+    @Test
+    public void testInvalidArguments() {
+        assertThrows(IllegalArgumentException.class, () -> new BroadcastQueue<Integer>(0));
+        BroadcastQueue<Integer> queue = new BroadcastQueue<>(1);
+        assertThrows(NullPointerException.class, () -> queue.put(null));
+        assertThrows(NullPointerException.class, () -> queue.addGroup(null));
+        queue.addGroup("g");
+        assertThrows(IllegalArgumentException.class, () -> queue.addGroup("g"));
+    }
+
+    private static WorkItem findById(List<WorkItem> items, int id) {
+        for (WorkItem item : items) {
+            if (item.getId() == id) {
+                return item;
+            }
+        }
+        return null;
+    }
+
+    private static Container<WorkItem> createSource(int count) {
+        Container<WorkItem> source = new Container<>();
+        for (int id = 1; id <= count; id++) {
+            source.add(new WorkItem(id, "Data-" + id));
+        }
+        return source;
+    }
+}
@@ -0,0 +1,106 @@
+package com.producerconsumer;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.Timeout;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * ConflatingQueueTest verifies in-place replacement, ordering by first
+ * arrival and that depth is bounded by key cardinality.
+ */
+public class ConflatingQueueTest {
+
+    @Test
+    public void testNewerItemReplacesPendingInPlace() throws InterruptedException {
+        ConflatingQueue<WorkItem> queue = new ConflatingQueue<>(10, WorkItem::getId);
+
+        queue.put(new WorkItem(1, "v1"));
+        queue.put(new WorkItem(2, "v1"));
+        queue.put(new WorkItem(1, "v2"));
+        queue.put(new WorkItem(1, "v3"));
+
+        assertEquals(2, queue.size(), "Only one slot per key");
+        assertEquals(2, queue.getItemsConflated());
+
+        WorkItem first = queue.get();
+        assertEquals(1, first.getId(), "Key 1 keeps its original position");
+        assertEquals("v3", first.getData(), "Consumer sees the latest value");
+        assertEquals("v1", queue.get().getData());
+        assertTrue(queue.isEmpty());
+    }
+
+    @Test
+    @Timeout(value = 2, unit = TimeUnit.SECONDS)
+    public void testUpdateForPendingKeyNeverBlocks() throws InterruptedException {
+        ConflatingQueue<WorkItem> queue = new ConflatingQueue<>(2, WorkItem::getId);
+        queue.put(new WorkItem(1, "a"));
+        queue.put(new WorkItem(2, "a"));
+
+        // Full, but 10k updates to existing keys must not block
+        for (int i = 0; i < 10_000; i++) {
+            queue.put(new WorkItem(i % 2 + 1, "v" + i));
+        }
+        assertEquals(2, queue.size(), "Depth bounded by key cardinality");
+        assertEquals(10_002, queue.getItemsProduced());
+        assertEquals(10_000, queue.getItemsConflated());
+    }
+
+    @Test
+    @Timeout(value = 2, unit = TimeUnit.SECONDS)
+    public void testNewKeyBlocksWhenFull() throws InterruptedException {
+        ConflatingQueue<Integer> queue = new ConflatingQueue<>(1, i -> i);
+        queue.put(1);
+
+        Thread producer = new Thread(() -> {
+            try {
+                queue.put(2);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        });
+        producer.start();
+        Thread.sleep(50);
+        assertTrue(producer.isAlive(), "New key should wait for space");
+
+        assertEquals(1, queue.get());
+        producer.join(1000);
+        assertEquals(2, queue.get());
+    }
+
+    @Test
+    @Timeout(value = 5, unit = TimeUnit.SECONDS)
+    public void testConsumerDrainsLatestValuesAndStops() throws InterruptedException {
+        ConflatingQueue<WorkItem> queue = new ConflatingQueue<>(4, WorkItem::getId);
+        Container<WorkItem> source = new Container<>();
+        for (int version = 0; version < 200; version++) {
+            for (int id = 1; id <= 4; id++) {
+                source.add(new WorkItem(id, "v" + version));
+            }
+        }
+        Container<WorkItem> destination = new Container<>();
+
+        Producer producer = new Producer("P1", source, queue, 0);
+        Consumer consumer = new Consumer("C1", queue, destination, Integer.MAX_VALUE, 1);
+        producer.start();
+        consumer.start();
+        producer.join();
+        consumer.join();
+
+        assertEquals(800, queue.getItemsProduced());
+        assertEquals(destination.size(), queue.getItemsConsumed());
+        assertEquals(800, queue.getItemsConsumed() + queue.getItemsConflated(),
+                "Every item is either consumed or conflated");
+        Map<Integer, String> lastSeen = new HashMap<>();
+        for (WorkItem item : destination.getAll()) {
+            lastSeen.put(item.getId(), item.getData());
+        }
+        for (int id = 1; id <= 4; id++) {
+            assertEquals("v199", lastSeen.get(id), "Final value per key must be delivered");
+        }
+    }
+}
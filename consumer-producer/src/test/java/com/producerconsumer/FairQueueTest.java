@@ -0,0 +1,156 @@
+package com.producerconsumer;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.Timeout;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * FairQueueTest checks deficit round-robin service, capacity shares and closing
+ * for the per-producer fair queue.
+ */
+public class FairQueueTest {
+
+    @Test
+    public void testQuietProducerIsNotStuckBehindFloodingProducer() throws InterruptedException {
+        FairQueue<String> queue = new FairQueue<>(100);
+        WorkSink<String> hot = queue.registerProducer("hot", 1);
+        WorkSink<String> cold = queue.registerProducer("cold", 1);
+
+        for (int i = 0; i < 40; i++) {
+            hot.put("hot-" + i);
+        }
+        cold.put("cold-0");
+        cold.put("cold-1");
+
+        // With equal weights the lanes alternate, so cold items come out within
+        // the first few gets instead of after all 40 hot items
+        int position = 0;
+        int coldSeen = 0;
+        while (coldSeen < 2) {
+            if (queue.get().startsWith("cold")) {
+                coldSeen++;
+            }
+            position++;
+        }
+        assertTrue(position <= 5, "Cold items should be served early, but took " + position + " gets");
+    }
+
+    @Test
+    public void testWeightsSetServiceRatio() throws InterruptedException {
+        FairQueue<String> queue = new FairQueue<>(1000);
+        WorkSink<String> gold = queue.registerProducer("gold", 3);
+        WorkSink<String> bronze = queue.registerProducer("bronze", 1);
+        for (int i = 0; i < 200; i++) {
+            gold.put("gold");
+            bronze.put("bronze");
+        }
+
+        int goldServed = 0;
+        for (int i = 0; i < 200; i++) {
+            if (queue.get().equals("gold")) {
+                goldServed++;
+            }
+        }
+        assertEquals(150, goldServed, "A weight-3 lane should get 3 of every 4 slots while both are backlogged");
+    }
+
+    @Test
+    public void testCostFunctionChargesLargeItemsMore() throws InterruptedException {
+        // Each lane earns 10 credit per round; big items cost 10, small ones 1
+        FairQueue<Integer> queue = new FairQueue<>(1000, 10, item -> item);
+        WorkSink<Integer> big = queue.registerProducer("big", 1);
+        WorkSink<Integer> small = queue.registerProducer("small", 1);
+        for (int i = 0; i < 20; i++) {
+            big.put(10);
+            small.put(1);
+        }
+
+        int smallServed = 0;
+        for (int i = 0; i < 22; i++) {
+            if (queue.get() == 1) {
+                smallServed++;
+            }
+        }
+        assertEquals(20, smallServed, "Ten small items should be served per big item");
+    }
+
+    @Test
+    @Timeout(value = 5, unit = TimeUnit.SECONDS)
+    public void testHotProducerBlocksOnItsShareOnly() throws Exception {
+        FairQueue<Integer> queue = new FairQueue<>(4);
+        WorkSink<Integer> hot = queue.registerProducer("hot", 1);
+        WorkSink<Integer> cold = queue.registerProducer("cold", 1);
+        assertEquals(2, queue.getShare("hot"));
+
+        hot.put(1);
+        hot.put(2);
+        Thread blocked = new Thread(() -> {
+            try {
+                hot.put(3);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        });
+        blocked.start();
+        Thread.sleep(100);
+        assertTrue(blocked.isAlive(), "Hot producer should block once its share is full");
+
+        cold.put(10);
+        cold.put(11);
+        assertEquals(4, queue.size(), "Cold producer should still fit within its own share");
+
+        assertEquals(1, queue.get());
+        blocked.join();
+        assertEquals(2, queue.getLaneSizes().get("hot"), "Freed slot should go to the blocked hot put");
+    }
+
+    @Test
+    @Timeout(value = 10, unit = TimeUnit.SECONDS)
+    public void testProducersAndConsumersDrainAndClose() throws InterruptedException {
+        FairQueue<WorkItem> queue = new FairQueue<>(16);
+        Producer p1 = new Producer("P1", createSource(1, 300), queue.registerProducer("P1", 2), 0);
+        Producer p2 = new Producer("P2", createSource(1001, 100), queue.registerProducer("P2", 1), 0);
+        Container<WorkItem> destination = new Container<>();
+        Consumer c1 = new Consumer("C1", queue, destination, Integer.MAX_VALUE, 0);
+        Consumer c2 = new Consumer("C2", queue, destination, Integer.MAX_VALUE, 0);
+
+        c1.start();
+        c2.start();
+        p1.start();
+        p2.start();
+        p1.join();
+        p2.join();
+        c1.join();
+        c2.join();
+
+        assertEquals(400, destination.size());
+        assertTrue(queue.isClosed());
+        assertTrue(queue.getLaneSizes().isEmpty(), "Finished lanes should be retired");
+        assertThrows(IllegalStateException.class, () -> queue.registerProducer("late", 1));
+    }
+
+    @Test
+    public void testInvalidArguments() {
+        assertThrows(IllegalArgumentException.class, () -> new FairQueue<Integer>(0));
+        assertThrows(IllegalArgumentException.class, () -> new FairQueue<Integer>(1, 0, item -> 1));
+        assertThrows(NullPointerException.class, () -> new FairQueue<Integer>(1, 1, null));
+
+        FairQueue<Integer> queue = new FairQueue<>(4);
+        assertThrows(IllegalArgumentException.class, () -> queue.registerProducer("p", 0));
+        assertThrows(NullPointerException.class, () -> queue.registerProducer(null, 1));
+        queue.registerProducer("p", 1);
+        assertThrows(IllegalArgumentException.class, () -> queue.registerProducer("p", 2));
+        assertThrows(NullPointerException.class, () -> queue.registerProducer("p", 1).put(null));
+    }
+
+    private static Container<WorkItem> createSource(int firstId, int count) {
+        Container<WorkItem> source = new Container<>();
+        for (int id = firstId; id < firstId + count; id++) {
+            source.add(new WorkItem(id, "Data-" + id));
+        }
+        return source;
+    }
+}
@@ -0,0 +1,219 @@
+package com.producerconsumer;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.Timeout;
+
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.ReentrantLock;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * HandoffQueueTest checks direct producer-to-consumer transfer, including the
+ * contended path through the elimination arena.
+ */
+public class HandoffQueueTest {
+
+    @Test
+    @Timeout(value = 5, unit = TimeUnit.SECONDS)
+    public void testPutBlocksUntilConsumerTakesItem() throws Exception {
+        HandoffQueue<Integer> queue = new HandoffQueue<>();
+        AtomicBoolean returned = new AtomicBoolean(false);
+        Thread producer = new Thread(() -> {
+            try {
+                queue.put(7);
+                returned.set(true);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        });
+        producer.start();
+        Thread.sleep(100);
+
+        assertFalse(returned.get(), "Put should not return before a consumer takes the item");
+        assertEquals(1, queue.getWaitingProducers());
+
+        assertEquals(7, queue.get());
+        producer.join();
+        assertTrue(returned.get());
+        assertEquals(1, queue.getItemsTransferred());
+    }
+
+    @Test
+    @Timeout(value = 10, unit = TimeUnit.SECONDS)
+    public void testContendedTransfersNoLossOrDuplication() throws InterruptedException {
+        HandoffQueue<WorkItem> queue = new HandoffQueue<>();
+        int producers = 4;
+        int perProducer = 2000;
+
+        List<Producer> producerThreads = new ArrayList<>();
+        for (int p = 0; p < producers; p++) {
+            Container<WorkItem> source = new Container<>();
+            for (int id = p * perProducer; id < (p + 1) * perProducer; id++) {
+                source.add(new WorkItem(id, null));
+            }
+            producerThreads.add(new Producer("P" + p, source, queue, 0));
+        }
+        Container<WorkItem> destination = new Container<>();
+        List<Consumer> consumerThreads = new ArrayList<>();
+        for (int c = 0; c < 4; c++) {
+            consumerThreads.add(new Consumer("C" + c, queue, destination, Integer.MAX_VALUE, 0));
+        }
+
+        consumerThreads.forEach(Thread::start);
+        producerThreads.forEach(Thread::start);
+        for (Producer producer : producerThreads) {
+            producer.join();
+        }
+        for (Consumer consumer : consumerThreads) {
+            consumer.join();
+        }
+
+        assertEquals(producers * perProducer, destination.size(), "Every item should be handed over");
+        Set<Integer> ids = new HashSet<>();
+        for (WorkItem item : destination.getAll()) {
+            assertTrue(ids.add(item.getId()), "Duplicate item " + item.getId());
+        }
+        assertEquals(producers * perProducer, queue.getItemsTransferred());
+    }
+
+    @Test
+    @Timeout(value = 5, unit = TimeUnit.SECONDS)
+    public void testOfferAndPollNeedAWaitingPartner() throws Exception {
+        HandoffQueue<Integer> queue = new HandoffQueue<>();
+        assertFalse(queue.offer(1), "Offer without a waiting consumer should fail");
+        assertNull(queue.poll(), "Poll without a waiting producer should return null");
+
+        Integer[] received = new Integer[1];
+        Thread consumer = new Thread(() -> {
+            try {
+                received[0] = queue.get();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        });
+        consumer.start();
+        while (queue.getWaitingConsumers() == 0) {
+            Thread.sleep(5);
+        }
+
+        assertTrue(queue.offer(2));
+        consumer.join();
+        assertEquals(2, received[0]);
+    }
+
+    @Test
+    @Timeout(value = 5, unit = TimeUnit.SECONDS)
+    public void testInterruptedProducerWithdrawsItem() throws Exception {
+        HandoffQueue<Integer> queue = new HandoffQueue<>();
+        AtomicBoolean interrupted = new AtomicBoolean(false);
+        Thread producer = new Thread(() -> {
+            try {
+                queue.put(1);
+            } catch (InterruptedException e) {
+                interrupted.set(true);
+            }
+        });
+        producer.start();
+        while (queue.getWaitingProducers() == 0) {
+            Thread.sleep(5);
+        }
+
+        producer.interrupt();
+        producer.join();
+        assertTrue(interrupted.get(), "Interrupted put should throw");
+        assertEquals(0, queue.getWaitingProducers(), "Withdrawn item should not be handed out");
+        assertNull(queue.poll());
+    }
+
+    @Test
+    @Timeout(value = 5, unit = TimeUnit.SECONDS)
+    public void testInterruptAfterPartnerTookNodeKeepsTransfer() throws Exception {
+        HandoffQueue<Integer> queue = new HandoffQueue<>();
+        queue.registerProducer();
+        Object[] received = { "unset" };
+        AtomicBoolean interruptKept = new AtomicBoolean(false);
+        Thread consumer = new Thread(() -> {
+            try {
+                received[0] = queue.get();
+            } catch (InterruptedException e) {
+                received[0] = e;
+            }
+            interruptKept.set(Thread.currentThread().isInterrupted());
+        });
+        consumer.start();
+        while (queue.getWaitingConsumers() == 0) {
+            Thread.sleep(5);
+        }
+
+        // Act as a producer that has polled the consumer's node off the dual
+        // queue but not completed it yet, and interrupt the consumer meanwhile
+        Object node = pollWaiter(queue);
+        consumer.interrupt();
+        Thread.sleep(100);
+        assertTrue(consumer.isAlive(), "A consumer already taken by a partner should wait for the item");
+
+        completeNode(node, 5);
+        consumer.join();
+        assertEquals(5, received[0], "The handed over item should not be lost");
+        assertTrue(interruptKept.get(), "The interrupt status should be kept");
+    }
+
+    @Test
+    @Timeout(value = 5, unit = TimeUnit.SECONDS)
+    public void testCloseReleasesWaitingConsumers() throws Exception {
+        HandoffQueue<Integer> queue = new HandoffQueue<>();
+        queue.registerProducer();
+        Object[] received = { "unset" };
+        Thread consumer = new Thread(() -> {
+            try {
+                received[0] = queue.get();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        });
+        consumer.start();
+        while (queue.getWaitingConsumers() == 0) {
+            Thread.sleep(5);
+        }
+
+        queue.producerDone();
+        consumer.join();
+        assertNull(received[0], "Waiting consumer should see end of stream");
+        assertNull(queue.get(), "Closed queue with no producers should return null");
+        assertThrows(IllegalStateException.class, () -> queue.put(1));
+        assertThrows(NullPointerException.class, () -> new HandoffQueue<Integer>().put(null));
+    }
+
+    /**
+     * Takes the head waiter off the dual queue the way a matching partner
+     * does, without completing it.
+     */
+    private static Object pollWaiter(HandoffQueue<?> queue) throws ReflectiveOperationException {
+        Field lockField = HandoffQueue.class.getDeclaredField("lock");
+        Field waitersField = HandoffQueue.class.getDeclaredField("waiters");
+        lockField.setAccessible(true);
+        waitersField.setAccessible(true);
+        ReentrantLock lock = (ReentrantLock) lockField.get(queue);
+        lock.lock();
+        try {
+            return ((ArrayDeque<?>) waitersField.get(queue)).poll();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private static void completeNode(Object node, Object item) throws ReflectiveOperationException {
+        Method complete = node.getClass().getDeclaredMethod("complete", Object.class);
+        complete.setAccessible(true);
+        complete.invoke(node, item);
+    }
+}
@@ -0,0 +1,175 @@
+package com.producerconsumer;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.Timeout;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * MappedRingQueueTest uses two independent mappings of the same ring file to
+ * stand in for two processes.
+ */
+public class MappedRingQueueTest {
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    @Timeout(value = 10, unit = TimeUnit.SECONDS)
+    public void testSingleProducerPreservesOrderAcrossMappings() throws Exception {
+        Path file = tempDir.resolve("spsc.ring");
+        try (MappedRingQueue producerSide = MappedRingQueue.create(file, 8, 64);
+                MappedRingQueue consumerSide = MappedRingQueue.open(file)) {
+
+            producerSide.registerProducer();
+            Thread producer = new Thread(() -> {
+                try {
+                    for (int id = 1; id <= 1000; id++) {
+                        producerSide.put(new WorkItem(id, "Data-" + id));
+                    }
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                } finally {
+                    producerSide.producerDone();
+                }
+            });
+            producer.start();
+
+            int expected = 1;
+            WorkItem item;
+            while ((item = consumerSide.get()) != null) {
+                assertEquals(expected, item.getId(), "Items should arrive in publish order");
+                assertEquals("Data-" + expected, item.getData());
+                expected++;
+            }
+            producer.join();
+
+            assertEquals(1001, expected, "Every item should arrive");
+            assertTrue(consumerSide.isClosed(), "Close should be visible through the other mapping");
+        }
+    }
+
+    @Test
+    @Timeout(value = 10, unit = TimeUnit.SECONDS)
+    public void testMultipleProducersNoLossOrDuplication() throws Exception {
+        Path file = tempDir.resolve("mpsc.ring");
+        int producers = 4;
+        int perProducer = 2000;
+        try (MappedRingQueue consumerSide = MappedRingQueue.create(file, 16, 64)) {
+            List<MappedRingQueue> mappings = new ArrayList<>();
+            List<Thread> threads = new ArrayList<>();
+            for (int p = 0; p < producers; p++) {
+                MappedRingQueue mapping = MappedRingQueue.open(file);
+                mapping.registerProducer();
+                mappings.add(mapping);
+                int firstId = p * perProducer;
+                threads.add(new Thread(() -> {
+                    try {
+                        for (int id = firstId; id < firstId + perProducer; id++) {
+                            mapping.put(new WorkItem(id, null));
+                        }
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    } finally {
+                        mapping.producerDone();
+                    }
+                }));
+            }
+            threads.forEach(Thread::start);
+
+            Set<Integer> ids = new HashSet<>();
+            WorkItem item;
+            while ((item = consumerSide.get()) != null) {
+                assertTrue(ids.add(item.getId()), "Duplicate item " + item.getId());
+                assertNull(item.getData(), "Null payload should round-trip");
+            }
+            for (Thread thread : threads) {
+                thread.join();
+            }
+            for (MappedRingQueue mapping : mappings) {
+                mapping.close();
+            }
+
+            assertEquals(producers * perProducer, ids.size(), "Every item should arrive exactly once");
+            assertTrue(consumerSide.isEmpty());
+        }
+    }
+
+    @Test
+    @Timeout(value = 5, unit = TimeUnit.SECONDS)
+    public void testFullRingBlocksProducer() throws Exception {
+        Path file = tempDir.resolve("full.ring");
+        try (MappedRingQueue ring = MappedRingQueue.create(file, 2, 64)) {
+            ring.registerProducer();
+            ring.put(new WorkItem(1, "a"));
+            ring.put(new WorkItem(2, "b"));
+            assertEquals(2, ring.size());
+
+            Thread producer = new Thread(() -> {
+                try {
+                    ring.put(new WorkItem(3, "c"));
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            });
+            producer.start();
+            Thread.sleep(100);
+            assertTrue(producer.isAlive(), "Producer should wait while the ring is full");
+
+            assertEquals(1, ring.poll().getId());
+            producer.join();
+            assertEquals(2, ring.poll().getId());
+            assertEquals(3, ring.poll().getId());
+            assertNull(ring.poll(), "Poll should not wait on an empty ring");
+        }
+    }
+
+    @Test
+    public void testClosedRingRejectsPutsAndEndsStream() throws Exception {
+        Path file = tempDir.resolve("closed.ring");
+        try (MappedRingQueue ring = MappedRingQueue.create(file, 4, 64)) {
+            ring.registerProducer();
+            ring.put(new WorkItem(1, "last"));
+            ring.producerDone();
+
+            assertThrows(IllegalStateException.class, () -> ring.put(new WorkItem(2, "late")));
+            assertThrows(IllegalStateException.class, ring::registerProducer);
+            assertEquals(1, ring.get().getId(), "Items put before close should still drain");
+            assertNull(ring.get(), "Closed and drained ring should return null");
+        }
+    }
+
+    @Test
+    public void testOversizeItemRejected() throws Exception {
+        try (MappedRingQueue ring = MappedRingQueue.create(tempDir.resolve("small.ring"), 4, 32)) {
+            assertEquals(20, ring.getMaxItemBytes());
+            ring.put(new WorkItem(1, "123456789"));
+            assertThrows(IllegalArgumentException.class, () -> ring.put(new WorkItem(2, "1234567890")));
+            assertEquals(1, ring.size(), "Rejected item should not claim a slot");
+        }
+    }
+
+    @Test
+    public void testInvalidArguments() throws IOException {
+        Path file = tempDir.resolve("invalid.ring");
+        assertThrows(IllegalArgumentException.class, () -> MappedRingQueue.create(file, 3, 64));
+        assertThrows(IllegalArgumentException.class, () -> MappedRingQueue.create(file, 1, 64));
+        assertThrows(IllegalArgumentException.class, () -> MappedRingQueue.create(file, 4, 36));
+        assertThrows(IllegalArgumentException.class, () -> MappedRingQueue.create(file, 4, 24));
+        assertThrows(NullPointerException.class, () -> MappedRingQueue.create(null, 4, 64));
+
+        Path notRing = tempDir.resolve("not.ring");
+        Files.write(notRing, new byte[512]);
+        assertThrows(IOException.class, () -> MappedRingQueue.open(notRing));
+    }
+}
@@ -0,0 +1,137 @@
+package com.producerconsumer;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.Timeout;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * OverflowPolicyTest covers SharedQueue's load-shedding policies and
+ * time-to-live expiry, including their drop counters.
+ */
+public class OverflowPolicyTest {
+
+    @Test
+    @Timeout(value = 5, unit = TimeUnit.SECONDS)
+    public void testRejectThrowsWhenFull() throws InterruptedException {
+        SharedQueue<Integer> queue = new SharedQueue<>(2, OverflowPolicy.REJECT);
+        queue.put(1);
+        queue.put(2);
+
+        assertThrows(IllegalStateException.class, () -> queue.put(3), "Full queue should reject");
+        assertEquals(1, queue.getItemsRejected());
+        assertEquals(2, queue.size());
+
+        CompletableFuture<Void> future = queue.putAsync(4);
+        ExecutionException e = assertThrows(ExecutionException.class, future::get);
+        assertInstanceOf(IllegalStateException.class, e.getCause());
+        assertEquals(2, queue.getItemsRejected());
+        assertEquals(0, queue.getPendingAsyncPuts(), "Shedding policies never park puts");
+    }
+
+    @Test
+    @Timeout(value = 5, unit = TimeUnit.SECONDS)
+    public void testDropNewestKeepsQueuedItems() throws Exception {
+        SharedQueue<Integer> queue = new SharedQueue<>(2, OverflowPolicy.DROP_NEWEST);
+        for (int i = 1; i <= 5; i++) {
+            queue.put(i);
+        }
+        queue.putAsync(6).get();
+
+        assertEquals(4, queue.getItemsDropped());
+        assertEquals(1, queue.get());
+        assertEquals(2, queue.get());
+        assertTrue(queue.isEmpty());
+        assertEquals(2, queue.getItemsProduced(), "Dropped items were never produced into the queue");
+    }
+
+    @Test
+    @Timeout(value = 5, unit = TimeUnit.SECONDS)
+    public void testDropOldestKeepsNewestItems() throws InterruptedException {
+        SharedQueue<Integer> queue = new SharedQueue<>(2, OverflowPolicy.DROP_OLDEST);
+        for (int i = 1; i <= 5; i++) {
+            queue.put(i);
+        }
+
+        assertEquals(3, queue.getItemsEvicted());
+        assertEquals(2, queue.getItemsInTransit(), "Evicted items are no longer in transit");
+        assertEquals(4, queue.get());
+        assertEquals(5, queue.get());
+        assertEquals(0, queue.getItemsInTransit());
+    }
+
+    @Test
+    @Timeout(value = 5, unit = TimeUnit.SECONDS)
+    public void testSheddingProducersNeverBlock() throws InterruptedException {
+        SharedQueue<WorkItem> queue = new SharedQueue<>(1, OverflowPolicy.DROP_NEWEST);
+        Container<WorkItem> source = new Container<>();
+        for (int id = 1; id <= 1000; id++) {
+            source.add(new WorkItem(id, "Data-" + id));
+        }
+
+        // No consumer at all: a blocking queue would hang this producer forever
+        Producer producer = new Producer("P1", source, queue, 0);
+        producer.start();
+        producer.join();
+
+        assertEquals(1, queue.size());
+        assertEquals(999, queue.getItemsDropped());
+        assertTrue(queue.isClosed());
+    }
+
+    @Test
+    @Timeout(value = 5, unit = TimeUnit.SECONDS)
+    public void testExpiredItemsSkippedAtDequeue() throws Exception {
+        SharedQueue<Integer> queue = new SharedQueue<>(4, OverflowPolicy.BLOCK, 50, TimeUnit.MILLISECONDS);
+        queue.put(1);
+        queue.put(2);
+        Thread.sleep(100);
+        queue.put(3);
+
+        assertEquals(3, queue.get(), "Stale items should be discarded, not delivered");
+        assertEquals(2, queue.getItemsExpired());
+        assertEquals(0, queue.getItemsInTransit());
+
+        queue.put(4);
+        Thread.sleep(100);
+        assertNull(queue.poll(), "Poll should not return an expired item");
+        assertEquals(3, queue.getItemsExpired());
+
+        queue.put(5);
+        Thread.sleep(100);
+        CompletableFuture<Integer> future = queue.getAsync();
+        assertFalse(future.isDone(), "Async get should wait past an expired item");
+        queue.put(6);
+        assertEquals(6, future.get(1, TimeUnit.SECONDS));
+    }
+
+    @Test
+    @Timeout(value = 5, unit = TimeUnit.SECONDS)
+    public void testExpiryFreesSlotsForParkedPuts() throws Exception {
+        SharedQueue<Integer> queue = new SharedQueue<>(2, OverflowPolicy.BLOCK, 50, TimeUnit.MILLISECONDS);
+        queue.put(1);
+        queue.put(2);
+        CompletableFuture<Void> parked = queue.putAsync(3);
+        assertFalse(parked.isDone());
+        Thread.sleep(100);
+
+        // Both queued items expired, so the parked put is admitted and delivered
+        assertEquals(3, queue.get());
+        assertTrue(parked.isDone());
+        assertEquals(2, queue.getItemsExpired());
+    }
+
+    @Test
+    public void testInvalidArguments() {
+        assertThrows(NullPointerException.class, () -> new SharedQueue<Integer>(1, null));
+        assertThrows(NullPointerException.class,
+                () -> new SharedQueue<Integer>(1, OverflowPolicy.BLOCK, 1, null));
+        assertThrows(IllegalArgumentException.class,
+                () -> new SharedQueue<Integer>(1, OverflowPolicy.BLOCK, -1, TimeUnit.SECONDS));
+        assertEquals(OverflowPolicy.BLOCK, new SharedQueue<Integer>(1).getOverflowPolicy());
+    }
+}
@@ -0,0 +1,139 @@
+package com.producerconsumer;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.Timeout;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * PartitionedQueueTest verifies per-key ordering, partition ownership and
+ * rebalancing, and the skew metrics of PartitionedQueue.
+ */
+public class PartitionedQueueTest {
+
+    @Test
+    public void testSameKeyAlwaysSamePartition() {
+        PartitionedQueue<WorkItem> queue = new PartitionedQueue<>(4, 10, item -> item.getId() % 7);
+
+        WorkItem a = new WorkItem(3, "a");
+        WorkItem b = new WorkItem(10, "b");
+        assertEquals(queue.partitionFor(a), queue.partitionFor(b), "Same key should map to same partition");
+    }
+
+    @Test
+    public void testRebalanceOnAddConsumer() throws InterruptedException {
+        PartitionedQueue<Integer> queue = new PartitionedQueue<>(4, 10, i -> i);
+
+        WorkSource<Integer> c1 = queue.addConsumer("C1");
+        assertEquals(List.of(0, 1, 2, 3), queue.getAssignment().get("C1"), "Sole consumer owns everything");
+
+        WorkSource<Integer> c2 = queue.addConsumer("C2");
+        // C1 has nothing in flight but has not called back yet, so partitions stay
+        // pending
+        assertEquals(List.of(0, 1, 2, 3), queue.getAssignment().get("C1"));
+
+        queue.put(1);
+        queue.put(3);
+        queue.registerProducer();
+        queue.producerDone();
+
+        // C1 calling back releases partitions 1 and 3 to C2
+        assertNull(c1.get(), "C1 no longer owns the partitions with items");
+        assertEquals(List.of(0, 2), queue.getAssignment().get("C1"));
+        assertEquals(List.of(1, 3), queue.getAssignment().get("C2"));
+        assertEquals(1, c2.get());
+        assertEquals(3, c2.get());
+        assertNull(c2.get(), "Closed and drained");
+    }
+
+    @Test
+    @Timeout(value = 5, unit = TimeUnit.SECONDS)
+    public void testPerKeyOrderingWithParallelConsumers() throws InterruptedException {
+        int keys = 16;
+        int itemsPerKey = 50;
+        PartitionedQueue<WorkItem> queue = new PartitionedQueue<>(8, 4,
+                item -> Integer.parseInt(item.getData().split(":")[0]));
+        Container<WorkItem> source = new Container<>();
+        for (int seq = 0; seq < itemsPerKey; seq++) {
+            for (int key = 0; key < keys; key++) {
+                source.add(new WorkItem(seq, key + ":" + seq));
+            }
+        }
+
+        Container<WorkItem>[] destinations = newContainers(3);
+        Consumer[] consumers = new Consumer[3];
+        for (int i = 0; i < consumers.length; i++) {
+            consumers[i] = new Consumer("C" + i, queue.addConsumer("C" + i), destinations[i],
+                    keys * itemsPerKey, 0);
+        }
+        Producer producer = new Producer("P1", source, queue, 0);
+
+        producer.start();
+        for (Consumer c : consumers)
+            c.start();
+        producer.join();
+        for (Consumer c : consumers)
+            c.join();
+
+        int total = 0;
+        Map<Integer, Integer> lastSeqByKey = new HashMap<>();
+        Map<Integer, Integer> ownerByKey = new HashMap<>();
+        for (int i = 0; i < destinations.length; i++) {
+            int consumerIndex = i;
+            for (WorkItem item : destinations[i].getAll()) {
+                int key = Integer.parseInt(item.getData().split(":")[0]);
+                int previous = lastSeqByKey.getOrDefault(key, -1);
+                assertTrue(item.getId() > previous, "Items for key " + key + " must stay in order");
+                lastSeqByKey.put(key, item.getId());
+                assertEquals(i, ownerByKey.computeIfAbsent(key, k -> consumerIndex).intValue(),
+                        "A key must be consumed by exactly one consumer");
+                total++;
+            }
+        }
+        assertEquals(keys * itemsPerKey, total, "All items should be delivered");
+        assertEquals(0, queue.size());
+    }
+
+    @Test
+    public void testSkewMetrics() throws InterruptedException {
+        PartitionedQueue<Integer> queue = new PartitionedQueue<>(4, 100, i -> i);
+        assertEquals(0.0, queue.getSkewRatio(), "No items yet");
+
+        for (int i = 0; i < 8; i++) {
+            queue.put(i);
+        }
+        assertEquals(1.0, queue.getSkewRatio(), 1e-9, "Evenly spread keys");
+
+        for (int i = 0; i < 8; i++) {
+            queue.put(0);
+        }
+        assertArrayEquals(new long[] { 10, 2, 2, 2 }, queue.getPartitionItemCounts());
+        assertArrayEquals(new int[] { 10, 2, 2, 2 }, queue.getPartitionSizes());
+        assertEquals(2.5, queue.getSkewRatio(), 1e-9, "Hot partition holds 10 of 16 items");
+    }
+
+    @Test
+    public void testInvalidArguments() {
+        assertThrows(IllegalArgumentException.class, () -> new PartitionedQueue<Integer>(0, 1, i -> i));
+        assertThrows(IllegalArgumentException.class, () -> new PartitionedQueue<Integer>(1, 0, i -> i));
+        assertThrows(NullPointerException.class, () -> new PartitionedQueue<Integer>(1, 1, null));
+
+        PartitionedQueue<Integer> queue = new PartitionedQueue<>(2, 2, i -> i);
+        queue.addConsumer("C1");
+        assertThrows(IllegalArgumentException.class, () -> queue.addConsumer("C1"));
+    }
+
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private static Container<WorkItem>[] newContainers(int n) {
+        Container<WorkItem>[] containers = new Container[n];
+        for (int i = 0; i < n; i++) {
+            containers[i] = new Container<>();
+        }
+        return containers;
+    }
+}
@@ -0,0 +1,86 @@
+package com.producerconsumer;
+
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.Timeout;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * QueueEventsTest records a short producer/consumer run with Java Flight
+ * Recorder and checks the custom events that come out of it.
+ */
+public class QueueEventsTest {
+
+    @Test
+    @Timeout(value = 10, unit = TimeUnit.SECONDS)
+    public void testBlockingAndLifecycleEventsRecorded() throws Exception {
+        List<RecordedEvent> events;
+        try (Recording recording = new Recording()) {
+            recording.enable("com.producerconsumer.QueueBlocked").withThreshold(Duration.ofMillis(5));
+            recording.enable("com.producerconsumer.WorkerLifecycle");
+            recording.enable("com.producerconsumer.QueueClosed");
+            recording.start();
+
+            // Slow consumer against a capacity-1 queue forces the producer to block
+            SharedQueue<WorkItem> queue = new SharedQueue<>(1);
+            Container<WorkItem> source = new Container<>();
+            for (int i = 1; i <= 3; i++) {
+                source.add(new WorkItem(i, "Data-" + i));
+            }
+            Producer producer = new Producer("P-jfr", source, queue, 0);
+            Consumer consumer = new Consumer("C-jfr", queue, new Container<>(), 3, 30);
+            producer.start();
+            consumer.start();
+            producer.join();
+            consumer.join();
+
+            recording.stop();
+            events = readEvents(recording);
+        }
+
+        List<RecordedEvent> blocked = byName(events, "com.producerconsumer.QueueBlocked");
+        assertFalse(blocked.isEmpty(), "Producer should have blocked on a full queue");
+        RecordedEvent put = blocked.stream()
+                .filter(e -> "put".equals(e.getString("operation")))
+                .findFirst().orElseThrow();
+        assertEquals("P-jfr", put.getThread().getJavaName());
+        assertEquals(1, put.getInt("capacity"));
+        assertTrue(put.getDuration().toMillis() >= 5, "Only waits above the threshold are recorded");
+
+        List<String> phases = byName(events, "com.producerconsumer.WorkerLifecycle").stream()
+                .filter(e -> "P-jfr".equals(e.getString("worker")) || "C-jfr".equals(e.getString("worker")))
+                .map(e -> e.getString("worker") + ":" + e.getString("phase"))
+                .collect(Collectors.toList());
+        assertTrue(phases.containsAll(List.of("P-jfr:START", "P-jfr:FINISH", "C-jfr:START", "C-jfr:FINISH")),
+                "Lifecycle events missing: " + phases);
+
+        assertFalse(byName(events, "com.producerconsumer.QueueClosed").isEmpty(), "Close should be recorded");
+    }
+
+    private static List<RecordedEvent> readEvents(Recording recording) throws IOException {
+        Path file = Files.createTempFile("queue-events", ".jfr");
+        try {
+            recording.dump(file);
+            return RecordingFile.readAllEvents(file);
+        } finally {
+            Files.deleteIfExists(file);
+        }
+    }
+
+    private static List<RecordedEvent> byName(List<RecordedEvent> events, String name) {
+        return events.stream()
+                .filter(e -> e.getEventType().getName().equals(name))
+                .collect(Collectors.toList());
+    }
+}
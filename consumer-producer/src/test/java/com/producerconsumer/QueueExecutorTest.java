@@ -0,0 +1,157 @@
+package com.producerconsumer;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.Timeout;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * QueueExecutorTest runs tasks through QueueExecutor over several queue types
+ * and checks pool growth, keep-alive, rejection and shutdown.
+ */
+public class QueueExecutorTest {
+
+    @Test
+    @Timeout(value = 10, unit = TimeUnit.SECONDS)
+    public void testRunsTasksOverDifferentQueues() throws Exception {
+        List<QueueExecutor> executors = List.of(
+                new QueueExecutor(new SharedQueue<Runnable>(16), 4),
+                new QueueExecutor(new ShardedQueue<Runnable>(4, 8), 4),
+                new QueueExecutor(new HandoffQueue<Runnable>(), 4));
+
+        for (QueueExecutor executor : executors) {
+            List<Callable<Integer>> tasks = new ArrayList<>();
+            for (int i = 0; i < 200; i++) {
+                int value = i;
+                tasks.add(() -> value * 2);
+            }
+
+            List<Future<Integer>> results = executor.invokeAll(tasks);
+            for (int i = 0; i < results.size(); i++) {
+                assertEquals(i * 2, results.get(i).get(), "Task result should come back through its future");
+            }
+            executor.shutdown();
+            assertTrue(executor.awaitTermination(5, TimeUnit.SECONDS), executor + " should terminate");
+            assertEquals(200, executor.getCompletedTaskCount());
+        }
+    }
+
+    @Test
+    @Timeout(value = 10, unit = TimeUnit.SECONDS)
+    public void testGrowsPastCoreWhenBacklogFullAndRetiresWhenIdle() throws Exception {
+        QueueExecutor executor = new QueueExecutor(new SharedQueue<Runnable>(2), 1, 3, 50, TimeUnit.MILLISECONDS, 2,
+                QueueExecutor.RejectionPolicy.ABORT);
+        CountDownLatch release = new CountDownLatch(1);
+        Runnable blocker = () -> {
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        };
+
+        // 1 core worker busy + 2 queued fills the backlog; the next two start extra workers
+        for (int i = 0; i < 5; i++) {
+            executor.execute(blocker);
+        }
+        assertEquals(3, executor.getPoolSize(), "Pool should grow to its maximum once the backlog is full");
+        assertThrows(RejectedExecutionException.class, () -> executor.execute(blocker));
+        assertEquals(1, executor.getRejectedTaskCount());
+
+        release.countDown();
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (executor.getPoolSize() > 1 && System.nanoTime() < deadline) {
+            Thread.sleep(20);
+        }
+        assertEquals(1, executor.getPoolSize(), "Idle workers above the core size should retire");
+        assertEquals(3, executor.getLargestPoolSize());
+        assertEquals(5, executor.getCompletedTaskCount());
+        executor.shutdown();
+        assertTrue(executor.awaitTermination(5, TimeUnit.SECONDS));
+    }
+
+    @Test
+    @Timeout(value = 5, unit = TimeUnit.SECONDS)
+    public void testCallerRunsWhenSaturated() throws Exception {
+        QueueExecutor executor = new QueueExecutor(new SharedQueue<Runnable>(1), 1, 1, 0, TimeUnit.MILLISECONDS, 1,
+                QueueExecutor.RejectionPolicy.CALLER_RUNS);
+        CountDownLatch release = new CountDownLatch(1);
+        executor.execute(() -> {
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        });
+        executor.execute(() -> { });
+
+        Thread[] ranOn = new Thread[1];
+        executor.execute(() -> ranOn[0] = Thread.currentThread());
+        assertSame(Thread.currentThread(), ranOn[0], "Saturated executor should run the task on the caller");
+
+        release.countDown();
+        executor.shutdown();
+        assertTrue(executor.awaitTermination(5, TimeUnit.SECONDS));
+    }
+
+    @Test
+    @Timeout(value = 5, unit = TimeUnit.SECONDS)
+    public void testShutdownRunsQueuedTasksAndRejectsNewOnes() throws Exception {
+        QueueExecutor executor = new QueueExecutor(new SharedQueue<Runnable>(16), 1);
+        AtomicInteger ran = new AtomicInteger();
+        for (int i = 0; i < 10; i++) {
+            executor.execute(ran::incrementAndGet);
+        }
+        executor.shutdown();
+
+        assertThrows(RejectedExecutionException.class, () -> executor.execute(ran::incrementAndGet));
+        assertTrue(executor.awaitTermination(5, TimeUnit.SECONDS));
+        assertEquals(10, ran.get(), "Tasks queued before shutdown should still run");
+        assertTrue(executor.isTerminated());
+    }
+
+    @Test
+    @Timeout(value = 5, unit = TimeUnit.SECONDS)
+    public void testShutdownNowReturnsUnstartedTasks() throws Exception {
+        QueueExecutor executor = new QueueExecutor(new SharedQueue<Runnable>(16), 1);
+        CountDownLatch started = new CountDownLatch(1);
+        executor.execute(() -> {
+            started.countDown();
+            try {
+                Thread.sleep(10_000);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        });
+        started.await();
+        for (int i = 0; i < 3; i++) {
+            executor.execute(() -> { });
+        }
+
+        List<Runnable> unstarted = executor.shutdownNow();
+        assertEquals(3, unstarted.size(), "Queued tasks should be handed back");
+        assertTrue(executor.awaitTermination(5, TimeUnit.SECONDS), "Running task should be interrupted");
+    }
+
+    @Test
+    public void testInvalidArguments() {
+        SharedQueue<Runnable> queue = new SharedQueue<>(1);
+        assertThrows(IllegalArgumentException.class, () -> new QueueExecutor(queue, 0));
+        assertThrows(IllegalArgumentException.class, () -> new QueueExecutor(queue, 2, 1, 0, TimeUnit.SECONDS, 1,
+                QueueExecutor.RejectionPolicy.ABORT));
+        assertThrows(IllegalArgumentException.class, () -> new QueueExecutor(queue, 1, 1, -1, TimeUnit.SECONDS, 1,
+                QueueExecutor.RejectionPolicy.ABORT));
+        assertThrows(IllegalArgumentException.class, () -> new QueueExecutor(queue, 1, 1, 0, TimeUnit.SECONDS, 0,
+                QueueExecutor.RejectionPolicy.ABORT));
+        assertThrows(NullPointerException.class, () -> new QueueExecutor(queue, 1, 1, 0, TimeUnit.SECONDS, 1, null));
+    }
+}
@@ -0,0 +1,110 @@
+package com.producerconsumer;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.Timeout;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * QueueSelectorTest verifies that one consumer can drain several queues fairly,
+ * wakes on any of them, and stops once all of them are closed.
+ */
+public class QueueSelectorTest {
+
+    @Test
+    public void testRoundRobinAcrossQueues() throws InterruptedException {
+        SharedQueue<String> a = new SharedQueue<>(10);
+        SharedQueue<String> b = new SharedQueue<>(10);
+        for (int i = 0; i < 3; i++) {
+            a.put("a" + i);
+            b.put("b" + i);
+        }
+        QueueSelector<String> selector = new QueueSelector<String>().register(a).register(b);
+
+        List<String> order = new ArrayList<>();
+        for (int i = 0; i < 6; i++) {
+            order.add(selector.poll());
+        }
+        assertEquals(List.of("a0", "b0", "a1", "b1", "a2", "b2"), order);
+        assertNull(selector.poll(), "All queues drained");
+    }
+
+    @Test
+    public void testWeightsAndEmptyQueuesSkipped() throws InterruptedException {
+        SharedQueue<String> heavy = new SharedQueue<>(10);
+        SharedQueue<String> empty = new SharedQueue<>(10);
+        SharedQueue<String> light = new SharedQueue<>(10);
+        for (int i = 0; i < 4; i++) {
+            heavy.put("h" + i);
+            light.put("l" + i);
+        }
+        QueueSelector<String> selector = new QueueSelector<String>()
+                .register(heavy, 2).register(empty, 1).register(light, 1);
+
+        List<String> order = new ArrayList<>();
+        for (int i = 0; i < 6; i++) {
+            order.add(selector.poll());
+        }
+        assertEquals(List.of("h0", "h1", "l0", "h2", "h3", "l1"), order);
+    }
+
+    @Test
+    @Timeout(value = 2, unit = TimeUnit.SECONDS)
+    public void testWakesWhenAnyQueueGetsData() throws InterruptedException {
+        SharedQueue<String> a = new SharedQueue<>(1);
+        SharedQueue<String> b = new SharedQueue<>(1);
+        QueueSelector<String> selector = new QueueSelector<String>().register(a).register(b);
+
+        List<String> received = new ArrayList<>();
+        Thread consumer = new Thread(() -> {
+            try {
+                received.add(selector.get());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        });
+        consumer.start();
+        Thread.sleep(50);
+        assertTrue(consumer.isAlive(), "Selector should block while all queues are empty");
+
+        b.put("from-b");
+        consumer.join(1000);
+        assertFalse(consumer.isAlive());
+        assertEquals(List.of("from-b"), received);
+    }
+
+    @Test
+    @Timeout(value = 5, unit = TimeUnit.SECONDS)
+    public void testSingleConsumerDrainsManyQueues() throws InterruptedException {
+        int queues = 5;
+        int itemsPerQueue = 40;
+        QueueSelector<WorkItem> selector = new QueueSelector<>();
+        Producer[] producers = new Producer[queues];
+        for (int q = 0; q < queues; q++) {
+            SharedQueue<WorkItem> queue = new SharedQueue<>(4);
+            selector.register(queue);
+            Container<WorkItem> source = new Container<>();
+            for (int i = 1; i <= itemsPerQueue; i++) {
+                int id = q * itemsPerQueue + i;
+                source.add(new WorkItem(id, "Data-" + id));
+            }
+            producers[q] = new Producer("P" + q, source, queue, 0);
+        }
+
+        Container<WorkItem> destination = new Container<>();
+        Consumer consumer = new Consumer("C1", selector, destination, Integer.MAX_VALUE, 0);
+        consumer.start();
+        for (Producer p : producers)
+            p.start();
+        for (Producer p : producers)
+            p.join();
+        consumer.join();
+
+        assertEquals(queues * itemsPerQueue, destination.size(),
+                "Consumer should drain every queue and stop once all are closed");
+    }
+}
@@ -0,0 +1,99 @@
+package com.producerconsumer;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.Timeout;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * QueueSimulatorTest checks the discrete-event model against hand-worked
+ * schedules and M/M/1 queueing theory, and sanity-checks it against real
+ * Producer/Consumer threads. Close agreement with real threads depends on the
+ * machine's load, so it is left to {@code QueueSimulator.main}.
+ */
+public class QueueSimulatorTest {
+
+    @Test
+    public void testDemoConfigurationIsConsumerBound() {
+        // ProducerConsumerDemo: 20 items, capacity 5, producer 50ms, consumer 100ms
+        QueueSimulator simulator = new QueueSimulator(1, 1, 5, QueueSimulator.Distribution.fixed(50),
+                QueueSimulator.Distribution.fixed(100), 1);
+        QueueSimulator.Result result = simulator.run(20);
+
+        assertEquals(20, result.getItemsConsumed());
+        // The consumer takes an item every 100ms from t=0 and sleeps after the last one
+        assertEquals(TimeUnit.MILLISECONDS.toNanos(2000), result.getElapsedNanos());
+        assertEquals(5, result.getMaxOccupancy(), "Slower consumer should let the queue fill up");
+        assertEquals(0, result.getLatencyPercentile(0), "First item is taken the moment it is put");
+        assertEquals(TimeUnit.MILLISECONDS.toNanos(550), result.getLatencyPercentile(100));
+    }
+
+    @Test
+    public void testSameSeedGivesSameResult() {
+        QueueSimulator simulator = new QueueSimulator(2, 3, 8, QueueSimulator.Distribution.exponential(4),
+                QueueSimulator.Distribution.uniform(5, 15), 42);
+        QueueSimulator.Result first = simulator.run(1000);
+        QueueSimulator.Result second = simulator.run(1000);
+
+        assertEquals(2000, first.getItemsConsumed());
+        assertEquals(first.getElapsedNanos(), second.getElapsedNanos());
+        assertEquals(first.getMeanOccupancy(), second.getMeanOccupancy());
+        assertEquals(first.getLatencyPercentile(99), second.getLatencyPercentile(99));
+    }
+
+    @Test
+    @Timeout(value = 30, unit = TimeUnit.SECONDS)
+    public void testMatchesMM1Theory() {
+        // Poisson arrivals at 100/s, exponential service at 125/s, effectively unbounded
+        QueueSimulator simulator = new QueueSimulator(1, 1, 1_000_000, QueueSimulator.Distribution.exponential(10),
+                QueueSimulator.Distribution.exponential(8), 7);
+        QueueSimulator.Result result = simulator.runFor(4, TimeUnit.HOURS);
+
+        double rho = 0.8;
+        double expectedQueueLength = rho * rho / (1 - rho);
+        assertEquals(100, result.getThroughput(), 1, "Throughput should match the arrival rate");
+        assertEquals(expectedQueueLength, result.getMeanOccupancy(), expectedQueueLength * 0.05,
+                "Mean queue length should match rho^2 / (1 - rho)");
+
+        // P(wait > t) = rho * exp(-(mu - lambda) t), with mu - lambda = 25/s
+        double p95Ms = Math.log(rho / 0.05) / 25 * 1000;
+        assertEquals(p95Ms, result.getLatencyPercentile(95) / 1e6, p95Ms * 0.05,
+                "95th percentile wait should match the M/M/1 waiting time distribution");
+    }
+
+    @Test
+    @Timeout(value = 30, unit = TimeUnit.SECONDS)
+    public void testRoughlyPredictsRealThreads() throws InterruptedException {
+        QueueSimulator.measureThreads(1, 1, 1, 0, 2, 20);
+
+        QueueSimulator simulator = new QueueSimulator(2, 3, 4, QueueSimulator.Distribution.fixed(5),
+                QueueSimulator.Distribution.fixed(20), 1);
+        QueueSimulator.Result predicted = simulator.run(50);
+        QueueSimulator.Result measured = QueueSimulator.measureThreads(2, 3, 4, 5, 20, 50);
+
+        assertEquals(predicted.getItemsConsumed(), measured.getItemsConsumed());
+        double ratio = (double) measured.getElapsedNanos() / predicted.getElapsedNanos();
+        // Sleeps never end early, and a loaded machine may stretch them
+        assertTrue(ratio > 0.8 && ratio < 2,
+                "Real run should take roughly as long as predicted, but ratio was " + ratio);
+    }
+
+    @Test
+    public void testInvalidArguments() {
+        QueueSimulator.Distribution fixed = QueueSimulator.Distribution.fixed(1);
+        assertThrows(IllegalArgumentException.class, () -> new QueueSimulator(0, 1, 1, fixed, fixed, 1));
+        assertThrows(IllegalArgumentException.class, () -> new QueueSimulator(1, 0, 1, fixed, fixed, 1));
+        assertThrows(IllegalArgumentException.class, () -> new QueueSimulator(1, 1, 0, fixed, fixed, 1));
+        assertThrows(NullPointerException.class, () -> new QueueSimulator(1, 1, 1, null, fixed, 1));
+        assertThrows(IllegalArgumentException.class, () -> QueueSimulator.Distribution.fixed(-1));
+        assertThrows(IllegalArgumentException.class, () -> QueueSimulator.Distribution.uniform(5, 1));
+        assertThrows(IllegalArgumentException.class, () -> QueueSimulator.Distribution.exponential(0));
+
+        QueueSimulator simulator = new QueueSimulator(1, 1, 1, fixed, fixed, 1);
+        assertThrows(IllegalArgumentException.class, () -> simulator.run(-1));
+        assertThrows(IllegalArgumentException.class, () -> simulator.runFor(0, TimeUnit.SECONDS));
+        assertThrows(IllegalArgumentException.class, () -> simulator.run(1).getLatencyPercentile(101));
+    }
+}
@@ -0,0 +1,121 @@
+package com.producerconsumer;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.Timeout;
+
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * RemoteQueueTest runs producers and consumers against a RemoteQueueServer over
+ * loopback and checks delivery, flow control and close propagation.
+ */
+public class RemoteQueueTest {
+
+    private static InetSocketAddress loopback() {
+        return new InetSocketAddress(InetAddress.getLoopbackAddress(), 0);
+    }
+
+    @Test
+    @Timeout(value = 10, unit = TimeUnit.SECONDS)
+    public void testRemoteProducersAndConsumers() throws Exception {
+        SharedQueue<WorkItem> queue = new SharedQueue<>(8);
+        try (RemoteQueueServer server = new RemoteQueueServer(queue, loopback(), 16);
+                RemoteSink sink1 = RemoteSink.connect(server.getLocalAddress(), 8, 5);
+                RemoteSink sink2 = RemoteSink.connect(server.getLocalAddress(), 8, 5);
+                RemoteSource source1 = RemoteSource.connect(server.getLocalAddress(), 4);
+                RemoteSource source2 = RemoteSource.connect(server.getLocalAddress(), 4)) {
+
+            int perProducer = 500;
+            Producer p1 = new Producer("RP1", createSource(1, perProducer), sink1, 0);
+            Producer p2 = new Producer("RP2", createSource(perProducer + 1, perProducer), sink2, 0);
+            Container<WorkItem> destination = new Container<>();
+            Consumer c1 = new Consumer("RC1", source1, destination, Integer.MAX_VALUE, 0);
+            Consumer c2 = new Consumer("RC2", source2, destination, Integer.MAX_VALUE, 0);
+
+            c1.start();
+            c2.start();
+            p1.start();
+            p2.start();
+            p1.join();
+            p2.join();
+            c1.join();
+            c2.join();
+
+            assertEquals(2 * perProducer, destination.size(), "Every item should arrive");
+            Set<Integer> ids = new HashSet<>();
+            for (WorkItem item : destination.getAll()) {
+                assertTrue(ids.add(item.getId()), "Duplicate item " + item.getId());
+                assertEquals("Data-" + item.getId(), item.getData(), "Payload should survive the wire");
+            }
+            assertTrue(queue.isClosed(), "Remote producerDone should close the queue");
+        }
+    }
+
+    @Test
+    @Timeout(value = 10, unit = TimeUnit.SECONDS)
+    public void testCreditLimitsItemsInFlight() throws Exception {
+        SharedQueue<WorkItem> queue = new SharedQueue<>(2);
+        try (RemoteQueueServer server = new RemoteQueueServer(queue, loopback(), 3);
+                RemoteSink sink = RemoteSink.connect(server.getLocalAddress(), 1, 0)) {
+
+            Producer producer = new Producer("RP", createSource(1, 20), sink, 0);
+            producer.start();
+            Thread.sleep(200);
+
+            assertTrue(producer.isAlive(), "Producer should stall without consumer");
+            assertEquals(2, queue.size(), "Queue never exceeds its capacity");
+            assertTrue(queue.getPendingAsyncPuts() <= 3, "In-flight items bounded by the window");
+
+            // Draining locally releases credit back to the remote producer
+            int drained = 0;
+            while (queue.get() != null) {
+                drained++;
+            }
+            producer.join();
+            assertEquals(20, drained);
+        }
+    }
+
+    @Test
+    @Timeout(value = 10, unit = TimeUnit.SECONDS)
+    public void testDroppedProducerConnectionClosesQueue() throws Exception {
+        SharedQueue<WorkItem> queue = new SharedQueue<>(4);
+        try (RemoteQueueServer server = new RemoteQueueServer(queue, loopback(), 4);
+                RemoteSource source = RemoteSource.connect(server.getLocalAddress(), 2)) {
+
+            RemoteSink sink = RemoteSink.connect(server.getLocalAddress(), 4, 0);
+            sink.registerProducer();
+            sink.put(new WorkItem(1, "only"));
+            sink.close(); // no producerDone
+
+            assertEquals(1, source.get().getId());
+            assertNull(source.get(), "Consumer should see end of stream after the producer vanished");
+        }
+    }
+
+    @Test
+    public void testInvalidArguments() throws IOException {
+        SharedQueue<WorkItem> queue = new SharedQueue<>(1);
+        assertThrows(IllegalArgumentException.class, () -> new RemoteQueueServer(queue, loopback(), 0));
+        assertThrows(NullPointerException.class, () -> new RemoteQueueServer(null, loopback(), 1));
+        try (RemoteQueueServer server = new RemoteQueueServer(queue, loopback(), 1)) {
+            assertThrows(IllegalArgumentException.class, () -> RemoteSink.connect(server.getLocalAddress(), 0, 0));
+            assertThrows(IllegalArgumentException.class, () -> RemoteSource.connect(server.getLocalAddress(), 0));
+        }
+    }
+
+    private static Container<WorkItem> createSource(int firstId, int count) {
+        Container<WorkItem> source = new Container<>();
+        for (int id = firstId; id < firstId + count; id++) {
+            source.add(new WorkItem(id, "Data-" + id));
+        }
+        return source;
+    }
+}
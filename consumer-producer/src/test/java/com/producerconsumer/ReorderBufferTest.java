@@ -0,0 +1,129 @@
+package com.producerconsumer;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.Timeout;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * ReorderBufferTest checks in-order release, window backpressure and closing
+ * for the sequence reorder buffer.
+ */
+public class ReorderBufferTest {
+
+    @Test
+    public void testReleasesInSequenceOnceGapsFill() throws InterruptedException {
+        ReorderBuffer<Integer> buffer = new ReorderBuffer<>(8, Integer::longValue, 0);
+        buffer.put(2);
+        buffer.put(1);
+        assertNull(buffer.poll(), "Nothing can be released while sequence 0 is missing");
+        assertEquals(2, buffer.size());
+
+        buffer.put(0);
+        assertEquals(0, buffer.get());
+        assertEquals(1, buffer.get());
+        assertEquals(2, buffer.get());
+        assertNull(buffer.poll());
+        assertEquals(3, buffer.getNextSequence());
+        assertEquals(3, buffer.getItemsReleased());
+    }
+
+    @Test
+    @Timeout(value = 5, unit = TimeUnit.SECONDS)
+    public void testPutBlocksBeyondWindow() throws Exception {
+        ReorderBuffer<Integer> buffer = new ReorderBuffer<>(4, Integer::longValue, 0);
+        buffer.put(1);
+        buffer.put(3);
+
+        Thread ahead = new Thread(() -> {
+            try {
+                buffer.put(4);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        });
+        ahead.start();
+        Thread.sleep(100);
+        assertTrue(ahead.isAlive(), "Sequence 4 is a full window ahead of 0 and should block");
+
+        // The gap filler always fits
+        buffer.put(0);
+        assertEquals(0, buffer.get());
+        ahead.join();
+        assertEquals(1, buffer.getBackpressureWaits());
+        assertEquals(1, buffer.get());
+    }
+
+    @Test
+    @Timeout(value = 10, unit = TimeUnit.SECONDS)
+    public void testParallelConsumersFeedOrderedDestination() throws InterruptedException {
+        SharedQueue<WorkItem> queue = new SharedQueue<>(32);
+        ReorderBuffer<WorkItem> buffer = new ReorderBuffer<>(16, WorkItem::getId, 1);
+        Container<WorkItem> ordered = new Container<>();
+
+        Producer producer = new Producer("P1", createSource(1, 2000), queue, 0);
+        List<Consumer> workers = new ArrayList<>();
+        for (int i = 0; i < 4; i++) {
+            workers.add(new Consumer("W" + i, queue, buffer, Integer.MAX_VALUE, 0));
+        }
+        Consumer writer = new Consumer("Writer", buffer, ordered, Integer.MAX_VALUE, 0);
+
+        writer.start();
+        workers.forEach(Thread::start);
+        producer.start();
+        producer.join();
+        for (Consumer worker : workers) {
+            worker.join();
+        }
+        writer.join();
+
+        assertEquals(2000, ordered.size());
+        for (int i = 0; i < ordered.size(); i++) {
+            assertEquals(i + 1, ordered.get(i).getId(), "Writer should see items in id order");
+        }
+        assertTrue(buffer.isClosed(), "Buffer should close once every worker is done");
+        assertEquals(0, buffer.getGapsSkipped());
+    }
+
+    @Test
+    @Timeout(value = 5, unit = TimeUnit.SECONDS)
+    public void testCloseSkipsMissingSequences() throws InterruptedException {
+        ReorderBuffer<Integer> buffer = new ReorderBuffer<>(8, Integer::longValue, 10);
+        buffer.registerProducer();
+        buffer.put(12);
+        buffer.put(14);
+        buffer.producerDone();
+
+        assertEquals(12, buffer.get());
+        assertEquals(14, buffer.get());
+        assertNull(buffer.get(), "Closed and drained buffer should return null");
+        assertEquals(3, buffer.getGapsSkipped(), "Sequences 10, 11 and 13 never arrived");
+        assertThrows(IllegalStateException.class, () -> buffer.put(15));
+    }
+
+    @Test
+    public void testInvalidArguments() throws InterruptedException {
+        assertThrows(IllegalArgumentException.class, () -> new ReorderBuffer<Integer>(0, Integer::longValue, 0));
+        assertThrows(NullPointerException.class, () -> new ReorderBuffer<Integer>(4, null, 0));
+
+        ReorderBuffer<Integer> buffer = new ReorderBuffer<>(4, Integer::longValue, 0);
+        assertThrows(NullPointerException.class, () -> buffer.put(null));
+        buffer.put(1);
+        assertThrows(IllegalArgumentException.class, () -> buffer.put(1), "Duplicate sequence");
+        buffer.put(0);
+        buffer.get();
+        assertThrows(IllegalArgumentException.class, () -> buffer.put(0), "Sequence already released");
+    }
+
+    private static Container<WorkItem> createSource(int firstId, int count) {
+        Container<WorkItem> source = new Container<>();
+        for (int id = firstId; id < firstId + count; id++) {
+            source.add(new WorkItem(id, "Data-" + id));
+        }
+        return source;
+    }
+}
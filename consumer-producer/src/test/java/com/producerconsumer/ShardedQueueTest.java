@@ -0,0 +1,184 @@
+package com.producerconsumer;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.Timeout;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Handler;
+import java.util.logging.Level;
+import java.util.logging.LogRecord;
+import java.util.logging.Logger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * ShardedQueueTest checks delivery, shard balance and closing behaviour of the
+ * sharded queue.
+ */
+public class ShardedQueueTest {
+
+    @Test
+    @Timeout(value = 10, unit = TimeUnit.SECONDS)
+    public void testManyProducersAndConsumersNoLossOrDuplication() throws InterruptedException {
+        ShardedQueue<WorkItem> queue = new ShardedQueue<>(4, 8);
+        int producers = 4;
+        int perProducer = 500;
+
+        List<Producer> producerThreads = new ArrayList<>();
+        for (int p = 0; p < producers; p++) {
+            producerThreads.add(new Producer("P" + p, createSource(p * perProducer, perProducer), queue, 0));
+        }
+        Container<WorkItem> destination = new Container<>();
+        List<Consumer> consumerThreads = new ArrayList<>();
+        for (int c = 0; c < 3; c++) {
+            consumerThreads.add(new Consumer("C" + c, queue, destination, Integer.MAX_VALUE, 0));
+        }
+
+        consumerThreads.forEach(Thread::start);
+        producerThreads.forEach(Thread::start);
+        for (Producer producer : producerThreads) {
+            producer.join();
+        }
+        for (Consumer consumer : consumerThreads) {
+            consumer.join();
+        }
+
+        assertEquals(producers * perProducer, destination.size(), "Every item should arrive");
+        Set<Integer> ids = new HashSet<>();
+        for (WorkItem item : destination.getAll()) {
+            assertTrue(ids.add(item.getId()), "Duplicate item " + item.getId());
+        }
+        assertEquals(producers * perProducer, queue.getItemsConsumed());
+        assertTrue(queue.isClosed());
+    }
+
+    @Test
+    public void testPowerOfTwoChoicesKeepsShardsBalanced() throws InterruptedException {
+        ShardedQueue<Integer> queue = new ShardedQueue<>(8, 100);
+        for (int i = 0; i < 400; i++) {
+            queue.put(i);
+        }
+
+        int[] sizes = queue.getShardSizes();
+        int min = Integer.MAX_VALUE;
+        int max = 0;
+        for (int size : sizes) {
+            min = Math.min(min, size);
+            max = Math.max(max, size);
+        }
+        assertEquals(400, queue.size());
+        // Two-choice placement keeps the gap tiny; one random choice would not
+        assertTrue(max - min <= 4, "Shard sizes should stay balanced, but were " + min + ".." + max);
+    }
+
+    @Test
+    @Timeout(value = 5, unit = TimeUnit.SECONDS)
+    public void testIdleConsumerWakesOnPut() throws Exception {
+        ShardedQueue<Integer> queue = new ShardedQueue<>(4, 4);
+        Integer[] received = new Integer[1];
+        Thread consumer = new Thread(() -> {
+            try {
+                received[0] = queue.get();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        });
+        consumer.start();
+        Thread.sleep(100);
+        assertTrue(consumer.isAlive(), "Consumer should wait on an empty queue");
+
+        queue.put(42);
+        consumer.join();
+        assertEquals(42, received[0]);
+    }
+
+    @Test
+    @Timeout(value = 5, unit = TimeUnit.SECONDS)
+    public void testCloseReleasesWaitingConsumersAfterDrain() throws Exception {
+        ShardedQueue<Integer> queue = new ShardedQueue<>(3, 4);
+        queue.registerProducer();
+        queue.put(1);
+        queue.put(2);
+
+        assertNotNull(queue.get());
+        assertNotNull(queue.get());
+
+        Thread consumer = new Thread(() -> {
+            try {
+                assertNull(queue.get(), "Closed and drained queue should return null");
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        });
+        consumer.start();
+        Thread.sleep(100);
+        queue.producerDone();
+        consumer.join();
+
+        assertTrue(queue.isClosed());
+        assertThrows(IllegalStateException.class, () -> queue.put(3));
+        assertThrows(IllegalStateException.class, queue::registerProducer);
+    }
+
+    @Test
+    public void testCapacityAndInvalidArguments() {
+        ShardedQueue<Integer> queue = new ShardedQueue<>(4, 16);
+        assertEquals(64, queue.getCapacity());
+        assertEquals(4, queue.getShardCount());
+        assertTrue(queue.isEmpty());
+
+        assertThrows(IllegalArgumentException.class, () -> new ShardedQueue<Integer>(0, 1));
+        assertThrows(IllegalArgumentException.class, () -> new ShardedQueue<Integer>(1, 0));
+        assertThrows(NullPointerException.class, () -> queue.put(null));
+    }
+
+    @Test
+    public void testShardsDoNotLogEveryItem() throws InterruptedException {
+        Logger sharedQueueLogger = Logger.getLogger(SharedQueue.class.getName());
+        List<LogRecord> records = new ArrayList<>();
+        Handler handler = new Handler() {
+            @Override
+            public void publish(LogRecord record) {
+                records.add(record);
+            }
+
+            @Override
+            public void flush() {
+            }
+
+            @Override
+            public void close() {
+            }
+        };
+        Level savedLevel = sharedQueueLogger.getLevel();
+        sharedQueueLogger.setLevel(Level.INFO);
+        sharedQueueLogger.addHandler(handler);
+        try {
+            ShardedQueue<Integer> queue = new ShardedQueue<>(2, 4);
+            queue.put(1);
+            queue.put(2);
+            assertNotNull(queue.get());
+            assertNotNull(queue.get());
+            assertTrue(records.isEmpty(), "Shards should not log per item");
+
+            SharedQueue<Integer> logging = new SharedQueue<>(4);
+            logging.put(1);
+            assertEquals(1, records.size(), "A plain SharedQueue still logs every put");
+        } finally {
+            sharedQueueLogger.removeHandler(handler);
+            sharedQueueLogger.setLevel(savedLevel);
+        }
+    }
+
+    private static Container<WorkItem> createSource(int firstId, int count) {
+        Container<WorkItem> source = new Container<>();
+        for (int id = firstId; id < firstId + count; id++) {
+            source.add(new WorkItem(id, "Data-" + id));
+        }
+        return source;
+    }
+}
@@ -3,6 +3,9 @@ package com.producerconsumer;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+
 import static org.junit.jupiter.api.Assertions.*;
 
 /**
@@ -89,4 +92,54 @@ public class SharedQueueTest {
 
         assertFalse(consumer.isAlive(), "Consumer thread should exit after queue closes");
     }
+
+    @Test
+    public void testGetAsyncCompletedByPut() throws InterruptedException, ExecutionException {
+        CompletableFuture<String> future = queue.getAsync();
+        assertFalse(future.isDone(), "Empty queue should leave the future pending");
+        assertEquals(1, queue.getPendingAsyncGets());
+
+        queue.put("handed-off");
+        assertTrue(future.isDone(), "Put should complete the waiting future");
+        assertEquals("handed-off", future.get());
+        assertTrue(queue.isEmpty(), "Item goes straight to the waiter, not the queue");
+        assertEquals(1, queue.getItemsConsumed());
+    }
+
+    @Test
+    public void testPutAsyncCompletedByGet() throws InterruptedException {
+        SharedQueue<String> smallQueue = new SharedQueue<>(1);
+        assertTrue(smallQueue.putAsync("first").isDone(), "Room available - completes immediately");
+
+        CompletableFuture<Void> parked = smallQueue.putAsync("second");
+        assertFalse(parked.isDone(), "Full queue should park the put");
+        assertEquals(1, smallQueue.getPendingAsyncPuts());
+
+        assertEquals("first", smallQueue.get());
+        assertTrue(parked.isDone(), "Freed slot should admit the parked put");
+        assertEquals("second", smallQueue.get());
+    }
+
+    @Test
+    public void testGetAsyncEndOfStreamOnClose() throws InterruptedException, ExecutionException {
+        queue.registerProducer();
+        CompletableFuture<String> future = queue.getAsync();
+
+        queue.producerDone();
+        assertTrue(future.isDone(), "Closing should release async getters");
+        assertNull(future.get(), "Null signals end of stream");
+        assertNull(queue.getAsync().get(), "Later getAsync on a drained closed queue is end of stream");
+        assertTrue(queue.putAsync("late").isCompletedExceptionally(), "Closed queue rejects async puts");
+    }
+
+    @Test
+    public void testCancelledGetAsyncIsSkipped() throws InterruptedException, ExecutionException {
+        CompletableFuture<String> cancelled = queue.getAsync();
+        CompletableFuture<String> live = queue.getAsync();
+        cancelled.cancel(false);
+
+        queue.putAsync("item");
+        assertEquals("item", live.get(), "Item should skip the cancelled waiter");
+        assertTrue(queue.isEmpty());
+    }
 }
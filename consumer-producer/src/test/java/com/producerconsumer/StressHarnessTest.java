@@ -0,0 +1,143 @@
+package com.producerconsumer;
+
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.Timeout;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * StressHarnessTest runs short versions of the stress harness against every
+ * queue kind and checks the delivery ledger itself.
+ */
+public class StressHarnessTest {
+
+    private static Level savedLevel;
+
+    @BeforeAll
+    public static void quietLogging() {
+        // Per-item INFO logging of tens of thousands of items would dominate
+        savedLevel = Logger.getLogger("").getLevel();
+        Logger.getLogger("").setLevel(Level.WARNING);
+    }
+
+    @AfterAll
+    public static void restoreLogging() {
+        Logger.getLogger("").setLevel(savedLevel);
+    }
+
+    @Test
+    public void testLedgerSpotsRepeatsAndGaps() {
+        StressHarness.Ledger ledger = new StressHarness.Ledger(130);
+        assertEquals(0, ledger.firstMissing());
+        for (int id = 0; id < 130; id++) {
+            if (id != 64 && id != 129) {
+                assertTrue(ledger.mark(id));
+            }
+        }
+        assertFalse(ledger.mark(5), "Second delivery should be reported");
+        assertTrue(ledger.isMarked(5));
+        assertFalse(ledger.isMarked(64));
+        assertEquals(128, ledger.count());
+        assertEquals(64, ledger.firstMissing());
+
+        ledger.mark(64);
+        assertEquals(129, ledger.firstMissing());
+        ledger.mark(129);
+        assertEquals(-1, ledger.firstMissing(), "Bits past the last id should not count as missing");
+        assertThrows(IndexOutOfBoundsException.class, () -> ledger.mark(130));
+        assertThrows(IndexOutOfBoundsException.class, () -> ledger.mark(-1));
+    }
+
+    @Test
+    @Timeout(value = 60, unit = TimeUnit.SECONDS)
+    public void testLedgerIsExactUnderContention() throws InterruptedException {
+        StressHarness.Ledger ledger = new StressHarness.Ledger(100_000);
+        int[] firsts = new int[4];
+        Thread[] threads = new Thread[4];
+        for (int t = 0; t < threads.length; t++) {
+            int index = t;
+            // Every thread marks every id; exactly one of them may win each
+            threads[t] = new Thread(() -> {
+                for (int id = 0; id < 100_000; id++) {
+                    if (ledger.mark(id)) {
+                        firsts[index]++;
+                    }
+                }
+            });
+            threads[t].start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        assertEquals(100_000, firsts[0] + firsts[1] + firsts[2] + firsts[3]);
+        assertEquals(100_000, ledger.count());
+    }
+
+    @Test
+    @Timeout(value = 120, unit = TimeUnit.SECONDS)
+    public void testEveryKindDeliversExactlyOnceUnderInterrupts() throws InterruptedException {
+        for (StressHarness.Kind kind : StressHarness.Kind.values()) {
+            // Capacity 2 keeps producers and consumers blocking all the time,
+            // which is where interrupts and closing races bite
+            StressHarness.Topology topology = new StressHarness.Topology(kind, 3, 2, 3, 2, 10_000, 100);
+            StressHarness.Result result = StressHarness.run(topology, 60, TimeUnit.SECONDS);
+
+            assertTrue(result.isClean(), topology + ": " + result.describeFailure());
+            assertEquals(30_000, result.getDelivered());
+            assertTrue(result.getInterrupts() > 0, topology + " should have absorbed interrupts");
+            assertTrue(result.getThroughput() > 0);
+        }
+    }
+
+    @Test
+    @Timeout(value = 120, unit = TimeUnit.SECONDS)
+    public void testRandomTopologiesAreReproducibleAndClean() throws InterruptedException {
+        Random first = new Random(7);
+        Random second = new Random(7);
+        for (int i = 0; i < 5; i++) {
+            StressHarness.Topology topology = StressHarness.Topology.random(first, 20_000);
+            assertEquals(topology.toString(), StressHarness.Topology.random(second, 20_000).toString());
+
+            StressHarness.Result result = StressHarness.run(topology, 60, TimeUnit.SECONDS);
+            assertTrue(result.isClean(), topology + ": " + result.describeFailure());
+            assertEquals(topology.getTotalItems(), result.getDelivered());
+        }
+    }
+
+    @Test
+    @Timeout(value = 30, unit = TimeUnit.SECONDS)
+    public void testEmptyRunFinishes() throws InterruptedException {
+        StressHarness.Topology topology = new StressHarness.Topology(StressHarness.Kind.SHARED, 2, 1, 4, 1, 0, 0);
+        StressHarness.Result result = StressHarness.run(topology, 10, TimeUnit.SECONDS);
+        assertTrue(result.isClean(), result.describeFailure());
+        assertEquals(0, result.getDelivered());
+        assertEquals("ok", result.describeFailure());
+    }
+
+    @Test
+    public void testInvalidArguments() {
+        StressHarness.Kind kind = StressHarness.Kind.SHARED;
+        assertThrows(NullPointerException.class, () -> new StressHarness.Topology(null, 1, 0, 1, 1, 1, 0));
+        assertThrows(IllegalArgumentException.class, () -> new StressHarness.Topology(kind, 0, 0, 1, 1, 1, 0));
+        assertThrows(IllegalArgumentException.class, () -> new StressHarness.Topology(kind, 1, 0, 0, 1, 1, 0));
+        assertThrows(IllegalArgumentException.class, () -> new StressHarness.Topology(kind, 1, 0, 1, 0, 1, 0));
+        assertThrows(IllegalArgumentException.class, () -> new StressHarness.Topology(kind, 1, -1, 1, 1, 1, 0));
+        assertThrows(IllegalArgumentException.class, () -> new StressHarness.Topology(kind, 1, 0, 1, 1, -1, 0));
+        assertThrows(IllegalArgumentException.class, () -> new StressHarness.Topology(kind, 1, 0, 1, 1, 1, -1));
+        assertThrows(IllegalArgumentException.class,
+                () -> new StressHarness.Topology(kind, 3, 0, 1, 1, Integer.MAX_VALUE / 2, 0));
+        assertThrows(IllegalArgumentException.class, () -> new StressHarness.Ledger(-1));
+
+        StressHarness.Topology topology = new StressHarness.Topology(kind, 1, 0, 1, 1, 1, 0);
+        assertThrows(NullPointerException.class, () -> StressHarness.run(null, 1, TimeUnit.SECONDS));
+        assertThrows(NullPointerException.class, () -> StressHarness.run(topology, 1, null));
+        assertThrows(IllegalArgumentException.class, () -> StressHarness.run(topology, 0, TimeUnit.SECONDS));
+    }
+}
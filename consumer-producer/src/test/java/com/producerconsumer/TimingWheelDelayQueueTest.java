@@ -0,0 +1,99 @@
+package com.producerconsumer;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.Timeout;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * TimingWheelDelayQueueTest verifies delayed delivery, cancellation, cascading
+ * across wheel levels and lifecycle propagation to the target queue.
+ */
+public class TimingWheelDelayQueueTest {
+
+    @Test
+    @Timeout(value = 5, unit = TimeUnit.SECONDS)
+    public void testItemsReleasedInDeadlineOrder() throws InterruptedException {
+        SharedQueue<String> target = new SharedQueue<>(10);
+        TimingWheelDelayQueue<String> wheel = new TimingWheelDelayQueue<>(target, 1);
+
+        long start = System.nanoTime();
+        wheel.put("late", 150, TimeUnit.MILLISECONDS);
+        wheel.put("early", 50, TimeUnit.MILLISECONDS);
+        wheel.put("now", 0, TimeUnit.MILLISECONDS);
+
+        assertEquals("now", target.get(), "Zero delay should be delivered immediately");
+        assertEquals("early", target.get());
+        long earlyMs = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+        assertTrue(earlyMs >= 50, "Item must not fire before its delay, fired after " + earlyMs + "ms");
+        assertEquals("late", target.get());
+        assertEquals(0, wheel.getPendingCount());
+        assertEquals(3, wheel.getItemsExpired());
+
+        wheel.close();
+    }
+
+    @Test
+    @Timeout(value = 5, unit = TimeUnit.SECONDS)
+    public void testCancelPreventsDelivery() throws InterruptedException {
+        SharedQueue<String> target = new SharedQueue<>(10);
+        TimingWheelDelayQueue<String> wheel = new TimingWheelDelayQueue<>(target, 1);
+        wheel.registerProducer();
+
+        TimingWheelDelayQueue.Timeout<String> cancelled = wheel.put("cancelled", 30, TimeUnit.MILLISECONDS);
+        wheel.put("kept", 60, TimeUnit.MILLISECONDS);
+        assertEquals(2, wheel.getPendingCount());
+
+        assertTrue(cancelled.cancel(), "Pending item should be cancellable");
+        assertFalse(cancelled.cancel(), "Second cancel is a no-op");
+        assertTrue(cancelled.isCancelled());
+        wheel.producerDone();
+
+        assertEquals("kept", target.get());
+        assertNull(target.get(), "Target should close once the wheel has drained");
+        assertEquals(1, wheel.getItemsCancelled());
+    }
+
+    @Test
+    @Timeout(value = 5, unit = TimeUnit.SECONDS)
+    public void testDelaysBeyondWheelRangeCascade() throws InterruptedException {
+        SharedQueue<Integer> target = new SharedQueue<>(100);
+        // 4 slots x 2 levels covers only 16 ticks, so most of these wrap the top level
+        TimingWheelDelayQueue<Integer> wheel = new TimingWheelDelayQueue<>(target, 1, 4, 2);
+
+        for (int delay = 60; delay >= 0; delay -= 5) {
+            wheel.put(delay, delay, TimeUnit.MILLISECONDS);
+        }
+
+        int previous = -1;
+        for (int i = 0; i <= 12; i++) {
+            int delay = target.get();
+            assertTrue(delay > previous, "Items should arrive in delay order");
+            previous = delay;
+        }
+        wheel.close();
+    }
+
+    @Test
+    public void testCloseDiscardsPendingItems() throws InterruptedException {
+        SharedQueue<String> target = new SharedQueue<>(10);
+        TimingWheelDelayQueue<String> wheel = new TimingWheelDelayQueue<>(target, 10);
+
+        TimingWheelDelayQueue.Timeout<String> timeout = wheel.put("never", 1, TimeUnit.HOURS);
+        assertEquals(1, wheel.close(), "One pending item should be discarded");
+        assertTrue(timeout.isCancelled());
+        assertNull(target.get(), "Target should be released after close");
+        assertThrows(IllegalStateException.class, () -> wheel.put("x", 1, TimeUnit.SECONDS));
+    }
+
+    @Test
+    public void testInvalidArguments() {
+        SharedQueue<String> target = new SharedQueue<>(1);
+        assertThrows(NullPointerException.class, () -> new TimingWheelDelayQueue<String>(null, 1));
+        assertThrows(IllegalArgumentException.class, () -> new TimingWheelDelayQueue<>(target, 0));
+        assertThrows(IllegalArgumentException.class, () -> new TimingWheelDelayQueue<>(target, 1, 6, 2));
+        assertThrows(IllegalArgumentException.class, () -> new TimingWheelDelayQueue<>(target, 1, 8, 0));
+    }
+}
@@ -0,0 +1,166 @@
+package com.producerconsumer;
+
+import org.junit.jupiter.api.Test;
+
+import java.nio.BufferOverflowException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * WorkItemCodecTest checks the binary WorkItem layout: round trips for awkward
+ * values, batches on heap and direct buffers, and rejection of bad input.
+ */
+public class WorkItemCodecTest {
+
+    @Test
+    public void testRoundTripOfAwkwardValues() {
+        List<WorkItem> items = List.of(
+                new WorkItem(0, "", 0),
+                new WorkItem(-1, null, -1),
+                new WorkItem(Integer.MIN_VALUE, "min", Long.MIN_VALUE),
+                new WorkItem(Integer.MAX_VALUE, "max", Long.MAX_VALUE),
+                new WorkItem(7, "café € 中文", 42),
+                new WorkItem(8, "emoji 😀 pair", 43));
+
+        for (ByteBuffer buffer : buffers(256)) {
+            for (WorkItem item : items) {
+                buffer.clear();
+                WorkItemCodec.encode(item, buffer);
+                assertEquals(WorkItemCodec.encodedSize(item), buffer.position(), "Size for " + item);
+                buffer.flip();
+                assertSameItem(item, WorkItemCodec.decode(buffer));
+                assertFalse(buffer.hasRemaining());
+            }
+        }
+    }
+
+    @Test
+    public void testUtf8MatchesStringGetBytes() {
+        // Unpaired surrogates are replaced with '?', as String.getBytes does
+        String data = "aÿࠀ\ud800x\udc00😀";
+        byte[] expected = data.getBytes(StandardCharsets.UTF_8);
+
+        for (ByteBuffer buffer : buffers(64)) {
+            WorkItemCodec.encode(new WorkItem(1, data, 0), buffer);
+            buffer.flip();
+            // Version, id, timestamp, length, then the bytes
+            buffer.position(1 + 1 + Long.BYTES + 1);
+            byte[] actual = new byte[buffer.remaining()];
+            buffer.get(actual);
+            assertArrayEquals(expected, actual);
+        }
+    }
+
+    @Test
+    public void testSmallItemsAreCompact() {
+        WorkItem item = new WorkItem(5, "Data-5", 123);
+        // Version + 1-byte id + timestamp + 1-byte length + 6 data bytes
+        assertEquals(1 + 1 + 8 + 1 + 6, WorkItemCodec.encodedSize(item));
+        assertEquals(1 + 1 + 8 + 1, WorkItemCodec.encodedSize(new WorkItem(-64, null, 0)));
+        assertEquals(1 + 5 + 8 + 1, WorkItemCodec.encodedSize(new WorkItem(Integer.MIN_VALUE, null, 0)));
+    }
+
+    @Test
+    public void testBatchRoundTrip() {
+        List<WorkItem> batch = new ArrayList<>();
+        for (int id = -100; id < 1000; id++) {
+            batch.add(new WorkItem(id, id % 10 == 0 ? null : "Data-" + id, 1_000_000L + id));
+        }
+        int size = WorkItemCodec.encodedBatchSize(batch);
+
+        for (ByteBuffer buffer : buffers(size + 16)) {
+            buffer.putInt(0xCAFE);
+            WorkItemCodec.encodeBatch(batch, buffer);
+            WorkItemCodec.encodeBatch(List.of(), buffer);
+            assertEquals(Integer.BYTES + size + 2, buffer.position());
+
+            buffer.flip();
+            assertEquals(0xCAFE, buffer.getInt());
+            List<WorkItem> decoded = new ArrayList<>();
+            assertEquals(batch.size(), WorkItemCodec.decodeBatch(buffer, decoded));
+            assertEquals(0, WorkItemCodec.decodeBatch(buffer, decoded));
+            assertFalse(buffer.hasRemaining());
+
+            assertEquals(batch.size(), decoded.size());
+            for (int i = 0; i < batch.size(); i++) {
+                assertSameItem(batch.get(i), decoded.get(i));
+            }
+        }
+    }
+
+    @Test
+    public void testTimestampIsBigEndianWhateverTheBufferOrder() {
+        WorkItem item = new WorkItem(1, null, 0x0102030405060708L);
+        ByteBuffer big = ByteBuffer.allocate(32);
+        ByteBuffer little = ByteBuffer.allocate(32).order(ByteOrder.LITTLE_ENDIAN);
+        WorkItemCodec.encode(item, big);
+        WorkItemCodec.encode(item, little);
+        assertArrayEquals(big.array(), little.array());
+
+        little.flip();
+        assertSameItem(item, WorkItemCodec.decode(little));
+    }
+
+    @Test
+    public void testOverflowLeavesPositionUnchanged() {
+        List<WorkItem> batch = List.of(new WorkItem(1, "one", 1), new WorkItem(2, "two", 2));
+        for (ByteBuffer buffer : buffers(WorkItemCodec.encodedBatchSize(batch) - 1)) {
+            buffer.put((byte) 9);
+            assertThrows(BufferOverflowException.class, () -> WorkItemCodec.encodeBatch(batch, buffer));
+            assertEquals(1, buffer.position());
+
+            buffer.position(buffer.limit() - 5);
+            assertThrows(BufferOverflowException.class, () -> WorkItemCodec.encode(batch.get(0), buffer));
+            assertEquals(buffer.limit() - 5, buffer.position());
+        }
+    }
+
+    @Test
+    public void testTruncatedInputThrows() {
+        WorkItem item = new WorkItem(300, "truncated", 99);
+        for (ByteBuffer buffer : buffers(64)) {
+            WorkItemCodec.encode(item, buffer);
+            int size = buffer.position();
+            for (int limit = 0; limit < size; limit++) {
+                buffer.position(0).limit(limit);
+                assertThrows(BufferUnderflowException.class, () -> WorkItemCodec.decode(buffer),
+                        "Limit " + limit);
+            }
+        }
+    }
+
+    @Test
+    public void testRejectsUnknownVersionAndMalformedInput() {
+        ByteBuffer buffer = ByteBuffer.allocate(64);
+        WorkItemCodec.encode(new WorkItem(1, "x", 1), buffer);
+        buffer.put(0, (byte) (WorkItemCodec.VERSION + 1));
+        buffer.flip();
+        assertThrows(IllegalArgumentException.class, () -> WorkItemCodec.decode(buffer));
+
+        // An id varint that never terminates
+        ByteBuffer malformed = ByteBuffer.wrap(new byte[] {
+                WorkItemCodec.VERSION, (byte) 0xFF, (byte) 0xFF, (byte) 0xFF, (byte) 0xFF, (byte) 0xFF, 0 });
+        assertThrows(IllegalArgumentException.class, () -> WorkItemCodec.decode(malformed));
+
+        ByteBuffer negativeCount = ByteBuffer.wrap(new byte[] {
+                WorkItemCodec.VERSION, (byte) 0xFF, (byte) 0xFF, (byte) 0xFF, (byte) 0xFF, 0x0F });
+        assertThrows(IllegalArgumentException.class, () -> WorkItemCodec.decodeBatch(negativeCount,
+                new ArrayList<>()));
+    }
+
+    private static List<ByteBuffer> buffers(int capacity) {
+        return List.of(ByteBuffer.allocate(capacity), ByteBuffer.allocateDirect(capacity));
+    }
+
+    private static void assertSameItem(WorkItem expected, WorkItem actual) {
+        assertEquals(expected.getId(), actual.getId());
+        assertEquals(expected.getData(), actual.getData());
+        assertEquals(expected.getTimestamp(), actual.getTimestamp());
+    }
+}
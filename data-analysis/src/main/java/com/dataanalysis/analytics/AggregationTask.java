@@ -0,0 +1,50 @@
+package com.dataanalysis.analytics;
+
+import java.util.concurrent.RecursiveTask;
+import java.util.function.Supplier;
+
+/**
+ * Fork/join task that splits a range of rows in halves down to one chunk per task, aggregates
+ * each chunk into its own accumulator and merges the halves back in row order.
+ */
+final class AggregationTask<A extends SalesAccumulator<A>> extends RecursiveTask<A> {
+    private static final long serialVersionUID = 1L;
+
+    private final Feeder<A> feeder;
+    private final int from;
+    private final int to;
+    private final int chunkSize;
+    private final Supplier<A> factory;
+
+    AggregationTask(Feeder<A> feeder, int from, int to, int chunkSize, Supplier<A> factory) {
+        this.feeder = feeder;
+        this.from = from;
+        this.to = to;
+        this.chunkSize = chunkSize;
+        this.factory = factory;
+    }
+
+    @Override
+    protected A compute() {
+        if (to - from <= chunkSize) {
+            A accumulator = factory.get();
+            feeder.feed(accumulator, from, to);
+            return accumulator;
+        }
+
+        int middle = (from + to) >>> 1;
+        AggregationTask<A> right = new AggregationTask<>(feeder, middle, to, chunkSize, factory);
+        right.fork();
+        A left = new AggregationTask<>(feeder, from, middle, chunkSize, factory).compute();
+        left.merge(right.join());
+        return left;
+    }
+
+    /**
+     * Feeds a range of rows, records of a list or rows of a table, into an accumulator.
+     */
+    @FunctionalInterface
+    interface Feeder<A> {
+        void feed(A accumulator, int from, int to);
+    }
+}
@@ -0,0 +1,109 @@
+package com.dataanalysis.analytics;
+
+import com.dataanalysis.model.SalesDimension;
+import com.dataanalysis.model.SalesRecord;
+import com.dataanalysis.model.SalesTable;
+import com.dataanalysis.util.DateUtils;
+
+import java.time.YearMonth;
+import java.util.*;
+
+/**
+ * Computes the cash and accrual revenue views in a single pass over the records.
+ * Accrual revenue is booked in the invoice month, cash revenue in the payment month of paid records.
+ */
+public class CashAccrualAccumulator implements SalesAccumulator<CashAccrualAccumulator> {
+    private final SalesTable table;
+    // Code of "PAID" in the table's payment status dictionary, -1 if absent
+    private final int paidCode;
+    private final Map<YearMonth, CompensatedSum> accrualRevenue = new HashMap<>();
+    private final Map<YearMonth, CompensatedSum> cashRevenue = new HashMap<>();
+
+    /**
+     * Creates an accumulator for {@link SalesRecord}s.
+     */
+    public CashAccrualAccumulator() {
+        this.table = null;
+        this.paidCode = -1;
+    }
+
+    /**
+     * Creates an accumulator for rows of one table.
+     * @param table the table whose rows are fed
+     */
+    public CashAccrualAccumulator(SalesTable table) {
+        this.table = Objects.requireNonNull(table, "table");
+        this.paidCode = table.dictionary(SalesDimension.PAYMENT_STATUS).codeOf("PAID");
+    }
+
+    @Override
+    public void accept(SalesRecord record) {
+        if (table != null) {
+            throw new IllegalStateException("Accumulator was created for table rows");
+        }
+        double netAmount = record.netAmount();
+        if (record.invoiceDate() != null) {
+            add(accrualRevenue, DateUtils.toYearMonth(record.invoiceDate()), netAmount);
+        }
+        if (record.isPaid() && record.paymentDate() != null) {
+            add(cashRevenue, DateUtils.toYearMonth(record.paymentDate()), netAmount);
+        }
+    }
+
+    @Override
+    public void accept(SalesTable rows, int row) {
+        if (rows != table) {
+            throw new IllegalArgumentException("Rows must come from the table the accumulator was created for");
+        }
+        double netAmount = rows.netAmount(row);
+        int invoiceDay = rows.invoiceDay(row);
+        if (invoiceDay != SalesTable.NO_DATE) {
+            add(accrualRevenue, YearMonth.from(SalesTable.decodeDate(invoiceDay)), netAmount);
+        }
+        int paymentDay = rows.paymentDay(row);
+        if (paymentDay != SalesTable.NO_DATE && rows.code(SalesDimension.PAYMENT_STATUS, row) == paidCode) {
+            add(cashRevenue, YearMonth.from(SalesTable.decodeDate(paymentDay)), netAmount);
+        }
+    }
+
+    @Override
+    public void merge(CashAccrualAccumulator other) {
+        mergeMonths(accrualRevenue, other.accrualRevenue);
+        mergeMonths(cashRevenue, other.cashRevenue);
+    }
+
+    /**
+     * Builds both revenue views.
+     * @return map with "accrual" and "cash" keys, each containing a map of YearMonth to revenue
+     */
+    public Map<String, Map<YearMonth, Double>> toRevenueViews() {
+        Map<String, Map<YearMonth, Double>> result = new LinkedHashMap<>();
+        result.put("accrual", sums(accrualRevenue));
+        result.put("cash", sums(cashRevenue));
+        return result;
+    }
+
+    private static void add(Map<YearMonth, CompensatedSum> months, YearMonth month, double amount) {
+        CompensatedSum sum = months.get(month);
+        if (sum == null) {
+            sum = new CompensatedSum();
+            months.put(month, sum);
+        }
+        sum.add(amount);
+    }
+
+    private static void mergeMonths(Map<YearMonth, CompensatedSum> months, Map<YearMonth, CompensatedSum> other) {
+        other.forEach((month, theirs) -> {
+            CompensatedSum mine = months.putIfAbsent(month, theirs);
+            if (mine != null) {
+                mine.merge(theirs);
+            }
+        });
+    }
+
+    private static Map<YearMonth, Double> sums(Map<YearMonth, CompensatedSum> months) {
+        Map<YearMonth, Double> result = new HashMap<>();
+        months.forEach((month, sum) -> result.put(month, sum.sum()));
+        return result;
+    }
+}
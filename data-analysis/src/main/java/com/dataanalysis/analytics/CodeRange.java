@@ -0,0 +1,94 @@
+package com.dataanalysis.analytics;
+
+import java.util.Arrays;
+
+/**
+ * Window of dictionary codes {@code [first, first + length)} covered by arrays indexed by
+ * {@code code - first}. The window starts at the first code met, so an accumulator over a chunk of
+ * table rows allocates for the codes of its chunk rather than for the whole table's dictionary.
+ */
+final class CodeRange {
+    private static final int INITIAL_CAPACITY = 8;
+
+    private int first;
+    private int length;
+
+    /**
+     * Returns whether a code lies inside the window.
+     */
+    boolean covers(int code) {
+        return code >= first && code - first < length;
+    }
+
+    /**
+     * Returns the array index of a covered code.
+     */
+    int index(int code) {
+        return code - first;
+    }
+
+    /**
+     * Returns the code at array index 0.
+     */
+    int first() {
+        return first;
+    }
+
+    /**
+     * Returns the number of codes covered, which is also the array length.
+     */
+    int length() {
+        return length;
+    }
+
+    /**
+     * Widens the window to cover a code, at least doubling its length so repeated widening stays
+     * linear. Arrays must then be resized to {@link #length()} and their entries moved up by the
+     * returned shift, for example with {@link #widen(long[], int, int)}.
+     * @param code a code outside the window
+     * @return number of places existing entries move up
+     */
+    int widen(int code) {
+        if (length == 0) {
+            first = code;
+            length = INITIAL_CAPACITY;
+            return 0;
+        }
+        int start = Math.min(first, code);
+        int end = Math.max(first + length, code + 1);
+        int capacity = Math.max(end - start, length * 2);
+        // Grow towards the code, so codes met in descending order also double the window
+        int newFirst = code < first ? Math.max(0, end - capacity) : first;
+        int shift = first - newFirst;
+        first = newFirst;
+        length = capacity;
+        return shift;
+    }
+
+    static long[] widen(long[] array, int length, int shift) {
+        long[] widened = new long[length];
+        System.arraycopy(array, 0, widened, shift, array.length);
+        return widened;
+    }
+
+    static int[] widen(int[] array, int length, int shift) {
+        int[] widened = new int[length];
+        System.arraycopy(array, 0, widened, shift, array.length);
+        return widened;
+    }
+
+    static double[] widen(double[] array, int length, int shift) {
+        double[] widened = new double[length];
+        System.arraycopy(array, 0, widened, shift, array.length);
+        return widened;
+    }
+
+    static <T> T[] widen(T[] array, int length, int shift) {
+        T[] widened = Arrays.copyOf(array, length);
+        if (shift > 0) {
+            Arrays.fill(widened, null);
+            System.arraycopy(array, 0, widened, shift, array.length);
+        }
+        return widened;
+    }
+}
@@ -0,0 +1,52 @@
+package com.dataanalysis.analytics;
+
+/**
+ * Mutable Kahan-compensated sum that performs the same operations as
+ * {@link java.util.stream.Collectors#summingDouble} and {@link java.util.stream.DoubleStream#sum()},
+ * so a hand-written aggregation returns bit-identical totals to the stream it replaces.
+ */
+final class CompensatedSum {
+    private double sum;
+    // Negated low-order bits lost from sum
+    private double compensation;
+    // Plain sum, used when the compensated one overflows to NaN
+    private double simpleSum;
+
+    /**
+     * Adds a value to the sum.
+     * @param value the value to add
+     */
+    void add(double value) {
+        addCompensated(value);
+        simpleSum += value;
+    }
+
+    /**
+     * Adds another partial sum to this one, like the combiner of {@code summingDouble}.
+     * @param other the partial sum to add; it is left unchanged
+     */
+    void merge(CompensatedSum other) {
+        addCompensated(other.sum);
+        simpleSum += other.simpleSum;
+        addCompensated(-other.compensation);
+    }
+
+    /**
+     * Returns the compensated sum of all values added so far.
+     * @return the sum, or the plain sum if the compensated one is NaN because of infinities
+     */
+    double sum() {
+        double result = sum - compensation;
+        if (Double.isNaN(result) && Double.isInfinite(simpleSum)) {
+            return simpleSum;
+        }
+        return result;
+    }
+
+    private void addCompensated(double value) {
+        double corrected = value - compensation;
+        double next = sum + corrected;
+        compensation = (next - sum) - corrected;
+        sum = next;
+    }
+}
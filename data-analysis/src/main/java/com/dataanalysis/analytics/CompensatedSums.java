@@ -0,0 +1,68 @@
+package com.dataanalysis.analytics;
+
+/**
+ * Resizable array of Kahan-compensated sums indexed like the arrays of a {@link CodeRange}, with the
+ * same arithmetic as {@link CompensatedSum} but without an object per sum.
+ */
+final class CompensatedSums {
+    // Per index: sum, negated low-order bits lost from sum, plain sum
+    private static final int SLOTS = 3;
+
+    private double[] slots = new double[0];
+
+    /**
+     * Resizes to the given number of sums, moving the existing ones up by shift indexes.
+     * @param size number of sums needed
+     * @param shift places the existing sums move up
+     */
+    void widen(int size, int shift) {
+        slots = CodeRange.widen(slots, size * SLOTS, shift * SLOTS);
+    }
+
+    /**
+     * Adds a value to one sum; the index must be below the size.
+     * @param index the sum to add to
+     * @param value the value to add
+     */
+    void add(int index, double value) {
+        int base = index * SLOTS;
+        addCompensated(base, value);
+        slots[base + 2] += value;
+    }
+
+    /**
+     * Adds a sum of another array to one sum, like the combiner of {@code summingDouble}.
+     * @param index the sum to add to
+     * @param other the other array, left unchanged
+     * @param otherIndex the sum to add from the other array
+     */
+    void merge(int index, CompensatedSums other, int otherIndex) {
+        int base = index * SLOTS;
+        int otherBase = otherIndex * SLOTS;
+        addCompensated(base, other.slots[otherBase]);
+        slots[base + 2] += other.slots[otherBase + 2];
+        addCompensated(base, -other.slots[otherBase + 1]);
+    }
+
+    /**
+     * Returns one compensated sum.
+     * @param index the sum to read
+     * @return the sum, or the plain sum if the compensated one is NaN because of infinities
+     */
+    double sum(int index) {
+        int base = index * SLOTS;
+        double result = slots[base] - slots[base + 1];
+        if (Double.isNaN(result) && Double.isInfinite(slots[base + 2])) {
+            return slots[base + 2];
+        }
+        return result;
+    }
+
+    private void addCompensated(int base, double value) {
+        double sum = slots[base];
+        double corrected = value - slots[base + 1];
+        double next = sum + corrected;
+        slots[base + 1] = (next - sum) - corrected;
+        slots[base] = next;
+    }
+}
@@ -0,0 +1,246 @@
+package com.dataanalysis.analytics;
+
+import com.dataanalysis.model.ValueDictionary;
+import com.dataanalysis.model.ValueLookup;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Sales totals per value of one dictionary-encoded column, kept in arrays indexed by code.
+ * Values are translated back to names only when the result maps are built.
+ * The dictionary is either private or shared, filled as values are met, or a read-only view of a
+ * {@link com.dataanalysis.model.SalesTable}'s, whose codes are used as they are; totals over the
+ * same dictionary merge index by index.
+ * A code counts as present once a line was added for it. Arrays cover only the {@link CodeRange}
+ * of the codes met, so totals over a chunk of a large table stay as small as the chunk.
+ */
+final class DimensionTotals {
+    private final ValueLookup dictionary;
+    // The same dictionary when values may be added, null over a table's codes
+    private final ValueDictionary growable;
+    private final CompensatedSums revenue = new CompensatedSums();
+    private final CodeRange codes = new CodeRange();
+    private long[] lineCounts = new long[0];
+    // Created on first use, so totals that only need revenue stay small
+    private CompensatedSums grossProfit;
+    private long[] units;
+
+    DimensionTotals() {
+        this(new ValueDictionary());
+    }
+
+    /**
+     * Creates totals that add the values they meet to a dictionary shared with other totals.
+     * @param dictionary the shared dictionary
+     */
+    DimensionTotals(ValueDictionary dictionary) {
+        this.dictionary = dictionary;
+        this.growable = dictionary;
+    }
+
+    /**
+     * Creates totals over the fixed codes of a table; values cannot be added.
+     * @param dictionary the table's dictionary whose codes are passed in
+     */
+    DimensionTotals(ValueLookup dictionary) {
+        this.dictionary = dictionary;
+        this.growable = null;
+    }
+
+    /**
+     * Returns the code of a value, adding it to the dictionary if it is new.
+     * @param value the column value
+     * @return its code
+     * @throws IllegalStateException if the totals are over a table's codes
+     */
+    int code(String value) {
+        if (growable == null) {
+            throw new IllegalStateException("Totals over a table's codes cannot add values");
+        }
+        return growable.encode(value);
+    }
+
+    /**
+     * Adds the amount of one line.
+     */
+    void add(int code, double amount) {
+        addLine(code, amount);
+    }
+
+    /**
+     * Adds the revenue and units of one line.
+     */
+    void add(int code, double netAmount, long lineUnits) {
+        int index = addLine(code, netAmount);
+        units()[index] += lineUnits;
+    }
+
+    /**
+     * Adds the gross profit and revenue of one line.
+     */
+    void addMargin(int code, double lineGrossProfit, double netAmount) {
+        int index = addLine(code, netAmount);
+        grossProfit().add(index, lineGrossProfit);
+    }
+
+    /**
+     * Returns whether any line was added for a code.
+     */
+    boolean contains(int code) {
+        return codes.covers(code) && lineCounts[codes.index(code)] > 0;
+    }
+
+    /**
+     * Returns the value of a code.
+     */
+    String decode(int code) {
+        return dictionary.decode(code);
+    }
+
+    /**
+     * Returns the summed amount of a present code.
+     */
+    double revenue(int code) {
+        return revenue.sum(codes.index(code));
+    }
+
+    /**
+     * Adds the totals of the lines that follow this object's lines.
+     * @param other totals over the same column, left unchanged
+     */
+    void merge(DimensionTotals other) {
+        boolean sameCodes = other.dictionary == dictionary;
+        for (int otherIndex = 0; otherIndex < other.lineCounts.length; otherIndex++) {
+            if (other.lineCounts[otherIndex] == 0) {
+                continue;
+            }
+            int otherCode = other.codes.first() + otherIndex;
+            int index = indexOf(sameCodes ? otherCode : code(other.dictionary.decode(otherCode)));
+            revenue.merge(index, other.revenue, otherIndex);
+            lineCounts[index] += other.lineCounts[otherIndex];
+            if (other.grossProfit != null) {
+                grossProfit().merge(index, other.grossProfit, otherIndex);
+            }
+            if (other.units != null) {
+                units()[index] += other.units[otherIndex];
+            }
+        }
+    }
+
+    /**
+     * Returns the present codes in the iteration order of the map {@code groupingBy} collects their
+     * values into: a {@code HashMap} filled in code order by {@code computeIfAbsent}, which puts each
+     * new key at the head of its bin rather than at the tail as {@code put} does.
+     * @return present codes
+     */
+    int[] codesInGroupingOrder() {
+        Map<String, Integer> present = new HashMap<>();
+        for (int index = 0; index < lineCounts.length; index++) {
+            if (lineCounts[index] > 0) {
+                int code = codes.first() + index;
+                present.computeIfAbsent(dictionary.decode(code), value -> code);
+            }
+        }
+        return present.values().stream().mapToInt(Integer::intValue).toArray();
+    }
+
+    /**
+     * Returns codes in the iteration order of a {@code HashMap} their values are put into in the
+     * given order, as {@code toMap} does with the entries of another map.
+     * @param codes codes in insertion order
+     * @return the codes in iteration order
+     */
+    int[] inHashOrder(int[] codes) {
+        Map<String, Integer> copy = new HashMap<>();
+        for (int code : codes) {
+            copy.put(dictionary.decode(code), code);
+        }
+        return copy.values().stream().mapToInt(Integer::intValue).toArray();
+    }
+
+    Map<String, Double> revenueByValue() {
+        Map<String, Double> result = new HashMap<>();
+        for (int index = 0; index < lineCounts.length; index++) {
+            if (lineCounts[index] > 0) {
+                result.put(dictionary.decode(codes.first() + index), revenue.sum(index));
+            }
+        }
+        return result;
+    }
+
+    Map<String, Double> grossProfitByValue() {
+        Map<String, Double> result = new HashMap<>();
+        for (int index = 0; index < lineCounts.length; index++) {
+            if (lineCounts[index] > 0) {
+                result.put(dictionary.decode(codes.first() + index), grossProfit().sum(index));
+            }
+        }
+        return result;
+    }
+
+    Map<String, Long> unitsByValue() {
+        Map<String, Long> result = new HashMap<>();
+        for (int index = 0; index < lineCounts.length; index++) {
+            if (lineCounts[index] > 0) {
+                result.put(dictionary.decode(codes.first() + index), units()[index]);
+            }
+        }
+        return result;
+    }
+
+    Map<String, Long> lineCountsByValue() {
+        Map<String, Long> result = new HashMap<>();
+        for (int index = 0; index < lineCounts.length; index++) {
+            if (lineCounts[index] > 0) {
+                result.put(dictionary.decode(codes.first() + index), lineCounts[index]);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Returns the number of codes the arrays are allocated for.
+     */
+    int capacity() {
+        return lineCounts.length;
+    }
+
+    private int addLine(int code, double amount) {
+        int index = indexOf(code);
+        revenue.add(index, amount);
+        lineCounts[index]++;
+        return index;
+    }
+
+    private int indexOf(int code) {
+        if (!codes.covers(code)) {
+            int shift = codes.widen(code);
+            int length = codes.length();
+            lineCounts = CodeRange.widen(lineCounts, length, shift);
+            revenue.widen(length, shift);
+            if (grossProfit != null) {
+                grossProfit.widen(length, shift);
+            }
+            if (units != null) {
+                units = CodeRange.widen(units, length, shift);
+            }
+        }
+        return codes.index(code);
+    }
+
+    private CompensatedSums grossProfit() {
+        if (grossProfit == null) {
+            grossProfit = new CompensatedSums();
+            grossProfit.widen(lineCounts.length, 0);
+        }
+        return grossProfit;
+    }
+
+    private long[] units() {
+        if (units == null) {
+            units = new long[lineCounts.length];
+        }
+        return units;
+    }
+}
@@ -0,0 +1,156 @@
+package com.dataanalysis.analytics;
+
+import com.dataanalysis.model.AgingSummary;
+import com.dataanalysis.model.InvoiceSummary;
+import com.dataanalysis.model.SalesDimension;
+import com.dataanalysis.model.SalesRecord;
+import com.dataanalysis.model.SalesTable;
+import com.dataanalysis.model.ValueDictionary;
+
+import java.time.LocalDate;
+import java.util.*;
+
+/**
+ * Totals invoice line items in a single pass for the {@link AgingSummary}. An invoice takes its
+ * due date and payment status from its first line item, as in
+ * {@link SalesAnalyticsService#calculateInvoiceSummaries}, but line items are not retained.
+ */
+public class InvoiceAccumulator implements SalesAccumulator<InvoiceAccumulator> {
+    private final SalesTable table;
+    private final DimensionTotals invoices;
+    // Due date (epoch day) and payment status of each invoice's first line, by index in firstLines
+    private final CodeRange firstLines = new CodeRange();
+    private int[] dueDays = new int[0];
+    private String[] paymentStatuses = new String[0];
+
+    /**
+     * Creates an accumulator for {@link SalesRecord}s.
+     */
+    public InvoiceAccumulator() {
+        this(new ValueDictionary());
+    }
+
+    /**
+     * Creates an accumulator for records that codes invoice ids through a dictionary shared with
+     * other accumulators fed the same records.
+     * @param invoiceDictionary the shared invoice id dictionary
+     */
+    InvoiceAccumulator(ValueDictionary invoiceDictionary) {
+        this.table = null;
+        this.invoices = new DimensionTotals(invoiceDictionary);
+    }
+
+    /**
+     * Creates an accumulator for rows of one table, aggregating by the table's invoice codes.
+     * @param table the table whose rows are fed
+     */
+    public InvoiceAccumulator(SalesTable table) {
+        this.table = Objects.requireNonNull(table, "table");
+        this.invoices = new DimensionTotals(table.invoiceDictionary());
+    }
+
+    @Override
+    public void accept(SalesRecord record) {
+        if (table != null) {
+            throw new IllegalStateException("Accumulator was created for table rows");
+        }
+        int invoice = invoices.code(record.invoiceId());
+        if (!invoices.contains(invoice)) {
+            setFirstLine(invoice, SalesTable.encodeDate(record.dueDate()), record.paymentStatus());
+        }
+        invoices.add(invoice, record.netAmount());
+    }
+
+    @Override
+    public void accept(SalesTable rows, int row) {
+        if (rows != table) {
+            throw new IllegalArgumentException("Rows must come from the table the accumulator was created for");
+        }
+        int invoice = rows.invoiceCode(row);
+        if (!invoices.contains(invoice)) {
+            setFirstLine(invoice, rows.dueDay(row), rows.dimension(SalesDimension.PAYMENT_STATUS, row));
+        }
+        invoices.add(invoice, rows.netAmount(row));
+    }
+
+    @Override
+    public void merge(InvoiceAccumulator other) {
+        // First lines of invoices this accumulator has not seen come from the later records. Codes
+        // are visited in order, so new record codes keep the order of first appearance
+        for (int otherIndex = 0; otherIndex < other.dueDays.length; otherIndex++) {
+            int otherInvoice = other.firstLines.first() + otherIndex;
+            if (!other.invoices.contains(otherInvoice)) {
+                continue;
+            }
+            int invoice = table != null ? otherInvoice : invoices.code(other.invoices.decode(otherInvoice));
+            if (!invoices.contains(invoice)) {
+                setFirstLine(invoice, other.dueDays[otherIndex], other.paymentStatuses[otherIndex]);
+            }
+        }
+        invoices.merge(other.invoices);
+    }
+
+    /**
+     * Builds the aging summary of the open invoices.
+     * @param asOfDate the reference date for the aging buckets
+     * @return the aging summary
+     */
+    public AgingSummary toAgingSummary(LocalDate asOfDate) {
+        CompensatedSum totalOutstandingAmount = new CompensatedSum();
+        Map<String, CompensatedSum> outstandingByBucket = new HashMap<>();
+        Map<String, Long> invoiceCountByBucket = new HashMap<>();
+        long openInvoices = 0;
+
+        // Visit invoices in the order of the summary map the stream implementation copied the
+        // grouped invoices into
+        for (int invoice : invoices.inHashOrder(invoices.codesInGroupingOrder())) {
+            int index = firstLines.index(invoice);
+            InvoiceSummary summary = new InvoiceSummary(
+                    invoices.decode(invoice),
+                    null,
+                    SalesTable.decodeDate(dueDays[index]),
+                    null,
+                    paymentStatuses[index],
+                    invoices.revenue(invoice),
+                    List.of()
+            );
+            double outstanding = summary.outstandingAmount();
+            if (outstanding > 0) {
+                String bucket = summary.agingBucket(asOfDate);
+                totalOutstandingAmount.add(outstanding);
+                outstandingByBucket.computeIfAbsent(bucket, b -> new CompensatedSum()).add(outstanding);
+                invoiceCountByBucket.merge(bucket, 1L, Long::sum);
+                openInvoices++;
+            }
+        }
+
+        Map<String, Double> outstandingAmountByBucket = new HashMap<>();
+        outstandingByBucket.forEach((bucket, sum) -> outstandingAmountByBucket.put(bucket, sum.sum()));
+
+        return new AgingSummary(
+                asOfDate,
+                totalOutstandingAmount.sum(),
+                openInvoices,
+                outstandingAmountByBucket,
+                invoiceCountByBucket
+        );
+    }
+
+    /**
+     * Returns the number of invoice codes the arrays are allocated for.
+     */
+    int capacity() {
+        return Math.max(dueDays.length, invoices.capacity());
+    }
+
+    private void setFirstLine(int invoice, int dueDay, String paymentStatus) {
+        if (!firstLines.covers(invoice)) {
+            int shift = firstLines.widen(invoice);
+            dueDays = CodeRange.widen(dueDays, firstLines.length(), shift);
+            paymentStatuses = CodeRange.widen(paymentStatuses, firstLines.length(), shift);
+        }
+        int index = firstLines.index(invoice);
+        dueDays[index] = dueDay;
+        paymentStatuses[index] = paymentStatus;
+    }
+}
@@ -0,0 +1,188 @@
+package com.dataanalysis.analytics;
+
+import com.dataanalysis.model.MarginSummary;
+import com.dataanalysis.model.SalesDimension;
+import com.dataanalysis.model.SalesRecord;
+import com.dataanalysis.model.SalesTable;
+
+import java.util.*;
+import java.util.stream.Collectors;
+
+/**
+ * Computes a {@link MarginSummary} in a single pass over the records.
+ * Fed the records in list order, the result equals the one of the per-aggregate stream pipelines.
+ * Products, categories and regions are aggregated into arrays indexed by dictionary code.
+ */
+public class MarginAccumulator implements SalesAccumulator<MarginAccumulator> {
+    private final SalesTable table;
+
+    private final CompensatedSum totalGrossProfit = new CompensatedSum();
+    private final CompensatedSum totalNetRevenue = new CompensatedSum();
+
+    private final DimensionTotals byProduct;
+    private final DimensionTotals byCategory;
+    private final DimensionTotals byRegion;
+    // Name of the first record seen for each product
+    private final Map<String, String> productNames = new HashMap<>();
+
+    /**
+     * Creates an accumulator for {@link SalesRecord}s.
+     */
+    public MarginAccumulator() {
+        this.table = null;
+        this.byProduct = new DimensionTotals();
+        this.byCategory = new DimensionTotals();
+        this.byRegion = new DimensionTotals();
+    }
+
+    /**
+     * Creates an accumulator for rows of one table, aggregating by the table's dictionary codes.
+     * @param table the table whose rows are fed
+     */
+    public MarginAccumulator(SalesTable table) {
+        this.table = Objects.requireNonNull(table, "table");
+        this.byProduct = new DimensionTotals(table.productDictionary());
+        this.byCategory = new DimensionTotals(table.dictionary(SalesDimension.PRODUCT_CATEGORY));
+        this.byRegion = new DimensionTotals(table.dictionary(SalesDimension.REGION));
+    }
+
+    @Override
+    public void accept(SalesRecord record) {
+        if (table != null) {
+            throw new IllegalStateException("Accumulator was created for table rows");
+        }
+        double netAmount = record.netAmount();
+        double grossProfit = record.grossProfit();
+
+        totalGrossProfit.add(grossProfit);
+        totalNetRevenue.add(netAmount);
+        byProduct.addMargin(byProduct.code(record.productId()), grossProfit, netAmount);
+        byCategory.addMargin(byCategory.code(record.productCategory()), grossProfit, netAmount);
+        byRegion.addMargin(byRegion.code(record.region()), grossProfit, netAmount);
+        productNames.putIfAbsent(record.productId(), record.productName());
+    }
+
+    @Override
+    public void accept(SalesTable rows, int row) {
+        if (rows != table) {
+            throw new IllegalArgumentException("Rows must come from the table the accumulator was created for");
+        }
+        double netAmount = rows.netAmount(row);
+        double grossProfit = rows.grossProfit(row);
+
+        totalGrossProfit.add(grossProfit);
+        totalNetRevenue.add(netAmount);
+        int product = rows.productCode(row);
+        if (!byProduct.contains(product)) {
+            productNames.put(byProduct.decode(product), rows.productName(row));
+        }
+        byProduct.addMargin(product, grossProfit, netAmount);
+        byCategory.addMargin(rows.code(SalesDimension.PRODUCT_CATEGORY, row), grossProfit, netAmount);
+        byRegion.addMargin(rows.code(SalesDimension.REGION, row), grossProfit, netAmount);
+    }
+
+    @Override
+    public void merge(MarginAccumulator other) {
+        totalGrossProfit.merge(other.totalGrossProfit);
+        totalNetRevenue.merge(other.totalNetRevenue);
+        byProduct.merge(other.byProduct);
+        byCategory.merge(other.byCategory);
+        byRegion.merge(other.byRegion);
+        other.productNames.forEach(productNames::putIfAbsent);
+    }
+
+    /**
+     * Builds the margin summary from the accumulated aggregates.
+     * @return the margin summary
+     */
+    public MarginSummary toSummary() {
+        double totalGrossProfit = this.totalGrossProfit.sum();
+        double totalNetRevenue = this.totalNetRevenue.sum();
+        double overallGrossMarginPercent = totalNetRevenue != 0 ?
+                (totalGrossProfit / totalNetRevenue) * 100 : 0.0;
+
+        Map<String, Double> grossProfitByProduct = byProduct.grossProfitByValue();
+        Map<String, Double> revenueByProduct = byProduct.revenueByValue();
+        Map<String, Double> grossMarginPercentByProduct = marginPercent(grossProfitByProduct, revenueByProduct);
+
+        Map<String, Double> grossProfitByCategory = byCategory.grossProfitByValue();
+        Map<String, Double> grossMarginPercentByCategory =
+                marginPercent(grossProfitByCategory, byCategory.revenueByValue());
+
+        Map<String, Double> grossProfitByRegion = byRegion.grossProfitByValue();
+        Map<String, Double> grossMarginPercentByRegion =
+                marginPercent(grossProfitByRegion, byRegion.revenueByValue());
+
+        // Product margin profiles
+        Map<String, MarginSummary.ProductMarginProfile> productMarginProfiles = new LinkedHashMap<>();
+
+        // Get top and bottom products by revenue and margin for classification
+        // Use top 40% by revenue, bottom 40% by margin for "High Revenue Low Margin"
+        // Use bottom 40% by revenue, top 40% by margin for "High Margin Low Revenue"
+        int topN = Math.max(1, (int)(revenueByProduct.size() * 0.4)); // Top 40%
+        int bottomN = Math.max(1, (int)(revenueByProduct.size() * 0.4)); // Bottom 40%
+
+        Map<String, Double> topProductsByRev = AggregationUtils.topN(revenueByProduct, topN);
+        Map<String, Double> bottomProductsByRev = revenueByProduct.entrySet().stream()
+                .sorted(Map.Entry.comparingByValue())
+                .limit(bottomN)
+                .collect(Collectors.toMap(Map.Entry::getKey, Map.Entry::getValue, (e1, e2) -> e1, LinkedHashMap::new));
+
+        Map<String, Double> topProductsByMargin = grossMarginPercentByProduct.entrySet().stream()
+                .sorted(Map.Entry.<String, Double>comparingByValue().reversed())
+                .limit(topN)
+                .collect(Collectors.toMap(Map.Entry::getKey, Map.Entry::getValue, (e1, e2) -> e1, LinkedHashMap::new));
+        Map<String, Double> bottomProductsByMargin = grossMarginPercentByProduct.entrySet().stream()
+                .sorted(Map.Entry.comparingByValue())
+                .limit(bottomN)
+                .collect(Collectors.toMap(Map.Entry::getKey, Map.Entry::getValue, (e1, e2) -> e1, LinkedHashMap::new));
+
+        for (String productId : grossProfitByProduct.keySet()) {
+            double profit = grossProfitByProduct.get(productId);
+            double revenue = revenueByProduct.get(productId);
+            double marginPercent = grossMarginPercentByProduct.get(productId);
+
+            // Classify profile: High Revenue Low Margin = top by revenue AND bottom by margin
+            // High Margin Low Revenue = bottom by revenue AND top by margin
+            String profile;
+            boolean isHighRevenue = topProductsByRev.containsKey(productId);
+            boolean isLowRevenue = bottomProductsByRev.containsKey(productId);
+            boolean isHighMargin = topProductsByMargin.containsKey(productId);
+            boolean isLowMargin = bottomProductsByMargin.containsKey(productId);
+
+            if (isHighRevenue && isLowMargin) {
+                profile = "High Revenue Low Margin";
+            } else if (isLowRevenue && isHighMargin) {
+                profile = "High Margin Low Revenue";
+            } else {
+                profile = "Balanced";
+            }
+
+            productMarginProfiles.put(productId, new MarginSummary.ProductMarginProfile(
+                    productId, productNames.get(productId), revenue, profit, marginPercent, profile
+            ));
+        }
+
+        return new MarginSummary(
+                totalGrossProfit,
+                overallGrossMarginPercent,
+                grossProfitByProduct,
+                grossMarginPercentByProduct,
+                grossProfitByCategory,
+                grossMarginPercentByCategory,
+                grossProfitByRegion,
+                grossMarginPercentByRegion,
+                productMarginProfiles
+        );
+    }
+
+    private static Map<String, Double> marginPercent(Map<String, Double> grossProfit, Map<String, Double> revenue) {
+        Map<String, Double> result = new LinkedHashMap<>();
+        for (String key : grossProfit.keySet()) {
+            double profit = grossProfit.get(key);
+            double keyRevenue = revenue.get(key);
+            result.put(key, keyRevenue != 0 ? (profit / keyRevenue) * 100 : 0.0);
+        }
+        return result;
+    }
+}
@@ -0,0 +1,249 @@
+package com.dataanalysis.analytics;
+
+import com.dataanalysis.model.RevenueSummary;
+import com.dataanalysis.model.SalesDimension;
+import com.dataanalysis.model.SalesRecord;
+import com.dataanalysis.model.SalesTable;
+import com.dataanalysis.model.ValueDictionary;
+import com.dataanalysis.util.DateUtils;
+
+import java.time.YearMonth;
+import java.util.*;
+
+/**
+ * Computes every aggregate of a {@link RevenueSummary} in a single pass over the records.
+ * Sums are Kahan-compensated exactly like {@code Collectors.summingDouble}, so fed the records
+ * in list order the result equals the one of the per-aggregate stream pipelines.
+ * Invoices, products and dimensions are aggregated into arrays indexed by dictionary code.
+ */
+public class RevenueAccumulator implements SalesAccumulator<RevenueAccumulator> {
+    private final SalesTable table;
+
+    private final CompensatedSum totalNetRevenue = new CompensatedSum();
+    private final CompensatedSum totalDiscountAmount = new CompensatedSum();
+    private final CompensatedSum totalRefundImpact = new CompensatedSum();
+    private long totalUnitsSold;
+
+    private final DimensionTotals byInvoice;
+    private final DimensionTotals byProduct;
+    private final DimensionTotals byCategory;
+    private final DimensionTotals byRegion;
+    private final DimensionTotals byCountry;
+    private final DimensionTotals byChannel;
+    private final DimensionTotals byCustomerSegment;
+    private final Map<YearMonth, GroupTotals> byMonth = new HashMap<>();
+
+    // Month of the last table row, as consecutive rows mostly share an invoice date
+    private int lastInvoiceDay = SalesTable.NO_DATE;
+    private GroupTotals lastMonth;
+
+    /**
+     * Creates an accumulator for {@link SalesRecord}s.
+     */
+    public RevenueAccumulator() {
+        this(new ValueDictionary());
+    }
+
+    /**
+     * Creates an accumulator for records that codes invoice ids through a dictionary shared with
+     * other accumulators fed the same records.
+     * @param invoiceDictionary the shared invoice id dictionary
+     */
+    RevenueAccumulator(ValueDictionary invoiceDictionary) {
+        this.table = null;
+        this.byInvoice = new DimensionTotals(invoiceDictionary);
+        this.byProduct = new DimensionTotals();
+        this.byCategory = new DimensionTotals();
+        this.byRegion = new DimensionTotals();
+        this.byCountry = new DimensionTotals();
+        this.byChannel = new DimensionTotals();
+        this.byCustomerSegment = new DimensionTotals();
+    }
+
+    /**
+     * Creates an accumulator for rows of one table, aggregating by the table's dictionary codes.
+     * @param table the table whose rows are fed
+     */
+    public RevenueAccumulator(SalesTable table) {
+        this.table = Objects.requireNonNull(table, "table");
+        this.byInvoice = new DimensionTotals(table.invoiceDictionary());
+        this.byProduct = new DimensionTotals(table.productDictionary());
+        this.byCategory = new DimensionTotals(table.dictionary(SalesDimension.PRODUCT_CATEGORY));
+        this.byRegion = new DimensionTotals(table.dictionary(SalesDimension.REGION));
+        this.byCountry = new DimensionTotals(table.dictionary(SalesDimension.COUNTRY));
+        this.byChannel = new DimensionTotals(table.dictionary(SalesDimension.CHANNEL));
+        this.byCustomerSegment = new DimensionTotals(table.dictionary(SalesDimension.CUSTOMER_SEGMENT));
+    }
+
+    @Override
+    public void accept(SalesRecord record) {
+        if (table != null) {
+            throw new IllegalStateException("Accumulator was created for table rows");
+        }
+        double netAmount = record.netAmount();
+        long units = record.isRefund() ? -record.quantity() : record.quantity();
+        addTotals(netAmount, units, record.discountAmount(), record.isRefund());
+
+        byInvoice.add(byInvoice.code(record.invoiceId()), netAmount);
+        byProduct.add(byProduct.code(record.productId()), netAmount, units);
+        byCategory.add(byCategory.code(record.productCategory()), netAmount, units);
+        byRegion.add(byRegion.code(record.region()), netAmount, units);
+        byCountry.add(byCountry.code(record.country()), netAmount, units);
+        byChannel.add(byChannel.code(record.channel()), netAmount, units);
+        byCustomerSegment.add(byCustomerSegment.code(record.customerSegment()), netAmount, units);
+        if (record.invoiceDate() != null) {
+            add(byMonth, DateUtils.toYearMonth(record.invoiceDate()), netAmount, units);
+        }
+    }
+
+    @Override
+    public void accept(SalesTable rows, int row) {
+        if (rows != table) {
+            throw new IllegalArgumentException("Rows must come from the table the accumulator was created for");
+        }
+        double netAmount = rows.netAmount(row);
+        long units = rows.units(row);
+        addTotals(netAmount, units, rows.discountAmount(row), rows.isRefund(row));
+
+        byInvoice.add(rows.invoiceCode(row), netAmount);
+        byProduct.add(rows.productCode(row), netAmount, units);
+        byCategory.add(rows.code(SalesDimension.PRODUCT_CATEGORY, row), netAmount, units);
+        byRegion.add(rows.code(SalesDimension.REGION, row), netAmount, units);
+        byCountry.add(rows.code(SalesDimension.COUNTRY, row), netAmount, units);
+        byChannel.add(rows.code(SalesDimension.CHANNEL, row), netAmount, units);
+        byCustomerSegment.add(rows.code(SalesDimension.CUSTOMER_SEGMENT, row), netAmount, units);
+        int invoiceDay = rows.invoiceDay(row);
+        if (invoiceDay != SalesTable.NO_DATE) {
+            if (invoiceDay != lastInvoiceDay) {
+                lastInvoiceDay = invoiceDay;
+                lastMonth = byMonth.computeIfAbsent(YearMonth.from(SalesTable.decodeDate(invoiceDay)),
+                        month -> new GroupTotals());
+            }
+            lastMonth.add(netAmount, units);
+        }
+    }
+
+    @Override
+    public void merge(RevenueAccumulator other) {
+        totalNetRevenue.merge(other.totalNetRevenue);
+        totalDiscountAmount.merge(other.totalDiscountAmount);
+        totalRefundImpact.merge(other.totalRefundImpact);
+        totalUnitsSold += other.totalUnitsSold;
+
+        byInvoice.merge(other.byInvoice);
+        byProduct.merge(other.byProduct);
+        byCategory.merge(other.byCategory);
+        byRegion.merge(other.byRegion);
+        byCountry.merge(other.byCountry);
+        byChannel.merge(other.byChannel);
+        byCustomerSegment.merge(other.byCustomerSegment);
+        other.byMonth.forEach((month, theirs) -> {
+            GroupTotals mine = byMonth.putIfAbsent(month, theirs);
+            if (mine != null) {
+                mine.revenue.merge(theirs.revenue);
+                mine.units += theirs.units;
+            }
+        });
+    }
+
+    /**
+     * Builds the revenue summary from the accumulated aggregates.
+     * @return the revenue summary
+     */
+    public RevenueSummary toSummary() {
+        double totalNetRevenue = this.totalNetRevenue.sum();
+        long totalUnitsSold = this.totalUnitsSold;
+
+        // Average order value: revenue per invoice, then average, in the order of a grouping map
+        int[] invoices = byInvoice.codesInGroupingOrder();
+        CompensatedSum invoiceRevenue = new CompensatedSum();
+        for (int invoice : invoices) {
+            invoiceRevenue.add(byInvoice.revenue(invoice));
+        }
+        double averageOrderValue = invoices.length == 0 ? 0.0 : invoiceRevenue.sum() / invoices.length;
+
+        double averageSellingPrice = totalUnitsSold != 0 ? totalNetRevenue / totalUnitsSold : 0.0;
+
+        Map<YearMonth, Double> revenueByMonth = new HashMap<>();
+        Map<YearMonth, Long> unitsByMonth = new HashMap<>();
+        byMonth.forEach((month, totals) -> {
+            revenueByMonth.put(month, totals.revenue.sum());
+            unitsByMonth.put(month, totals.units);
+        });
+
+        // Month-over-month changes
+        Map<YearMonth, Double> momRevenueChange = new LinkedHashMap<>();
+        Map<YearMonth, Double> momGrowthRate = new LinkedHashMap<>();
+        List<YearMonth> sortedMonths = new ArrayList<>(revenueByMonth.keySet());
+        Collections.sort(sortedMonths);
+
+        for (int i = 1; i < sortedMonths.size(); i++) {
+            YearMonth current = sortedMonths.get(i);
+            YearMonth previous = sortedMonths.get(i - 1);
+            double currentRevenue = revenueByMonth.get(current);
+            double previousRevenue = revenueByMonth.get(previous);
+            double change = currentRevenue - previousRevenue;
+            double growthRate = previousRevenue != 0 ? (change / previousRevenue) * 100 : 0.0;
+            momRevenueChange.put(current, change);
+            momGrowthRate.put(current, growthRate);
+        }
+
+        // Rolling 3-month average
+        Map<YearMonth, Double> rolling3MonthAverageRevenue = new LinkedHashMap<>();
+        for (int i = 2; i < sortedMonths.size(); i++) {
+            YearMonth current = sortedMonths.get(i);
+            double sum = revenueByMonth.get(sortedMonths.get(i - 2)) +
+                    revenueByMonth.get(sortedMonths.get(i - 1)) +
+                    revenueByMonth.get(current);
+            rolling3MonthAverageRevenue.put(current, sum / 3.0);
+        }
+
+        // Discounts and refunds
+        double totalDiscountAmount = this.totalDiscountAmount.sum();
+        double discountShareOfRevenue = totalNetRevenue != 0 ?
+                (totalDiscountAmount / (totalNetRevenue + totalDiscountAmount)) * 100 : 0.0;
+
+        return new RevenueSummary(
+                totalNetRevenue, totalUnitsSold, averageOrderValue, averageSellingPrice,
+                byProduct.revenueByValue(), byCategory.revenueByValue(), byRegion.revenueByValue(),
+                byCountry.revenueByValue(), byChannel.revenueByValue(), byCustomerSegment.revenueByValue(),
+                byProduct.unitsByValue(), byCategory.unitsByValue(), byRegion.unitsByValue(),
+                byChannel.unitsByValue(), byCustomerSegment.unitsByValue(),
+                byProduct.lineCountsByValue(), byCategory.lineCountsByValue(), byRegion.lineCountsByValue(),
+                byChannel.lineCountsByValue(), byCustomerSegment.lineCountsByValue(),
+                revenueByMonth, unitsByMonth, momRevenueChange, momGrowthRate, rolling3MonthAverageRevenue,
+                totalDiscountAmount, discountShareOfRevenue, totalRefundImpact.sum()
+        );
+    }
+
+    private void addTotals(double netAmount, long units, double discountAmount, boolean refund) {
+        totalNetRevenue.add(netAmount);
+        totalUnitsSold += units;
+        totalDiscountAmount.add(discountAmount);
+        if (refund) {
+            totalRefundImpact.add(netAmount);
+        }
+    }
+
+    private static void add(Map<YearMonth, GroupTotals> groups, YearMonth month, double revenue, long units) {
+        GroupTotals totals = groups.get(month);
+        if (totals == null) {
+            totals = new GroupTotals();
+            groups.put(month, totals);
+        }
+        totals.add(revenue, units);
+    }
+
+    /**
+     * Revenue and units of one month.
+     */
+    private static final class GroupTotals {
+        private final CompensatedSum revenue = new CompensatedSum();
+        private long units;
+
+        private void add(double amount, long lineUnits) {
+            revenue.add(amount);
+            units += lineUnits;
+        }
+    }
+}
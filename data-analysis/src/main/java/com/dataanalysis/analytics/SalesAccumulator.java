@@ -0,0 +1,34 @@
+package com.dataanalysis.analytics;
+
+import com.dataanalysis.model.SalesRecord;
+import com.dataanalysis.model.SalesTable;
+
+/**
+ * Aggregate built in one pass over sales records. Accumulators over consecutive chunks of the
+ * records can be merged, which lets {@link SalesAnalyticsService} aggregate chunks in parallel.
+ * An accumulator is fed either records or, if it was created for a {@link SalesTable}, rows of that
+ * table, which it aggregates by the table's dictionary codes.
+ * @param <A> the accumulator type itself
+ */
+public interface SalesAccumulator<A extends SalesAccumulator<A>> {
+
+    /**
+     * Adds one record to the aggregate.
+     * @param record the sales record
+     */
+    void accept(SalesRecord record);
+
+    /**
+     * Adds one table row to the aggregate.
+     * @param table the table the accumulator was created for
+     * @param row row index
+     */
+    void accept(SalesTable table, int row);
+
+    /**
+     * Adds the aggregate of the records that follow this accumulator's records.
+     * The other accumulator must not be used afterwards, as its groups may be taken over.
+     * @param other the accumulator to merge into this one
+     */
+    void merge(A other);
+}
@@ -1,209 +1,65 @@
 package com.dataanalysis.analytics;
 
 import com.dataanalysis.model.*;
-import com.dataanalysis.util.DateUtils;
 
 import java.time.LocalDate;
 import java.time.YearMonth;
 import java.util.*;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.IntUnaryOperator;
+import java.util.function.Supplier;
 import java.util.stream.Collectors;
-import java.util.stream.Stream;
 
 /**
  * Service for performing sales analytics using Java Streams and lambda expressions.
+ * Revenue, margin, aging and cash/accrual analyses run through single-pass accumulators; in parallel
+ * mode the records are split into chunks that fork/join tasks aggregate and merge in record order.
+ * Parallel results keep counts, units and keys exact, while amounts may differ from the sequential
+ * ones by rounding, within a relative 1e-9.
+ * Every analysis except the invoice summaries also takes a columnar {@link SalesTable}, with the
+ * same results as for the records the table was built from.
  */
 public class SalesAnalyticsService {
+    /** Records per fork/join task in parallel mode. */
+    public static final int DEFAULT_CHUNK_SIZE = 50_000;
+
+    private final ForkJoinPool pool;
+    private final int chunkSize;
 
     /**
-     * Calculates comprehensive revenue summary.
+     * Creates a service that runs every analysis on the calling thread.
      */
-    public RevenueSummary calculateRevenueSummary(List<SalesRecord> records) {
-        double totalNetRevenue = records.stream()
-                .mapToDouble(SalesRecord::netAmount)
-                .sum();
-
-        long totalUnitsSold = records.stream()
-                .mapToLong(r -> r.isRefund() ? -r.quantity() : r.quantity())
-                .sum();
-
-        // Average order value: revenue per invoice, then average
-        Map<String, Double> revenueByInvoice = records.stream()
-                .collect(Collectors.groupingBy(
-                        SalesRecord::invoiceId,
-                        Collectors.summingDouble(SalesRecord::netAmount)
-                ));
-        double averageOrderValue = revenueByInvoice.values().stream()
-                .mapToDouble(Double::doubleValue)
-                .average()
-                .orElse(0.0);
-
-        double averageSellingPrice = totalUnitsSold != 0 ? totalNetRevenue / totalUnitsSold : 0.0;
-
-        // Segmentation by product
-        Map<String, Double> revenueByProduct = records.stream()
-                .collect(Collectors.groupingBy(
-                        SalesRecord::productId,
-                        Collectors.summingDouble(SalesRecord::netAmount)
-                ));
-
-        Map<String, Double> revenueByCategory = records.stream()
-                .collect(Collectors.groupingBy(
-                        SalesRecord::productCategory,
-                        Collectors.summingDouble(SalesRecord::netAmount)
-                ));
-
-        Map<String, Double> revenueByRegion = records.stream()
-                .collect(Collectors.groupingBy(
-                        SalesRecord::region,
-                        Collectors.summingDouble(SalesRecord::netAmount)
-                ));
-
-        Map<String, Double> revenueByCountry = records.stream()
-                .collect(Collectors.groupingBy(
-                        SalesRecord::country,
-                        Collectors.summingDouble(SalesRecord::netAmount)
-                ));
-
-        Map<String, Double> revenueByChannel = records.stream()
-                .collect(Collectors.groupingBy(
-                        SalesRecord::channel,
-                        Collectors.summingDouble(SalesRecord::netAmount)
-                ));
-
-        Map<String, Double> revenueByCustomerSegment = records.stream()
-                .collect(Collectors.groupingBy(
-                        SalesRecord::customerSegment,
-                        Collectors.summingDouble(SalesRecord::netAmount)
-                ));
-
-        // Units by segment
-        Map<String, Long> unitsByProduct = records.stream()
-                .collect(Collectors.groupingBy(
-                        SalesRecord::productId,
-                        Collectors.summingLong(r -> r.isRefund() ? -r.quantity() : r.quantity())
-                ));
-
-        Map<String, Long> unitsByCategory = records.stream()
-                .collect(Collectors.groupingBy(
-                        SalesRecord::productCategory,
-                        Collectors.summingLong(r -> r.isRefund() ? -r.quantity() : r.quantity())
-                ));
-
-        Map<String, Long> unitsByRegion = records.stream()
-                .collect(Collectors.groupingBy(
-                        SalesRecord::region,
-                        Collectors.summingLong(r -> r.isRefund() ? -r.quantity() : r.quantity())
-                ));
-
-        Map<String, Long> unitsByChannel = records.stream()
-                .collect(Collectors.groupingBy(
-                        SalesRecord::channel,
-                        Collectors.summingLong(r -> r.isRefund() ? -r.quantity() : r.quantity())
-                ));
-
-        Map<String, Long> unitsByCustomerSegment = records.stream()
-                .collect(Collectors.groupingBy(
-                        SalesRecord::customerSegment,
-                        Collectors.summingLong(r -> r.isRefund() ? -r.quantity() : r.quantity())
-                ));
-
-        // Order counts by segment
-        Map<String, Long> orderCountByProduct = records.stream()
-                .collect(Collectors.groupingBy(
-                        SalesRecord::productId,
-                        Collectors.counting()
-                ));
-
-        Map<String, Long> orderCountByCategory = records.stream()
-                .collect(Collectors.groupingBy(
-                        SalesRecord::productCategory,
-                        Collectors.counting()
-                ));
-
-        Map<String, Long> orderCountByRegion = records.stream()
-                .collect(Collectors.groupingBy(
-                        SalesRecord::region,
-                        Collectors.counting()
-                ));
-
-        Map<String, Long> orderCountByChannel = records.stream()
-                .collect(Collectors.groupingBy(
-                        SalesRecord::channel,
-                        Collectors.counting()
-                ));
-
-        Map<String, Long> orderCountByCustomerSegment = records.stream()
-                .collect(Collectors.groupingBy(
-                        SalesRecord::customerSegment,
-                        Collectors.counting()
-                ));
-
-        // Time-based trends
-        Map<YearMonth, Double> revenueByMonth = records.stream()
-                .filter(r -> r.invoiceDate() != null)
-                .collect(Collectors.groupingBy(
-                        r -> DateUtils.toYearMonth(r.invoiceDate()),
-                        Collectors.summingDouble(SalesRecord::netAmount)
-                ));
-
-        Map<YearMonth, Long> unitsByMonth = records.stream()
-                .filter(r -> r.invoiceDate() != null)
-                .collect(Collectors.groupingBy(
-                        r -> DateUtils.toYearMonth(r.invoiceDate()),
-                        Collectors.summingLong(r -> r.isRefund() ? -r.quantity() : r.quantity())
-                ));
-
-        // Month-over-month changes
-        Map<YearMonth, Double> momRevenueChange = new LinkedHashMap<>();
-        Map<YearMonth, Double> momGrowthRate = new LinkedHashMap<>();
-        List<YearMonth> sortedMonths = revenueByMonth.keySet().stream()
-                .sorted()
-                .collect(Collectors.toList());
-
-        for (int i = 1; i < sortedMonths.size(); i++) {
-            YearMonth current = sortedMonths.get(i);
-            YearMonth previous = sortedMonths.get(i - 1);
-            double currentRevenue = revenueByMonth.get(current);
-            double previousRevenue = revenueByMonth.get(previous);
-            double change = currentRevenue - previousRevenue;
-            double growthRate = previousRevenue != 0 ? (change / previousRevenue) * 100 : 0.0;
-            momRevenueChange.put(current, change);
-            momGrowthRate.put(current, growthRate);
-        }
+    public SalesAnalyticsService() {
+        this.pool = null;
+        this.chunkSize = Integer.MAX_VALUE;
+    }
 
-        // Rolling 3-month average
-        Map<YearMonth, Double> rolling3MonthAverageRevenue = new LinkedHashMap<>();
-        for (int i = 2; i < sortedMonths.size(); i++) {
-            YearMonth current = sortedMonths.get(i);
-            double sum = revenueByMonth.get(sortedMonths.get(i - 2)) +
-                    revenueByMonth.get(sortedMonths.get(i - 1)) +
-                    revenueByMonth.get(current);
-            rolling3MonthAverageRevenue.put(current, sum / 3.0);
+    /**
+     * Creates a service that aggregates revenue, margin, aging and cash/accrual in parallel.
+     * @param pool the pool running the aggregation tasks
+     * @param chunkSize records aggregated per task
+     */
+    public SalesAnalyticsService(ForkJoinPool pool, int chunkSize) {
+        if (chunkSize < 1) {
+            throw new IllegalArgumentException("Chunk size must be at least 1, but was: " + chunkSize);
         }
+        this.pool = Objects.requireNonNull(pool, "pool");
+        this.chunkSize = chunkSize;
+    }
 
-        // Discounts and refunds
-        double totalDiscountAmount = records.stream()
-                .mapToDouble(SalesRecord::discountAmount)
-                .sum();
-
-        double discountShareOfRevenue = totalNetRevenue != 0 ?
-                (totalDiscountAmount / (totalNetRevenue + totalDiscountAmount)) * 100 : 0.0;
-
-        double totalRefundImpact = records.stream()
-                .filter(SalesRecord::isRefund)
-                .mapToDouble(SalesRecord::netAmount)
-                .sum();
+    /**
+     * Creates a parallel service on the common fork/join pool.
+     * @return service using all available cores
+     */
+    public static SalesAnalyticsService parallel() {
+        return new SalesAnalyticsService(ForkJoinPool.commonPool(), DEFAULT_CHUNK_SIZE);
+    }
 
-        return new RevenueSummary(
-                totalNetRevenue, totalUnitsSold, averageOrderValue, averageSellingPrice,
-                revenueByProduct, revenueByCategory, revenueByRegion, revenueByCountry,
-                revenueByChannel, revenueByCustomerSegment,
-                unitsByProduct, unitsByCategory, unitsByRegion, unitsByChannel, unitsByCustomerSegment,
-                orderCountByProduct, orderCountByCategory, orderCountByRegion, orderCountByChannel,
-                orderCountByCustomerSegment,
-                revenueByMonth, unitsByMonth, momRevenueChange, momGrowthRate, rolling3MonthAverageRevenue,
-                totalDiscountAmount, discountShareOfRevenue, totalRefundImpact
-        );
+    /**
+     * Calculates comprehensive revenue summary in a single pass over the records.
+     */
+    public RevenueSummary calculateRevenueSummary(List<SalesRecord> records) {
+        return aggregate(records, RevenueAccumulator::new).toSummary();
     }
 
     /**
@@ -247,26 +103,7 @@ public class SalesAnalyticsService {
      * @return map with "accrual" and "cash" keys, each containing a map of YearMonth to revenue
      */
     public Map<String, Map<YearMonth, Double>> cashVsAccrualRevenue(List<SalesRecord> records) {
-        // Accrual view: group by invoice_date
-        Map<YearMonth, Double> accrualRevenue = records.stream()
-                .filter(r -> r.invoiceDate() != null)
-                .collect(Collectors.groupingBy(
-                        r -> DateUtils.toYearMonth(r.invoiceDate()),
-                        Collectors.summingDouble(SalesRecord::netAmount)
-                ));
-
-        // Cash view: group by payment_date for paid invoices
-        Map<YearMonth, Double> cashRevenue = records.stream()
-                .filter(r -> r.isPaid() && r.paymentDate() != null)
-                .collect(Collectors.groupingBy(
-                        r -> DateUtils.toYearMonth(r.paymentDate()),
-                        Collectors.summingDouble(SalesRecord::netAmount)
-                ));
-
-        Map<String, Map<YearMonth, Double>> result = new LinkedHashMap<>();
-        result.put("accrual", accrualRevenue);
-        result.put("cash", cashRevenue);
-        return result;
+        return aggregate(records, CashAccrualAccumulator::new).toRevenueViews();
     }
 
     /**
@@ -301,185 +138,108 @@ public class SalesAnalyticsService {
      * Calculates aging summary for open invoices.
      */
     public AgingSummary calculateAgingSummary(List<SalesRecord> records, LocalDate asOfDate) {
-        Map<String, InvoiceSummary> invoices = calculateInvoiceSummaries(records);
-
-        // Filter open invoices
-        List<InvoiceSummary> openInvoices = invoices.values().stream()
-                .filter(inv -> inv.outstandingAmount() > 0)
-                .collect(Collectors.toList());
-
-        double totalOutstandingAmount = openInvoices.stream()
-                .mapToDouble(InvoiceSummary::outstandingAmount)
-                .sum();
-
-        // Group by aging bucket
-        Map<String, Double> outstandingAmountByBucket = openInvoices.stream()
-                .collect(Collectors.groupingBy(
-                        inv -> inv.agingBucket(asOfDate),
-                        Collectors.summingDouble(InvoiceSummary::outstandingAmount)
-                ));
-
-        Map<String, Long> invoiceCountByBucket = openInvoices.stream()
-                .collect(Collectors.groupingBy(
-                        inv -> inv.agingBucket(asOfDate),
-                        Collectors.counting()
-                ));
-
-        return new AgingSummary(
-                asOfDate,
-                totalOutstandingAmount,
-                openInvoices.size(),
-                outstandingAmountByBucket,
-                invoiceCountByBucket
-        );
+        return aggregate(records, InvoiceAccumulator::new).toAgingSummary(asOfDate);
     }
 
     /**
      * Calculates profitability and margin summary.
      */
     public MarginSummary calculateMarginSummary(List<SalesRecord> records) {
-        double totalGrossProfit = records.stream()
-                .mapToDouble(SalesRecord::grossProfit)
-                .sum();
-
-        double totalNetRevenue = records.stream()
-                .mapToDouble(SalesRecord::netAmount)
-                .sum();
-
-        double overallGrossMarginPercent = totalNetRevenue != 0 ?
-                (totalGrossProfit / totalNetRevenue) * 100 : 0.0;
-
-        // Gross profit by product
-        Map<String, Double> grossProfitByProduct = records.stream()
-                .collect(Collectors.groupingBy(
-                        SalesRecord::productId,
-                        Collectors.summingDouble(SalesRecord::grossProfit)
-                ));
-
-        Map<String, Double> revenueByProduct = records.stream()
-                .collect(Collectors.groupingBy(
-                        SalesRecord::productId,
-                        Collectors.summingDouble(SalesRecord::netAmount)
-                ));
-
-        Map<String, Double> grossMarginPercentByProduct = new LinkedHashMap<>();
-        for (String productId : grossProfitByProduct.keySet()) {
-            double profit = grossProfitByProduct.get(productId);
-            double revenue = revenueByProduct.get(productId);
-            double marginPercent = revenue != 0 ? (profit / revenue) * 100 : 0.0;
-            grossMarginPercentByProduct.put(productId, marginPercent);
-        }
+        return aggregate(records, MarginAccumulator::new).toSummary();
+    }
 
-        // Gross profit by category
-        Map<String, Double> grossProfitByCategory = records.stream()
-                .collect(Collectors.groupingBy(
-                        SalesRecord::productCategory,
-                        Collectors.summingDouble(SalesRecord::grossProfit)
-                ));
+    /**
+     * Calculates comprehensive revenue summary in a single pass over the table.
+     */
+    public RevenueSummary calculateRevenueSummary(SalesTable table) {
+        return aggregate(table, () -> new RevenueAccumulator(table)).toSummary();
+    }
 
-        Map<String, Double> revenueByCategory = records.stream()
-                .collect(Collectors.groupingBy(
-                        SalesRecord::productCategory,
-                        Collectors.summingDouble(SalesRecord::netAmount)
-                ));
+    /**
+     * Gets top N products of the table by revenue.
+     */
+    public Map<String, Double> topProductsByRevenue(SalesTable table, int topN) {
+        return AggregationUtils.topN(revenueByCode(table, table.productDictionary(), table::productCode), topN);
+    }
 
-        Map<String, Double> grossMarginPercentByCategory = new LinkedHashMap<>();
-        for (String category : grossProfitByCategory.keySet()) {
-            double profit = grossProfitByCategory.get(category);
-            double revenue = revenueByCategory.get(category);
-            double marginPercent = revenue != 0 ? (profit / revenue) * 100 : 0.0;
-            grossMarginPercentByCategory.put(category, marginPercent);
-        }
+    /**
+     * Gets top N customers of the table by revenue.
+     */
+    public Map<String, Double> topCustomersByRevenue(SalesTable table, int topN) {
+        return AggregationUtils.topN(revenueByCode(table, table.customerDictionary(), table::customerCode), topN);
+    }
 
-        // Gross profit by region
-        Map<String, Double> grossProfitByRegion = records.stream()
-                .collect(Collectors.groupingBy(
-                        SalesRecord::region,
-                        Collectors.summingDouble(SalesRecord::grossProfit)
-                ));
+    /**
+     * Gets top N regions of the table by revenue.
+     */
+    public Map<String, Double> topRegionsByRevenue(SalesTable table, int topN) {
+        return AggregationUtils.topN(revenueByCode(table, table.dictionary(SalesDimension.REGION),
+                row -> table.code(SalesDimension.REGION, row)), topN);
+    }
 
-        Map<String, Double> revenueByRegion = records.stream()
-                .collect(Collectors.groupingBy(
-                        SalesRecord::region,
-                        Collectors.summingDouble(SalesRecord::netAmount)
-                ));
+    /**
+     * Calculates cash vs accrual revenue view of the table.
+     * @return map with "accrual" and "cash" keys, each containing a map of YearMonth to revenue
+     */
+    public Map<String, Map<YearMonth, Double>> cashVsAccrualRevenue(SalesTable table) {
+        return aggregate(table, () -> new CashAccrualAccumulator(table)).toRevenueViews();
+    }
 
-        Map<String, Double> grossMarginPercentByRegion = new LinkedHashMap<>();
-        for (String region : grossProfitByRegion.keySet()) {
-            double profit = grossProfitByRegion.get(region);
-            double revenue = revenueByRegion.get(region);
-            double marginPercent = revenue != 0 ? (profit / revenue) * 100 : 0.0;
-            grossMarginPercentByRegion.put(region, marginPercent);
-        }
+    /**
+     * Calculates aging summary for the open invoices of the table.
+     */
+    public AgingSummary calculateAgingSummary(SalesTable table, LocalDate asOfDate) {
+        return aggregate(table, () -> new InvoiceAccumulator(table)).toAgingSummary(asOfDate);
+    }
 
-        // Product margin profiles
-        Map<String, MarginSummary.ProductMarginProfile> productMarginProfiles = new LinkedHashMap<>();
-        
-        // Get top and bottom products by revenue and margin for classification
-        // Use top 40% by revenue, bottom 40% by margin for "High Revenue Low Margin"
-        // Use bottom 40% by revenue, top 40% by margin for "High Margin Low Revenue"
-        int topN = Math.max(1, (int)(revenueByProduct.size() * 0.4)); // Top 40%
-        int bottomN = Math.max(1, (int)(revenueByProduct.size() * 0.4)); // Bottom 40%
-        
-        Map<String, Double> topProductsByRev = AggregationUtils.topN(revenueByProduct, topN);
-        Map<String, Double> bottomProductsByRev = revenueByProduct.entrySet().stream()
-                .sorted(Map.Entry.comparingByValue())
-                .limit(bottomN)
-                .collect(Collectors.toMap(Map.Entry::getKey, Map.Entry::getValue, (e1, e2) -> e1, LinkedHashMap::new));
-        
-        Map<String, Double> topProductsByMargin = grossMarginPercentByProduct.entrySet().stream()
-                .sorted(Map.Entry.<String, Double>comparingByValue().reversed())
-                .limit(topN)
-                .collect(Collectors.toMap(Map.Entry::getKey, Map.Entry::getValue, (e1, e2) -> e1, LinkedHashMap::new));
-        Map<String, Double> bottomProductsByMargin = grossMarginPercentByProduct.entrySet().stream()
-                .sorted(Map.Entry.comparingByValue())
-                .limit(bottomN)
-                .collect(Collectors.toMap(Map.Entry::getKey, Map.Entry::getValue, (e1, e2) -> e1, LinkedHashMap::new));
-        
-        for (String productId : grossProfitByProduct.keySet()) {
-            double profit = grossProfitByProduct.get(productId);
-            double revenue = revenueByProduct.get(productId);
-            double marginPercent = revenue != 0 ? (profit / revenue) * 100 : 0.0;
+    /**
+     * Calculates profitability and margin summary of the table.
+     */
+    public MarginSummary calculateMarginSummary(SalesTable table) {
+        return aggregate(table, () -> new MarginAccumulator(table)).toSummary();
+    }
 
-            // Find product name
-            String productName = records.stream()
-                    .filter(r -> r.productId().equals(productId))
-                    .findFirst()
-                    .map(SalesRecord::productName)
-                    .orElse("Unknown");
+    /**
+     * Feeds the records into accumulators, one per chunk when running in parallel.
+     */
+    private <A extends SalesAccumulator<A>> A aggregate(List<SalesRecord> records, Supplier<A> factory) {
+        return aggregate(records.size(), factory, (accumulator, from, to) -> {
+            for (int i = from; i < to; i++) {
+                accumulator.accept(records.get(i));
+            }
+        });
+    }
 
-            // Classify profile: High Revenue Low Margin = top by revenue AND bottom by margin
-            // High Margin Low Revenue = bottom by revenue AND top by margin
-            String profile;
-            boolean isHighRevenue = topProductsByRev.containsKey(productId);
-            boolean isLowRevenue = bottomProductsByRev.containsKey(productId);
-            boolean isHighMargin = topProductsByMargin.containsKey(productId);
-            boolean isLowMargin = bottomProductsByMargin.containsKey(productId);
-            
-            if (isHighRevenue && isLowMargin) {
-                profile = "High Revenue Low Margin";
-            } else if (isLowRevenue && isHighMargin) {
-                profile = "High Margin Low Revenue";
-            } else {
-                profile = "Balanced";
+    /**
+     * Feeds the table rows into accumulators, one per chunk when running in parallel.
+     */
+    private <A extends SalesAccumulator<A>> A aggregate(SalesTable table, Supplier<A> factory) {
+        return aggregate(table.size(), factory, (accumulator, from, to) -> {
+            for (int row = from; row < to; row++) {
+                accumulator.accept(table, row);
             }
+        });
+    }
 
-            productMarginProfiles.put(productId, new MarginSummary.ProductMarginProfile(
-                    productId, productName, revenue, profit, marginPercent, profile
-            ));
+    private <A extends SalesAccumulator<A>> A aggregate(int size, Supplier<A> factory,
+                                                         AggregationTask.Feeder<A> feeder) {
+        if (pool == null || size <= chunkSize) {
+            A accumulator = factory.get();
+            feeder.feed(accumulator, 0, size);
+            return accumulator;
         }
+        return pool.invoke(new AggregationTask<>(feeder, 0, size, chunkSize, factory));
+    }
 
-        return new MarginSummary(
-                totalGrossProfit,
-                overallGrossMarginPercent,
-                grossProfitByProduct,
-                grossMarginPercentByProduct,
-                grossProfitByCategory,
-                grossMarginPercentByCategory,
-                grossProfitByRegion,
-                grossMarginPercentByRegion,
-                productMarginProfiles
-        );
+    /**
+     * Sums net amounts by the code of one column, keyed like the {@code groupingBy} of the record methods.
+     */
+    private static Map<String, Double> revenueByCode(SalesTable table, ValueLookup dictionary,
+                                                     IntUnaryOperator codeOfRow) {
+        DimensionTotals totals = new DimensionTotals(dictionary);
+        for (int row = 0; row < table.size(); row++) {
+            totals.add(codeOfRow.applyAsInt(row), table.netAmount(row));
+        }
+        return totals.revenueByValue();
     }
 }
-
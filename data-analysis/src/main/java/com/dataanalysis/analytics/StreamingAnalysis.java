@@ -0,0 +1,102 @@
+package com.dataanalysis.analytics;
+
+import com.dataanalysis.model.AgingSummary;
+import com.dataanalysis.model.MarginSummary;
+import com.dataanalysis.model.RevenueSummary;
+import com.dataanalysis.model.SalesRecord;
+import com.dataanalysis.model.ValueDictionary;
+
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.util.Map;
+import java.util.function.Consumer;
+
+/**
+ * Runs the analyses of the analyze report over a stream of records, such as
+ * {@link com.dataanalysis.loader.CsvSalesLoader#forEach}, without keeping the records.
+ * Memory grows with the number of distinct invoices, customers, products and months, not with
+ * the number of records. Fed the records in file order, every result equals the one of
+ * {@link SalesAnalyticsService} on the loaded list.
+ */
+public class StreamingAnalysis implements Consumer<SalesRecord> {
+    // Invoice ids are the largest dictionary, so revenue and aging share one
+    private final ValueDictionary invoiceDictionary = new ValueDictionary();
+    private final RevenueAccumulator revenue = new RevenueAccumulator(invoiceDictionary);
+    private final CashAccrualAccumulator cashAccrual = new CashAccrualAccumulator();
+    private final InvoiceAccumulator invoices = new InvoiceAccumulator(invoiceDictionary);
+    private final MarginAccumulator margin = new MarginAccumulator();
+    private final DimensionTotals byCustomer = new DimensionTotals();
+    private long recordCount;
+
+    @Override
+    public void accept(SalesRecord record) {
+        revenue.accept(record);
+        cashAccrual.accept(record);
+        invoices.accept(record);
+        margin.accept(record);
+        byCustomer.add(byCustomer.code(record.customerId()), record.netAmount());
+        recordCount++;
+    }
+
+    /**
+     * Returns the number of records fed so far.
+     * @return record count
+     */
+    public long getRecordCount() {
+        return recordCount;
+    }
+
+    /**
+     * Builds the revenue summary of the records fed so far.
+     * @return the revenue summary
+     */
+    public RevenueSummary revenueSummary() {
+        return revenue.toSummary();
+    }
+
+    /**
+     * Gets top N products by revenue.
+     */
+    public Map<String, Double> topProductsByRevenue(int topN) {
+        return AggregationUtils.topN(revenue.toSummary().revenueByProduct(), topN);
+    }
+
+    /**
+     * Gets top N customers by revenue.
+     */
+    public Map<String, Double> topCustomersByRevenue(int topN) {
+        return AggregationUtils.topN(byCustomer.revenueByValue(), topN);
+    }
+
+    /**
+     * Gets top N regions by revenue.
+     */
+    public Map<String, Double> topRegionsByRevenue(int topN) {
+        return AggregationUtils.topN(revenue.toSummary().revenueByRegion(), topN);
+    }
+
+    /**
+     * Builds the cash vs accrual revenue view.
+     * @return map with "accrual" and "cash" keys, each containing a map of YearMonth to revenue
+     */
+    public Map<String, Map<YearMonth, Double>> cashVsAccrualRevenue() {
+        return cashAccrual.toRevenueViews();
+    }
+
+    /**
+     * Builds the aging summary of the open invoices.
+     * @param asOfDate the reference date for the aging buckets
+     * @return the aging summary
+     */
+    public AgingSummary agingSummary(LocalDate asOfDate) {
+        return invoices.toAgingSummary(asOfDate);
+    }
+
+    /**
+     * Builds the margin summary.
+     * @return the margin summary
+     */
+    public MarginSummary marginSummary() {
+        return margin.toSummary();
+    }
+}
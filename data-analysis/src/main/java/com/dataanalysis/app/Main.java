@@ -1,18 +1,19 @@
 package com.dataanalysis.app;
 
 import com.dataanalysis.analytics.SalesAnalyticsService;
+import com.dataanalysis.analytics.StreamingAnalysis;
 import com.dataanalysis.generator.CsvDataGenerator;
 import com.dataanalysis.loader.CsvSalesLoader;
 import com.dataanalysis.model.AgingSummary;
 import com.dataanalysis.model.MarginSummary;
 import com.dataanalysis.model.RevenueSummary;
+import com.dataanalysis.model.SalesTable;
 import com.dataanalysis.report.ConsoleReporter;
 import com.dataanalysis.util.DateUtils;
 
 import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.time.LocalDate;
-import java.util.List;
 import java.util.Map;
 import java.util.logging.Level;
 import java.util.logging.Logger;
@@ -54,8 +55,10 @@ public class Main {
         System.out.println("    Example: generate 5000 data/sales.csv");
         System.out.println();
         System.out.println("  Analyze sales data:");
-        System.out.println("    java -cp out com.dataanalysis.app.Main analyze [inputPath] [--asOfDate=YYYY-MM-DD]");
+        System.out.println("    java -cp out com.dataanalysis.app.Main analyze [inputPath] [--asOfDate=YYYY-MM-DD] [--parallel | --streaming]");
         System.out.println("    Example: analyze data/sales.csv --asOfDate=2025-01-31");
+        System.out.println("    Example: analyze data/sales.csv --parallel  (aggregates on all cores)");
+        System.out.println("    Example: analyze data/sales.csv --streaming  (reads the file once without loading it)");
         System.out.println("    Example: analyze --asOfDate=2025-01-31  (uses default: data/sales.csv)");
         System.out.println("    Example: analyze  (uses default: data/sales.csv)");
     }
@@ -79,6 +82,8 @@ public class Main {
     private static void handleAnalyze(String[] args) throws Exception {
         Path inputPath = null;
         LocalDate asOfDate = LocalDate.now();
+        boolean parallel = false;
+        boolean streaming = false;
 
         // Parse arguments - CSV path can be first argument or after --asOfDate
         for (int i = 1; i < args.length; i++) {
@@ -89,6 +94,10 @@ public class Main {
                     logger.severe("Error: Invalid date format. Use YYYY-MM-DD");
                     System.exit(1);
                 }
+            } else if ("--parallel".equals(args[i])) {
+                parallel = true;
+            } else if ("--streaming".equals(args[i])) {
+                streaming = true;
             } else if (!args[i].startsWith("--")) {
                 // This is the CSV path (first non-option argument)
                 if (inputPath == null) {
@@ -103,31 +112,57 @@ public class Main {
             logger.info("No CSV path provided, using default: " + inputPath);
         }
 
+        if (streaming) {
+            if (parallel) {
+                logger.warning("Ignoring --parallel: streaming mode aggregates on one thread");
+            }
+            analyzeStreaming(inputPath, asOfDate);
+            return;
+        }
+
         logger.info("Loading sales data from: " + inputPath);
         CsvSalesLoader loader = new CsvSalesLoader();
-        List<com.dataanalysis.model.SalesRecord> records = loader.load(inputPath);
+        SalesTable table = loader.loadTable(inputPath);
 
-        if (records.isEmpty()) {
+        if (table.size() == 0) {
             logger.severe("Error: No valid records found in CSV file");
             System.exit(1);
         }
 
         logger.info("Performing analytics...");
-        SalesAnalyticsService analytics = new SalesAnalyticsService();
+        SalesAnalyticsService analytics = parallel ? SalesAnalyticsService.parallel() : new SalesAnalyticsService();
 
         // Calculate all analytics
-        RevenueSummary revenueSummary = analytics.calculateRevenueSummary(records);
-        Map<String, Double> topProducts = analytics.topProductsByRevenue(records, 5);
-        Map<String, Double> topCustomers = analytics.topCustomersByRevenue(records, 5);
-        Map<String, Double> topRegions = analytics.topRegionsByRevenue(records, 10);
-        Map<String, Map<java.time.YearMonth, Double>> cashVsAccrual = analytics.cashVsAccrualRevenue(records);
-        AgingSummary agingSummary = analytics.calculateAgingSummary(records, asOfDate);
-        MarginSummary marginSummary = analytics.calculateMarginSummary(records);
+        RevenueSummary revenueSummary = analytics.calculateRevenueSummary(table);
+        Map<String, Double> topProducts = analytics.topProductsByRevenue(table, 5);
+        Map<String, Double> topCustomers = analytics.topCustomersByRevenue(table, 5);
+        Map<String, Double> topRegions = analytics.topRegionsByRevenue(table, 10);
+        Map<String, Map<java.time.YearMonth, Double>> cashVsAccrual = analytics.cashVsAccrualRevenue(table);
+        AgingSummary agingSummary = analytics.calculateAgingSummary(table, asOfDate);
+        MarginSummary marginSummary = analytics.calculateMarginSummary(table);
 
         // Print report
         ConsoleReporter reporter = new ConsoleReporter();
         reporter.printReport(revenueSummary, topProducts, topCustomers, topRegions,
                 cashVsAccrual, agingSummary, marginSummary);
     }
-}
 
+    /**
+     * Feeds the file line by line into the accumulators, so files larger than the heap can be analyzed.
+     */
+    private static void analyzeStreaming(Path inputPath, LocalDate asOfDate) throws Exception {
+        logger.info("Streaming sales data from: " + inputPath);
+        StreamingAnalysis analysis = new StreamingAnalysis();
+        new CsvSalesLoader().forEach(inputPath, analysis);
+
+        if (analysis.getRecordCount() == 0) {
+            logger.severe("Error: No valid records found in CSV file");
+            System.exit(1);
+        }
+
+        ConsoleReporter reporter = new ConsoleReporter();
+        reporter.printReport(analysis.revenueSummary(), analysis.topProductsByRevenue(5),
+                analysis.topCustomersByRevenue(5), analysis.topRegionsByRevenue(10),
+                analysis.cashVsAccrualRevenue(), analysis.agingSummary(asOfDate), analysis.marginSummary());
+    }
+}
@@ -1,23 +1,42 @@
 package com.dataanalysis.loader;
 
+import com.dataanalysis.model.SalesDictionaries;
+import com.dataanalysis.model.SalesDimension;
 import com.dataanalysis.model.SalesRecord;
+import com.dataanalysis.model.SalesTable;
 import com.dataanalysis.util.DateUtils;
 
+import java.io.BufferedReader;
 import java.io.IOException;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Objects;
+import java.util.function.Consumer;
 import java.util.logging.Level;
 import java.util.logging.Logger;
-import java.util.stream.Stream;
 
 /**
  * Loads and parses sales data from CSV files.
+ * Values of the {@link SalesDimension} columns are interned through per-column dictionaries, so all
+ * records loaded by one loader share a single String instance per distinct value.
  */
 public class CsvSalesLoader {
     private static final Logger logger = Logger.getLogger(CsvSalesLoader.class.getName());
 
+    private static final int MAX_LOGGED_ERRORS = 100;
+
+    private final SalesDictionaries dictionaries = new SalesDictionaries();
+
+    /**
+     * Returns the dimension dictionaries filled by the files loaded so far.
+     * @return the dictionaries, with codes in order of first appearance
+     */
+    public SalesDictionaries getDictionaries() {
+        return dictionaries;
+    }
+
     /**
      * Loads sales records from a CSV file.
      * @param csvPath path to the CSV file
@@ -25,33 +44,72 @@ public class CsvSalesLoader {
      * @throws IOException if file reading fails
      */
     public List<SalesRecord> load(Path csvPath) throws IOException {
-        logger.info("Loading sales data from: " + csvPath);
         List<SalesRecord> records = new ArrayList<>();
+        forEach(csvPath, records::add);
+        return records;
+    }
+
+    /**
+     * Loads sales records from a CSV file into a columnar table, without keeping the records.
+     * The table's dimension columns are coded by this loader's dictionaries as of the end of the
+     * load; the table keeps a copy, so later loads do not change it.
+     * @param csvPath path to the CSV file
+     * @return table of the parsed rows
+     * @throws IOException if file reading fails
+     */
+    public SalesTable loadTable(Path csvPath) throws IOException {
+        SalesTable.Builder builder = new SalesTable.Builder(dictionaries);
+        forEach(csvPath, builder::add);
+        return builder.build();
+    }
+
+    /**
+     * Streams the valid records of a CSV file to an action, one line at a time and in file order,
+     * so memory use does not grow with the file size. Invalid rows are skipped and logged.
+     * @param csvPath path to the CSV file
+     * @param action receives each parsed record
+     * @return number of records passed to the action
+     * @throws IOException if file reading fails
+     */
+    public long forEach(Path csvPath, Consumer<? super SalesRecord> action) throws IOException {
+        Objects.requireNonNull(action, "action");
+        logger.info("Loading sales data from: " + csvPath);
+        long loaded = 0;
+        long skipped = 0;
+        // Only the first invalid rows are kept for the log
         List<String> errors = new ArrayList<>();
 
-        try (Stream<String> lines = Files.lines(csvPath)) {
-            lines.skip(1) // Skip header
-                    .forEach(line -> {
-                        try {
-                            SalesRecord record = parseLine(line);
-                            if (record != null) {
-                                records.add(record);
-                            } else {
-                                errors.add("Failed to parse line: " + line);
-                            }
-                        } catch (Exception e) {
-                            errors.add("Error parsing line: " + line + " - " + e.getMessage());
-                        }
-                    });
+        try (BufferedReader reader = Files.newBufferedReader(csvPath)) {
+            reader.readLine(); // Skip header
+            String line;
+            while ((line = reader.readLine()) != null) {
+                SalesRecord record;
+                String error = null;
+                try {
+                    record = parseLine(line);
+                } catch (Exception e) {
+                    record = null;
+                    error = "Error parsing line: " + line + " - " + e.getMessage();
+                }
+                if (record != null) {
+                    // Outside the try, so failures of the action are not taken for bad rows
+                    action.accept(record);
+                    loaded++;
+                } else {
+                    if (errors.size() < MAX_LOGGED_ERRORS) {
+                        errors.add(error != null ? error : "Failed to parse line: " + line);
+                    }
+                    skipped++;
+                }
+            }
         }
 
-        logger.info("Loaded " + records.size() + " valid records");
-        if (!errors.isEmpty()) {
-            logger.warning("Skipped " + errors.size() + " invalid rows");
+        logger.info("Loaded " + loaded + " valid records");
+        if (skipped > 0) {
+            logger.warning("Skipped " + skipped + " invalid rows");
             errors.forEach(error -> logger.warning(error));
         }
-
-        return records;
+        return loaded;
     }
 
     /**
@@ -77,23 +135,23 @@ public class CsvSalesLoader {
                     DateUtils.parseDate(parts[3]),
                     DateUtils.parseDate(parts[4]),
                     parts[5].trim(),
-                    parts[6].trim(),
+                    dictionaries.intern(SalesDimension.CUSTOMER_SEGMENT, parts[6].trim()),
                     parts[7].trim(),
                     parts[8].trim(),
-                    parts[9].trim(),
+                    dictionaries.intern(SalesDimension.PRODUCT_CATEGORY, parts[9].trim()),
                     parseInt(parts[10]),
                     parseDouble(parts[11]),
                     parseDouble(parts[12]),
                     parseDouble(parts[13]),
                     parseDouble(parts[14]),
-                    parts[15].trim(),
-                    parts[16].trim(),
-                    parts[17].trim(),
-                    parts[18].trim(),
+                    dictionaries.intern(SalesDimension.CURRENCY, parts[15].trim()),
+                    dictionaries.intern(SalesDimension.REGION, parts[16].trim()),
+                    dictionaries.intern(SalesDimension.COUNTRY, parts[17].trim()),
+                    dictionaries.intern(SalesDimension.CHANNEL, parts[18].trim()),
                     parseBoolean(parts[19]),
                     parseBoolean(parts[20]),
                     parts[21].trim(),
-                    parts[22].trim(),
+                    dictionaries.intern(SalesDimension.PAYMENT_STATUS, parts[22].trim()),
                     parts[23].trim()
             );
         } catch (Exception e) {
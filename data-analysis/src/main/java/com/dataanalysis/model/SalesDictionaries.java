@@ -0,0 +1,46 @@
+package com.dataanalysis.model;
+
+import java.util.EnumMap;
+import java.util.Map;
+
+/**
+ * One {@link ValueDictionary} per {@link SalesDimension}, filled by the loader.
+ */
+public class SalesDictionaries {
+    private final Map<SalesDimension, ValueDictionary> dictionaries = new EnumMap<>(SalesDimension.class);
+
+    public SalesDictionaries() {
+        for (SalesDimension dimension : SalesDimension.values()) {
+            dictionaries.put(dimension, new ValueDictionary());
+        }
+    }
+
+    /**
+     * Creates a snapshot of other dictionaries; values added to either later are not seen by the other.
+     * @param other the dictionaries to copy
+     */
+    public SalesDictionaries(SalesDictionaries other) {
+        for (SalesDimension dimension : SalesDimension.values()) {
+            dictionaries.put(dimension, new ValueDictionary(other.get(dimension)));
+        }
+    }
+
+    /**
+     * Returns the dictionary of a dimension.
+     * @param dimension the dimension
+     * @return its dictionary
+     */
+    public ValueDictionary get(SalesDimension dimension) {
+        return dictionaries.get(dimension);
+    }
+
+    /**
+     * Returns the canonical instance of a dimension value.
+     * @param dimension the dimension
+     * @param value the column value
+     * @return the dictionary's instance equal to the value
+     */
+    public String intern(SalesDimension dimension, String value) {
+        return dictionaries.get(dimension).intern(value);
+    }
+}
@@ -0,0 +1,31 @@
+package com.dataanalysis.model;
+
+import java.util.function.Function;
+
+/**
+ * Low-cardinality string columns of a {@link SalesRecord} that are dictionary-encoded.
+ */
+public enum SalesDimension {
+    REGION(SalesRecord::region),
+    CHANNEL(SalesRecord::channel),
+    CUSTOMER_SEGMENT(SalesRecord::customerSegment),
+    PRODUCT_CATEGORY(SalesRecord::productCategory),
+    PAYMENT_STATUS(SalesRecord::paymentStatus),
+    CURRENCY(SalesRecord::currency),
+    COUNTRY(SalesRecord::country);
+
+    private final Function<SalesRecord, String> column;
+
+    SalesDimension(Function<SalesRecord, String> column) {
+        this.column = column;
+    }
+
+    /**
+     * Reads this dimension's value from a record.
+     * @param record the sales record
+     * @return the column value
+     */
+    public String extract(SalesRecord record) {
+        return column.apply(record);
+    }
+}
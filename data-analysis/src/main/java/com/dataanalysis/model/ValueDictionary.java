@@ -0,0 +1,108 @@
+package com.dataanalysis.model;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Maps the distinct values of a string column to dense int codes 0, 1, 2, ... in order of first
+ * appearance, so aggregates can be kept in arrays indexed by code.
+ * Not thread-safe while values are being added.
+ */
+public class ValueDictionary implements ValueLookup {
+    private final Map<String, Integer> codes = new HashMap<>();
+    private final List<String> values = new ArrayList<>();
+    private final ValueLookup readOnly = new ValueLookup() {
+        @Override
+        public int codeOf(String value) {
+            return ValueDictionary.this.codeOf(value);
+        }
+
+        @Override
+        public String decode(int code) {
+            return ValueDictionary.this.decode(code);
+        }
+
+        @Override
+        public int size() {
+            return ValueDictionary.this.size();
+        }
+    };
+
+    public ValueDictionary() {
+    }
+
+    /**
+     * Creates a dictionary holding the values of another one under the same codes.
+     * @param other the dictionary to copy
+     */
+    public ValueDictionary(ValueDictionary other) {
+        codes.putAll(other.codes);
+        values.addAll(other.values);
+    }
+
+    /**
+     * Returns the code of a value, adding the value if it is new.
+     * @param value the column value, may be null
+     * @return the code of the value
+     */
+    public int encode(String value) {
+        Integer code = codes.get(value);
+        if (code == null) {
+            code = values.size();
+            codes.put(value, code);
+            values.add(value);
+        }
+        return code;
+    }
+
+    /**
+     * Returns the code of a value without adding it.
+     * @param value the column value
+     * @return the code, or -1 if the value is not in the dictionary
+     */
+    @Override
+    public int codeOf(String value) {
+        Integer code = codes.get(value);
+        return code == null ? -1 : code;
+    }
+
+    /**
+     * Returns the canonical instance of a value, adding it if it is new. Records loaded through
+     * one dictionary share their strings, so equal values compare by reference and hash once.
+     * @param value the column value
+     * @return the dictionary's instance equal to the value
+     */
+    public String intern(String value) {
+        return values.get(encode(value));
+    }
+
+    /**
+     * Returns the value of a code.
+     * @param code a code returned by {@link #encode}
+     * @return the value
+     */
+    @Override
+    public String decode(int code) {
+        return values.get(code);
+    }
+
+    /**
+     * Returns the number of distinct values, which is also the next code.
+     * @return dictionary size
+     */
+    @Override
+    public int size() {
+        return values.size();
+    }
+
+    /**
+     * Returns a view of this dictionary that cannot add values. It sees values added through the
+     * dictionary itself, and every call returns the same view.
+     * @return the read-only view
+     */
+    public ValueLookup readOnly() {
+        return readOnly;
+    }
+}
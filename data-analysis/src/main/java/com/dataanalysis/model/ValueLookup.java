@@ -0,0 +1,27 @@
+package com.dataanalysis.model;
+
+/**
+ * Read-only access to the codes of a {@link ValueDictionary}.
+ */
+public interface ValueLookup {
+
+    /**
+     * Returns the code of a value.
+     * @param value the column value
+     * @return the code, or -1 if the value is not in the dictionary
+     */
+    int codeOf(String value);
+
+    /**
+     * Returns the value of a code.
+     * @param code a code of the dictionary
+     * @return the value
+     */
+    String decode(int code);
+
+    /**
+     * Returns the number of distinct values, which is also the next code.
+     * @return dictionary size
+     */
+    int size();
+}
@@ -0,0 +1,94 @@
+package com.dataanalysis.analytics;
+
+import com.dataanalysis.model.ValueDictionary;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class DimensionTotalsTest {
+
+    @Test
+    void testArraysCoverOnlyTheCodesMet() {
+        ValueDictionary dictionary = dictionary(100_000);
+        DimensionTotals totals = new DimensionTotals(dictionary);
+
+        totals.add(99_990, 1.0);
+        totals.add(99_999, 2.0);
+        totals.add(99_950, 4.0, 3);
+
+        assertTrue(totals.capacity() <= 64, "capacity " + totals.capacity());
+        assertTrue(totals.contains(99_950));
+        assertFalse(totals.contains(99_951));
+        assertFalse(totals.contains(0));
+        assertEquals(4.0, totals.revenue(99_950));
+        assertEquals(Map.of("V99990", 1L, "V99999", 1L, "V99950", 1L), totals.lineCountsByValue());
+        assertEquals(Map.of("V99990", 0L, "V99999", 0L, "V99950", 3L), totals.unitsByValue());
+    }
+
+    @Test
+    void testMergeOfSharedCodesInEitherOrder() {
+        ValueDictionary dictionary = dictionary(1000);
+        DimensionTotals low = new DimensionTotals(dictionary);
+        DimensionTotals high = new DimensionTotals(dictionary);
+        DimensionTotals all = new DimensionTotals(dictionary);
+        for (int code = 0; code < 1000; code++) {
+            DimensionTotals chunk = code < 500 ? low : high;
+            chunk.addMargin(code, code * 0.5, code * 1.5);
+            all.addMargin(code, code * 0.5, code * 1.5);
+        }
+        // A code met by both chunks
+        high.addMargin(10, 0.25, 1.0);
+        all.addMargin(10, 0.25, 1.0);
+
+        DimensionTotals lowFirst = new DimensionTotals(dictionary);
+        lowFirst.merge(low);
+        lowFirst.merge(high);
+        DimensionTotals highFirst = new DimensionTotals(dictionary);
+        highFirst.merge(high);
+        highFirst.merge(low);
+
+        for (DimensionTotals merged : new DimensionTotals[] {lowFirst, highFirst}) {
+            assertEquals(all.revenueByValue(), merged.revenueByValue());
+            assertEquals(all.grossProfitByValue(), merged.grossProfitByValue());
+            assertEquals(all.lineCountsByValue(), merged.lineCountsByValue());
+        }
+    }
+
+    @Test
+    void testCodeOrdersFollowStreamCollectors() {
+        ValueDictionary dictionary = new ValueDictionary();
+        DimensionTotals totals = new DimensionTotals(dictionary);
+        List<String> values = IntStream.range(2000, 5000).mapToObj(i -> "INV-" + i).toList();
+        for (String value : values) {
+            totals.add(totals.code(value), 1.0);
+        }
+
+        // groupingBy fills its map with computeIfAbsent, toMap copies it with putIfAbsent
+        Map<String, List<String>> grouped = values.stream().collect(Collectors.groupingBy(Function.identity()));
+        Map<String, String> copied = grouped.keySet().stream()
+                .collect(Collectors.toMap(Function.identity(), Function.identity()));
+
+        int[] groupingOrder = totals.codesInGroupingOrder();
+        assertEquals(List.copyOf(grouped.keySet()), decode(dictionary, groupingOrder));
+        assertEquals(List.copyOf(copied.keySet()), decode(dictionary, totals.inHashOrder(groupingOrder)));
+    }
+
+    private static List<String> decode(ValueDictionary dictionary, int[] codes) {
+        return Arrays.stream(codes).mapToObj(dictionary::decode).toList();
+    }
+
+    private static ValueDictionary dictionary(int size) {
+        ValueDictionary dictionary = new ValueDictionary();
+        for (int i = 0; i < size; i++) {
+            dictionary.encode("V" + i);
+        }
+        return dictionary;
+    }
+}
@@ -0,0 +1,256 @@
+package com.dataanalysis.analytics;
+
+import com.dataanalysis.generator.CsvDataGenerator;
+import com.dataanalysis.loader.CsvSalesLoader;
+import com.dataanalysis.model.*;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.util.*;
+import java.util.concurrent.ForkJoinPool;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ParallelAnalyticsTest {
+
+    private static final LocalDate AS_OF_DATE = LocalDate.of(2025, 3, 1);
+    // Relative tolerance documented on SalesAnalyticsService
+    private static final double TOLERANCE = 1e-9;
+
+    private List<SalesRecord> records;
+    private ForkJoinPool pool;
+    private SalesAnalyticsService sequential;
+    private SalesAnalyticsService parallel;
+
+    @BeforeEach
+    void setUp(@TempDir Path tempDir) throws Exception {
+        Path csvFile = tempDir.resolve("sales.csv");
+        new CsvDataGenerator(LocalDate.of(2023, 1, 1), LocalDate.of(2025, 1, 1)).generate(3000, csvFile);
+        records = new CsvSalesLoader().load(csvFile);
+
+        pool = new ForkJoinPool(4);
+        sequential = new SalesAnalyticsService();
+        parallel = new SalesAnalyticsService(pool, 97);
+    }
+
+    @AfterEach
+    void tearDown() {
+        pool.shutdown();
+    }
+
+    @Test
+    void testSequentialAccumulatorsMatchStreamPipelines() {
+        assertEquals(StreamReference.marginSummary(records), sequential.calculateMarginSummary(records));
+        assertEquals(StreamReference.agingSummary(records, AS_OF_DATE),
+                sequential.calculateAgingSummary(records, AS_OF_DATE));
+        assertEquals(StreamReference.cashVsAccrualRevenue(records), sequential.cashVsAccrualRevenue(records));
+    }
+
+    @Test
+    void testParallelRevenueMatchesSequential() {
+        RevenueSummary expected = sequential.calculateRevenueSummary(records);
+        RevenueSummary actual = parallel.calculateRevenueSummary(records);
+
+        assertClose(expected.totalNetRevenue(), actual.totalNetRevenue());
+        assertEquals(expected.totalUnitsSold(), actual.totalUnitsSold());
+        assertClose(expected.averageOrderValue(), actual.averageOrderValue());
+        assertClose(expected.averageSellingPrice(), actual.averageSellingPrice());
+        assertClose(expected.revenueByProduct(), actual.revenueByProduct());
+        assertClose(expected.revenueByCategory(), actual.revenueByCategory());
+        assertClose(expected.revenueByRegion(), actual.revenueByRegion());
+        assertClose(expected.revenueByCountry(), actual.revenueByCountry());
+        assertClose(expected.revenueByChannel(), actual.revenueByChannel());
+        assertClose(expected.revenueByCustomerSegment(), actual.revenueByCustomerSegment());
+        assertEquals(expected.unitsByProduct(), actual.unitsByProduct());
+        assertEquals(expected.unitsByCustomerSegment(), actual.unitsByCustomerSegment());
+        assertEquals(expected.orderCountByProduct(), actual.orderCountByProduct());
+        assertEquals(expected.orderCountByChannel(), actual.orderCountByChannel());
+        assertClose(expected.revenueByMonth(), actual.revenueByMonth());
+        assertEquals(expected.unitsByMonth(), actual.unitsByMonth());
+        assertClose(expected.rolling3MonthAverageRevenue(), actual.rolling3MonthAverageRevenue());
+        assertClose(expected.totalDiscountAmount(), actual.totalDiscountAmount());
+        assertClose(expected.totalRefundImpact(), actual.totalRefundImpact());
+    }
+
+    @Test
+    void testParallelMarginMatchesSequential() {
+        MarginSummary expected = sequential.calculateMarginSummary(records);
+        MarginSummary actual = parallel.calculateMarginSummary(records);
+
+        assertClose(expected.totalGrossProfit(), actual.totalGrossProfit());
+        assertClose(expected.overallGrossMarginPercent(), actual.overallGrossMarginPercent());
+        assertClose(expected.grossProfitByProduct(), actual.grossProfitByProduct());
+        assertClose(expected.grossMarginPercentByProduct(), actual.grossMarginPercentByProduct());
+        assertClose(expected.grossProfitByCategory(), actual.grossProfitByCategory());
+        assertClose(expected.grossMarginPercentByRegion(), actual.grossMarginPercentByRegion());
+        assertEquals(expected.productMarginProfiles().keySet(), actual.productMarginProfiles().keySet());
+        expected.productMarginProfiles().forEach((productId, profile) ->
+                assertEquals(profile.productName(), actual.productMarginProfiles().get(productId).productName()));
+    }
+
+    @Test
+    void testParallelAgingAndCashAccrualMatchSequential() {
+        AgingSummary expectedAging = sequential.calculateAgingSummary(records, AS_OF_DATE);
+        AgingSummary actualAging = parallel.calculateAgingSummary(records, AS_OF_DATE);
+
+        assertClose(expectedAging.totalOutstandingAmount(), actualAging.totalOutstandingAmount());
+        assertEquals(expectedAging.totalOpenInvoices(), actualAging.totalOpenInvoices());
+        assertClose(expectedAging.outstandingAmountByBucket(), actualAging.outstandingAmountByBucket());
+        assertEquals(expectedAging.invoiceCountByBucket(), actualAging.invoiceCountByBucket());
+
+        Map<String, Map<YearMonth, Double>> expectedViews = sequential.cashVsAccrualRevenue(records);
+        Map<String, Map<YearMonth, Double>> actualViews = parallel.cashVsAccrualRevenue(records);
+        assertEquals(List.of("accrual", "cash"), new ArrayList<>(actualViews.keySet()));
+        assertClose(expectedViews.get("accrual"), actualViews.get("accrual"));
+        assertClose(expectedViews.get("cash"), actualViews.get("cash"));
+    }
+
+    @Test
+    void testTableMatchesRecords() {
+        SalesTable table = SalesTable.of(records);
+
+        assertEquals(sequential.calculateRevenueSummary(records), sequential.calculateRevenueSummary(table));
+        assertEquals(sequential.calculateMarginSummary(records), sequential.calculateMarginSummary(table));
+        assertEquals(sequential.calculateAgingSummary(records, AS_OF_DATE),
+                sequential.calculateAgingSummary(table, AS_OF_DATE));
+        assertEquals(sequential.cashVsAccrualRevenue(records), sequential.cashVsAccrualRevenue(table));
+        assertEquals(sequential.topProductsByRevenue(records, 5), sequential.topProductsByRevenue(table, 5));
+        assertEquals(new ArrayList<>(sequential.topCustomersByRevenue(records, 5).keySet()),
+                new ArrayList<>(sequential.topCustomersByRevenue(table, 5).keySet()));
+        assertEquals(sequential.topRegionsByRevenue(records, 10), sequential.topRegionsByRevenue(table, 10));
+    }
+
+    @Test
+    void testParallelTableMatchesSequential() {
+        SalesTable table = SalesTable.of(records);
+
+        RevenueSummary expected = sequential.calculateRevenueSummary(records);
+        RevenueSummary actual = parallel.calculateRevenueSummary(table);
+        assertClose(expected.totalNetRevenue(), actual.totalNetRevenue());
+        assertClose(expected.averageOrderValue(), actual.averageOrderValue());
+        assertClose(expected.revenueByProduct(), actual.revenueByProduct());
+        assertEquals(expected.unitsByProduct(), actual.unitsByProduct());
+        assertEquals(expected.orderCountByChannel(), actual.orderCountByChannel());
+        assertClose(expected.revenueByMonth(), actual.revenueByMonth());
+
+        MarginSummary expectedMargin = sequential.calculateMarginSummary(records);
+        MarginSummary actualMargin = parallel.calculateMarginSummary(table);
+        assertClose(expectedMargin.grossProfitByProduct(), actualMargin.grossProfitByProduct());
+        expectedMargin.productMarginProfiles().forEach((productId, profile) ->
+                assertEquals(profile.productName(), actualMargin.productMarginProfiles().get(productId).productName()));
+
+        AgingSummary expectedAging = sequential.calculateAgingSummary(records, AS_OF_DATE);
+        AgingSummary actualAging = parallel.calculateAgingSummary(table, AS_OF_DATE);
+        assertEquals(expectedAging.invoiceCountByBucket(), actualAging.invoiceCountByBucket());
+        assertClose(expectedAging.outstandingAmountByBucket(), actualAging.outstandingAmountByBucket());
+
+        assertClose(sequential.cashVsAccrualRevenue(records).get("cash"), parallel.cashVsAccrualRevenue(table).get("cash"));
+    }
+
+    @Test
+    void testTableAccumulatorRejectsOtherRows() {
+        SalesTable table = SalesTable.of(records);
+        SalesTable other = SalesTable.of(records.subList(0, 10));
+
+        assertThrows(IllegalStateException.class, () -> new RevenueAccumulator(table).accept(records.get(0)));
+        assertThrows(IllegalArgumentException.class, () -> new MarginAccumulator(table).accept(other, 0));
+        assertThrows(IllegalArgumentException.class, () -> new InvoiceAccumulator().accept(table, 0));
+    }
+
+    @Test
+    void testInvoiceSplitAcrossChunksKeepsFirstLineItem() {
+        LocalDate date = LocalDate.of(2025, 1, 10);
+        List<SalesRecord> lines = new ArrayList<>();
+        for (int i = 0; i < 10; i++) {
+            // Only the first line carries the due date the invoice is aged by
+            LocalDate dueDate = i == 0 ? date : date.plusMonths(6);
+            lines.add(new SalesRecord(
+                    "TXN-" + i, "INV-1", date, null, dueDate,
+                    "CUST-1", "SMB", "PROD-A", "Product A", "Software",
+                    1, 10.0, 0.0, 0.0, 5.0,
+                    "USD", "CA", "US", "Online",
+                    false, false, "", "UNPAID", "CA-STATE"
+            ));
+        }
+
+        SalesAnalyticsService chunked = new SalesAnalyticsService(pool, 1);
+        for (AgingSummary aging : List.of(chunked.calculateAgingSummary(lines, AS_OF_DATE),
+                chunked.calculateAgingSummary(SalesTable.of(lines), AS_OF_DATE))) {
+            assertEquals(1, aging.totalOpenInvoices());
+            assertEquals(100.0, aging.totalOutstandingAmount(), 0.01);
+            assertEquals(Map.of("31-60", 1L), aging.invoiceCountByBucket());
+        }
+    }
+
+    @Test
+    void testChunkAccumulatorAllocatesForItsChunkOnly() {
+        SalesTable table = SalesTable.of(records);
+        assertTrue(table.invoiceDictionary().size() > 1000);
+
+        // The last chunk meets the highest invoice codes of the table
+        InvoiceAccumulator last = new InvoiceAccumulator(table);
+        for (int row = table.size() - 100; row < table.size(); row++) {
+            last.accept(table, row);
+        }
+        assertTrue(last.capacity() <= 256, "capacity " + last.capacity());
+
+        InvoiceAccumulator first = new InvoiceAccumulator(table);
+        for (int row = 0; row < 100; row++) {
+            first.accept(table, row);
+        }
+        first.merge(last);
+        InvoiceAccumulator both = new InvoiceAccumulator(table);
+        for (int row = 0; row < 100; row++) {
+            both.accept(table, row);
+        }
+        for (int row = table.size() - 100; row < table.size(); row++) {
+            both.accept(table, row);
+        }
+        assertEquals(both.toAgingSummary(AS_OF_DATE), first.toAgingSummary(AS_OF_DATE));
+    }
+
+    @Test
+    void testMergedRecordChunksKeepFirstAppearanceOrder() {
+        ValueDictionary invoiceIds = new ValueDictionary();
+        InvoiceAccumulator merged = new InvoiceAccumulator(invoiceIds);
+        InvoiceAccumulator chunk = new InvoiceAccumulator();
+        for (int i = 0; i < records.size(); i++) {
+            if (i % 400 == 0) {
+                merged.merge(chunk);
+                chunk = new InvoiceAccumulator();
+            }
+            chunk.accept(records.get(i));
+        }
+        merged.merge(chunk);
+
+        // Codes of the merged invoices follow first appearance, as in a single pass
+        List<String> firstAppearance = records.stream().map(SalesRecord::invoiceId).distinct().toList();
+        assertEquals(firstAppearance.size(), invoiceIds.size());
+        for (int code = 0; code < invoiceIds.size(); code++) {
+            assertEquals(firstAppearance.get(code), invoiceIds.decode(code));
+        }
+        assertEquals(sequential.calculateAgingSummary(records, AS_OF_DATE).invoiceCountByBucket(),
+                merged.toAgingSummary(AS_OF_DATE).invoiceCountByBucket());
+    }
+
+    @Test
+    void testInvalidChunkSize() {
+        assertThrows(IllegalArgumentException.class, () -> new SalesAnalyticsService(pool, 0));
+        assertThrows(NullPointerException.class, () -> new SalesAnalyticsService(null, 10));
+        assertNotNull(SalesAnalyticsService.parallel().calculateRevenueSummary(List.of()));
+    }
+
+    private static void assertClose(double expected, double actual) {
+        assertEquals(expected, actual, Math.abs(expected) * TOLERANCE);
+    }
+
+    private static <K> void assertClose(Map<K, Double> expected, Map<K, Double> actual) {
+        assertEquals(expected.keySet(), actual.keySet());
+        expected.forEach((key, value) -> assertClose(value, actual.get(key)));
+    }
+}
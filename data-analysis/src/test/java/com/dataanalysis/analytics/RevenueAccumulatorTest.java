@@ -0,0 +1,126 @@
+package com.dataanalysis.analytics;
+
+import com.dataanalysis.generator.CsvDataGenerator;
+import com.dataanalysis.loader.CsvSalesLoader;
+import com.dataanalysis.model.RevenueSummary;
+import com.dataanalysis.model.SalesRecord;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RevenueAccumulatorTest {
+
+    private List<SalesRecord> records;
+
+    @BeforeEach
+    void setUp(@TempDir Path tempDir) throws Exception {
+        Path csvFile = tempDir.resolve("sales.csv");
+        new CsvDataGenerator(LocalDate.of(2023, 1, 1), LocalDate.of(2025, 1, 1)).generate(2000, csvFile);
+        records = new ArrayList<>(new CsvSalesLoader().load(csvFile));
+
+        // A line without invoice date counts everywhere except in the monthly trends
+        records.add(new SalesRecord(
+                "TXN-X", "INV-X", null, null, null,
+                "CUST-X", "SMB", "PROD-X", "Product X", "Hardware",
+                3, 10.0, 1.5, 0.0, 4.0,
+                "USD", "CA", "US", "Online",
+                true, false, "", "UNPAID", "CA-STATE"
+        ));
+    }
+
+    @Test
+    void testSinglePassMatchesStreamPipelines() {
+        RevenueAccumulator accumulator = new RevenueAccumulator();
+        records.forEach(accumulator::accept);
+
+        assertEquals(StreamReference.revenueSummary(records), accumulator.toSummary());
+    }
+
+    @Test
+    void testMergedChunksMatchSinglePass() {
+        RevenueAccumulator whole = new RevenueAccumulator();
+        records.forEach(whole::accept);
+        RevenueSummary expected = whole.toSummary();
+
+        RevenueAccumulator merged = new RevenueAccumulator();
+        int chunk = records.size() / 3;
+        for (int from = 0; from < records.size(); from += chunk) {
+            RevenueAccumulator part = new RevenueAccumulator();
+            records.subList(from, Math.min(records.size(), from + chunk)).forEach(part::accept);
+            merged.merge(part);
+        }
+        RevenueSummary actual = merged.toSummary();
+
+        assertEquals(expected.totalNetRevenue(), actual.totalNetRevenue(), 1e-6);
+        assertEquals(expected.totalUnitsSold(), actual.totalUnitsSold());
+        assertEquals(expected.averageOrderValue(), actual.averageOrderValue(), 1e-6);
+        assertEquals(expected.totalDiscountAmount(), actual.totalDiscountAmount(), 1e-6);
+        assertEquals(expected.totalRefundImpact(), actual.totalRefundImpact(), 1e-6);
+        assertEquals(expected.unitsByProduct(), actual.unitsByProduct());
+        assertEquals(expected.orderCountByRegion(), actual.orderCountByRegion());
+        assertEquals(expected.unitsByMonth(), actual.unitsByMonth());
+        assertEquals(expected.revenueByMonth().keySet(), actual.revenueByMonth().keySet());
+        expected.revenueByCustomerSegment().forEach((segment, revenue) ->
+                assertEquals(revenue, actual.revenueByCustomerSegment().get(segment), 1e-6));
+    }
+
+    @Test
+    void testMergeTranslatesDictionaryCodes() {
+        // The two halves meet the regions in opposite order, so their codes differ
+        List<SalesRecord> first = List.of(line("CA", 100.0), line("TX", 10.0));
+        List<SalesRecord> second = List.of(line("TX", 20.0), line("NY", 5.0), line("CA", 1.0));
+
+        RevenueAccumulator merged = new RevenueAccumulator();
+        first.forEach(merged::accept);
+        RevenueAccumulator rest = new RevenueAccumulator();
+        second.forEach(rest::accept);
+        merged.merge(rest);
+        RevenueSummary summary = merged.toSummary();
+
+        assertEquals(Map.of("CA", 101.0, "TX", 30.0, "NY", 5.0), summary.revenueByRegion());
+        assertEquals(Map.of("CA", 2L, "TX", 2L, "NY", 1L), summary.orderCountByRegion());
+        assertEquals(Map.of("CA", 2L, "TX", 2L, "NY", 1L), summary.unitsByRegion());
+    }
+
+    @Test
+    void testEmptyAccumulator() {
+        RevenueSummary summary = new RevenueAccumulator().toSummary();
+
+        assertEquals(StreamReference.revenueSummary(List.of()), summary);
+        assertEquals(0.0, summary.averageOrderValue(), 0.01);
+        assertTrue(summary.revenueByProduct().isEmpty());
+    }
+
+    @Test
+    void testCompensatedSumMatchesDoubleStream() {
+        double[][] inputs = {
+                {0.1, 0.2, 0.3, 1e16, -1e16, 0.1},
+                {1e308, 1e308, -1e308},
+                {Double.POSITIVE_INFINITY, 1.0},
+                {Double.POSITIVE_INFINITY, Double.NEGATIVE_INFINITY},
+                {Double.NaN, 1.0},
+                {}
+        };
+        for (double[] values : inputs) {
+            CompensatedSum sum = new CompensatedSum();
+            Arrays.stream(values).forEach(sum::add);
+            assertEquals(Arrays.stream(values).sum(), sum.sum(), 0.0, Arrays.toString(values));
+        }
+    }
+
+    private static SalesRecord line(String region, double unitPrice) {
+        return new SalesRecord(
+                "TXN-1", "INV-1", LocalDate.of(2025, 1, 15), null, null,
+                "CUST-1", "SMB", "PROD-A", "Product A", "Software",
+                1, unitPrice, 0.0, 0.0, 0.0,
+                "USD", region, "US", "Online",
+                false, false, "", "UNPAID", "CA-STATE"
+        );
+    }
+}
@@ -0,0 +1,53 @@
+package com.dataanalysis.analytics;
+
+import com.dataanalysis.generator.CsvDataGenerator;
+import com.dataanalysis.loader.CsvSalesLoader;
+import com.dataanalysis.model.SalesRecord;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class StreamingAnalysisTest {
+
+    private static final LocalDate AS_OF_DATE = LocalDate.of(2025, 3, 1);
+
+    @Test
+    void testStreamingMatchesLoadedRecords(@TempDir Path tempDir) throws Exception {
+        Path csvFile = tempDir.resolve("sales.csv");
+        new CsvDataGenerator(LocalDate.of(2023, 1, 1), LocalDate.of(2025, 1, 1)).generate(3000, csvFile);
+        List<SalesRecord> records = new CsvSalesLoader().load(csvFile);
+        SalesAnalyticsService service = new SalesAnalyticsService();
+
+        StreamingAnalysis analysis = new StreamingAnalysis();
+        long count = new CsvSalesLoader().forEach(csvFile, analysis);
+
+        assertEquals(records.size(), count);
+        assertEquals(count, analysis.getRecordCount());
+        assertEquals(service.calculateRevenueSummary(records), analysis.revenueSummary());
+        assertEquals(service.calculateMarginSummary(records), analysis.marginSummary());
+        assertEquals(service.calculateAgingSummary(records, AS_OF_DATE), analysis.agingSummary(AS_OF_DATE));
+        assertEquals(service.cashVsAccrualRevenue(records), analysis.cashVsAccrualRevenue());
+        assertEquals(new ArrayList<>(service.topProductsByRevenue(records, 5).entrySet()),
+                new ArrayList<>(analysis.topProductsByRevenue(5).entrySet()));
+        assertEquals(new ArrayList<>(service.topCustomersByRevenue(records, 5).entrySet()),
+                new ArrayList<>(analysis.topCustomersByRevenue(5).entrySet()));
+        assertEquals(new ArrayList<>(service.topRegionsByRevenue(records, 10).entrySet()),
+                new ArrayList<>(analysis.topRegionsByRevenue(10).entrySet()));
+    }
+
+    @Test
+    void testEmptyStream() {
+        StreamingAnalysis analysis = new StreamingAnalysis();
+
+        assertEquals(0, analysis.getRecordCount());
+        assertEquals(0.0, analysis.revenueSummary().totalNetRevenue());
+        assertTrue(analysis.topCustomersByRevenue(5).isEmpty());
+        assertEquals(0, analysis.agingSummary(AS_OF_DATE).totalOpenInvoices());
+    }
+}
@@ -1,11 +1,15 @@
 package com.dataanalysis.loader;
 
+import com.dataanalysis.model.SalesDictionaries;
+import com.dataanalysis.model.SalesDimension;
 import com.dataanalysis.model.SalesRecord;
+import com.dataanalysis.model.SalesTable;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.io.TempDir;
 
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.util.ArrayList;
 import java.util.List;
 
 import static org.junit.jupiter.api.Assertions.*;
@@ -41,6 +45,45 @@ class CsvSalesLoaderTest {
         assertNull(second.paymentDate());
     }
 
+    @Test
+    void testDimensionValuesAreDictionaryEncoded(@TempDir Path tempDir) throws Exception {
+        Path csvFile = tempDir.resolve("sales.csv");
+        String csvContent = """
+                transaction_id,invoice_id,invoice_date,payment_date,due_date,customer_id,customer_segment,product_id,product_name,product_category,quantity,unit_price,discount_amount,tax_amount,cost_of_goods_sold,currency,region,country,channel,is_refund,is_subscription,subscription_plan,payment_status,tax_jurisdiction
+                TXN-1001,INV-2001,2025-01-15,2025-02-02,2025-02-01,CUST-101,SMB,PROD-1,Bookkeeping Software,Subscription,3,49.99,5.00,3.75,20.00,USD,CA,US,Online,false,true,Monthly,PAID,CA-STATE
+                TXN-1002,INV-2002,2025-01-20,,2025-02-05,CUST-102,Startup,PROD-2,Tax Tool,Software,1,99.99,0.00,8.00,50.00,USD,TX,US,Retail,false,false,,UNPAID,TX-STATE
+                TXN-1003,INV-2003,2025-01-21,,2025-02-06,CUST-101,SMB,PROD-1,Bookkeeping Software,Subscription,2,49.99,0.00,8.00,20.00,USD,CA,US,Online,false,true,Monthly,UNPAID,CA-STATE
+                """;
+
+        Files.write(csvFile, csvContent.getBytes());
+
+        CsvSalesLoader loader = new CsvSalesLoader();
+        List<SalesRecord> records = loader.load(csvFile);
+
+        assertSame(records.get(0).region(), records.get(2).region());
+        assertSame(records.get(0).country(), records.get(1).country());
+        assertSame(records.get(1).paymentStatus(), records.get(2).paymentStatus());
+
+        SalesDictionaries dictionaries = loader.getDictionaries();
+        assertEquals(2, dictionaries.get(SalesDimension.REGION).size());
+        assertEquals(1, dictionaries.get(SalesDimension.REGION).codeOf("TX"));
+        assertEquals(1, dictionaries.get(SalesDimension.CURRENCY).size());
+        assertEquals("Software", dictionaries.get(SalesDimension.PRODUCT_CATEGORY).decode(1));
+        assertEquals(2, dictionaries.get(SalesDimension.PAYMENT_STATUS).size());
+
+        SalesTable table = loader.loadTable(csvFile);
+        assertEquals(records.size(), table.size());
+        for (int row = 0; row < table.size(); row++) {
+            assertEquals(records.get(row), table.row(row));
+        }
+        assertEquals(1, table.dictionary(SalesDimension.REGION).codeOf("TX"));
+        assertEquals(2, dictionaries.get(SalesDimension.REGION).size());
+
+        // A later load through the same loader does not change the table's dictionaries
+        dictionaries.get(SalesDimension.REGION).encode("NY");
+        assertEquals(2, table.dictionary(SalesDimension.REGION).size());
+    }
+
     @Test
     void testLoadWithInvalidRows(@TempDir Path tempDir) throws Exception {
         Path csvFile = tempDir.resolve("sales.csv");
@@ -60,6 +103,32 @@ class CsvSalesLoaderTest {
         assertEquals(2, records.size());
     }
 
+    @Test
+    void testForEachStreamsValidRecordsInOrder(@TempDir Path tempDir) throws Exception {
+        Path csvFile = tempDir.resolve("sales.csv");
+        String csvContent = """
+                transaction_id,invoice_id,invoice_date,payment_date,due_date,customer_id,customer_segment,product_id,product_name,product_category,quantity,unit_price,discount_amount,tax_amount,cost_of_goods_sold,currency,region,country,channel,is_refund,is_subscription,subscription_plan,payment_status,tax_jurisdiction
+                TXN-1001,INV-2001,2025-01-15,2025-02-02,2025-02-01,CUST-101,SMB,PROD-1,Bookkeeping Software,Subscription,3,49.99,5.00,3.75,20.00,USD,CA,US,Online,false,true,Monthly,PAID,CA-STATE
+                invalid,line,with,too,few,fields
+                TXN-1002,INV-2002,2025-01-20,,2025-02-05,CUST-102,Startup,PROD-2,Tax Tool,Software,1,99.99,0.00,8.00,50.00,USD,TX,US,Retail,false,false,,UNPAID,TX-STATE
+                """;
+
+        Files.write(csvFile, csvContent.getBytes());
+
+        CsvSalesLoader loader = new CsvSalesLoader();
+        List<String> transactionIds = new ArrayList<>();
+        long count = loader.forEach(csvFile, record -> transactionIds.add(record.transactionId()));
+
+        assertEquals(2, count);
+        assertEquals(List.of("TXN-1001", "TXN-1002"), transactionIds);
+        assertEquals(2, loader.getDictionaries().get(SalesDimension.REGION).size());
+
+        // Failures of the action are not mistaken for invalid rows
+        assertThrows(IllegalStateException.class, () -> loader.forEach(csvFile, record -> {
+            throw new IllegalStateException("stop");
+        }));
+    }
+
     @Test
     void testLoadEmptyFile(@TempDir Path tempDir) throws Exception {
         Path csvFile = tempDir.resolve("empty.csv");
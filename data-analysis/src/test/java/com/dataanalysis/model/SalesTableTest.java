@@ -0,0 +1,99 @@
+package com.dataanalysis.model;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SalesTableTest {
+
+    @Test
+    void testRowsRoundTrip() {
+        List<SalesRecord> records = List.of(
+                record("TXN-1", "INV-1", "PROD-A", LocalDate.of(2025, 1, 10), LocalDate.of(2025, 1, 20), "PAID", false),
+                record("TXN-2", "INV-1", "PROD-B", LocalDate.of(2025, 1, 10), null, "UNPAID", true),
+                record("TXN-3", "INV-2", "PROD-A", null, null, "UNPAID", false)
+        );
+
+        SalesTable table = SalesTable.of(records);
+
+        assertEquals(3, table.size());
+        for (int row = 0; row < records.size(); row++) {
+            assertEquals(records.get(row), table.row(row));
+            assertEquals(records.get(row).netAmount(), table.netAmount(row));
+            assertEquals(records.get(row).grossProfit(), table.grossProfit(row));
+        }
+        assertEquals(table.invoiceCode(0), table.invoiceCode(1));
+        assertNotEquals(table.invoiceCode(1), table.invoiceCode(2));
+        assertEquals(SalesTable.NO_DATE, table.invoiceDay(2));
+        assertEquals(-2, table.units(1));
+        assertEquals("UNPAID", table.dimension(SalesDimension.PAYMENT_STATUS, 2));
+        assertEquals(table.code(SalesDimension.PAYMENT_STATUS, 1), table.code(SalesDimension.PAYMENT_STATUS, 2));
+    }
+
+    @Test
+    void testTransactionIdsKeepNonAsciiCharacters() {
+        SalesTable table = SalesTable.of(List.of(
+                record("TXN-Ü-1", "INV-1", "PROD-A", null, null, "PAID", false),
+                record("", "INV-1", "PROD-A", null, null, "PAID", false),
+                record("取引-2", "INV-1", "PROD-A", null, null, "PAID", false)
+        ));
+
+        assertEquals("TXN-Ü-1", table.transactionId(0));
+        assertEquals("", table.transactionId(1));
+        assertEquals("取引-2", table.transactionId(2));
+    }
+
+    @Test
+    void testBuilderGrowsAndCopiesDictionaries() {
+        SalesDictionaries dictionaries = new SalesDictionaries();
+        SalesTable.Builder builder = new SalesTable.Builder(dictionaries);
+        List<SalesRecord> records = new ArrayList<>();
+        for (int i = 0; i < 5000; i++) {
+            SalesRecord record = record("TXN-" + i, "INV-" + i / 3, "PROD-" + i % 7,
+                    LocalDate.of(2024, 1, 1).plusDays(i % 400), null, i % 2 == 0 ? "PAID" : "UNPAID", i % 11 == 0);
+            records.add(record);
+            builder.add(record);
+        }
+
+        SalesTable table = builder.build();
+
+        assertEquals(5000, table.size());
+        assertEquals(records.get(4999), table.row(4999));
+        assertEquals(1667, table.invoiceDictionary().size());
+        assertEquals(2, dictionaries.get(SalesDimension.PAYMENT_STATUS).size());
+        assertEquals(dictionaries.get(SalesDimension.PAYMENT_STATUS).codeOf("UNPAID"),
+                table.dictionary(SalesDimension.PAYMENT_STATUS).codeOf("UNPAID"));
+
+        // Values added to the builder's dictionaries later do not reach the table
+        dictionaries.get(SalesDimension.PAYMENT_STATUS).encode("OVERDUE");
+        assertEquals(2, table.dictionary(SalesDimension.PAYMENT_STATUS).size());
+        assertEquals(-1, table.dictionary(SalesDimension.PAYMENT_STATUS).codeOf("OVERDUE"));
+
+        // Callers get read-only views, so they cannot add values either
+        assertFalse(table.dictionary(SalesDimension.PAYMENT_STATUS) instanceof ValueDictionary);
+        assertFalse(table.invoiceDictionary() instanceof ValueDictionary);
+        assertSame(table.invoiceDictionary(), table.invoiceDictionary());
+    }
+
+    @Test
+    void testEmptyTable() {
+        SalesTable table = new SalesTable.Builder().build();
+        assertEquals(0, table.size());
+        assertThrows(IndexOutOfBoundsException.class, () -> table.quantity(0));
+    }
+
+    private static SalesRecord record(String transactionId, String invoiceId, String productId,
+                                      LocalDate invoiceDate, LocalDate dueDate, String paymentStatus, boolean refund) {
+        return new SalesRecord(
+                transactionId, invoiceId, invoiceDate, null, dueDate,
+                "CUST-1", "SMB", productId, "Product " + productId, "Software",
+                2, 49.99, 5.0, 3.5, 20.0,
+                "USD", "CA", "US", "Online",
+                refund, false, "", paymentStatus, "CA-STATE"
+        );
+    }
+}
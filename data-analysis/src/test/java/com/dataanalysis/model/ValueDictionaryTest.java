@@ -0,0 +1,56 @@
+package com.dataanalysis.model;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ValueDictionaryTest {
+
+    @Test
+    void testCodesFollowFirstAppearance() {
+        ValueDictionary dictionary = new ValueDictionary();
+
+        assertEquals(0, dictionary.encode("CA"));
+        assertEquals(1, dictionary.encode("TX"));
+        assertEquals(0, dictionary.encode("CA"));
+        assertEquals(2, dictionary.encode(null));
+        assertEquals(3, dictionary.size());
+        assertEquals("TX", dictionary.decode(1));
+        assertNull(dictionary.decode(2));
+    }
+
+    @Test
+    void testCodeOfDoesNotAdd() {
+        ValueDictionary dictionary = new ValueDictionary();
+        dictionary.encode("Online");
+
+        assertEquals(0, dictionary.codeOf("Online"));
+        assertEquals(-1, dictionary.codeOf("Retail"));
+        assertEquals(1, dictionary.size());
+    }
+
+    @Test
+    void testReadOnlyViewFollowsDictionary() {
+        ValueDictionary dictionary = new ValueDictionary();
+        ValueLookup view = dictionary.readOnly();
+        dictionary.encode("CA");
+
+        assertFalse(view instanceof ValueDictionary);
+        assertSame(view, dictionary.readOnly());
+        assertEquals(1, view.size());
+        assertEquals(0, view.codeOf("CA"));
+        assertEquals(-1, view.codeOf("TX"));
+        assertEquals("CA", view.decode(0));
+    }
+
+    @Test
+    void testInternReturnsCanonicalInstance() {
+        SalesDictionaries dictionaries = new SalesDictionaries();
+        String first = dictionaries.intern(SalesDimension.REGION, new String("NY"));
+        String second = dictionaries.intern(SalesDimension.REGION, new String("NY"));
+
+        assertSame(first, second);
+        assertEquals(1, dictionaries.get(SalesDimension.REGION).size());
+        assertEquals(0, dictionaries.get(SalesDimension.COUNTRY).size());
+    }
+}